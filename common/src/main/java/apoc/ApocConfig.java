@@ -54,6 +54,9 @@ public class ApocConfig extends LifecycleAdapter {
     public static final String APOC_CONFIG_JOBS_SCHEDULED_NUM_THREADS = "apoc.jobs.scheduled.num_threads";
     public static final String APOC_CONFIG_JOBS_POOL_NUM_THREADS = "apoc.jobs.pool.num_threads";
     public static final String APOC_CONFIG_JOBS_QUEUE_SIZE = "apoc.jobs.queue.size";
+    public static final String APOC_CONFIG_JOBS_POOL_TYPE = "apoc.jobs.pool.type";
+    public static final String APOC_CONFIG_JOBS_POOL_MAX_CONCURRENCY = "apoc.jobs.pool.max_concurrency";
+    public static final String APOC_CONFIG_JOBS_POOL_DATABASE_QUOTA = "apoc.jobs.pool.database_quota";
     public static final String APOC_CONFIG_INITIALIZER = "apoc.initializer";
     public static final String LOAD_FROM_FILE_ERROR = "Import from files not enabled, please set apoc.import.file.enabled=true in your apoc.conf";
 
@@ -1,6 +1,8 @@
 package apoc;
 
+import apoc.periodic.JobStatistics;
 import apoc.periodic.PeriodicUtils;
+import apoc.util.Util;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.kernel.api.procedure.GlobalProcedures;
@@ -8,9 +10,12 @@ import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 import org.neo4j.logging.Log;
 import org.neo4j.logging.internal.LogService;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
@@ -19,12 +24,17 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.stream.Stream;
 
@@ -32,6 +42,10 @@ public class Pools extends LifecycleAdapter {
 
     public final static int DEFAULT_SCHEDULED_THREADS = Runtime.getRuntime().availableProcessors() / 4;
     public final static int DEFAULT_POOL_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+    public final static int DEFAULT_VIRTUAL_MAX_CONCURRENCY = 1000;
+
+    public enum PoolType { PLATFORM, VIRTUAL }
+
     private final Log log;
     private final ApocConfig apocConfig;
 
@@ -39,7 +53,12 @@ public class Pools extends LifecycleAdapter {
     private ScheduledExecutorService scheduledExecutorService;
     private ExecutorService defaultExecutorService;
 
+    // per database views of the default executor, bounding the tasks a single database can have in it at once
+    private final Map<String, DatabaseQuotaExecutor> databaseExecutors = new ConcurrentHashMap<>();
+    private volatile int databaseQuota;
+
     private final Map<PeriodicUtils.JobInfo,Future> jobList = new ConcurrentHashMap<>();
+    private final Map<String, JobStatistics> jobStatistics = new ConcurrentHashMap<>();
 
     public Pools(LogService log, GlobalProcedures globalProceduresRegistry, ApocConfig apocConfig) {
 
@@ -64,11 +83,21 @@ public class Pools extends LifecycleAdapter {
             t.setDaemon(true);
             return t;
         };
-        this.singleExecutorService = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
-                threadFactory, new CallerBlocksPolicy());
+        PoolType poolType = PoolType.valueOf(apocConfig.getString(ApocConfig.APOC_CONFIG_JOBS_POOL_TYPE, PoolType.PLATFORM.name()).toUpperCase());
+        if (poolType == PoolType.VIRTUAL && !initVirtualExecutors()) {
+            log.warn("Virtual threads are not available in this JVM, falling back to %s=%s",
+                    ApocConfig.APOC_CONFIG_JOBS_POOL_TYPE, PoolType.PLATFORM.name().toLowerCase());
+            poolType = PoolType.PLATFORM;
+        }
 
-        this.defaultExecutorService = new ThreadPoolExecutor(threads / 2, threads, 30L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
-                threadFactory, new CallerBlocksPolicy());
+        if (poolType == PoolType.PLATFORM) {
+            this.singleExecutorService = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
+                    threadFactory, new CallerBlocksPolicy());
+
+            this.defaultExecutorService = new ThreadPoolExecutor(threads / 2, threads, 30L, TimeUnit.SECONDS, new ResizableBlockingQueue<>(queueSize),
+                    threadFactory, new CallerBlocksPolicy());
+        }
+        this.databaseQuota = Math.max(0, apocConfig.getInt(ApocConfig.APOC_CONFIG_JOBS_POOL_DATABASE_QUOTA, 0));
 
         this.scheduledExecutorService = Executors.newScheduledThreadPool(
                 Math.max(1, apocConfig.getInt(ApocConfig.APOC_CONFIG_JOBS_SCHEDULED_NUM_THREADS, DEFAULT_SCHEDULED_THREADS)),
@@ -78,11 +107,44 @@ public class Pools extends LifecycleAdapter {
         scheduledExecutorService.scheduleAtFixedRate(() -> {
             for (Iterator<Map.Entry<PeriodicUtils.JobInfo, Future>> it = jobList.entrySet().iterator(); it.hasNext(); ) {
                 Map.Entry<PeriodicUtils.JobInfo, Future> entry = it.next();
-                if (entry.getValue().isDone() || entry.getValue().isCancelled()) it.remove();
+                if (entry.getValue().isDone() || entry.getValue().isCancelled()) {
+                    it.remove();
+                    jobStatistics.remove(entry.getKey().name);
+                }
             }
         },10,10,TimeUnit.SECONDS);
     }
 
+    /**
+     * Backs the default and the single executor by a virtual-thread-per-task executor each.
+     * As there is no queue anymore, the number of running tasks is bounded by a semaphore,
+     * the caller blocks when no permit is available, the same way as with the {@link CallerBlocksPolicy}.
+     *
+     * @return false if the JVM does not support virtual threads
+     */
+    private boolean initVirtualExecutors() {
+        ExecutorService virtualSingle = newVirtualThreadPerTaskExecutor();
+        ExecutorService virtualDefault = newVirtualThreadPerTaskExecutor();
+        if (virtualSingle == null || virtualDefault == null) {
+            return false;
+        }
+        int maxConcurrency = Math.max(1, apocConfig.getInt(ApocConfig.APOC_CONFIG_JOBS_POOL_MAX_CONCURRENCY, DEFAULT_VIRTUAL_MAX_CONCURRENCY));
+        this.singleExecutorService = new SemaphoreBoundedExecutor(virtualSingle, 1);
+        this.defaultExecutorService = new SemaphoreBoundedExecutor(virtualDefault, maxConcurrency);
+        return true;
+    }
+
+    /*
+     * looked up reflectively as virtual threads are final since Java 21, while we still compile against Java 17
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
     @Override
     public void shutdown() {
         Stream.of(singleExecutorService, defaultExecutorService, scheduledExecutorService).forEach( service -> {
@@ -107,10 +169,119 @@ public class Pools extends LifecycleAdapter {
         return defaultExecutorService;
     }
 
+    /**
+     * The default executor as seen by the jobs of a database: with `apoc.jobs.pool.database_quota` set,
+     * a database can't have more than that many tasks running or queued at once, the caller blocks otherwise,
+     * so that a heavy job of one database leaves room in the pool for the others.
+     *
+     * Only for tasks that don't wait on other tasks of the same database, to not block on its own quota.
+     * The quota covers the batches of the parallel `apoc.periodic.iterate` and `apoc.periodic.truncate`
+     * and the shards of the parallel CSV and JSON exports. It doesn't cover the triggers, `apoc.periodic.submit` and `apoc.periodic.repeat`,
+     * which are submitted from threads that must not block, nor the imports and the Arrow and Parquet exports,
+     * whose parallel tasks run in a pool of their own.
+     */
+    public ExecutorService getDefaultExecutorService(String databaseName) {
+        int quota = databaseQuota;
+        if (quota <= 0 || databaseName == null) {
+            return defaultExecutorService;
+        }
+        return databaseExecutors.computeIfAbsent(databaseName, name -> new DatabaseQuotaExecutor(defaultExecutorService, quota));
+    }
+
+    /**
+     * Changes the sizes of the pools while they are running, the changes are not persisted.
+     * Supported keys are `corePoolSize`, `maxPoolSize` and `queueSize` for the default pool of platform threads,
+     * `maxConcurrency` for the default pool of virtual threads, `scheduledPoolSize` and `databaseQuota` (0 to disable it).
+     */
+    public synchronized void resize(Map<String, Object> config) {
+        if (defaultExecutorService instanceof ThreadPoolExecutor) {
+            if (config.containsKey("maxConcurrency")) {
+                throw new IllegalArgumentException("maxConcurrency parameter is only supported with " + ApocConfig.APOC_CONFIG_JOBS_POOL_TYPE + "=virtual");
+            }
+            ThreadPoolExecutor executor = (ThreadPoolExecutor) defaultExecutorService;
+            int core = Util.toInteger(config.getOrDefault("corePoolSize", executor.getCorePoolSize()));
+            int max = Util.toInteger(config.getOrDefault("maxPoolSize", executor.getMaximumPoolSize()));
+            if (core < 0) {
+                throw new IllegalArgumentException("corePoolSize parameter must be >= 0");
+            }
+            if (max < 1 || max < core) {
+                throw new IllegalArgumentException("maxPoolSize parameter must be > 0 and >= corePoolSize");
+            }
+            if (config.containsKey("queueSize")) {
+                int queueSize = Util.toInteger(config.get("queueSize"));
+                if (queueSize < 1) {
+                    throw new IllegalArgumentException("queueSize parameter must be > 0");
+                }
+                ((ResizableBlockingQueue<Runnable>) executor.getQueue()).setCapacity(queueSize);
+            }
+            // the core size can never exceed the maximum one, not even in between
+            if (max >= executor.getCorePoolSize()) {
+                executor.setMaximumPoolSize(max);
+                executor.setCorePoolSize(core);
+            } else {
+                executor.setCorePoolSize(core);
+                executor.setMaximumPoolSize(max);
+            }
+        } else {
+            for (String key : List.of("corePoolSize", "maxPoolSize", "queueSize")) {
+                if (config.containsKey(key)) {
+                    throw new IllegalArgumentException(key + " parameter is only supported with " + ApocConfig.APOC_CONFIG_JOBS_POOL_TYPE + "=platform");
+                }
+            }
+            if (config.containsKey("maxConcurrency")) {
+                int maxConcurrency = Util.toInteger(config.get("maxConcurrency"));
+                if (maxConcurrency < 1) {
+                    throw new IllegalArgumentException("maxConcurrency parameter must be > 0");
+                }
+                ((SemaphoreBoundedExecutor) defaultExecutorService).setMaxConcurrency(maxConcurrency);
+            }
+        }
+        if (config.containsKey("scheduledPoolSize")) {
+            int scheduled = Util.toInteger(config.get("scheduledPoolSize"));
+            if (scheduled < 1) {
+                throw new IllegalArgumentException("scheduledPoolSize parameter must be > 0");
+            }
+            ((ScheduledThreadPoolExecutor) scheduledExecutorService).setCorePoolSize(scheduled);
+        }
+        if (config.containsKey("databaseQuota")) {
+            int quota = Util.toInteger(config.get("databaseQuota"));
+            if (quota < 0) {
+                throw new IllegalArgumentException("databaseQuota parameter must be >= 0");
+            }
+            databaseQuota = quota;
+            if (quota == 0) {
+                databaseExecutors.clear();
+            } else {
+                databaseExecutors.values().forEach(executor -> executor.setMaxConcurrency(quota));
+            }
+        }
+        log.info("Resized the APOC pools with %s", config);
+    }
+
+    /**
+     * Current size and utilisation of the default, single and scheduled pools,
+     * followed by the in-flight tasks of each database with a quota on the default pool.
+     */
+    public List<PoolStatistics> getPoolStatistics() {
+        List<PoolStatistics> result = new ArrayList<>();
+        result.add(PoolStatistics.of("default", defaultExecutorService));
+        result.add(PoolStatistics.of("single", singleExecutorService));
+        result.add(PoolStatistics.of("scheduled", scheduledExecutorService));
+        int quota = databaseQuota;
+        if (quota > 0) {
+            databaseExecutors.forEach((name, executor) -> result.add(PoolStatistics.of("default@" + name, executor)));
+        }
+        return result;
+    }
+
     public Map<PeriodicUtils.JobInfo, Future> getJobList() {
         return jobList;
     }
 
+    public Map<String, JobStatistics> getJobStatistics() {
+        return jobStatistics;
+    }
+
     static class CallerBlocksPolicy implements RejectedExecutionHandler {
         @Override
         public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
@@ -142,6 +313,270 @@ public class Pools extends LifecycleAdapter {
         }
     }
 
+    /**
+     * Bounded queue whose capacity can be changed while the pool is running, unlike an {@link ArrayBlockingQueue}.
+     * Lowering the capacity doesn't drop queued tasks, it only rejects the new ones until the queue got below it.
+     */
+    static class ResizableBlockingQueue<E> extends LinkedBlockingQueue<E> {
+        private volatile int capacity;
+        private final Object notFull = new Object();
+        private volatile int waiting;
+
+        ResizableBlockingQueue(int capacity) {
+            this.capacity = capacity;
+        }
+
+        int getCapacity() {
+            return capacity;
+        }
+
+        void setCapacity(int capacity) {
+            this.capacity = capacity;
+            signalNotFull();
+        }
+
+        @Override
+        public boolean offer(E e) {
+            synchronized (notFull) {
+                return size() < capacity && super.offer(e);
+            }
+        }
+
+        @Override
+        public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (notFull) {
+                waiting++;
+                try {
+                    while (!offer(e)) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) return false;
+                        TimeUnit.NANOSECONDS.timedWait(notFull, remaining);
+                    }
+                    return true;
+                } finally {
+                    waiting--;
+                }
+            }
+        }
+
+        @Override
+        public void put(E e) throws InterruptedException {
+            while (!offer(e, 250, TimeUnit.MILLISECONDS)) {
+                // wait until there is room
+            }
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return Math.max(0, capacity - size());
+        }
+
+        @Override
+        public E take() throws InterruptedException {
+            return signalNotFull(super.take());
+        }
+
+        @Override
+        public E poll() {
+            return signalNotFull(super.poll());
+        }
+
+        @Override
+        public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return signalNotFull(super.poll(timeout, unit));
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return signalNotFull(super.remove(o));
+        }
+
+        @Override
+        public int drainTo(Collection<? super E> c, int maxElements) {
+            return signalNotFull(super.drainTo(c, maxElements));
+        }
+
+        private <T> T signalNotFull(T result) {
+            signalNotFull();
+            return result;
+        }
+
+        private void signalNotFull() {
+            if (waiting > 0) {
+                synchronized (notFull) {
+                    notFull.notifyAll();
+                }
+            }
+        }
+    }
+
+    static class SemaphoreBoundedExecutor extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final ResizableSemaphore permits;
+        private final AtomicLong completedTasks = new AtomicLong();
+        private int maxConcurrency;
+
+        SemaphoreBoundedExecutor(ExecutorService delegate, int maxConcurrency) {
+            this.delegate = delegate;
+            // fair, so that with a single permit tasks run in submission order
+            this.permits = new ResizableSemaphore(maxConcurrency);
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        synchronized int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        /**
+         * Running tasks are not affected by lowering the bound, only the next ones wait until they are below it
+         */
+        synchronized void setMaxConcurrency(int maxConcurrency) {
+            int delta = maxConcurrency - this.maxConcurrency;
+            if (delta > 0) {
+                permits.release(delta);
+            } else if (delta < 0) {
+                permits.reducePermits(-delta);
+            }
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        int getRunning() {
+            return Math.max(0, getMaxConcurrency() - permits.availablePermits());
+        }
+
+        int getWaiting() {
+            return permits.getQueueLength();
+        }
+
+        long getCompletedTasks() {
+            return completedTasks.get();
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            try {
+                // wait for a permit, but also periodically check if the executor has been shut down
+                while (!permits.tryAcquire(250, TimeUnit.MILLISECONDS)) {
+                    if (delegate.isShutdown()) {
+                        throw new RejectedExecutionException("Executor has been shut down");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(e);
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        command.run();
+                    } finally {
+                        completedTasks.incrementAndGet();
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+
+    /**
+     * The tasks of a database on the default pool, whatever the type of its threads
+     */
+    static class DatabaseQuotaExecutor extends SemaphoreBoundedExecutor {
+        DatabaseQuotaExecutor(ExecutorService delegate, int quota) {
+            super(delegate, quota);
+        }
+    }
+
+    static class ResizableSemaphore extends Semaphore {
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+
+    public static class PoolStatistics {
+        public final String name;
+        public final String type;
+        public final long corePoolSize;
+        public final long maxPoolSize;
+        public final long poolSize;
+        public final long activeThreads;
+        public final long queued;
+        public final Long queueCapacity;
+        public final long completedTasks;
+        public final double utilisation;
+
+        public PoolStatistics(String name, String type, long corePoolSize, long maxPoolSize, long poolSize, long activeThreads,
+                              long queued, Long queueCapacity, long completedTasks, double utilisation) {
+            this.name = name;
+            this.type = type;
+            this.corePoolSize = corePoolSize;
+            this.maxPoolSize = maxPoolSize;
+            this.poolSize = poolSize;
+            this.activeThreads = activeThreads;
+            this.queued = queued;
+            this.queueCapacity = queueCapacity;
+            this.completedTasks = completedTasks;
+            this.utilisation = utilisation;
+        }
+
+        static PoolStatistics of(String name, ExecutorService service) {
+            if (service instanceof ThreadPoolExecutor) {
+                ThreadPoolExecutor executor = (ThreadPoolExecutor) service;
+                BlockingQueue<Runnable> queue = executor.getQueue();
+                boolean scheduled = executor instanceof ScheduledThreadPoolExecutor;
+                Long queueCapacity = queue instanceof ResizableBlockingQueue
+                        ? Long.valueOf(((ResizableBlockingQueue<Runnable>) queue).getCapacity())
+                        : scheduled ? null : Long.valueOf(queue.size() + queue.remainingCapacity());
+                // a scheduled pool never grows beyond its core size
+                int threads = scheduled ? executor.getCorePoolSize() : executor.getMaximumPoolSize();
+                int active = executor.getActiveCount();
+                return new PoolStatistics(name, PoolType.PLATFORM.name().toLowerCase(), executor.getCorePoolSize(), threads,
+                        executor.getPoolSize(), active, queue.size(), queueCapacity, executor.getCompletedTaskCount(),
+                        (double) active / Math.max(1, threads));
+            }
+            SemaphoreBoundedExecutor executor = (SemaphoreBoundedExecutor) service;
+            int max = executor.getMaxConcurrency();
+            int running = executor.getRunning();
+            String type = executor instanceof DatabaseQuotaExecutor ? "quota" : PoolType.VIRTUAL.name().toLowerCase();
+            return new PoolStatistics(name, type, 0, max, running, running, executor.getWaiting(), null,
+                    executor.getCompletedTasks(), (double) running / Math.max(1, max));
+        }
+    }
+
     public <T> Future<Void> processBatch(List<T> batch, GraphDatabaseService db, BiConsumer<Transaction, T> action) {
         return defaultExecutorService.submit(() -> {
                 try (Transaction tx = db.beginTx()) {
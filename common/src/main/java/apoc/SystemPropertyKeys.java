@@ -20,6 +20,12 @@ public enum SystemPropertyKeys  {
     params,
     paused,
 
+    // periodic iterate checkpoints
+    watermark,
+    rows,
+    batches,
+    failed,
+
     // dv
     data,
     
@@ -2,6 +2,7 @@ package apoc.export.cypher;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.function.Supplier;
 
 public interface ExportFileManager {
     PrintWriter getPrintWriter(String type);
@@ -11,4 +12,12 @@ public interface ExportFileManager {
     Object drain(String type);
 
     Boolean separatedFiles();
+
+    /**
+     * @return the writer of a file next to the exported one, named with the suffix like the separated files,
+     *      opened by the first call of the supplier, or null if the export is not written to a file
+     */
+    default Supplier<PrintWriter> getSidecarPrintWriter(String suffix) {
+        return null;
+    }
 }
@@ -11,6 +11,7 @@ import java.io.StringWriter;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 import static apoc.util.FileUtils.getOutputStream;
 
@@ -29,14 +30,40 @@ public class FileManagerFactory {
         }
         fileName = fileName.trim();
 
+        String fileType = fileName.substring(indexOfExtension(fileName, config) + 1);
+        return new PhysicalExportFileManager(fileType, fileName, separatedFiles, config);
+    }
+
+    /**
+     * @return the name of a file next to the exported one, with the suffix before the extension like the separated files,
+     *      e.g. `all.part-00000.csv.gz` for `all.csv.gz`
+     */
+    public static String fileNameWithSuffix(String fileName, String suffix, ExportConfig config) {
+        fileName = fileName.trim();
+        int indexOfDot = indexOfExtension(fileName, config);
+        if (indexOfDot == -1) {
+            return fileName + "." + suffix;
+        }
+        return fileName.substring(0, indexOfDot) + "." + suffix + fileName.substring(indexOfDot);
+    }
+
+    /**
+     * @return the name of a file next to the exported one, with the given extension instead of its own,
+     *      e.g. `all.manifest.json` for `all.csv.gz`
+     */
+    public static String fileNameWithExtension(String fileName, String extension, ExportConfig config) {
+        fileName = fileName.trim();
+        int indexOfDot = indexOfExtension(fileName, config);
+        return (indexOfDot == -1 ? fileName : fileName.substring(0, indexOfDot)) + "." + extension;
+    }
+
+    private static int indexOfExtension(String fileName, ExportConfig config) {
         final CompressionAlgo compressionAlgo = CompressionAlgo.valueOf(config.getCompressionAlgo());
 
         // In case of export with separated files (with bulkImport: true) in case of compressed file retrieve also the compression extension
         // e.g. from test.one.two.csv to test.one.two.nodes.LABELNAME.csv.gz, test.one.two.relationships.RELTYPE.csv.gz, etc...
         // otherwise it becomes test.one.two.nodes.LABELNAME.csv, etc..
-        int indexOfDot = StringUtils.lastOrdinalIndexOf(fileName, ".", compressionAlgo.equals(CompressionAlgo.NONE) ? 1 : 2);
-        String fileType = fileName.substring(indexOfDot + 1);
-        return new PhysicalExportFileManager(fileType, fileName, separatedFiles, config);
+        return StringUtils.lastOrdinalIndexOf(fileName, ".", compressionAlgo.equals(CompressionAlgo.NONE) ? 1 : 2);
     }
 
     private static class PhysicalExportFileManager implements ExportFileManager {
@@ -58,6 +85,16 @@ public class FileManagerFactory {
         @Override
         public PrintWriter getPrintWriter(String type) {
             String newFileName = this.separatedFiles ? normalizeFileName(fileName, type) : normalizeFileName(fileName, null);
+            return printWriterFor(newFileName);
+        }
+
+        @Override
+        public Supplier<PrintWriter> getSidecarPrintWriter(String suffix) {
+            String sidecarFileName = normalizeFileName(fileName, suffix);
+            return () -> printWriterFor(sidecarFileName);
+        }
+
+        private PrintWriter printWriterFor(String newFileName) {
             return writerCache.computeIfAbsent(newFileName, (key) -> {
                 OutputStream outputStream = getOutputStream(newFileName, config);
                 return outputStream == null ? null : new PrintWriter(outputStream);
@@ -67,6 +67,8 @@ public class ExportConfig extends CompressionConfig {
     private int unwindBatchSize;
     private long awaitForIndexes;
     private final Map<String, Object> samplingConfig;
+    private final int headerSampleSize;
+    private final int parallel;
 
     public int getBatchSize() {
         return batchSize;
@@ -121,6 +123,8 @@ public class ExportConfig extends CompressionConfig {
         this.batchSize = ((Number)config.getOrDefault("batchSize", DEFAULT_BATCH_SIZE)).intValue();
         this.sampling = toBoolean(config.getOrDefault("sampling", false));
         this.samplingConfig = (Map<String, Object>) config.getOrDefault("samplingConfig", new HashMap<>());
+        this.headerSampleSize = ((Number)config.getOrDefault("headerSampleSize", -1)).intValue();
+        this.parallel = ((Number)config.getOrDefault("parallel", 1)).intValue();
         this.unwindBatchSize = ((Number)getOptimizations().getOrDefault("unwindBatchSize", DEFAULT_UNWIND_BATCH_SIZE)).intValue();
         this.awaitForIndexes = ((Number)config.getOrDefault("awaitForIndexes", 300)).longValue();
         this.multipleRelationshipsWithType = toBoolean(config.get(RELS_WITH_TYPE_KEY));
@@ -136,6 +140,12 @@ public class ExportConfig extends CompressionConfig {
         if (!OptimizationType.NONE.equals(this.optimizationType) && this.unwindBatchSize > this.batchSize) {
             throw new RuntimeException("`unwindBatchSize` must be <= `batchSize`, but got [unwindBatchSize:" + unwindBatchSize + ", batchSize:" + batchSize + "]");
         }
+        if (this.headerSampleSize == 0 || this.headerSampleSize < -1) {
+            throw new RuntimeException("`headerSampleSize` must be -1 or > 0, but got [headerSampleSize:" + headerSampleSize + "]");
+        }
+        if (this.parallel < 1) {
+            throw new RuntimeException("`parallel` must be >= 1, but got [parallel:" + parallel + "]");
+        }
     }
 
     private void exportQuotes(Map<String, Object> config)
@@ -235,6 +245,26 @@ public class ExportConfig extends CompressionConfig {
     public boolean isSampling() {
         return sampling;
     }
+
+    /**
+     * @return the number of nodes and of relationships the csv header is collected from, so that the graph is read once,
+     *      or -1 to collect it from the whole graph first. The properties missing from a sampled header are written
+     *      to a `<file>.extra.csv` file as `_key` and `_value` columns, the value as a string without its type,
+     *      which no import reads: they have to be set by hand, e.g. with `apoc.load.csv` and `apoc.convert.fromJsonList`
+     *      or `toInteger` for the non-string values.
+     */
+    public int getHeaderSampleSize() {
+        return headerSampleSize;
+    }
+
+    /**
+     * @return the number of shards the whole database is exported to at the same time, or 1 to export it to a single file.
+     *      The shards are read in transactions of their own, so that they are not a consistent snapshot
+     *      of a database written to during the export, see {@link PartitionedExport}
+     */
+    public int getParallel() {
+        return parallel;
+    }
     
     public boolean ifNotExists() {
         return ifNotExists;
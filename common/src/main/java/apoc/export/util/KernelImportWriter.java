@@ -0,0 +1,215 @@
+package apoc.export.util;
+
+import org.neo4j.exceptions.KernelException;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.kernel.api.TokenWrite;
+import org.neo4j.internal.kernel.api.Write;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes the entities of an import through the kernel {@link Write} API, in transactions of `batchSize` entities.
+ *
+ * The labels, relationship types and property keys are resolved to their token ids once per import by {@link Tokens},
+ * instead of by name on every `addLabel` / `setProperty` of the Core API,
+ * so that the loaders can resolve the tokens of a file with its first row and write with the ids only.
+ */
+public class KernelImportWriter implements AutoCloseable {
+
+    /**
+     * The token ids by name, created if missing, which can be shared by the writers of the same import,
+     * as the tokens are committed on their own, regardless of the transaction creating them.
+     */
+    public static class Tokens {
+        private final Map<String, Integer> labels = new ConcurrentHashMap<>();
+        private final Map<String, Integer> relationshipTypes = new ConcurrentHashMap<>();
+        private final Map<String, Integer> propertyKeys = new ConcurrentHashMap<>();
+
+        public int label(KernelTransaction ktx, String name) {
+            return labels.computeIfAbsent(name, n -> resolve(ktx, n, TokenWrite::labelGetOrCreateForName));
+        }
+
+        public int relationshipType(KernelTransaction ktx, String name) {
+            return relationshipTypes.computeIfAbsent(name, n -> resolve(ktx, n, TokenWrite::relationshipTypeGetOrCreateForName));
+        }
+
+        public int propertyKey(KernelTransaction ktx, String name) {
+            return propertyKeys.computeIfAbsent(name, n -> resolve(ktx, n, TokenWrite::propertyKeyGetOrCreateForName));
+        }
+
+        private interface TokenResolver {
+            int getOrCreate(TokenWrite tokenWrite, String name) throws KernelException;
+        }
+
+        private static int resolve(KernelTransaction ktx, String name, TokenResolver resolver) {
+            try {
+                return resolver.getOrCreate(ktx.tokenWrite(), name);
+            } catch (KernelException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+    }
+
+    private final GraphDatabaseService db;
+    private final int batchSize;
+    private final Reporter reporter;
+    private final Tokens tokens;
+    // false if the transaction is managed by the caller
+    private final boolean owned;
+
+    private InternalTransaction tx;
+    private KernelTransaction ktx;
+    private Write write;
+    private int count = 0;
+    private int batchCount = 0;
+
+    public KernelImportWriter(GraphDatabaseService db, int batchSize, Reporter reporter) {
+        this(db, batchSize, reporter, new Tokens());
+    }
+
+    public KernelImportWriter(GraphDatabaseService db, int batchSize, Reporter reporter, Tokens tokens) {
+        this.db = db;
+        this.batchSize = batchSize;
+        this.reporter = reporter;
+        this.tokens = tokens;
+        this.owned = true;
+    }
+
+    private KernelImportWriter(InternalTransaction tx, Tokens tokens) {
+        this.db = null;
+        this.batchSize = Integer.MAX_VALUE;
+        this.reporter = null;
+        this.tokens = tokens;
+        this.owned = false;
+        this.tx = tx;
+        this.ktx = tx.kernelTransaction();
+    }
+
+    /**
+     * @return a writer within a transaction managed by the caller, e.g. by {@link apoc.util.Util#retryInTx},
+     *      which is neither committed nor closed by the writer
+     */
+    public static KernelImportWriter within(Transaction tx, Tokens tokens) {
+        return new KernelImportWriter((InternalTransaction) tx, tokens);
+    }
+
+    public int labelToken(String name) {
+        return tokens.label(kernelTransaction(), name);
+    }
+
+    public int relationshipTypeToken(String name) {
+        return tokens.relationshipType(kernelTransaction(), name);
+    }
+
+    public int propertyKeyToken(String name) {
+        return tokens.propertyKey(kernelTransaction(), name);
+    }
+
+    public long createNode(int[] labels) {
+        try {
+            return write().nodeCreateWithLabels(labels);
+        } catch (KernelException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    public void addLabel(long node, int label) {
+        try {
+            write().nodeAddLabel(node, label);
+        } catch (KernelException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    public void deleteNode(long node) {
+        write().nodeDelete(node);
+    }
+
+    public void setNodeProperty(long node, int propertyKey, Object value) {
+        try {
+            write().nodeSetProperty(node, propertyKey, toValue(value));
+        } catch (KernelException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    public long createRelationship(long startNode, int type, long endNode) {
+        try {
+            return write().relationshipCreate(startNode, type, endNode);
+        } catch (KernelException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    public void setRelationshipProperty(long relationship, int propertyKey, Object value) {
+        try {
+            write().relationshipSetProperty(relationship, propertyKey, toValue(value));
+        } catch (KernelException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Counts an entity written, committing the transaction every `batchSize` entities
+     */
+    public void increment() {
+        count++;
+        batchCount++;
+        if (batchCount >= batchSize) {
+            commit();
+            if (reporter != null) reporter.progress("commit after " + count + " row(s) ");
+        }
+    }
+
+    /**
+     * Commits the entities written so far, a new transaction is started by the next write
+     */
+    public void commit() {
+        if (tx == null || !owned) return;
+        try {
+            tx.commit();
+        } finally {
+            tx.close();
+            tx = null;
+            ktx = null;
+            write = null;
+            batchCount = 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        commit();
+        if (reporter != null) reporter.progress("finish after " + count + " row(s) ");
+    }
+
+    private static Value toValue(Object value) {
+        // e.g. the points and the durations of the json import are already values
+        return value instanceof Value ? (Value) value : Values.of(value);
+    }
+
+    private KernelTransaction kernelTransaction() {
+        if (tx == null) {
+            tx = (InternalTransaction) db.beginTx();
+            ktx = tx.kernelTransaction();
+        }
+        return ktx;
+    }
+
+    private Write write() {
+        if (write == null) {
+            try {
+                write = kernelTransaction().dataWrite();
+            } catch (KernelException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+        return write;
+    }
+}
@@ -91,6 +91,13 @@ public class MetaInformation {
         }
     }
 
+    /**
+     * Merges the key types collected from another part of the graph, as {@link #updateKeyTypes(Map, Entity)} does
+     */
+    public static void mergeKeyTypes(Map<String, Class> keyTypes, Map<String, Class> other) {
+        other.forEach((key, type) -> keyTypes.merge(key, type, (stored, value) -> stored.equals(value) ? stored : void.class));
+    }
+
     public final static Set<String> GRAPHML_ALLOWED = new HashSet<>(asList("boolean", "int", "long", "float", "double", "string"));
     
     public static String typeFor(Class value, Set<String> allowed) {
@@ -0,0 +1,160 @@
+package apoc.export.util;
+
+import apoc.Pools;
+import apoc.export.cypher.ExportFileManager;
+import apoc.export.cypher.FileManagerFactory;
+import apoc.result.ProgressInfo;
+import apoc.util.FileUtils;
+import apoc.util.JsonUtil;
+import apoc.util.Util;
+import org.apache.commons.lang3.StringUtils;
+import org.neo4j.cypher.export.SubGraph;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.Scan;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Exports the whole database as `parallel` shards written at the same time, `all.part-00000.csv` and so on for `all.csv`.
+ *
+ * Each shard reads the batches of records it reserves from node and relationship store scans shared by all the shards,
+ * see {@link ScanSubGraph}, in a transaction of its own, so that each shard is written by the format exactly as a smaller database would be.
+ * The shards are listed with their totals in a manifest, `all.manifest.json`.
+ *
+ * As every shard is read in a transaction of its own, the export is not a consistent snapshot:
+ * the nodes and the relationships created, updated or deleted while it runs may or may not be in it,
+ * and a relationship may be exported without its start or end node. The exports of a single file,
+ * without `parallel`, read the database in a single transaction instead.
+ */
+public class PartitionedExport {
+
+    /**
+     * Runs on a shard, within its transaction
+     */
+    public interface ShardTask<T> {
+        T run(int shard, InternalTransaction tx, SubGraph graph) throws Exception;
+    }
+
+    /**
+     * Writes a shard to its file, with a reporter of its own
+     */
+    public interface ShardWriter {
+        void write(InternalTransaction tx, SubGraph graph, ExportFileManager file, Reporter reporter) throws Exception;
+    }
+
+    private final GraphDatabaseService db;
+    private final ExecutorService executor;
+    private final String fileName;
+    private final String format;
+    private final ExportConfig config;
+    private final int shards;
+
+    public PartitionedExport(GraphDatabaseService db, ExecutorService executor, String fileName, String format, ExportConfig config) {
+        if (StringUtils.isBlank(fileName) || config.streamStatements()) {
+            throw new RuntimeException("The `parallel` export needs a file name and can't be streamed, as every shard is written to a file");
+        }
+        if (config.isBulkImport()) {
+            throw new RuntimeException("You can't use the `bulkImport` with the `parallel` export");
+        }
+        this.db = db;
+        this.executor = executor;
+        this.fileName = fileName;
+        this.format = format;
+        this.config = config;
+        this.shards = config.getParallel();
+    }
+
+    /**
+     * Runs the task on every shard at the same time
+     *
+     * @return the results of the task, in the order of the shards
+     */
+    public <T> List<T> forEachShard(ShardTask<T> task) {
+        return forEachShard(db, executor, shards, task);
+    }
+
+    /**
+     * Runs the task on `shards` parts of the whole database at the same time, each one in a transaction of its own,
+     * with the scans of the stores shared by the shards opened in a transaction of their own as long as the shards run
+     *
+     * @return the results of the task, in the order of the shards
+     */
+    public static <T> List<T> forEachShard(GraphDatabaseService db, ExecutorService executor, int shards, ShardTask<T> task) {
+        try (InternalTransaction scanTx = (InternalTransaction) db.beginTx()) {
+            final Read read = scanTx.kernelTransaction().dataRead();
+            return forEachShard(db, executor, shards, read.allNodesScan(), read.allRelationshipsScan(), task);
+        }
+    }
+
+    private static <T> List<T> forEachShard(GraphDatabaseService db, ExecutorService executor, int shards,
+                                            Scan<NodeCursor> nodeScan, Scan<RelationshipScanCursor> relationshipScan, ShardTask<T> task) {
+        final List<Future<T>> futures = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            final int shard = i;
+            futures.add(executor.submit(() -> {
+                try (InternalTransaction tx = (InternalTransaction) db.beginTx()) {
+                    final T result = task.run(shard, tx, new ScanSubGraph(tx, nodeScan, relationshipScan));
+                    tx.commit();
+                    return result;
+                }
+            }));
+        }
+        // all the shards are awaited, so that none of them is still running once the export fails
+        final List<T> results = new ArrayList<>(shards);
+        RuntimeException failure = null;
+        for (Future<T> future : futures) {
+            try {
+                results.add(Pools.force(future));
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    final Throwable cause = e.getCause();
+                    failure = cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause.getMessage(), cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * Writes every shard to its own file, then the manifest, and adds the totals of the shards to the reporter
+     */
+    public void export(Reporter reporter, ShardWriter writer) {
+        final List<ProgressInfo> totals = forEachShard((shard, tx, graph) -> {
+            final String shardFileName = FileManagerFactory.fileNameWithSuffix(fileName, String.format("part-%05d", shard), config);
+            final ProgressReporter shardReporter = new ProgressReporter(null, null, new ProgressInfo(shardFileName, null, format));
+            writer.write(tx, graph, FileManagerFactory.createFileManager(shardFileName, false, config), shardReporter);
+            return shardReporter.getTotal();
+        });
+        for (ProgressInfo total : totals) {
+            reporter.update(total.nodes, total.relationships, total.properties);
+        }
+        writeManifest(totals);
+    }
+
+    private void writeManifest(List<ProgressInfo> totals) {
+        final String manifestFileName = FileManagerFactory.fileNameWithExtension(fileName, "manifest.json", config);
+        final List<Object> shardList = totals.stream()
+                .map(total -> Util.map("file", total.file, "nodes", total.nodes, "relationships", total.relationships, "properties", total.properties))
+                .collect(Collectors.toList());
+        // not compressed, as it is read to find the shards
+        try (OutputStream out = FileUtils.getOutputStream(manifestFileName)) {
+            JsonUtil.OBJECT_MAPPER.writeValue(out, Util.map("format", format, "shards", shardList));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package apoc.export.util;
+
+import apoc.util.collection.PrefetchingIterator;
+import org.neo4j.cypher.export.DatabaseSubGraph;
+import org.neo4j.cypher.export.SubGraph;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.schema.ConstraintDefinition;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.Scan;
+import org.neo4j.internal.kernel.api.security.AccessMode;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+
+import java.util.Iterator;
+
+/**
+ * The nodes and the relationships of a shard of the database, read in the given transaction,
+ * while the schema and the counts are the ones of the whole database.
+ *
+ * The records are reserved {@link #BATCH_SIZE} at a time from store scans shared by all the shards, as
+ * {@link apoc.util.kernel.MultiThreadedGlobalGraphOperations} does, so that the shards only read the records in use
+ * and a shard that is done takes over the rest of the stores. As the records are reserved while iterating,
+ * the nodes and the relationships of a shard can only be iterated once.
+ */
+public class ScanSubGraph implements SubGraph {
+    static final int BATCH_SIZE = 10_000;
+
+    private final InternalTransaction tx;
+    private final DatabaseSubGraph database;
+    private final Scan<NodeCursor> nodeScan;
+    private final Scan<RelationshipScanCursor> relationshipScan;
+
+    public ScanSubGraph(InternalTransaction tx, Scan<NodeCursor> nodeScan, Scan<RelationshipScanCursor> relationshipScan) {
+        this.tx = tx;
+        this.database = new DatabaseSubGraph(tx);
+        this.nodeScan = nodeScan;
+        this.relationshipScan = relationshipScan;
+    }
+
+    @Override
+    public Iterable<Node> getNodes() {
+        final KernelTransaction ktx = tx.kernelTransaction();
+        return () -> new PrefetchingIterator<>() {
+            NodeCursor cursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext());
+            boolean reserved;
+
+            @Override
+            protected Node fetchNextOrNull() {
+                while (cursor != null) {
+                    if (reserved && cursor.next()) {
+                        return tx.newNodeEntity(cursor.nodeReference());
+                    }
+                    reserved = nodeScan.reserveBatch(cursor, BATCH_SIZE, ktx.cursorContext(), AccessMode.Static.FULL);
+                    if (!reserved) {
+                        cursor.close();
+                        cursor = null;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public Iterable<Relationship> getRelationships() {
+        final KernelTransaction ktx = tx.kernelTransaction();
+        return () -> new PrefetchingIterator<>() {
+            RelationshipScanCursor cursor = ktx.cursors().allocateRelationshipScanCursor(ktx.cursorContext());
+            boolean reserved;
+
+            @Override
+            protected Relationship fetchNextOrNull() {
+                while (cursor != null) {
+                    if (reserved && cursor.next()) {
+                        return tx.newRelationshipEntity(cursor.relationshipReference(), cursor.sourceNodeReference(),
+                                cursor.type(), cursor.targetNodeReference());
+                    }
+                    reserved = relationshipScan.reserveBatch(cursor, BATCH_SIZE, ktx.cursorContext(), AccessMode.Static.FULL);
+                    if (!reserved) {
+                        cursor.close();
+                        cursor = null;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public Iterable<IndexDefinition> getIndexes() {
+        return database.getIndexes();
+    }
+
+    @Override
+    public Iterable<ConstraintDefinition> getConstraints(Label label) {
+        return database.getConstraints(label);
+    }
+
+    @Override
+    public Iterable<ConstraintDefinition> getConstraints(RelationshipType type) {
+        return database.getConstraints(type);
+    }
+
+    @Override
+    public Iterable<IndexDefinition> getIndexes(Label label) {
+        return database.getIndexes(label);
+    }
+
+    @Override
+    public Iterable<IndexDefinition> getIndexes(RelationshipType type) {
+        return database.getIndexes(type);
+    }
+
+    @Override
+    public Iterable<RelationshipType> getAllRelationshipTypesInUse() {
+        return database.getAllRelationshipTypesInUse();
+    }
+
+    @Override
+    public Iterable<Label> getAllLabelsInUse() {
+        return database.getAllLabelsInUse();
+    }
+
+    @Override
+    public long countsForRelationship(Label start, RelationshipType type, Label end) {
+        return database.countsForRelationship(start, type, end);
+    }
+
+    @Override
+    public long countsForNode(Label label) {
+        return database.countsForNode(label);
+    }
+
+    @Override
+    public Iterator<Node> findNodes(Label label) {
+        return database.findNodes(label);
+    }
+}
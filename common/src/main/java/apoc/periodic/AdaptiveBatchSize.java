@@ -0,0 +1,96 @@
+package apoc.periodic;
+
+import apoc.util.Util;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides the size of the next batch taken by `apoc.periodic.iterate`.
+ *
+ * With `adaptiveBatchSize: true` the size moves between `minBatchSize` and `maxBatchSize`:
+ * batches that failed or needed retries halve it, otherwise it is steered towards the size
+ * that would commit in `targetBatchTime` milliseconds, based on a moving average of the measured
+ * per-row commit latency. Without it the configured `batchSize` is always returned.
+ */
+public class AdaptiveBatchSize {
+    public static final long DEFAULT_TARGET_BATCH_TIME = 1000L;
+    private static final double SMOOTHING = 0.3d;
+
+    private final int min;
+    private final int max;
+    private final long targetNanos;
+    private final boolean adaptive;
+
+    private int current;
+    private double nanosPerRow = -1;
+
+    public AdaptiveBatchSize(int initial, int min, int max, long targetBatchTimeMillis) {
+        if (min < 1) {
+            throw new IllegalArgumentException("minBatchSize parameter must be > 0");
+        }
+        if (max < min) {
+            throw new IllegalArgumentException("maxBatchSize parameter must be >= minBatchSize");
+        }
+        if (targetBatchTimeMillis < 1) {
+            throw new IllegalArgumentException("targetBatchTime parameter must be > 0");
+        }
+        this.min = min;
+        this.max = max;
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetBatchTimeMillis);
+        this.adaptive = min != max;
+        this.current = clamp(initial);
+    }
+
+    public static AdaptiveBatchSize fixed(int batchSize) {
+        return new AdaptiveBatchSize(batchSize, batchSize, batchSize, DEFAULT_TARGET_BATCH_TIME);
+    }
+
+    public static AdaptiveBatchSize fromConfig(Map<String, Object> config, int batchSize) {
+        if (!Util.toBoolean(config.get("adaptiveBatchSize"))) {
+            return fixed(batchSize);
+        }
+        int min = Util.toInteger(config.getOrDefault("minBatchSize", Math.max(1, batchSize / 100)));
+        int max = Util.toInteger(config.getOrDefault("maxBatchSize", (int) Math.min(Integer.MAX_VALUE, batchSize * 10L)));
+        long target = Util.toLong(config.getOrDefault("targetBatchTime", DEFAULT_TARGET_BATCH_TIME));
+        return new AdaptiveBatchSize(batchSize, min, max, target);
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public synchronized int next() {
+        return current;
+    }
+
+    /**
+     * Feeds back the outcome of a finished batch.
+     *
+     * @param size the number of rows of the batch
+     * @param elapsedNanos the time spent executing and committing the batch, retries included
+     * @param retries the number of retries the batch needed
+     * @param failed whether the batch was finally rolled back
+     */
+    public synchronized void onBatchCompleted(int size, long elapsedNanos, long retries, boolean failed) {
+        if (!adaptive || size == 0) return;
+
+        if (failed || retries > 0) {
+            // lock contention or tx-state pressure: back off quickly
+            current = clamp(current / 2);
+            return;
+        }
+
+        double observed = (double) elapsedNanos / size;
+        nanosPerRow = nanosPerRow < 0 ? observed : SMOOTHING * observed + (1 - SMOOTHING) * nanosPerRow;
+
+        long ideal = (long) (targetNanos / Math.max(nanosPerRow, 1d));
+        // never move by more than a factor of two at once, a single slow batch should not collapse the size
+        long bounded = Math.max(current / 2, Math.min(ideal, current * 2L));
+        current = clamp(bounded);
+    }
+
+    private int clamp(long size) {
+        return (int) Math.max(min, Math.min(max, size));
+    }
+}
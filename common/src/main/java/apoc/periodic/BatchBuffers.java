@@ -0,0 +1,45 @@
+package apoc.periodic;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Recycles the row buffers of the batches of an `apoc.periodic.iterate`.
+ *
+ * A buffer is handed back once its batch is completed, so that the next batch read from the outer statement
+ * reuses its backing array instead of allocating a new list of `batchSize` elements.
+ * At most `capacity` free buffers are kept, as many as the batches that can be in flight at once.
+ */
+final class BatchBuffers {
+    private final ArrayBlockingQueue<ArrayList<Map<String, Object>>> free;
+
+    BatchBuffers(int capacity) {
+        this.free = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    ArrayList<Map<String, Object>> acquire() {
+        ArrayList<Map<String, Object>> buffer = free.poll();
+        return buffer == null ? new ArrayList<>() : buffer;
+    }
+
+    /**
+     * Same as {@link apoc.util.Util#take(Iterator, int)}, but fills a recycled buffer
+     */
+    List<Map<String, Object>> take(Iterator<Map<String, Object>> iterator, int batchSize) {
+        ArrayList<Map<String, Object>> buffer = acquire();
+        buffer.ensureCapacity(batchSize);
+        while (buffer.size() < batchSize && iterator.hasNext()) {
+            buffer.add(iterator.next());
+        }
+        return buffer;
+    }
+
+    void release(List<Map<String, Object>> buffer) {
+        if (!(buffer instanceof ArrayList)) return;
+        buffer.clear();
+        free.offer((ArrayList<Map<String, Object>>) buffer);
+    }
+}
@@ -0,0 +1,141 @@
+package apoc.periodic;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * The parameters of the inner statement of `apoc.periodic.iterate`: `_count` and `_batch` on top of the columns of the current row.
+ *
+ * A single instance is reset for every row of a batch instead of merging the row into a new map each time,
+ * which is safe because the parameters are converted by the query execution before the next row is handled.
+ */
+final class BatchParameters extends AbstractMap<String, Object> {
+    static final String COUNT = "_count";
+    static final String BATCH = "_batch";
+
+    private final List<Map<String, Object>> batch;
+    private final Set<Entry<String, Object>> entries = new Entries();
+    private final Entry<String, Object> countEntry = new ReservedEntry(COUNT);
+    private final Entry<String, Object> batchEntry = new ReservedEntry(BATCH);
+    private Map<String, Object> row = Collections.emptyMap();
+    private long count;
+
+    BatchParameters(List<Map<String, Object>> batch) {
+        this.batch = batch;
+    }
+
+    BatchParameters reset(Map<String, Object> row, long count) {
+        this.row = row == null ? Collections.emptyMap() : row;
+        this.count = count;
+        return this;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (COUNT.equals(key)) return count;
+        if (BATCH.equals(key)) return batch;
+        return row.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return COUNT.equals(key) || BATCH.equals(key) || row.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        int size = row.size() + 2;
+        if (row.containsKey(COUNT)) size--;
+        if (row.containsKey(BATCH)) size--;
+        return size;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        action.accept(COUNT, count);
+        action.accept(BATCH, batch);
+        row.forEach((key, value) -> {
+            if (!isReserved(key)) action.accept(key, value);
+        });
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return entries;
+    }
+
+    private static boolean isReserved(String key) {
+        return COUNT.equals(key) || BATCH.equals(key);
+    }
+
+    // reads the current value, so the same entry can be handed out for every row
+    private class ReservedEntry implements Entry<String, Object> {
+        private final String key;
+
+        ReservedEntry(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return get(key);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class Entries extends AbstractSet<Entry<String, Object>> {
+        @Override
+        public int size() {
+            return BatchParameters.this.size();
+        }
+
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+            return new Iterator<>() {
+                private final Iterator<Entry<String, Object>> rowEntries = row.entrySet().iterator();
+                private int reservedLeft = 2;
+                private Entry<String, Object> next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next != null || reservedLeft > 0) return true;
+                    while (rowEntries.hasNext()) {
+                        Entry<String, Object> entry = rowEntries.next();
+                        if (!isReserved(entry.getKey())) {
+                            next = entry;
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+
+                @Override
+                public Entry<String, Object> next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    if (reservedLeft > 0) {
+                        return reservedLeft-- == 2 ? countEntry : batchEntry;
+                    }
+                    Entry<String, Object> entry = next;
+                    next = null;
+                    return entry;
+                }
+            };
+        }
+    }
+}
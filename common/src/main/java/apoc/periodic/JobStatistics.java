@@ -0,0 +1,142 @@
+package apoc.periodic;
+
+import apoc.util.Util;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live counters of a running periodic job (iterate, commit, repeat or truncate), as returned by `apoc.periodic.stats`.
+ * Batches are reported by the job as soon as they are committed (or rolled back),
+ * so the figures can be looked at while the job is still running.
+ */
+public class JobStatistics {
+    public enum Type { ITERATE, COMMIT, REPEAT, TRUNCATE }
+
+    // the current throughput is measured over windows of this length
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final String name;
+    private final Type type;
+    private final long expectedTotal;
+    private final long start = System.nanoTime();
+
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    // runs of a repeat that were skipped or coalesced because the previous one was still running
+    private final AtomicLong skipped = new AtomicLong();
+    // batch latency in microseconds
+    private final Histogram latencies = new ConcurrentHistogram(3);
+
+    private long windowStart = start;
+    private long windowRows;
+    private double currentRate = -1;
+
+    /**
+     * @param expectedTotal the number of rows the job is expected to process, or a negative value if unknown
+     */
+    public JobStatistics(String name, Type type, long expectedTotal) {
+        this.name = name;
+        this.type = type;
+        this.expectedTotal = expectedTotal;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void onBatchCompleted(long batchRows, long elapsedNanos, long batchRetries, boolean failed) {
+        batches.incrementAndGet();
+        retries.addAndGet(batchRetries);
+        latencies.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+        if (failed) {
+            failedBatches.incrementAndGet();
+            return;
+        }
+        rows.addAndGet(batchRows);
+        updateRate(batchRows);
+    }
+
+    public void onSkipped() {
+        skipped.incrementAndGet();
+    }
+
+    private synchronized void updateRate(long batchRows) {
+        windowRows += batchRows;
+        long now = System.nanoTime();
+        long elapsed = now - windowStart;
+        if (elapsed >= RATE_WINDOW_NANOS) {
+            currentRate = windowRows * 1e9d / elapsed;
+            windowStart = now;
+            windowRows = 0;
+        }
+    }
+
+    private synchronized double rowsPerSecond(long elapsedNanos) {
+        if (currentRate >= 0) return currentRate;
+        // no full window yet, use the average since the start
+        return elapsedNanos == 0 ? 0 : rows.get() * 1e9d / elapsedNanos;
+    }
+
+    public Result toResult() {
+        long elapsedNanos = System.nanoTime() - start;
+        long processed = rows.get();
+        double rate = rowsPerSecond(elapsedNanos);
+        Long remaining = expectedTotal < 0 || rate <= 0
+                ? null
+                : (long) (Math.max(0, expectedTotal - processed) / rate);
+        return new Result(name, type.name().toLowerCase(), TimeUnit.NANOSECONDS.toSeconds(elapsedNanos),
+                processed, batches.get(), failedBatches.get(), retries.get(), skipped.get(), rate, remaining, latencyPercentiles());
+    }
+
+    private Map<String, Object> latencyPercentiles() {
+        Histogram copy = latencies.copy();
+        if (copy.getTotalCount() == 0) {
+            return Util.map();
+        }
+        return Util.map("min", toMillis(copy.getMinValue()),
+                "mean", copy.getMean() / 1000d,
+                "p50", toMillis(copy.getValueAtPercentile(50)),
+                "p90", toMillis(copy.getValueAtPercentile(90)),
+                "p99", toMillis(copy.getValueAtPercentile(99)),
+                "max", toMillis(copy.getMaxValue()));
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000d;
+    }
+
+    public static class Result {
+        public final String name;
+        public final String type;
+        public final long runtime;
+        public final long rows;
+        public final long batches;
+        public final long failedBatches;
+        public final long retries;
+        public final long skipped;
+        public final double rowsPerSecond;
+        public final Long estimatedRemaining;
+        public final Map<String, Object> batchLatency;
+
+        public Result(String name, String type, long runtime, long rows, long batches, long failedBatches, long retries,
+                      long skipped, double rowsPerSecond, Long estimatedRemaining, Map<String, Object> batchLatency) {
+            this.name = name;
+            this.type = type;
+            this.runtime = runtime;
+            this.rows = rows;
+            this.batches = batches;
+            this.failedBatches = failedBatches;
+            this.retries = retries;
+            this.skipped = skipped;
+            this.rowsPerSecond = rowsPerSecond;
+            this.estimatedRemaining = estimatedRemaining;
+            this.batchLatency = batchLatency;
+        }
+    }
+}
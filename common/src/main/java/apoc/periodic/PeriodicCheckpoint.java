@@ -0,0 +1,173 @@
+package apoc.periodic;
+
+import apoc.SystemLabels;
+import apoc.SystemPropertyKeys;
+import apoc.util.Util;
+import apoc.util.collection.Iterators;
+import org.apache.commons.lang3.tuple.Pair;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.logging.Log;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Persists the progress of an `apoc.periodic.iterate` in the system database, the same way the triggers are stored,
+ * so that an interrupted iteration can continue via `resumeFrom` after the last committed batch.
+ *
+ * The watermark is the value of the `checkpointColumn` in the last row of a batch, a number or a string
+ * the `cypherIterate` statement can compare to the `$_checkpoint` parameter.
+ * As parallel batches can complete out of order, the watermark only moves forward over an uninterrupted
+ * sequence of committed batches: a failed batch stops it for the rest of the iteration,
+ * which is persisted as `failed` so that the resumed iteration retries the rows from that batch on.
+ */
+public class PeriodicCheckpoint {
+    public static final String CHECKPOINT_PARAM = "_checkpoint";
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 10L;
+
+    private final GraphDatabaseService systemDb;
+    private final String databaseName;
+    private final String name;
+    private final String column;
+    private final long intervalNanos;
+    private final Log log;
+
+    // sequence number of a completed batch -> its watermark, while an earlier batch is still running
+    private final TreeMap<Long, Pair<Object, Long>> completed = new TreeMap<>();
+    private long nextSequence;
+    private long committedUpTo = -1;
+    private boolean stopped;
+    private long lastPersisted = System.nanoTime();
+
+    private Object watermark;
+    private long rows;
+    private long batches;
+
+    public PeriodicCheckpoint(GraphDatabaseService systemDb, String databaseName, String name, String column,
+                              long intervalSeconds, Map<String, Object> resumeFrom, Log log) {
+        this.systemDb = systemDb;
+        this.databaseName = databaseName;
+        this.name = name;
+        this.column = column;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+        this.log = log;
+        this.watermark = resumeFrom.get("watermark");
+        this.rows = Util.toLong(resumeFrom.getOrDefault("rows", 0L));
+        this.batches = Util.toLong(resumeFrom.getOrDefault("batches", 0L));
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * @return the value of the checkpoint column in the row, which has to be ordered to skip the rows up to it on resume
+     */
+    public Object watermarkOf(Map<String, Object> row) {
+        Object value = row.get(column);
+        if (!(value instanceof Number || value instanceof String)) {
+            throw new IllegalArgumentException("checkpointColumn parameter must be a column of numbers or strings, " +
+                    "but the column " + column + " has the value: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Called by the reader, in submission order
+     * @return the sequence number to be passed to {@link #onBatchCompleted(long, Object, long, boolean)}
+     */
+    public synchronized long nextSequence() {
+        return nextSequence++;
+    }
+
+    public void onBatchCompleted(long sequence, Object batchWatermark, long batchRows, boolean failed) {
+        boolean persist;
+        synchronized (this) {
+            if (stopped) return;
+            if (failed) {
+                // the watermark is frozen from now on, which is persisted right away for the resumed iteration
+                stopped = true;
+                persist = true;
+            } else {
+                completed.put(sequence, Pair.of(batchWatermark, batchRows));
+                while (!completed.isEmpty() && completed.firstKey() == committedUpTo + 1) {
+                    Pair<Object, Long> entry = completed.pollFirstEntry().getValue();
+                    committedUpTo++;
+                    if (entry.getRight() > 0) {
+                        watermark = entry.getLeft();
+                        rows += entry.getRight();
+                    }
+                    batches++;
+                }
+                long now = System.nanoTime();
+                persist = now - lastPersisted >= intervalNanos;
+                if (persist) lastPersisted = now;
+            }
+        }
+        if (failed) {
+            log.warn("A batch of the periodic iteration with the checkpoint " + name + " failed, its watermark won't move anymore");
+        }
+        if (persist) {
+            persist();
+        }
+    }
+
+    public void persist() {
+        Object currentWatermark;
+        long currentRows, currentBatches;
+        boolean currentFailed;
+        synchronized (this) {
+            currentWatermark = watermark;
+            currentRows = rows;
+            currentBatches = batches;
+            currentFailed = stopped;
+        }
+        try {
+            withSystemDb(systemDb, tx -> {
+                Node node = Util.mergeNode(tx, SystemLabels.ApocPeriodicCheckpoint, null,
+                        Pair.of(SystemPropertyKeys.database.name(), databaseName),
+                        Pair.of(SystemPropertyKeys.name.name(), name));
+                node.setProperty(SystemPropertyKeys.watermark.name(), Util.toJson(currentWatermark));
+                node.setProperty(SystemPropertyKeys.rows.name(), currentRows);
+                node.setProperty(SystemPropertyKeys.batches.name(), currentBatches);
+                node.setProperty(SystemPropertyKeys.failed.name(), currentFailed);
+                node.setProperty(SystemPropertyKeys.lastUpdated.name(), System.currentTimeMillis());
+                return null;
+            });
+        } catch (Exception e) {
+            // losing a checkpoint only means repeating some work on resume, the iteration itself can go on
+            log.warn("Unable to persist the checkpoint " + name + " of the periodic iteration", e);
+        }
+    }
+
+    /**
+     * @return the persisted `watermark`, `rows`, `batches` and `failed` of the checkpoint
+     * @throws IllegalArgumentException if there is no checkpoint with the name, as the iteration would start over
+     */
+    public static Map<String, Object> load(GraphDatabaseService systemDb, String databaseName, String name) {
+        return withSystemDb(systemDb, tx -> {
+            Node node = Iterators.singleOrNull(tx.findNodes(SystemLabels.ApocPeriodicCheckpoint,
+                    SystemPropertyKeys.database.name(), databaseName,
+                    SystemPropertyKeys.name.name(), name));
+            if (node == null) {
+                throw new IllegalArgumentException("There is no checkpoint " + name + " to resume from in the database " + databaseName);
+            }
+            return Util.map("watermark", Util.fromJson((String) node.getProperty(SystemPropertyKeys.watermark.name()), Object.class),
+                    "rows", node.getProperty(SystemPropertyKeys.rows.name()),
+                    "batches", node.getProperty(SystemPropertyKeys.batches.name()),
+                    "failed", node.getProperty(SystemPropertyKeys.failed.name(), false));
+        });
+    }
+
+    private static <T> T withSystemDb(GraphDatabaseService systemDb, Function<Transaction, T> action) {
+        try (Transaction tx = systemDb.beginTx()) {
+            T result = action.apply(tx);
+            tx.commit();
+            return result;
+        }
+    }
+}
@@ -4,32 +4,43 @@ import apoc.Pools;
 import apoc.util.Util;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.QueryStatistics;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.TerminationGuard;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.ToLongFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import static apoc.util.Util.merge;
 
 public class PeriodicUtils {
 
+    private static final long TERMINATION_CHECK_MILLIS = 50L;
+    private static final int MAX_PENDING_LANE_BATCHES = 2;
+
     private PeriodicUtils() {
 
     }
@@ -107,8 +118,8 @@ public class PeriodicUtils {
         @Override
         public final Long apply(Transaction txInThread) {
             if (Util.transactionIsTerminated(terminationGuard)) return 0L;
-            Map<String, Object> params = Util.map("_count", collector.getCount(), "_batch", batch);
-            return executeAndReportErrors(txInThread, consumer, params, batch, batch.size(), null, collector);
+            Map<String, Object> params = new BatchParameters(batch).reset(null, collector.getCount());
+            return executeAndReportErrors(txInThread, consumer, params, batch, batch.size(), collector);
         }
     }
 
@@ -124,25 +135,25 @@ public class PeriodicUtils {
         @Override
         public final Long apply(Transaction txInThread) {
             if (Util.transactionIsTerminated(terminationGuard)) return 0L;
-            AtomicLong localCount = new AtomicLong(collector.getCount());
-            return batch.stream().mapToLong(
-                    p -> {
-                        if (localCount.get() % 1000 == 0 && Util.transactionIsTerminated(terminationGuard)) {
-                            return 0;
-                        }
-                        Map<String, Object> params = merge(p, Util.map("_count", localCount.get(), "_batch", batch));
-                        return executeAndReportErrors(txInThread, consumer, params, batch, 1, localCount, collector);
-                    }).sum();
+            long localCount = collector.getCount();
+            long executed = 0;
+            // one parameter holder for the whole batch, reset for every row
+            BatchParameters params = new BatchParameters(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                if (localCount % 1000 == 0 && Util.transactionIsTerminated(terminationGuard)) {
+                    break;
+                }
+                executed += executeAndReportErrors(txInThread, consumer, params.reset(batch.get(i), localCount), batch, 1, collector);
+                localCount++;
+            }
+            return executed;
         }
     }
 
     private static long executeAndReportErrors(Transaction tx, BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer, Map<String, Object> params,
-                                        List<Map<String, Object>> batch, int returnValue, AtomicLong localCount, BatchAndTotalCollector collector) {
+                                        List<Map<String, Object>> batch, int returnValue, BatchAndTotalCollector collector) {
         try {
             QueryStatistics statistics = consumer.apply(tx, params);
-            if (localCount!=null) {
-                localCount.getAndIncrement();
-            }
             collector.updateStatistics(statistics);
             return returnValue;
         } catch (Exception e) {
@@ -189,49 +200,85 @@ public class PeriodicUtils {
             int batchsize, boolean parallel, boolean iterateList, long retries,
             Iterator<Map<String, Object>> iterator, BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer,
             int concurrency, int failedParams, String periodicId) {
+        return iterateAndExecuteBatchedInSeparateThread(db, terminationGuard, log, pools,
+                AdaptiveBatchSize.fixed(batchsize), parallel, iterateList, retries, iterator, consumer,
+                concurrency, failedParams, periodicId, null, new JobStatistics(periodicId, JobStatistics.Type.ITERATE, -1), null);
+    }
+
+    /**
+     * @param partitionBy if not null and parallel, the column whose value routes each row to one of
+     *                    `concurrency` serial lanes, so that rows with the same key are never committed concurrently
+     * @param statistics published via `apoc.periodic.stats` while the iteration is running
+     * @param checkpoint if not null, where the progress is persisted to be able to resume the iteration
+     */
+    public static Stream<BatchAndTotalResult> iterateAndExecuteBatchedInSeparateThread(
+            GraphDatabaseService db, TerminationGuard terminationGuard, Log log, Pools pools,
+            AdaptiveBatchSize batchSizer, boolean parallel, boolean iterateList, long retries,
+            Iterator<Map<String, Object>> iterator, BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer,
+            int concurrency, int failedParams, String periodicId, String partitionBy, JobStatistics statistics,
+            PeriodicCheckpoint checkpoint) {
+        pools.getJobStatistics().put(statistics.getName(), statistics);
+        try {
+            return iterateAndExecuteBatched(db, terminationGuard, log, pools, batchSizer, parallel, iterateList, retries,
+                    iterator, consumer, concurrency, failedParams, periodicId, partitionBy, statistics, checkpoint);
+        } finally {
+            pools.getJobStatistics().remove(statistics.getName());
+            if (checkpoint != null) {
+                checkpoint.persist();
+            }
+        }
+    }
+
+    private static Stream<BatchAndTotalResult> iterateAndExecuteBatched(
+            GraphDatabaseService db, TerminationGuard terminationGuard, Log log, Pools pools,
+            AdaptiveBatchSize batchSizer, boolean parallel, boolean iterateList, long retries,
+            Iterator<Map<String, Object>> iterator, BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer,
+            int concurrency, int failedParams, String periodicId, String partitionBy, JobStatistics statistics,
+            PeriodicCheckpoint checkpoint) {
 
-        ExecutorService pool = parallel ? pools.getDefaultExecutorService() : pools.getSingleExecutorService();
-        List<Future<Long>> futures = new ArrayList<>(concurrency);
+        ExecutorService pool = parallel ? pools.getDefaultExecutorService(db.databaseName()) : pools.getSingleExecutorService();
+        // the batches of a partitionBy lane are submitted by the completion of the previous one, on the worker threads
+        Queue<Future<Long>> futures = new ConcurrentLinkedQueue<>();
         BatchAndTotalCollector collector = new BatchAndTotalCollector(terminationGuard, failedParams);
-        AtomicInteger activeFutures = new AtomicInteger(0);
+        // a buffer for each batch in flight plus the one being read
+        BatchBuffers buffers = new BatchBuffers(parallel ? 2 * concurrency : 2);
+
+        // the slot has to be acquired by the caller, onCompleted hands it back once the batch is completed
+        BiConsumer<List<Map<String, Object>>, Runnable> submit = (batch, onCompleted) -> {
+            final int currentBatchSize = batch.size();
+            final long sequence = checkpoint == null ? 0 : checkpoint.nextSequence();
+            final Object batchWatermark = checkpoint == null || batch.isEmpty() ? null : checkpoint.watermarkOf(batch.get(currentBatchSize - 1));
+            ExecuteBatch executeBatch =
+                    iterateList ?
+                            new ListExecuteBatch(terminationGuard, collector, batch, consumer) :
+                            new OneByOneExecuteBatch(terminationGuard, collector, batch, consumer);
+
+            futures.add(submitBatch(log, pool, db, executeBatch, retries, collector,
+                    (elapsedNanos, batchRetries, failed, committed) -> {
+                        collector.incrementBatches();
+                        executeBatch.release();
+                        buffers.release(batch);
+                        batchSizer.onBatchCompleted(currentBatchSize, elapsedNanos, batchRetries, failed);
+                        statistics.onBatchCompleted(currentBatchSize, elapsedNanos, batchRetries, failed);
+                        if (checkpoint != null) {
+                            // a batch interrupted by the termination commits less rows than it has
+                            checkpoint.onBatchCompleted(sequence, batchWatermark, currentBatchSize, failed || committed < currentBatchSize);
+                        }
+                        onCompleted.run();
+                    }));
+            collector.incrementCount(currentBatchSize);
+            if (log.isDebugEnabled()) {
+                log.debug("Processed in periodic iteration with id %s, %d iterations of %d total", periodicId, currentBatchSize, collector.getCount());
+            }
+        };
 
-        do {
-            if (Util.transactionIsTerminated(terminationGuard)) break;
-
-            if (activeFutures.get() < concurrency || !parallel) {
-                // we have capacity, add a new Future to the list
-                activeFutures.incrementAndGet();
-
-                if (log.isDebugEnabled()) log.debug("Execute, in periodic iteration with id %s, no %d batch size ", periodicId, batchsize);
-                List<Map<String,Object>> batch = Util.take(iterator, batchsize);
-                final long currentBatchSize = batch.size();
-                ExecuteBatch executeBatch =
-                        iterateList ?
-                                new ListExecuteBatch(terminationGuard, collector, batch, consumer) :
-                                new OneByOneExecuteBatch(terminationGuard, collector, batch, consumer);
-
-                futures.add(Util.inTxFuture(log,
-                        pool,
-                        db,
-                        executeBatch,
-                        retries,
-                        retryCount -> collector.incrementRetried(),
-                        onComplete -> {
-                            collector.incrementBatches();
-                            executeBatch.release();
-                            activeFutures.decrementAndGet();
-                        }));
-                collector.incrementCount(currentBatchSize);
-                if (log.isDebugEnabled()) {
-                    log.debug("Processed in periodic iteration with id %s, %d iterations of %d total", periodicId, batchsize, collector.getCount());
-                }
+        try (TerminationWatch watch = new TerminationWatch(pools.getScheduledExecutorService(), terminationGuard)) {
+            if (parallel && partitionBy != null) {
+                iteratePartitioned(watch, batchSizer, buffers, iterator, concurrency, partitionBy, submit);
             } else {
-                // we can't block until the counter decrease as we might miss a cancellation, so
-                // let this thread be preempted for a bit before we check for cancellation or
-                // capacity.
-                LockSupport.parkNanos(1000);
+                iterateSequential(watch, log, batchSizer, buffers, iterator, parallel ? concurrency : 1, periodicId, submit);
             }
-        } while (iterator.hasNext());
+        }
 
         boolean wasTerminated = Util.transactionIsTerminated(terminationGuard);
         ToLongFunction<Future<Long>> toLongFunction = wasTerminated ?
@@ -247,6 +294,220 @@ public class PeriodicUtils {
         return Stream.of(collector.getResult());
     }
 
+    private static void iterateSequential(TerminationWatch watch, Log log, AdaptiveBatchSize batchSizer, BatchBuffers buffers,
+                                          Iterator<Map<String, Object>> iterator, int concurrency, String periodicId,
+                                          BiConsumer<List<Map<String, Object>>, Runnable> submit) {
+        // bounds the number of batches in flight, completed batches hand their slot back to the reader
+        Semaphore slots = watch.wakeUp(new Semaphore(concurrency));
+
+        do {
+            if (watch.isTerminated()) break;
+
+            // the outer result is bound to the procedure transaction, so it is read on this thread:
+            // the next batch is pulled while the previous ones are still committing and only then we wait for a slot
+            int batchsize = batchSizer.next();
+            if (log.isDebugEnabled()) log.debug("Execute, in periodic iteration with id %s, no %d batch size ", periodicId, batchsize);
+            List<Map<String,Object>> batch = buffers.take(iterator, batchsize);
+
+            if (!watch.acquire(slots)) break;
+            submit.accept(batch, slots::release);
+        } while (iterator.hasNext());
+    }
+
+    /**
+     * Routes every row to one of `lanes` buffers by the hash of its `partitionBy` value.
+     * The batches of a lane are committed one after the other, while different lanes run in parallel:
+     * the full buffers of a busy lane wait in its own queue, so that the reader only waits for a lane whose queue is full.
+     */
+    private static void iteratePartitioned(TerminationWatch watch, AdaptiveBatchSize batchSizer, BatchBuffers pool,
+                                           Iterator<Map<String, Object>> iterator, int lanes, String partitionBy,
+                                           BiConsumer<List<Map<String, Object>>, Runnable> submit) {
+        Lane[] laneQueues = new Lane[lanes];
+        List<Map<String, Object>>[] buffers = new List[lanes];
+        for (int i = 0; i < lanes; i++) {
+            laneQueues[i] = new Lane(watch, submit);
+            buffers[i] = pool.acquire();
+        }
+
+        try {
+            long rows = 0;
+            while (iterator.hasNext()) {
+                if (rows++ % 1000 == 0 && watch.isTerminated()) return;
+
+                Map<String, Object> row = iterator.next();
+                int lane = laneOf(row.get(partitionBy), lanes);
+                buffers[lane].add(row);
+                if (buffers[lane].size() >= batchSizer.next()) {
+                    if (!laneQueues[lane].offer(buffers[lane])) return;
+                    buffers[lane] = pool.acquire();
+                }
+            }
+
+            for (int lane = 0; lane < lanes; lane++) {
+                if (buffers[lane].isEmpty()) continue;
+                if (!laneQueues[lane].offer(buffers[lane])) return;
+            }
+        } finally {
+            // the queued batches are submitted by the workers, so every future is known once the lanes are idle
+            for (Lane lane : laneQueues) {
+                lane.awaitIdle();
+            }
+        }
+    }
+
+    /**
+     * The batches of a `partitionBy` lane: one is running at a time and up to {@link #MAX_PENDING_LANE_BATCHES}
+     * wait in the queue of the lane, the completion of a batch submits the next one of the queue.
+     */
+    private static class Lane {
+        private final TerminationWatch watch;
+        private final BiConsumer<List<Map<String, Object>>, Runnable> submit;
+        // the free places of the lane, the running batch included
+        private final Semaphore room;
+        private final Deque<List<Map<String, Object>>> pending = new ArrayDeque<>();
+        private boolean running;
+
+        Lane(TerminationWatch watch, BiConsumer<List<Map<String, Object>>, Runnable> submit) {
+            this.watch = watch;
+            this.submit = submit;
+            this.room = watch.wakeUp(new Semaphore(MAX_PENDING_LANE_BATCHES + 1));
+        }
+
+        /**
+         * Submits the batch, or queues it if the lane is busy, waiting only if the queue of the lane is full
+         * @return false if the transaction has been terminated meanwhile
+         */
+        boolean offer(List<Map<String, Object>> batch) {
+            if (!watch.acquire(room)) return false;
+            synchronized (this) {
+                if (running) {
+                    pending.add(batch);
+                    return true;
+                }
+                running = true;
+            }
+            submit.accept(batch, this::completed);
+            return true;
+        }
+
+        private void completed() {
+            room.release();
+            List<Map<String, Object>> next;
+            synchronized (this) {
+                if (watch.isTerminated()) {
+                    // the queued batches are dropped, as the running ones stop early
+                    room.release(pending.size());
+                    pending.clear();
+                }
+                next = pending.poll();
+                if (next == null) {
+                    running = false;
+                    return;
+                }
+            }
+            submit.accept(next, this::completed);
+        }
+
+        /**
+         * Waits until the queue of the lane is empty and its last batch is completed, or the transaction is terminated
+         */
+        void awaitIdle() {
+            for (int i = 0; i <= MAX_PENDING_LANE_BATCHES; i++) {
+                if (!watch.acquire(room)) return;
+            }
+        }
+    }
+
+    static int laneOf(Object key, int lanes) {
+        int hash = key instanceof Entity ? ((Entity) key).getElementId().hashCode() : Objects.hashCode(key);
+        return Math.floorMod(hash, lanes);
+    }
+
+    /**
+     * Watches the procedure transaction from the scheduler while the reader of an iteration waits for a batch slot.
+     * The reader blocks in {@link Semaphore#acquire()}: it is woken up by a completed batch handing its slot back,
+     * or by the watch, which releases a permit on every slot once it finds the transaction terminated.
+     */
+    static class TerminationWatch implements AutoCloseable {
+        private final TerminationGuard terminationGuard;
+        private final List<Semaphore> slots = new CopyOnWriteArrayList<>();
+        private final ScheduledFuture<?> watch;
+        private volatile boolean terminated;
+
+        TerminationWatch(ScheduledExecutorService scheduler, TerminationGuard terminationGuard) {
+            this.terminationGuard = terminationGuard;
+            this.watch = scheduler.scheduleWithFixedDelay(this::check, TERMINATION_CHECK_MILLIS, TERMINATION_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * @return the slot, released by the watch as well once the transaction is terminated
+         */
+        Semaphore wakeUp(Semaphore slot) {
+            slots.add(slot);
+            return slot;
+        }
+
+        private void check() {
+            if (!terminated && Util.transactionIsTerminated(terminationGuard)) {
+                terminated = true;
+                slots.forEach(Semaphore::release);
+            }
+        }
+
+        boolean isTerminated() {
+            return terminated || Util.transactionIsTerminated(terminationGuard);
+        }
+
+        /**
+         * Blocks until a slot is free
+         * @return false if the transaction has been terminated before the slot got free
+         */
+        boolean acquire(Semaphore slot) {
+            try {
+                slot.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return !isTerminated();
+        }
+
+        @Override
+        public void close() {
+            watch.cancel(false);
+        }
+    }
+
+    interface BatchCompletion {
+        void completed(long elapsedNanos, long retries, boolean failed, long committed);
+    }
+
+    /**
+     * Same as {@link Util#inTxFuture}, but the completion callback also receives the time taken,
+     * the number of retries, whether the batch was rolled back and otherwise the number of rows committed
+     */
+    private static Future<Long> submitBatch(Log log, ExecutorService pool, GraphDatabaseService db, ExecuteBatch executeBatch,
+                                            long maxRetries, BatchAndTotalCollector collector, BatchCompletion onComplete) {
+        try {
+            return pool.submit(() -> {
+                long start = System.nanoTime();
+                AtomicLong batchRetries = new AtomicLong();
+                Long result = null;
+                try {
+                    result = Util.retryInTx(log, db, executeBatch, 0, maxRetries, retryCount -> {
+                        collector.incrementRetried();
+                        batchRetries.incrementAndGet();
+                    });
+                    return result;
+                } finally {
+                    onComplete.completed(System.nanoTime() - start, batchRetries.get(), result == null, result == null ? 0 : result);
+                }
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error executing in separate transaction", e);
+        }
+    }
+
     public static Stream<JobInfo> submitProc(String name, String statement, Map<String, Object> config, GraphDatabaseService db, Log log, Pools pools) {
         Map<String,Object> params = (Map) config.getOrDefault("params", Collections.emptyMap());
         JobInfo info = submitJob(name, () -> {
@@ -1,6 +1,8 @@
 package apoc.util;
 
 import apoc.export.util.CountingInputStream;
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 import org.apache.commons.compress.compressors.deflate.DeflateCompressorInputStream;
@@ -9,12 +11,15 @@ import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorInputStream;
 import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorOutputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
 import org.apache.commons.compress.compressors.snappy.FramedSnappyCompressorInputStream;
 import org.apache.commons.compress.compressors.snappy.FramedSnappyCompressorOutputStream;
 import org.apache.commons.io.IOUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
@@ -28,7 +33,10 @@ public enum CompressionAlgo {
     BZIP2(BZip2CompressorOutputStream.class, BZip2CompressorInputStream.class),
     DEFLATE(DeflateCompressorOutputStream.class, DeflateCompressorInputStream.class),
     BLOCK_LZ4(BlockLZ4CompressorOutputStream.class, BlockLZ4CompressorInputStream.class),
-    FRAMED_SNAPPY(FramedSnappyCompressorOutputStream.class, FramedSnappyCompressorInputStream.class);
+    FRAMED_SNAPPY(FramedSnappyCompressorOutputStream.class, FramedSnappyCompressorInputStream.class),
+    FRAMED_LZ4(FramedLZ4CompressorOutputStream.class, FramedLZ4CompressorInputStream.class),
+    // zstd-jni is an optional dependency, its streams are only resolved by the ones of the ZSTD compression
+    ZSTD(null, null);
 
     private final Class<?> compressor;
     private final Class<?> decompressor;
@@ -47,10 +55,42 @@ public enum CompressionAlgo {
         }
     }
 
+    public byte[] compress(String string, CompressionConfig config) throws Exception {
+        try (ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
+            try (OutputStream outputStream = getOutputStream(stream, config)) {
+                outputStream.write(string.getBytes(config.getCharset()));
+            }
+            return stream.toByteArray();
+        }
+    }
+
     public OutputStream getOutputStream(OutputStream stream) throws Exception {
+        if (this == ZSTD) {
+            checkZstd();
+            return Zstd.outputStream(stream, null, 1, false);
+        }
         return isNone() ? stream : (OutputStream) compressor.getConstructor(OutputStream.class).newInstance(stream);
     }
 
+    /**
+     * As {@link #getOutputStream(OutputStream)}, with the threads, the level and the window of the config
+     */
+    public OutputStream getOutputStream(OutputStream stream, CompressionConfig config) throws Exception {
+        final int threads = config.getCompressionThreads();
+        switch (this) {
+            case GZIP:
+                if (threads > 1) {
+                    // in blocks written as gzip members of their own
+                    return new ParallelGzipOutputStream(stream, threads);
+                }
+                break;
+            case ZSTD:
+                checkZstd();
+                return Zstd.outputStream(stream, config.getCompressionLevel(), threads, config.isCompressionLongWindow());
+        }
+        return getOutputStream(stream);
+    }
+
     public String decompress(byte[] byteArray, Charset charset) throws Exception {
         try (ByteArrayInputStream stream = new ByteArrayInputStream(byteArray);
              InputStream inputStream = getInputStream(stream)) {
@@ -59,11 +99,54 @@ public enum CompressionAlgo {
     }
 
     public InputStream getInputStream(InputStream stream) throws Exception {
+        // every member of a gzip file, or frame of a lz4 one, is read, e.g. the ones of a ParallelGzipOutputStream
+        if (this == GZIP) {
+            return new GzipCompressorInputStream(stream, true);
+        }
+        if (this == FRAMED_LZ4) {
+            return new FramedLZ4CompressorInputStream(stream, true);
+        }
+        if (this == ZSTD) {
+            checkZstd();
+            return Zstd.inputStream(stream);
+        }
         return isNone() ? stream : (InputStream) decompressor.getConstructor(InputStream.class).newInstance(stream);
     }
 
     public boolean isNone() {
-        return compressor == null;
+        return this == NONE;
+    }
+
+    private static void checkZstd() {
+        if (!Util.classExists("com.github.luben.zstd.ZstdOutputStream")) {
+            throw new MissingDependencyException("Cannot find the zstd-jni jar in the plugins folder. \n" +
+                    "Please put the zstd-jni-x.y.z.jar file into the plugins folder to use the ZSTD compression.");
+        }
+    }
+
+    /**
+     * The only class referencing zstd-jni, so that it's loaded with the first ZSTD stream, and not with the enum
+     */
+    private static class Zstd {
+        // the window of `zstd --long`, which is also the largest one read without raising the limit of the decompression
+        private static final int LONG_WINDOW_LOG = 27;
+
+        static OutputStream outputStream(OutputStream stream, Integer level, int threads, boolean longWindow) throws IOException {
+            final ZstdOutputStream zstd = level == null
+                    ? new ZstdOutputStream(stream)
+                    : new ZstdOutputStream(stream, level);
+            if (threads > 1) {
+                zstd.setWorkers(threads);
+            }
+            if (longWindow) {
+                zstd.setLong(LONG_WINDOW_LOG);
+            }
+            return zstd;
+        }
+
+        static InputStream inputStream(InputStream stream) throws IOException {
+            return new ZstdInputStream(stream);
+        }
     }
 
     public CountingInputStream toInputStream(byte[] data) {
@@ -12,6 +12,9 @@ public class CompressionConfig {
 
     private final String compressionAlgo;
     private final Charset charset;
+    private final int compressionThreads;
+    private final Integer compressionLevel;
+    private final boolean compressionLongWindow;
 
     public CompressionConfig(Map<String, Object> config) {
         this(config, CompressionAlgo.NONE.name());
@@ -21,6 +24,13 @@ public class CompressionConfig {
         if (config == null) config = Collections.emptyMap();
         this.compressionAlgo = (String) config.getOrDefault(COMPRESSION, defaultCompression);
         this.charset = Charset.forName((String) config.getOrDefault(CHARSET, UTF_8.name()));
+        this.compressionThreads = ((Number) config.getOrDefault("compressionThreads", 1)).intValue();
+        final Number level = (Number) config.get("compressionLevel");
+        this.compressionLevel = level == null ? null : level.intValue();
+        this.compressionLongWindow = Util.toBoolean(config.get("compressionLongWindow"));
+        if (this.compressionThreads < 1) {
+            throw new RuntimeException("`compressionThreads` must be >= 1, but got [compressionThreads:" + compressionThreads + "]");
+        }
     }
 
     public String getCompressionAlgo() {
@@ -30,4 +40,26 @@ public class CompressionConfig {
     public Charset getCharset() {
         return charset;
     }
+
+    /**
+     * @return the number of threads the output is compressed on, with the `GZIP` and the `ZSTD` compressions,
+     *      or 1 to compress it on the thread writing it
+     */
+    public int getCompressionThreads() {
+        return compressionThreads;
+    }
+
+    /**
+     * @return the `ZSTD` compression level, or null for the default one
+     */
+    public Integer getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * @return whether the `ZSTD` compression matches over a 128MB window, like `zstd --long`
+     */
+    public boolean isCompressionLongWindow() {
+        return compressionLongWindow;
+    }
 }
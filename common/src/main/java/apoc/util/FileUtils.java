@@ -136,6 +136,24 @@ public class FileUtils {
         }
     }
 
+    /**
+     * @return the plain, uncompressed local file the input points to, after the same checks as {@link #inputStreamFor},
+     *      or null if the input is a binary, a remote url, an archive or a compressed file
+     */
+    public static File localFileFor(Object input, String compressionAlgo) throws IOException {
+        if (!(input instanceof String) || !CompressionAlgo.NONE.name().equals(compressionAlgo)) {
+            return null;
+        }
+        String fileName = (String) input;
+        if (!isFile(fileName) || ArchiveType.from(fileName).isArchive()) {
+            return null;
+        }
+        apocConfig().checkReadAllowed(fileName);
+        fileName = changeFileUrlIfImportDirectoryConstrained(fileName);
+        final StreamConnection connection = getStreamConnection(SupportedProtocols.file, fileName, null, null);
+        return ((StreamConnection.FileStreamConnection) connection).getFile();
+    }
+
     public static String changeFileUrlIfImportDirectoryConstrained(String url) throws IOException {
         if (isFile(url) && isImportUsingNeo4jConfig()) {
             if (!apocConfig().getBoolean(APOC_IMPORT_FILE_ALLOW__READ__FROM__FILESYSTEM)) {
@@ -232,7 +250,7 @@ public class FileUtils {
                 outputStream = new FileOutputStream( path.toFile() );
             }
             }
-            return new BufferedOutputStream(compressionAlgo.getOutputStream(outputStream));
+            return new BufferedOutputStream(compressionAlgo.getOutputStream(outputStream, config));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,148 @@
+package apoc.util;
+
+import apoc.Pools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses blocks of `blockSize` bytes on `threads` threads of its own, like pigz, each of them to a gzip member
+ * written in the order of the blocks, so that the output is a multi-member gzip file,
+ * read as a whole by {@link CompressionAlgo#GZIP} as by `gunzip`.
+ * Up to `2 * threads` blocks are compressed or waiting to be written at the same time.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private static class Block {
+        final byte[] data;
+        Future<byte[]> compressed;
+
+        Block(int size) {
+            this.data = new byte[size];
+        }
+    }
+
+    private final OutputStream out;
+    private final int blockSize;
+    private final int maxInFlight;
+    private final ExecutorService executor;
+    private final Deque<Block> inFlight = new ArrayDeque<>();
+    private final Deque<Block> free = new ArrayDeque<>();
+
+    private Block block;
+    private int count;
+    private boolean written;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream out, int threads) {
+        this(out, threads, DEFAULT_BLOCK_SIZE);
+    }
+
+    public ParallelGzipOutputStream(OutputStream out, int threads, int blockSize) {
+        this.out = out;
+        this.blockSize = blockSize;
+        this.maxInFlight = threads * 2;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "apoc-gzip");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.block = new Block(blockSize);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == blockSize) {
+            submitBlock();
+        }
+        block.data[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == blockSize) {
+                submitBlock();
+            }
+            final int length = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, block.data, count, length);
+            count += length;
+            off += length;
+            len -= length;
+        }
+    }
+
+    /**
+     * Compresses the bytes written so far to a member of their own, and writes all the members
+     */
+    @Override
+    public void flush() throws IOException {
+        if (count > 0) {
+            submitBlock();
+        }
+        while (!inFlight.isEmpty()) {
+            writeNext();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            // an empty member at least, so that an empty stream is still a gzip file
+            if (count > 0 || !written) {
+                submitBlock();
+            }
+            while (!inFlight.isEmpty()) {
+                writeNext();
+            }
+        } finally {
+            executor.shutdownNow();
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final Block submitted = block;
+        final int length = count;
+        submitted.compressed = executor.submit(() -> compress(submitted.data, length));
+        inFlight.add(submitted);
+        block = free.isEmpty() ? new Block(blockSize) : free.poll();
+        count = 0;
+        written = true;
+        while (inFlight.size() >= maxInFlight) {
+            writeNext();
+        }
+    }
+
+    private void writeNext() throws IOException {
+        final Block next = inFlight.poll();
+        try {
+            out.write(Pools.force(next.compressed));
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        }
+        next.compressed = null;
+        free.add(next);
+    }
+
+    private static byte[] compress(byte[] data, int length) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes, 64 * 1024)) {
+            gzip.write(data, 0, length);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -28,6 +28,13 @@ public interface StreamConnection {
         if ("deflate".equals(getName())) {
             return new CountingInputStream(new DeflaterInputStream(getInputStream()), getLength());
         }
+        if (algo == null || CompressionAlgo.NONE.name().equals(algo)) {
+            if (getName().endsWith(".zst")) {
+                algo = CompressionAlgo.ZSTD.name();
+            } else if (getName().endsWith(".lz4")) {
+                algo = CompressionAlgo.FRAMED_LZ4.name();
+            }
+        }
         try {
             final InputStream inputStream = CompressionAlgo.valueOf(algo == null ? CompressionAlgo.NONE.name() : algo)
                     .getInputStream(getInputStream());
@@ -103,5 +110,9 @@ public interface StreamConnection {
         public String getName() {
             return file.getName();
         }
+
+        public File getFile() {
+            return file;
+        }
     }
 }
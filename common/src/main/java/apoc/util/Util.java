@@ -1044,7 +1044,7 @@ public class Util {
             final String writerString = writer.toString();
             Object data = compression.equals(CompressionAlgo.NONE.name())
                     ? writerString
-                    : CompressionAlgo.valueOf(compression).compress(writerString, config.getCharset());
+                    : CompressionAlgo.valueOf(compression).compress(writerString, config);
             writer.getBuffer().setLength(0);
             return data;
         } catch (Exception e) {
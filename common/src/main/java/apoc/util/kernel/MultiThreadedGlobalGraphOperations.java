@@ -1,14 +1,24 @@
 package apoc.util.kernel;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import apoc.Pools;
+import org.neo4j.exceptions.KernelException;
+import org.neo4j.internal.kernel.api.Cursor;
 import org.neo4j.internal.kernel.api.NodeCursor;
 import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
 import org.neo4j.internal.kernel.api.Scan;
 import org.neo4j.internal.kernel.api.security.AccessMode;
 import org.neo4j.internal.kernel.api.security.LoginContext;
@@ -39,10 +49,66 @@ public class MultiThreadedGlobalGraphOperations {
         return result;
     }
 
+    /**
+     * Consumes the entity a cursor is positioned on, within the transaction of the batch
+     */
+    public interface CursorConsumer<C extends Cursor> {
+        void accept(KernelTransaction ktx, C cursor) throws KernelException;
+    }
+
+    public interface BatchListener {
+        BatchListener NONE = (processed, elapsedNanos, failed) -> {};
+
+        void onBatchCompleted(long processed, long elapsedNanos, boolean failed);
+    }
+
+    /**
+     * Unlike {@link #forAllNodes(GraphDatabaseAPI, ExecutorService, int, Consumer)} which branches out a new job per batch,
+     * this starts `concurrency` workers, each of them reserves an id range of `batchSize` nodes at a time
+     * and processes it in its own transaction, until the node store is exhausted or `isTerminated` returns true.
+     */
+    public static BatchJobResult forAllNodes(GraphDatabaseAPI db, ExecutorService executorService, int batchSize, int concurrency,
+                                             CursorConsumer<NodeCursor> consumer, BatchListener listener, BooleanSupplier isTerminated) {
+        return forAll(db, executorService, batchSize, concurrency, Read::allNodesScan,
+                ktx -> ktx.cursors().allocateNodeCursor(ktx.cursorContext()), consumer, listener, isTerminated);
+    }
+
+    /**
+     * Same as {@link #forAllNodes(GraphDatabaseAPI, ExecutorService, int, int, CursorConsumer, BatchListener, BooleanSupplier)}
+     * for the relationship store
+     */
+    public static BatchJobResult forAllRelationships(GraphDatabaseAPI db, ExecutorService executorService, int batchSize, int concurrency,
+                                                     CursorConsumer<RelationshipScanCursor> consumer, BatchListener listener, BooleanSupplier isTerminated) {
+        return forAll(db, executorService, batchSize, concurrency, Read::allRelationshipsScan,
+                ktx -> ktx.cursors().allocateRelationshipScanCursor(ktx.cursorContext()), consumer, listener, isTerminated);
+    }
+
+    private static <C extends Cursor> BatchJobResult forAll(GraphDatabaseAPI db, ExecutorService executorService, int batchSize, int concurrency,
+                                                            Function<Read, Scan<C>> scanFunction, Function<KernelTransaction, C> cursorAllocator,
+                                                            CursorConsumer<C> consumer, BatchListener listener, BooleanSupplier isTerminated) {
+        BatchJobResult result = new BatchJobResult();
+        try ( InternalTransaction tx = db.beginTransaction( KernelTransaction.Type.EXPLICIT, LoginContext.AUTH_DISABLED ) ) {
+            Scan<C> scan = scanFunction.apply( tx.kernelTransaction().dataRead() );
+            List<Future<Void>> workers = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executorService.submit(new ScanWorker<>(scan, batchSize, db, consumer, result, cursorAllocator, listener, isTerminated)));
+            }
+            for (Future<Void> worker : workers) {
+                try {
+                    Pools.force(worker);
+                } catch (ExecutionException e) {
+                    result.incrementFailures(e.getCause());
+                }
+            }
+        }
+        return result;
+    }
+
     public static class BatchJobResult {
         final AtomicInteger batches = new AtomicInteger();
         final AtomicLong succeeded = new AtomicLong();
         final AtomicLong failures = new AtomicLong();
+        final AtomicReference<Throwable> firstError = new AtomicReference<>();
 
         public void incrementSuceeded() {
             succeeded.incrementAndGet();
@@ -52,6 +118,11 @@ public class MultiThreadedGlobalGraphOperations {
             failures.incrementAndGet();
         }
 
+        public void incrementFailures(Throwable error) {
+            firstError.compareAndSet(null, error);
+            failures.incrementAndGet();
+        }
+
         public long getSucceeded() {
             return succeeded.get();
         }
@@ -59,6 +130,72 @@ public class MultiThreadedGlobalGraphOperations {
         public long getFailures() {
             return failures.get();
         }
+
+        /**
+         * @return the first error of an entity or of a batch of the scan workers, or null
+         */
+        public Throwable getFirstError() {
+            return firstError.get();
+        }
+    }
+
+    private static class ScanWorker<C extends Cursor> implements Callable<Void> {
+        private final Scan<C> scan;
+        private final int batchSize;
+        private final GraphDatabaseAPI db;
+        private final CursorConsumer<C> consumer;
+        private final BatchJobResult result;
+        private final Function<KernelTransaction, C> cursorAllocator;
+        private final BatchListener listener;
+        private final BooleanSupplier isTerminated;
+
+        ScanWorker(Scan<C> scan, int batchSize, GraphDatabaseAPI db, CursorConsumer<C> consumer, BatchJobResult result,
+                   Function<KernelTransaction, C> cursorAllocator, BatchListener listener, BooleanSupplier isTerminated) {
+            this.scan = scan;
+            this.batchSize = batchSize;
+            this.db = db;
+            this.consumer = consumer;
+            this.result = result;
+            this.cursorAllocator = cursorAllocator;
+            this.listener = listener;
+            this.isTerminated = isTerminated;
+        }
+
+        @Override
+        public Void call() {
+            boolean reserved = true;
+            while (reserved && !isTerminated.getAsBoolean()) {
+                long start = System.nanoTime();
+                long processed = 0;
+                boolean failed = false;
+                try (InternalTransaction tx = db.beginTransaction(KernelTransaction.Type.EXPLICIT, LoginContext.AUTH_DISABLED)) {
+                    KernelTransaction ktx = tx.kernelTransaction();
+                    try (C cursor = cursorAllocator.apply(ktx)) {
+                        reserved = scan.reserveBatch(cursor, batchSize, ktx.cursorContext(), AccessMode.Static.FULL);
+                        while (reserved && cursor.next()) {
+                            try {
+                                consumer.accept(ktx, cursor);
+                                processed++;
+                            } catch (Exception e) {
+                                result.incrementFailures(e);
+                            }
+                        }
+                    }
+                    tx.commit();
+                } catch (Exception e) {
+                    // the whole batch has been rolled back
+                    failed = true;
+                    result.incrementFailures(e);
+                }
+                if (!reserved) break;
+                result.batches.incrementAndGet();
+                if (!failed) {
+                    result.succeeded.addAndGet(processed);
+                }
+                listener.onBatchCompleted(processed, System.nanoTime() - start, failed);
+            }
+            return null;
+        }
     }
 
     private static class BatchJob implements Callable<Void> {
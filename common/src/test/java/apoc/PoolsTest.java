@@ -0,0 +1,144 @@
+package apoc;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PoolsTest {
+
+    @Test
+    public void semaphoreBoundedExecutorLimitsConcurrency() throws Exception {
+        ExecutorService executor = new Pools.SemaphoreBoundedExecutor(Executors.newCachedThreadPool(), 3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            futures.add(executor.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep();
+                running.decrementAndGet();
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertTrue(maxRunning.get() <= 3);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void singlePermitKeepsSubmissionOrder() throws Exception {
+        ExecutorService executor = new Pools.SemaphoreBoundedExecutor(Executors.newCachedThreadPool(), 1);
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+
+        List<Future<?>> futures = IntStream.range(0, 20)
+                .mapToObj(i -> executor.submit(() -> executed.add(i)))
+                .collect(Collectors.toList());
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertEquals(IntStream.range(0, 20).boxed().collect(Collectors.toList()), executed);
+        executor.shutdown();
+    }
+
+    @Test
+    public void resizableQueueChangesCapacity() throws Exception {
+        Pools.ResizableBlockingQueue<Integer> queue = new Pools.ResizableBlockingQueue<>(2);
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3));
+        assertFalse(queue.offer(3, 10, TimeUnit.MILLISECONDS));
+
+        queue.setCapacity(3);
+        assertEquals(1, queue.remainingCapacity());
+        assertTrue(queue.offer(3));
+
+        queue.setCapacity(1);
+        assertEquals(0, queue.remainingCapacity());
+        assertEquals(3, queue.size());
+        queue.take();
+        assertFalse(queue.offer(4));
+    }
+
+    @Test
+    public void resizableQueueWakesUpWaitingProducer() throws Exception {
+        Pools.ResizableBlockingQueue<Integer> queue = new Pools.ResizableBlockingQueue<>(1);
+        queue.offer(1);
+        ExecutorService consumer = Executors.newSingleThreadExecutor();
+        consumer.submit(() -> {
+            sleep();
+            return queue.take();
+        });
+        assertTrue(queue.offer(2, 10, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(2), queue.poll());
+        consumer.shutdown();
+    }
+
+    @Test
+    public void semaphoreBoundedExecutorCanBeResized() throws Exception {
+        Pools.SemaphoreBoundedExecutor executor = new Pools.SemaphoreBoundedExecutor(Executors.newCachedThreadPool(), 1);
+        executor.setMaxConcurrency(4);
+        assertEquals(4, executor.getMaxConcurrency());
+
+        CountDownLatch started = new CountDownLatch(4);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++) {
+            executor.submit(() -> {
+                started.countDown();
+                release.await();
+                return null;
+            });
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertEquals(4, executor.getRunning());
+
+        executor.setMaxConcurrency(2);
+        release.countDown();
+        executor.submit(() -> null).get(10, TimeUnit.SECONDS);
+        // the permit is handed back right after the task has completed its future
+        for (int i = 0; i < 100 && executor.getRunning() > 0; i++) {
+            sleep();
+        }
+        assertEquals(0, executor.getRunning());
+        assertEquals(5, executor.getCompletedTasks());
+        executor.shutdown();
+    }
+
+    @Test
+    public void databaseQuotaIsLabelledWhateverThePoolType() {
+        ExecutorService virtual = new Pools.SemaphoreBoundedExecutor(Executors.newCachedThreadPool(), 4);
+        ExecutorService platform = Executors.newFixedThreadPool(2);
+
+        assertEquals("virtual", Pools.PoolStatistics.of("default", virtual).type);
+        assertEquals("quota", Pools.PoolStatistics.of("default@neo4j", new Pools.DatabaseQuotaExecutor(virtual, 2)).type);
+        assertEquals("quota", Pools.PoolStatistics.of("default@neo4j", new Pools.DatabaseQuotaExecutor(platform, 2)).type);
+        virtual.shutdown();
+        platform.shutdown();
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
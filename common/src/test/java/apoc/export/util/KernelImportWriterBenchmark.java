@@ -0,0 +1,96 @@
+package apoc.export.util;
+
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+
+/**
+ * The node writes of the imports on an impermanent database, through the Core API by name
+ * ({@link #coreApi}, as {@link BatchTransaction} is used) and through the kernel with the tokens resolved once
+ * ({@link #kernelWithTokens}). Each operation is a node with 2 labels and 3 properties,
+ * run with `./gradlew :common:jmh -Pbenchmark=KernelImportWriterBenchmark`.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KernelImportWriterBenchmark {
+    private static final int NODES = 10_000;
+    private static final Label[] LABELS = { Label.label("Person"), Label.label("Customer") };
+
+    @Param({"1000", "10000"})
+    public int batchSize;
+
+    private DatabaseManagementService dbms;
+    private GraphDatabaseService db;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dbms = new TestDatabaseManagementServiceBuilder().impermanent().build();
+        db = dbms.database(DEFAULT_DATABASE_NAME);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteNodes() {
+        db.executeTransactionally("MATCH (n) CALL { WITH n DETACH DELETE n } IN TRANSACTIONS OF 10000 ROWS");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dbms.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public void coreApi() {
+        try (BatchTransaction tx = new BatchTransaction(db, batchSize, null)) {
+            for (int i = 0; i < NODES; i++) {
+                final Node node = tx.getTransaction().createNode(LABELS);
+                node.setProperty("id", i);
+                node.setProperty("name", "name" + i);
+                node.setProperty("score", i * 0.5d);
+                tx.increment();
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public void kernelWithTokens() {
+        try (KernelImportWriter writer = new KernelImportWriter(db, batchSize, null)) {
+            final int[] labels = { writer.labelToken("Person"), writer.labelToken("Customer") };
+            final int id = writer.propertyKeyToken("id");
+            final int name = writer.propertyKeyToken("name");
+            final int score = writer.propertyKeyToken("score");
+            for (int i = 0; i < NODES; i++) {
+                final long node = writer.createNode(labels);
+                writer.setNodeProperty(node, id, i);
+                writer.setNodeProperty(node, name, "name" + i);
+                writer.setNodeProperty(node, score, i * 0.5d);
+                writer.increment();
+            }
+        }
+    }
+}
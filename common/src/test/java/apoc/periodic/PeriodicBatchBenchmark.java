@@ -0,0 +1,91 @@
+package apoc.periodic;
+
+import apoc.util.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static apoc.util.Util.merge;
+
+/**
+ * Batching and parameter handling of a one-by-one `apoc.periodic.iterate`, without the database around it.
+ * Each operation is a row, so with `./gradlew :common:jmh -Pbenchmark=PeriodicBatchBenchmark`
+ * the `gc.alloc.rate.norm` of the gc profiler is the number of bytes allocated per row
+ * by the former ({@link #takeAndMerge}) and the current ({@link #recycledBuffersAndParameters}) implementation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PeriodicBatchBenchmark {
+    private static final int ROWS = 100_000;
+
+    @Param({"1000", "10000"})
+    public int batchSize;
+
+    private List<Map<String, Object>> rows;
+    private BatchBuffers buffers;
+
+    @Setup
+    public void setup() {
+        rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(Util.map("id", i, "name", "name" + i));
+        }
+        buffers = new BatchBuffers(2);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void takeAndMerge(Blackhole blackhole) {
+        Iterator<Map<String, Object>> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            List<Map<String, Object>> batch = Util.take(iterator, batchSize);
+            long count = 0;
+            for (Map<String, Object> row : batch) {
+                consume(merge(row, Util.map("_count", count++, "_batch", batch)), blackhole);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void recycledBuffersAndParameters(Blackhole blackhole) {
+        Iterator<Map<String, Object>> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            List<Map<String, Object>> batch = buffers.take(iterator, batchSize);
+            BatchParameters params = new BatchParameters(batch);
+            long count = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                consume(params.reset(batch.get(i), count++), blackhole);
+            }
+            buffers.release(batch);
+        }
+    }
+
+    // the query execution reads the parameters through their entries
+    private static void consume(Map<String, Object> params, Blackhole blackhole) {
+        for (Map.Entry<String, Object> entry : params.entrySet()) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+}
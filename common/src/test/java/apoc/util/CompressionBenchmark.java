@@ -0,0 +1,94 @@
+package apoc.util;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The compression and the decompression of an export by every {@link CompressionAlgo}, with the compressed size
+ * printed once per trial to compare the ratios, run with `./gradlew :common:jmh -Pbenchmark=CompressionBenchmark`.
+ * The export is the `exportFile`, e.g. the output of `apoc.export.csv.all` with `-p exportFile=/path/to/all.csv`,
+ * or else rows of 64MB in the same shape.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CompressionBenchmark {
+    private static final int GENERATED_SIZE = 64 * 1024 * 1024;
+
+    @Param({"GZIP", "DEFLATE", "BZIP2", "FRAMED_SNAPPY", "FRAMED_LZ4", "ZSTD"})
+    public String compression;
+
+    @Param({"1", "4"})
+    public int compressionThreads;
+
+    @Param({""})
+    public String exportFile;
+
+    private CompressionAlgo algo;
+    private CompressionConfig config;
+    private byte[] export;
+    private byte[] compressed;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        algo = CompressionAlgo.valueOf(compression);
+        config = new CompressionConfig(Map.of("compression", compression, "compressionThreads", compressionThreads));
+        export = exportFile.isEmpty() ? generatedExport() : FileUtils.readFileToByteArray(new File(exportFile));
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = algo.getOutputStream(bytes, config)) {
+            out.write(export);
+        }
+        compressed = bytes.toByteArray();
+        System.out.printf("%n%s with %d threads: %d bytes to %d, ratio %.2f%n",
+                compression, compressionThreads, export.length, compressed.length, (double) export.length / compressed.length);
+    }
+
+    private static byte[] generatedExport() {
+        final StringBuilder builder = new StringBuilder("\"_id\",\"_labels\",\"age\",\"name\",\"since\",\"_start\",\"_end\",\"_type\"\n");
+        for (int i = 0; builder.length() < GENERATED_SIZE; i++) {
+            builder.append('"').append(i).append("\",\":User\",\"").append(20 + i % 60).append("\",\"user").append(i).append("\",,,,\n");
+            builder.append(",,,,\"").append(2000 + i % 23).append("\",\"").append(i).append("\",\"").append(i * 7 % (i + 1)).append("\",\"KNOWS\"\n");
+        }
+        return builder.toString().getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public void compress() throws Exception {
+        try (OutputStream out = algo.getOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, config)) {
+            out.write(export);
+        }
+    }
+
+    @Benchmark
+    public long decompress() throws Exception {
+        try (InputStream in = algo.getInputStream(new ByteArrayInputStream(compressed))) {
+            return IOUtils.consume(in);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package apoc.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class ParallelGzipOutputStreamTest {
+
+    private static String rows(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(i).append(",\"name").append(i).append("\",").append(i * 31 % 97).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static byte[] compress(String string, int threads, int blockSize) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new ParallelGzipOutputStream(bytes, threads, blockSize)) {
+            byte[] data = string.getBytes(StandardCharsets.UTF_8);
+            // both the single bytes and the arrays across the blocks
+            out.write(data, 0, 10);
+            out.write(data[10]);
+            out.write(data, 11, data.length - 11);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void shouldBeReadByTheGzipCompression() throws Exception {
+        String expected = rows(10_000);
+        byte[] compressed = compress(expected, 4, 4096);
+
+        assertEquals(expected, CompressionAlgo.GZIP.decompress(compressed, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldBeReadByGunzip() throws Exception {
+        String expected = rows(10_000);
+        byte[] compressed = compress(expected, 3, 1000);
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals(expected, IOUtils.toString(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void shouldWriteAnEmptyGzipFile() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new ParallelGzipOutputStream(bytes, 2).close();
+
+        assertEquals("", CompressionAlgo.GZIP.decompress(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static CompressionConfig threads(int threads) {
+        return new CompressionConfig(Map.of("compressionThreads", threads));
+    }
+
+    @Test
+    public void shouldCompressOnThreadsOnlyWithGzip() throws Exception {
+        try (OutputStream out = CompressionAlgo.GZIP.getOutputStream(new ByteArrayOutputStream(), threads(2))) {
+            assertTrue(out instanceof ParallelGzipOutputStream);
+        }
+        try (OutputStream out = CompressionAlgo.GZIP.getOutputStream(new ByteArrayOutputStream(), threads(1))) {
+            assertFalse(out instanceof ParallelGzipOutputStream);
+        }
+        try (OutputStream out = CompressionAlgo.BZIP2.getOutputStream(new ByteArrayOutputStream(), threads(2))) {
+            assertFalse(out instanceof ParallelGzipOutputStream);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package apoc.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class StreamConnectionTest {
+    private static final String TEXT = "name,age\nAdam,42\nJim,42\n";
+
+    private static StreamConnection connection(String name, byte[] data) {
+        return new StreamConnection() {
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(data);
+            }
+
+            @Override
+            public String getEncoding() {
+                return null;
+            }
+
+            @Override
+            public long getLength() {
+                return data.length;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+
+    private static String read(StreamConnection connection, String algo) throws Exception {
+        try (InputStream in = connection.toCountingInputStream(algo)) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void shouldDetectTheCompressionFromTheExtension() throws Exception {
+        assertEquals(TEXT, read(connection("file:///import/all.csv.zst", CompressionAlgo.ZSTD.compress(TEXT, StandardCharsets.UTF_8)), null));
+        assertEquals(TEXT, read(connection("file:///import/all.csv.lz4", CompressionAlgo.FRAMED_LZ4.compress(TEXT, StandardCharsets.UTF_8)), CompressionAlgo.NONE.name()));
+    }
+
+    @Test
+    public void shouldPreferTheGivenCompressionToTheExtension() throws Exception {
+        assertEquals(TEXT, read(connection("file:///import/all.zst", CompressionAlgo.GZIP.compress(TEXT, StandardCharsets.UTF_8)), CompressionAlgo.GZIP.name()));
+    }
+
+    @Test
+    public void shouldReadOtherExtensionsAsTheyAre() throws Exception {
+        assertEquals(TEXT, read(connection("file:///import/all.csv", TEXT.getBytes(StandardCharsets.UTF_8)), null));
+    }
+}
@@ -12,6 +12,7 @@ import org.neo4j.test.rule.ImpermanentDbmsRule;
 
 import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.BatchJobResult;
 import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.forAllNodes;
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.forAllRelationships;
 import static org.junit.Assert.assertEquals;
 
 public class MultiThreadedGlobalGraphOperationsTest {
@@ -37,4 +38,18 @@ public class MultiThreadedGlobalGraphOperationsTest {
         assertEquals(1001, result.getSucceeded());
         assertEquals(0, result.getFailures());
     }
+
+    @Test
+    public void shouldForAllRelationshipsWorkInIdRanges() {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicInteger batches = new AtomicInteger();
+        BatchJobResult result = forAllRelationships(db, Executors.newFixedThreadPool(4), 10, 4,
+                (ktx, cursor) -> counter.incrementAndGet(),
+                (processed, elapsedNanos, failed) -> batches.incrementAndGet(),
+                () -> false);
+        assertEquals(1000, counter.get());
+        assertEquals(1000, result.getSucceeded());
+        assertEquals(0, result.getFailures());
+        assertEquals(100, batches.get());
+    }
 }
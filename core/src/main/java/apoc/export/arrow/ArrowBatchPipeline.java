@@ -0,0 +1,73 @@
+package apoc.export.arrow;
+
+import apoc.Pools;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs the tasks building the record batches of an export on the executor, at most `2 * parallel` at a time,
+ * and hands their results over to the sink on the submitting thread, in the order of the submission.
+ */
+public class ArrowBatchPipeline<T> implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final Consumer<T> sink;
+    private final Consumer<T> discard;
+    private final Deque<Future<T>> inFlight = new ArrayDeque<>();
+
+    /**
+     * @param discard releases the results not handed over to the sink, once the export failed
+     */
+    public ArrowBatchPipeline(ExecutorService executor, int parallel, Consumer<T> sink, Consumer<T> discard) {
+        this.executor = executor;
+        this.maxInFlight = 2 * parallel;
+        this.sink = sink;
+        this.discard = discard;
+    }
+
+    public void submit(Callable<T> task) {
+        if (inFlight.size() >= maxInFlight) {
+            sink.accept(next());
+        }
+        inFlight.add(executor.submit(task));
+    }
+
+    /**
+     * Awaits every task submitted and hands its result over to the sink
+     */
+    public void flush() {
+        while (!inFlight.isEmpty()) {
+            sink.accept(next());
+        }
+    }
+
+    private T next() {
+        try {
+            return Pools.force(inFlight.poll());
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Awaits the tasks not flushed, so that none of them is still running once the export fails, and discards their results
+     */
+    @Override
+    public void close() {
+        while (!inFlight.isEmpty()) {
+            try {
+                discard.accept(Pools.force(inFlight.poll()));
+            } catch (ExecutionException ignored) {
+                // the export already failed
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package apoc.export.arrow;
+
+import apoc.util.Util;
+import org.apache.arrow.vector.VectorLoader;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.ipc.ArrowWriter;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the roots filled by the threads of an export to a single {@link ArrowWriter}, one at a time.
+ * Their buffers are moved, not copied, into the root of the writer, created with the first one.
+ */
+public class ArrowBatchWriter implements BatchWriter<VectorSchemaRoot> {
+
+    private final ExportArrowStrategy<?, ?> strategy;
+    private final OutputStream out;
+
+    private VectorSchemaRoot root;
+    private ArrowWriter writer;
+
+    public ArrowBatchWriter(ExportArrowStrategy<?, ?> strategy, OutputStream out) {
+        this.strategy = strategy;
+        this.out = out;
+    }
+
+    @Override
+    public VectorSchemaRoot toBatch(Schema schema, List<Map<String, Object>> rows) {
+        return strategy.fill(schema, rows);
+    }
+
+    /**
+     * Writes the batch and closes it
+     */
+    @Override
+    public synchronized void write(VectorSchemaRoot batch) {
+        try (VectorSchemaRoot ignored = batch;
+             ArrowRecordBatch recordBatch = new VectorUnloader(batch).getRecordBatch()) {
+            if (writer == null) {
+                root = VectorSchemaRoot.create(batch.getSchema(), strategy.getBufferAllocator());
+                writer = strategy.newArrowWriter(root, out);
+            }
+            new VectorLoader(root).load(recordBatch);
+            writer.writeBatch();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void discard(VectorSchemaRoot batch) {
+        batch.close();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer == null) {
+            // nothing was written
+            Util.close(out);
+            return;
+        }
+        Util.close(writer);
+        Util.close(root);
+    }
+}
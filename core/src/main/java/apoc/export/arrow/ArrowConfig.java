@@ -9,17 +9,42 @@ public class ArrowConfig {
 
     private final int batchSize;
 
+    private final int parallel;
+
+    private final boolean ignoreDuplicateNodes;
+
     private final Map<String, Object> config;
 
     public ArrowConfig(Map<String, Object> config) {
         this.config = config == null ? Collections.emptyMap() : config;
         this.batchSize = Util.toInteger(this.config.getOrDefault("batchSize", 2000));
+        this.parallel = Util.toInteger(this.config.getOrDefault("parallel", 1));
+        if (this.parallel < 1) {
+            throw new RuntimeException("`parallel` must be >= 1, but got [parallel:" + parallel + "]");
+        }
+        this.ignoreDuplicateNodes = Util.toBoolean(this.config.getOrDefault("ignoreDuplicateNodes", false));
     }
 
     public int getBatchSize() {
         return batchSize;
     }
 
+    /**
+     * @return the number of threads filling the record batches, with the whole database read in as many id ranges,
+     *      each one in a transaction of its own, see {@link apoc.export.util.PartitionedExport}
+     */
+    public int getParallel() {
+        return parallel;
+    }
+
+    /**
+     * @return true if the nodes of an import with the id of a node already imported are skipped, as with `apoc.import.csv`,
+     *      otherwise the import fails on them
+     */
+    public boolean isIgnoreDuplicateNodes() {
+        return ignoreDuplicateNodes;
+    }
+
     public Map<String, Object> getConfig() {
         return config;
     }
@@ -0,0 +1,311 @@
+package apoc.export.arrow;
+
+import apoc.export.csv.LongIdSpace;
+import apoc.export.util.KernelImportWriter;
+import apoc.export.util.Reporter;
+import apoc.util.JsonUtil;
+import apoc.util.Util;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.BaseRepeatedValueVector;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.procedure.TerminationGuard;
+import org.neo4j.values.storable.Values;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+import static apoc.export.arrow.ArrowUtils.FIELD_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_LABELS;
+import static apoc.export.arrow.ArrowUtils.FIELD_SOURCE_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_TARGET_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_TYPE;
+import static apoc.export.csv.IdMapping.NOT_FOUND;
+
+/**
+ * Imports a graph written by the `apoc.export.arrow.*` procedures, in a pass over the nodes
+ * and then a pass over the relationships, each with a reader of its own.
+ *
+ * The columns are read from the vectors of each record batch, without a map per row,
+ * with the labels and the relationship types resolved to their tokens once per dictionary entry,
+ * and written through the {@link KernelImportWriter}.
+ */
+public class ArrowImporter {
+
+    private static final List<String> RESERVED = List.of(FIELD_ID.getName(), FIELD_LABELS.getName(),
+            FIELD_TYPE.getName(), FIELD_SOURCE_ID.getName(), FIELD_TARGET_ID.getName(), ArrowTypes.REST);
+
+    private final GraphDatabaseService db;
+    private final ArrowConfig config;
+    private final Reporter reporter;
+    private final TerminationGuard terminationGuard;
+    // the ids of the file to the ids of the nodes created
+    private final LongIdSpace idSpace = new LongIdSpace();
+
+    public ArrowImporter(GraphDatabaseService db, ArrowConfig config, Reporter reporter, TerminationGuard terminationGuard) {
+        this.db = db;
+        this.config = config;
+        this.reporter = reporter;
+        this.terminationGuard = terminationGuard;
+    }
+
+    public void importAll(ArrowSource source) throws IOException {
+        final KernelImportWriter.Tokens tokens = new KernelImportWriter.Tokens();
+        try (BufferAllocator allocator = new RootAllocator()) {
+            try (ArrowReader reader = source.open(allocator);
+                 KernelImportWriter writer = new KernelImportWriter(db, config.getBatchSize(), reporter, tokens)) {
+                while (!Util.transactionIsTerminated(terminationGuard) && reader.loadNextBatch()) {
+                    importNodes(reader.getVectorSchemaRoot(), reader, writer);
+                }
+            }
+            try (ArrowReader reader = source.open(allocator);
+                 KernelImportWriter writer = new KernelImportWriter(db, config.getBatchSize(), reporter, tokens)) {
+                while (!Util.transactionIsTerminated(terminationGuard) && reader.loadNextBatch()) {
+                    importRelationships(reader.getVectorSchemaRoot(), reader, writer);
+                }
+            }
+        }
+        reporter.done();
+    }
+
+    private void importNodes(VectorSchemaRoot root, DictionaryProvider dictionaries, KernelImportWriter writer) {
+        final BigIntVector ids = (BigIntVector) root.getVector(FIELD_ID.getName());
+        final FieldVector types = root.getVector(FIELD_TYPE.getName());
+        final FieldVector labels = root.getVector(FIELD_LABELS.getName());
+        if (ids == null) {
+            throw new RuntimeException("Missing the `" + FIELD_ID.getName() + "` column, the file was not exported as a graph");
+        }
+        final int[] labelTokens = labels == null ? null : dictionaryTokens(labels, dictionaries, writer::labelToken);
+        final List<PropertyColumn> properties = propertyColumns(root, dictionaries, writer);
+        final FieldVector rest = root.getVector(ArrowTypes.REST);
+        for (int row = 0; row < root.getRowCount(); row++) {
+            if (types != null && !types.isNull(row)) {
+                // a relationship
+                continue;
+            }
+            if (!ids.isNull(row) && idSpace.get(ids.get(row)) != NOT_FOUND) {
+                if (skipDuplicate(ids.get(row))) continue;
+            }
+            final long nodeId = writer.createNode(labels == null ? new int[0] : labelsOf(labels, row, labelTokens, dictionaries, writer));
+            if (!ids.isNull(row)) {
+                idSpace.putIfAbsent(ids.get(row), nodeId);
+            }
+            final int props = setProperties(properties, rest, row, writer, (key, value) -> writer.setNodeProperty(nodeId, key, value));
+            reporter.update(1, 0, props);
+            writer.increment();
+        }
+    }
+
+    private void importRelationships(VectorSchemaRoot root, DictionaryProvider dictionaries, KernelImportWriter writer) {
+        final FieldVector types = root.getVector(FIELD_TYPE.getName());
+        if (types == null) {
+            // only nodes
+            return;
+        }
+        final BigIntVector sources = (BigIntVector) root.getVector(FIELD_SOURCE_ID.getName());
+        final BigIntVector targets = (BigIntVector) root.getVector(FIELD_TARGET_ID.getName());
+        final int[] typeTokens = dictionaryTokens(types, dictionaries, writer::relationshipTypeToken);
+        final List<PropertyColumn> properties = propertyColumns(root, dictionaries, writer);
+        final FieldVector rest = root.getVector(ArrowTypes.REST);
+        for (int row = 0; row < root.getRowCount(); row++) {
+            if (types.isNull(row)) {
+                // a node
+                continue;
+            }
+            final int type = typeTokens != null
+                    ? typeTokens[((IntVector) types).get(row)]
+                    : writer.relationshipTypeToken(String.valueOf(ArrowTypes.read(types, row, dictionaries)));
+            final long relId = writer.createRelationship(nodeId(sources, row), type, nodeId(targets, row));
+            final int props = setProperties(properties, rest, row, writer, (key, value) -> writer.setRelationshipProperty(relId, key, value));
+            reporter.update(0, 1, props);
+            writer.increment();
+        }
+    }
+
+    private boolean skipDuplicate(long id) {
+        if (config.isIgnoreDuplicateNodes()) {
+            return true;
+        }
+        throw new IllegalStateException("Duplicate node with id " + id + " found");
+    }
+
+    private long nodeId(BigIntVector ids, int row) {
+        final long id = ids.get(row);
+        final long nodeId = idSpace.get(id);
+        if (nodeId == NOT_FOUND) {
+            throw new IllegalStateException("Node with id " + id + " not found in the imported nodes");
+        }
+        return nodeId;
+    }
+
+    /**
+     * @return the tokens of the entries of the dictionary of the column, or of the column of its list, if any
+     */
+    private static int[] dictionaryTokens(FieldVector vector, DictionaryProvider dictionaries, ToIntFunction<String> token) {
+        final FieldVector encoded = vector instanceof ListVector ? ((ListVector) vector).getDataVector() : vector;
+        final DictionaryEncoding encoding = encoded.getField().getDictionary();
+        if (encoding == null || !(encoded instanceof IntVector)) {
+            return null;
+        }
+        final Dictionary dictionary = dictionaries.lookup(encoding.getId());
+        final VarCharVector values = (VarCharVector) dictionary.getVector();
+        final int[] tokens = new int[values.getValueCount()];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = token.applyAsInt(values.getObject(i).toString());
+        }
+        return tokens;
+    }
+
+    private static int[] labelsOf(FieldVector labels, int row, int[] labelTokens, DictionaryProvider dictionaries, KernelImportWriter writer) {
+        if (labels.isNull(row)) {
+            return new int[0];
+        }
+        if (labelTokens == null) {
+            return ((List<Object>) ArrowTypes.read(labels, row, dictionaries)).stream()
+                    .filter(Objects::nonNull)
+                    .mapToInt(label -> writer.labelToken(label.toString()))
+                    .toArray();
+        }
+        final ListVector list = (ListVector) labels;
+        final IntVector indexes = (IntVector) list.getDataVector();
+        final int start = list.getOffsetBuffer().getInt((long) row * BaseRepeatedValueVector.OFFSET_WIDTH);
+        final int end = list.getOffsetBuffer().getInt((long) (row + 1) * BaseRepeatedValueVector.OFFSET_WIDTH);
+        final int[] tokens = new int[end - start];
+        for (int i = start; i < end; i++) {
+            tokens[i - start] = labelTokens[indexes.get(i)];
+        }
+        return tokens;
+    }
+
+    private interface PropertySetter {
+        void set(int key, Object value);
+    }
+
+    private static class PropertyColumn {
+        private final int key;
+        private final FieldVector vector;
+        private final DictionaryProvider dictionaries;
+
+        PropertyColumn(int key, FieldVector vector, DictionaryProvider dictionaries) {
+            this.key = key;
+            this.vector = vector;
+            this.dictionaries = dictionaries;
+        }
+
+        /**
+         * @return the value of the row, the scalars as values straight from their vectors
+         */
+        Object read(int row) {
+            if (vector.isNull(row)) {
+                return null;
+            }
+            if (vector instanceof BigIntVector) {
+                return Values.longValue(((BigIntVector) vector).get(row));
+            }
+            if (vector instanceof Float8Vector) {
+                return Values.doubleValue(((Float8Vector) vector).get(row));
+            }
+            if (vector instanceof BitVector) {
+                return Values.booleanValue(((BitVector) vector).get(row) == 1);
+            }
+            if (vector instanceof VarCharVector && vector.getField().getDictionary() == null) {
+                return Values.utf8Value(((VarCharVector) vector).get(row));
+            }
+            return toStorable(ArrowTypes.read(vector, row, dictionaries));
+        }
+    }
+
+    private static List<PropertyColumn> propertyColumns(VectorSchemaRoot root, DictionaryProvider dictionaries, KernelImportWriter writer) {
+        final List<PropertyColumn> columns = new ArrayList<>();
+        for (FieldVector vector : root.getFieldVectors()) {
+            if (!RESERVED.contains(vector.getName())) {
+                columns.add(new PropertyColumn(writer.propertyKeyToken(vector.getName()), vector, dictionaries));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * @param rest the column of the json of the properties that don't fit the types of their own columns, if any
+     * @return the number of properties set, as the nodes and the relationships share the columns of their properties
+     */
+    private static int setProperties(List<PropertyColumn> columns, FieldVector rest, int row, KernelImportWriter writer, PropertySetter setter) {
+        int count = 0;
+        for (PropertyColumn column : columns) {
+            final Object value = column.read(row);
+            if (value != null) {
+                setter.set(column.key, value);
+                count++;
+            }
+        }
+        if (rest != null && !rest.isNull(row)) {
+            final Map<String, Object> map = new HashMap<>();
+            map.put(ArrowTypes.REST, ArrowTypes.read(rest, row, null));
+            for (Map.Entry<String, Object> entry : ArrowTypes.withRest(map).entrySet()) {
+                if (entry.getValue() != null) {
+                    setter.set(writer.propertyKeyToken(entry.getKey()), toStorable(entry.getValue()));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Converts the lists to arrays, the integral numbers to a `long[]`, the other numbers to a `double[]`,
+     * the values of the same class to an array of that class, and the mixed ones or the nested lists,
+     * which can't be stored as an array, to a `String[]` of their json. The maps are converted to json
+     * and the date times to zoned ones
+     */
+    public static Object toStorable(Object value) {
+        if (value instanceof Map) {
+            return JsonUtil.writeValueAsString(value);
+        }
+        if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).toZonedDateTime();
+        }
+        if (!(value instanceof Collection)) {
+            return value;
+        }
+        final Object[] elements = ((Collection<?>) value).stream().filter(Objects::nonNull).map(ArrowImporter::toStorable).toArray();
+        if (elements.length == 0) {
+            return new String[0];
+        }
+        if (Arrays.stream(elements).allMatch(Long.class::isInstance)) {
+            return Arrays.stream(elements).mapToLong(i -> (Long) i).toArray();
+        }
+        if (Arrays.stream(elements).allMatch(Number.class::isInstance)) {
+            return Arrays.stream(elements).mapToDouble(i -> ((Number) i).doubleValue()).toArray();
+        }
+        final Class<?> type = elements[0].getClass();
+        if (type.isArray() || !Arrays.stream(elements).allMatch(type::isInstance)) {
+            return Arrays.stream(elements)
+                    .map(element -> element instanceof String ? element : JsonUtil.writeValueAsString(element))
+                    .toArray(String[]::new);
+        }
+        final Object[] array = (Object[]) Array.newInstance(type, elements.length);
+        System.arraycopy(elements, 0, array, 0, elements.length);
+        return array;
+    }
+}
@@ -0,0 +1,91 @@
+package apoc.export.arrow;
+
+import apoc.export.util.CountingInputStream;
+import apoc.util.CompressionAlgo;
+import apoc.util.FileUtils;
+import apoc.util.Util;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.util.ByteArrayReadableSeekableByteChannel;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An Arrow file or stream, which can be opened by as many readers as needed, e.g. one per pass of an import.
+ *
+ * A local file is read through a {@link FileChannel}, so that its record batches are read on demand
+ * instead of the whole file being loaded in memory first, as the remote ones still are.
+ */
+public class ArrowSource {
+
+    private final File file;
+    private final byte[] fileBytes;
+    private final byte[] streamBytes;
+
+    private ArrowSource(File file, byte[] fileBytes, byte[] streamBytes) {
+        this.file = file;
+        this.fileBytes = fileBytes;
+        this.streamBytes = streamBytes;
+    }
+
+    /**
+     * @param fileName an Arrow file, as written by the `apoc.export.arrow.*` procedures
+     */
+    public static ArrowSource file(String fileName) throws IOException {
+        final File file = FileUtils.localFileFor(fileName, CompressionAlgo.NONE.name());
+        if (file != null) {
+            return new ArrowSource(file, null, null);
+        }
+        try (CountingInputStream in = FileUtils.inputStreamFor(fileName, null, null, null)) {
+            return new ArrowSource(null, in.readAllBytes(), null);
+        }
+    }
+
+    /**
+     * @param bytes an Arrow stream, as returned by the `apoc.export.arrow.stream.*` procedures
+     */
+    public static ArrowSource stream(byte[] bytes) {
+        return new ArrowSource(null, null, bytes);
+    }
+
+    /**
+     * @return a file or a stream from the input, as the file name or the bytes of the `apoc.import.*` procedures
+     */
+    public static ArrowSource of(Object urlOrBinaryFile) throws IOException {
+        if (urlOrBinaryFile instanceof byte[]) {
+            return stream((byte[]) urlOrBinaryFile);
+        }
+        if (urlOrBinaryFile instanceof String) {
+            return file((String) urlOrBinaryFile);
+        }
+        throw new RuntimeException(Util.ERROR_BYTES_OR_STRING);
+    }
+
+    /**
+     * @return true if the record batches can be read in any order, through {@link ArrowFileReader#getRecordBlocks()}
+     */
+    public boolean isFile() {
+        return streamBytes == null;
+    }
+
+    /**
+     * @return a new reader, which closes the channel it reads from
+     */
+    public ArrowReader open(BufferAllocator allocator) throws IOException {
+        if (streamBytes != null) {
+            return new ArrowStreamReader(new ByteArrayInputStream(streamBytes), allocator);
+        }
+        return new ArrowFileReader(channel(), allocator);
+    }
+
+    private SeekableByteChannel channel() throws IOException {
+        return file != null ? FileChannel.open(file.toPath(), StandardOpenOption.READ) : new ByteArrayReadableSeekableByteChannel(fileBytes);
+    }
+}
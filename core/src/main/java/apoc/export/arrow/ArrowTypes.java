@@ -0,0 +1,691 @@
+package apoc.export.arrow;
+
+import apoc.util.JsonUtil;
+import apoc.util.Util;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeNanoVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.complex.BaseRepeatedValueVector;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.complex.StructVector;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.spatial.Point;
+import org.neo4j.values.storable.CoordinateReferenceSystem;
+import org.neo4j.values.storable.DurationValue;
+import org.neo4j.values.storable.Values;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static apoc.export.arrow.ArrowUtils.FIELD_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_LABELS;
+import static apoc.export.arrow.ArrowUtils.FIELD_SOURCE_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_TARGET_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_TYPE;
+
+/**
+ * The Arrow types of the exported values, and the conversions of the values to and from their vectors.
+ *
+ * The maps, the nodes, the relationships, the paths, the points and the durations are structs and the lists are lists,
+ * with their children typed from the values themselves. The integers mixed with floats are widened to doubles,
+ * while any other mix of types is written as strings, the non-string values as json.
+ * The points and the durations are marked in the metadata of their fields, so that they are read back as such.
+ *
+ * As the types are inferred from the first record batch, the structs typed from the values and the rows end with
+ * a {@link #REST} field, where the entries that don't fit their field, or without a field of their own,
+ * are written as json, and read back from.
+ */
+public class ArrowTypes {
+
+    public static final String NEO4J_TYPE = "neo4j.type";
+    public static final String POINT = "point";
+    public static final String DURATION = "duration";
+    public static final String PROPERTIES = "properties";
+    public static final String LIST_DATA = "$data$";
+    public static final String REST = "$rest$";
+
+    private enum Kind { BOOLEAN, LONG, DOUBLE, STRING, DATE_TIME, DATE, LOCAL_TIME, POINT, DURATION, NODE, RELATIONSHIP, PATH, MAP, LIST, OTHER }
+
+    private static final Set<Kind> NUMBERS = EnumSet.of(Kind.LONG, Kind.DOUBLE);
+
+    private ArrowTypes() {
+    }
+
+    private static Kind kindOf(Object value) {
+        if (value instanceof Boolean) return Kind.BOOLEAN;
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) return Kind.LONG;
+        if (value instanceof Double || value instanceof Float) return Kind.DOUBLE;
+        if (value instanceof String || value instanceof Character) return Kind.STRING;
+        if (value instanceof ZonedDateTime || value instanceof OffsetDateTime || value instanceof LocalDateTime || value instanceof Date) return Kind.DATE_TIME;
+        if (value instanceof LocalDate) return Kind.DATE;
+        if (value instanceof LocalTime) return Kind.LOCAL_TIME;
+        if (value instanceof Point) return Kind.POINT;
+        if (value instanceof DurationValue) return Kind.DURATION;
+        if (value instanceof Node) return Kind.NODE;
+        if (value instanceof Relationship) return Kind.RELATIONSHIP;
+        if (value instanceof Path) return Kind.PATH;
+        if (value instanceof Map) return Kind.MAP;
+        if (value instanceof Collection || (value.getClass().isArray() && !(value instanceof byte[]))) return Kind.LIST;
+        return Kind.OTHER;
+    }
+
+    /**
+     * @param metaType a property type of `apoc.meta.nodeTypeProperties` and `apoc.meta.relTypeProperties`, without `Array`
+     */
+    private static Kind kindOf(String metaType) {
+        switch (metaType) {
+            case "Boolean":
+                return Kind.BOOLEAN;
+            case "Long":
+            case "Integer":
+                return Kind.LONG;
+            case "Double":
+                return Kind.DOUBLE;
+            case "String":
+                return Kind.STRING;
+            case "DateTime":
+            case "LocalDateTime":
+                return Kind.DATE_TIME;
+            case "Date":
+                return Kind.DATE;
+            case "LocalTime":
+                return Kind.LOCAL_TIME;
+            case "Point":
+                return Kind.POINT;
+            case "Duration":
+                return Kind.DURATION;
+            default:
+                return Kind.OTHER;
+        }
+    }
+
+    private static Kind commonKind(Set<Kind> kinds) {
+        if (kinds.size() == 1) {
+            return kinds.iterator().next();
+        }
+        return NUMBERS.containsAll(kinds) ? Kind.DOUBLE : Kind.OTHER;
+    }
+
+    public static Field field(String name, ArrowType type) {
+        return new Field(name, FieldType.nullable(type), null);
+    }
+
+    public static Field listField(String name, Field child) {
+        return new Field(name, FieldType.nullable(Types.MinorType.LIST.getType()), List.of(child));
+    }
+
+    public static Field structField(String name, List<Field> children) {
+        return new Field(name, FieldType.nullable(Types.MinorType.STRUCT.getType()), children);
+    }
+
+    /**
+     * @return the field of the indexes of a dictionary of strings
+     */
+    public static Field dictionaryField(String name, long dictionaryId) {
+        return new Field(name, new FieldType(true, Types.MinorType.INT.getType(), new DictionaryEncoding(dictionaryId, false, null)), null);
+    }
+
+    /**
+     * @return the field of the json of the entries of a struct, or of a row, which don't fit their own fields
+     */
+    public static Field restField() {
+        return field(REST, Types.MinorType.VARCHAR.getType());
+    }
+
+    private static Field openStructField(String name, List<Field> children) {
+        final List<Field> fields = new ArrayList<>(children);
+        fields.add(restField());
+        return structField(name, fields);
+    }
+
+    private static Field markedStructField(String name, String neo4jType, List<Field> children) {
+        return new Field(name, new FieldType(true, Types.MinorType.STRUCT.getType(), null, Map.of(NEO4J_TYPE, neo4jType)), children);
+    }
+
+    private static Field scalarField(String name, Kind kind) {
+        switch (kind) {
+            case BOOLEAN:
+                return field(name, Types.MinorType.BIT.getType());
+            case LONG:
+                return field(name, Types.MinorType.BIGINT.getType());
+            case DOUBLE:
+                return field(name, Types.MinorType.FLOAT8.getType());
+            case DATE_TIME:
+                return field(name, Types.MinorType.DATEMILLI.getType());
+            case DATE:
+                return field(name, Types.MinorType.DATEDAY.getType());
+            case LOCAL_TIME:
+                return field(name, Types.MinorType.TIMENANO.getType());
+            case POINT:
+                return markedStructField(name, POINT, List.of(
+                        field("crs", Types.MinorType.VARCHAR.getType()),
+                        field("x", Types.MinorType.FLOAT8.getType()),
+                        field("y", Types.MinorType.FLOAT8.getType()),
+                        field("z", Types.MinorType.FLOAT8.getType())));
+            case DURATION:
+                return markedStructField(name, DURATION, List.of(
+                        field("months", Types.MinorType.BIGINT.getType()),
+                        field("days", Types.MinorType.BIGINT.getType()),
+                        field("seconds", Types.MinorType.BIGINT.getType()),
+                        field("nanoseconds", Types.MinorType.BIGINT.getType())));
+            default:
+                return field(name, Types.MinorType.VARCHAR.getType());
+        }
+    }
+
+    /**
+     * @param metaTypes the property types of `apoc.meta.nodeTypeProperties` and `apoc.meta.relTypeProperties`, e.g. `Long` or `StringArray`
+     */
+    public static Field fieldForMetaTypes(String name, Collection<String> metaTypes) {
+        final boolean arrays = metaTypes.stream().allMatch(type -> type.endsWith("Array"));
+        final boolean scalars = metaTypes.stream().noneMatch(type -> type.endsWith("Array"));
+        if (!arrays && !scalars) {
+            return scalarField(name, Kind.OTHER);
+        }
+        final Set<Kind> kinds = EnumSet.noneOf(Kind.class);
+        metaTypes.forEach(type -> kinds.add(kindOf(type.replace("Array", ""))));
+        final Field field = scalarField(arrays ? LIST_DATA : name, commonKind(kinds));
+        return arrays ? listField(name, field) : field;
+    }
+
+    /**
+     * @param values the values of a column, or of a key of the maps, which can be null
+     */
+    public static Field fieldForValues(String name, List<?> values) {
+        final Map<Kind, List<Object>> byKind = new HashMap<>();
+        for (Object value : values) {
+            if (value != null) {
+                byKind.computeIfAbsent(kindOf(value), kind -> new ArrayList<>()).add(value);
+            }
+        }
+        if (byKind.size() != 1) {
+            return scalarField(name, byKind.isEmpty() ? Kind.OTHER : commonKind(byKind.keySet()));
+        }
+        final Map.Entry<Kind, List<Object>> entry = byKind.entrySet().iterator().next();
+        final List<Object> sameKind = entry.getValue();
+        switch (entry.getKey()) {
+            case NODE: {
+                final List<Field> children = new ArrayList<>(List.of(FIELD_ID, listField(FIELD_LABELS.getName(), field(LIST_DATA, Types.MinorType.VARCHAR.getType()))));
+                addPropertiesField(children, sameKind);
+                return openStructField(name, children);
+            }
+            case RELATIONSHIP: {
+                final List<Field> children = new ArrayList<>(List.of(FIELD_ID, field(FIELD_TYPE.getName(), Types.MinorType.VARCHAR.getType()), FIELD_SOURCE_ID, FIELD_TARGET_ID));
+                addPropertiesField(children, sameKind);
+                return openStructField(name, children);
+            }
+            case PATH: {
+                final List<Object> nodes = new ArrayList<>();
+                final List<Object> relationships = new ArrayList<>();
+                sameKind.forEach(path -> {
+                    ((Path) path).nodes().forEach(nodes::add);
+                    ((Path) path).relationships().forEach(relationships::add);
+                });
+                return openStructField(name, List.of(
+                        listField("nodes", fieldForValues(LIST_DATA, nodes)),
+                        listField("relationships", fieldForValues(LIST_DATA, relationships))));
+            }
+            case MAP:
+                // the maps of the next batches can have other keys
+                return openStructField(name, childFields(sameKind));
+            case LIST: {
+                final List<Object> elements = new ArrayList<>();
+                sameKind.forEach(list -> elements.addAll(toList(list)));
+                return listField(name, fieldForValues(LIST_DATA, elements));
+            }
+            default:
+                return scalarField(name, entry.getKey());
+        }
+    }
+
+    private static void addPropertiesField(List<Field> children, List<Object> entities) {
+        final List<Object> properties = new ArrayList<>(entities.size());
+        entities.forEach(entity -> properties.add(((Entity) entity).getAllProperties()));
+        children.add(openStructField(PROPERTIES, childFields(properties)));
+    }
+
+    private static List<Field> childFields(List<Object> maps) {
+        final Map<String, List<Object>> valuesByKey = new LinkedHashMap<>();
+        maps.forEach(map -> ((Map<String, Object>) map).forEach((key, value) ->
+                valuesByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(value)));
+        final List<Field> fields = new ArrayList<>(valuesByKey.size());
+        valuesByKey.forEach((key, values) -> fields.add(fieldForValues(key, values)));
+        return fields;
+    }
+
+    private static List<Object> toList(Object value) {
+        if (value instanceof Collection) {
+            return new ArrayList<>((Collection<?>) value);
+        }
+        final int length = Array.getLength(value);
+        final List<Object> list = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            list.add(Array.get(value, i));
+        }
+        return list;
+    }
+
+    /**
+     * @return the value as the maps, the lists and the scalars its vector is written from
+     */
+    public static Object toArrowValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        switch (kindOf(value)) {
+            case LONG:
+                return ((Number) value).longValue();
+            case DOUBLE:
+                return ((Number) value).doubleValue();
+            case STRING:
+                return value.toString();
+            case POINT: {
+                final Point point = (Point) value;
+                final double[] coordinates = point.getCoordinate().getCoordinate();
+                final Map<String, Object> map = new HashMap<>();
+                map.put("crs", point.getCRS().getType());
+                map.put("x", coordinates[0]);
+                map.put("y", coordinates[1]);
+                map.put("z", coordinates.length > 2 ? coordinates[2] : null);
+                return map;
+            }
+            case DURATION: {
+                final DurationValue duration = (DurationValue) value;
+                return Map.of("months", duration.get(ChronoUnit.MONTHS),
+                        "days", duration.get(ChronoUnit.DAYS),
+                        "seconds", duration.get(ChronoUnit.SECONDS),
+                        "nanoseconds", duration.get(ChronoUnit.NANOS));
+            }
+            case NODE: {
+                final Node node = (Node) value;
+                final Map<String, Object> map = new HashMap<>();
+                map.put(FIELD_ID.getName(), node.getId());
+                map.put(FIELD_LABELS.getName(), Util.labelStrings(node));
+                map.put(PROPERTIES, toArrowValue(node.getAllProperties()));
+                return map;
+            }
+            case RELATIONSHIP: {
+                final Relationship rel = (Relationship) value;
+                final Map<String, Object> map = new HashMap<>();
+                map.put(FIELD_ID.getName(), rel.getId());
+                map.put(FIELD_TYPE.getName(), rel.getType().name());
+                map.put(FIELD_SOURCE_ID.getName(), rel.getStartNodeId());
+                map.put(FIELD_TARGET_ID.getName(), rel.getEndNodeId());
+                map.put(PROPERTIES, toArrowValue(rel.getAllProperties()));
+                return map;
+            }
+            case PATH: {
+                final Path path = (Path) value;
+                final List<Object> nodes = new ArrayList<>();
+                final List<Object> relationships = new ArrayList<>();
+                path.nodes().forEach(node -> nodes.add(toArrowValue(node)));
+                path.relationships().forEach(rel -> relationships.add(toArrowValue(rel)));
+                return Map.of("nodes", nodes, "relationships", relationships);
+            }
+            case MAP: {
+                final Map<String, Object> map = new HashMap<>();
+                ((Map<String, Object>) value).forEach((key, entry) -> map.put(key, toArrowValue(entry)));
+                return map;
+            }
+            case LIST: {
+                final List<Object> list = toList(value);
+                list.replaceAll(ArrowTypes::toArrowValue);
+                return list;
+            }
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * @return true if the value of {@link #toArrowValue(Object)} can be written to a vector of the field as it is,
+     *      any map fitting a struct with a {@link #REST} field
+     */
+    public static boolean fits(Field field, Object value) {
+        if (value == null) {
+            return true;
+        }
+        final ArrowType type = field.getType();
+        switch (type.getTypeID()) {
+            case Struct: {
+                if (!(value instanceof Map)) {
+                    return false;
+                }
+                if (isOpen(field)) {
+                    return true;
+                }
+                final Map<String, Object> map = (Map<String, Object>) value;
+                int fitting = 0;
+                for (Field child : field.getChildren()) {
+                    final Object childValue = map.get(child.getName());
+                    if (!fits(child, childValue)) {
+                        return false;
+                    }
+                    if (childValue != null) {
+                        fitting++;
+                    }
+                }
+                // no entry without a field
+                return fitting == map.values().stream().filter(Objects::nonNull).count();
+            }
+            case List: {
+                if (!(value instanceof List)) {
+                    return false;
+                }
+                final Field element = field.getChildren().get(0);
+                for (Object item : (List<?>) value) {
+                    if (!fits(element, item)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            case Int:
+                return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+            case FloatingPoint:
+                return value instanceof Number;
+            case Bool:
+                return value instanceof Boolean;
+            case Date:
+                return ((ArrowType.Date) type).getUnit() == DateUnit.DAY ? value instanceof LocalDate : toEpochMilli(value) != null;
+            case Time:
+                return value instanceof LocalTime;
+            default:
+                // the strings, and the json of the other values
+                return true;
+        }
+    }
+
+    private static boolean isOpen(Field field) {
+        final List<Field> children = field.getChildren();
+        return !children.isEmpty() && REST.equals(children.get(children.size() - 1).getName());
+    }
+
+    /**
+     * Writes the entries of the map to the vectors of their keys, those of a struct or of a row,
+     * and the ones that don't fit their vector, or without a vector of their own, as json to the {@link #REST} vector
+     */
+    public static void writeFields(List<FieldVector> vectors, int index, Map<String, Object> map) {
+        final FieldVector restVector = vectors.isEmpty() || !REST.equals(vectors.get(vectors.size() - 1).getName())
+                ? null : vectors.get(vectors.size() - 1);
+        Map<String, Object> rest = null;
+        int written = 0;
+        for (FieldVector vector : vectors) {
+            if (vector == restVector) {
+                continue;
+            }
+            final Object value = map.get(vector.getName());
+            if (value != null) {
+                written++;
+            }
+            if (restVector == null || fits(vector.getField(), value)) {
+                write(vector, index, value);
+            } else {
+                write(vector, index, null);
+                rest = putRest(rest, vector.getName(), value);
+            }
+        }
+        if (restVector == null) {
+            return;
+        }
+        if (written < map.size()) {
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                if (entry.getValue() != null && vectorOf(vectors, entry.getKey()) == null) {
+                    rest = putRest(rest, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        write(restVector, index, rest);
+    }
+
+    private static Map<String, Object> putRest(Map<String, Object> rest, String key, Object value) {
+        final Map<String, Object> map = rest == null ? new HashMap<>() : rest;
+        map.put(key, value);
+        return map;
+    }
+
+    private static FieldVector vectorOf(List<FieldVector> vectors, String name) {
+        for (FieldVector vector : vectors) {
+            if (vector.getName().equals(name) && !REST.equals(name)) {
+                return vector;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes a value of {@link #toArrowValue(Object)} to the vector
+     *
+     * @throws IllegalArgumentException if the value doesn't fit the vector, see {@link #fits(Field, Object)}
+     */
+    public static void write(FieldVector vector, int index, Object value) {
+        if (vector instanceof StructVector) {
+            final StructVector structVector = (StructVector) vector;
+            if (value == null) {
+                structVector.setNull(index);
+                return;
+            }
+            if (!(value instanceof Map)) {
+                throw doesNotFit(vector, value);
+            }
+            structVector.setIndexDefined(index);
+            writeFields(structVector.getChildrenFromFields(), index, (Map<String, Object>) value);
+        } else if (vector instanceof ListVector) {
+            final ListVector listVector = (ListVector) vector;
+            if (value == null) {
+                listVector.setNull(index);
+                return;
+            }
+            if (!(value instanceof List)) {
+                throw doesNotFit(vector, value);
+            }
+            final List<?> list = (List<?>) value;
+            final int offset = listVector.startNewValue(index);
+            for (int i = 0; i < list.size(); i++) {
+                write(listVector.getDataVector(), offset + i, list.get(i));
+            }
+            listVector.endValue(index, list.size());
+        } else if (vector instanceof BaseVariableWidthVector) {
+            final BaseVariableWidthVector variableWidthVector = (BaseVariableWidthVector) vector;
+            if (value == null) {
+                variableWidthVector.setNull(index);
+            } else if (value instanceof Map || value instanceof List || value instanceof byte[]) {
+                variableWidthVector.setSafe(index, JsonUtil.writeValueAsBytes(value));
+            } else {
+                variableWidthVector.setSafe(index, value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        } else if (vector instanceof BaseFixedWidthVector) {
+            writeFixedWidth((BaseFixedWidthVector) vector, index, value);
+        }
+    }
+
+    private static void writeFixedWidth(BaseFixedWidthVector vector, int index, Object value) {
+        if (value == null) {
+            vector.setNull(index);
+        } else if (!fits(vector.getField(), value)) {
+            throw doesNotFit(vector, value);
+        } else if (vector instanceof BitVector && value instanceof Boolean) {
+            ((BitVector) vector).setSafe(index, (Boolean) value ? 1 : 0);
+        } else if (vector instanceof BigIntVector && value instanceof Number) {
+            ((BigIntVector) vector).setSafe(index, ((Number) value).longValue());
+        } else if (vector instanceof IntVector && value instanceof Number) {
+            ((IntVector) vector).setSafe(index, ((Number) value).intValue());
+        } else if (vector instanceof Float8Vector && value instanceof Number) {
+            ((Float8Vector) vector).setSafe(index, ((Number) value).doubleValue());
+        } else if (vector instanceof DateMilliVector && toEpochMilli(value) != null) {
+            ((DateMilliVector) vector).setSafe(index, toEpochMilli(value));
+        } else if (vector instanceof DateDayVector && value instanceof LocalDate) {
+            ((DateDayVector) vector).setSafe(index, (int) ((LocalDate) value).toEpochDay());
+        } else if (vector instanceof TimeNanoVector && value instanceof LocalTime) {
+            ((TimeNanoVector) vector).setSafe(index, ((LocalTime) value).toNanoOfDay());
+        } else {
+            throw doesNotFit(vector, value);
+        }
+    }
+
+    private static IllegalArgumentException doesNotFit(FieldVector vector, Object value) {
+        return new IllegalArgumentException("The value " + value + " of `" + vector.getName() + "` doesn't fit its Arrow type "
+                + vector.getField().getType());
+    }
+
+    /**
+     * Moves the entries of the json of the {@link #REST} entry, if any, to the map itself
+     */
+    public static Map<String, Object> withRest(Map<String, Object> map) {
+        final Object rest = map.remove(REST);
+        if (rest != null) {
+            ((Map<String, Object>) JsonUtil.parse(rest.toString(), null, Map.class))
+                    .forEach((key, value) -> map.put(key, fromJson(value)));
+        }
+        return map;
+    }
+
+    /**
+     * @return the integers parsed from json as longs, as the ones read from the vectors
+     */
+    private static Object fromJson(Object value) {
+        if (value instanceof Integer) {
+            return ((Integer) value).longValue();
+        }
+        if (value instanceof List) {
+            final List<Object> list = new ArrayList<>((List<?>) value);
+            list.replaceAll(ArrowTypes::fromJson);
+            return list;
+        }
+        if (value instanceof Map) {
+            final Map<String, Object> map = new HashMap<>();
+            ((Map<String, Object>) value).forEach((key, entry) -> map.put(key, fromJson(entry)));
+            return map;
+        }
+        return value;
+    }
+
+    /**
+     * @return the milliseconds of a date time, with the local ones at UTC, or null if the value is not a date time
+     */
+    public static Long toEpochMilli(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } else if (value instanceof ZonedDateTime) {
+            return ((ZonedDateTime) value).toInstant().toEpochMilli();
+        } else if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).toInstant().toEpochMilli();
+        }
+        return null;
+    }
+
+    /**
+     * @return the point or the duration of a struct marked as such, else the map of its children
+     */
+    public static Object fromStruct(Field field, Map<String, Object> map) {
+        final String neo4jType = field.getMetadata() == null ? null : field.getMetadata().get(NEO4J_TYPE);
+        if (POINT.equals(neo4jType)) {
+            final CoordinateReferenceSystem crs = CoordinateReferenceSystem.byName((String) map.get("crs"));
+            return map.get("z") == null
+                    ? Values.pointValue(crs, (double) map.get("x"), (double) map.get("y"))
+                    : Values.pointValue(crs, (double) map.get("x"), (double) map.get("y"), (double) map.get("z"));
+        }
+        if (DURATION.equals(neo4jType)) {
+            return DurationValue.duration((long) map.get("months"), (long) map.get("days"), (long) map.get("seconds"), (long) map.get("nanoseconds"));
+        }
+        return map;
+    }
+
+    /**
+     * Reads a value written by {@link #write(FieldVector, int, Object)}, with the dictionaries of the provider,
+     * the points and the durations as such and the other structs as maps
+     */
+    public static Object read(FieldVector vector, int index, DictionaryProvider dictionaries) {
+        if (vector.isNull(index)) {
+            return null;
+        }
+        final Field field = vector.getField();
+        final DictionaryEncoding encoding = field.getDictionary();
+        if (encoding != null && dictionaries != null) {
+            final Dictionary dictionary = dictionaries.lookup(encoding.getId());
+            final int dictionaryIndex = ((Number) vector.getObject(index)).intValue();
+            return read(dictionary.getVector(), dictionaryIndex, dictionaries);
+        }
+        if (vector instanceof StructVector) {
+            final Map<String, Object> map = new HashMap<>();
+            for (FieldVector child : ((StructVector) vector).getChildrenFromFields()) {
+                map.put(child.getName(), read(child, index, dictionaries));
+            }
+            return fromStruct(field, withRest(map));
+        }
+        if (vector instanceof ListVector) {
+            final ListVector listVector = (ListVector) vector;
+            final int start = listVector.getOffsetBuffer().getInt((long) index * BaseRepeatedValueVector.OFFSET_WIDTH);
+            final int end = listVector.getOffsetBuffer().getInt((long) (index + 1) * BaseRepeatedValueVector.OFFSET_WIDTH);
+            final List<Object> list = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                list.add(read(listVector.getDataVector(), i, dictionaries));
+            }
+            return list;
+        }
+        if (vector instanceof VarCharVector) {
+            return ((VarCharVector) vector).getObject(index).toString();
+        }
+        if (vector instanceof BitVector) {
+            return ((BitVector) vector).get(index) == 1;
+        }
+        if (vector instanceof BigIntVector) {
+            return ((BigIntVector) vector).get(index);
+        }
+        if (vector instanceof IntVector) {
+            return (long) ((IntVector) vector).get(index);
+        }
+        if (vector instanceof Float8Vector) {
+            return ((Float8Vector) vector).get(index);
+        }
+        if (vector instanceof DateMilliVector) {
+            return Instant.ofEpochMilli(((DateMilliVector) vector).get(index)).atOffset(ZoneOffset.UTC);
+        }
+        if (vector instanceof DateDayVector) {
+            return LocalDate.ofEpochDay(((DateDayVector) vector).get(index));
+        }
+        if (vector instanceof TimeNanoVector) {
+            return LocalTime.ofNanoOfDay(((TimeNanoVector) vector).get(index));
+        }
+        return vector.getObject(index);
+    }
+}
@@ -1,21 +1,65 @@
 package apoc.export.arrow;
 
+import apoc.util.Util;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.FieldType;
+import org.neo4j.procedure.TerminationGuard;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static apoc.export.arrow.ArrowTypes.LIST_DATA;
+import static apoc.export.arrow.ArrowTypes.dictionaryField;
+import static apoc.export.arrow.ArrowTypes.listField;
 
 public class ArrowUtils {
 
     private ArrowUtils() {
     }
 
+    public static final long LABELS_DICTIONARY_ID = 0;
+    public static final long TYPES_DICTIONARY_ID = 1;
+
     public static Field FIELD_ID = new Field("<id>", FieldType.nullable(Types.MinorType.BIGINT.getType()), null);
-    public static Field FIELD_LABELS = new Field("labels", FieldType.nullable(Types.MinorType.LIST.getType()),
-            List.of(new Field("$data$", FieldType.nullable(Types.MinorType.VARCHAR.getType()), null)));
+    // the labels and the types are dictionary encoded, see GraphDictionaries
+    public static Field FIELD_LABELS = listField("labels", dictionaryField(LIST_DATA, LABELS_DICTIONARY_ID));
     public static Field FIELD_SOURCE_ID = new Field("<source.id>", FieldType.nullable(Types.MinorType.BIGINT.getType()), null);
     public static Field FIELD_TARGET_ID = new Field("<target.id>", FieldType.nullable(Types.MinorType.BIGINT.getType()), null);
-    public static Field FIELD_TYPE = new Field("<type>", FieldType.nullable(Types.MinorType.VARCHAR.getType()), null);
+    public static Field FIELD_TYPE = dictionaryField("<type>", TYPES_DICTIONARY_ID);
 
+    /**
+     * Hands the rows over to the consumer in batches of `batchSize`, until the transaction is terminated
+     */
+    public static void forEachBatch(Iterator<Map<String, Object>> rows, int batchSize, TerminationGuard terminationGuard,
+                                    Consumer<List<Map<String, Object>>> consumer) {
+        List<Map<String, Object>> batch = new ArrayList<>(batchSize);
+        while (!Util.transactionIsTerminated(terminationGuard) && rows.hasNext()) {
+            batch.add(rows.next());
+            if (batch.size() == batchSize) {
+                consumer.accept(batch);
+                // the batch can still be filled on another thread
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    /**
+     * The threads filling the record batches of an export, of its own so that they never wait for the thread reading the rows
+     */
+    public static ExecutorService newWorkers(int parallel) {
+        return Executors.newFixedThreadPool(parallel, runnable -> {
+            Thread thread = new Thread(runnable, "apoc-arrow");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
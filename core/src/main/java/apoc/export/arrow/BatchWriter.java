@@ -0,0 +1,31 @@
+package apoc.export.arrow;
+
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the rows of a file export to the file, in batches built on any thread and written one at a time
+ * in the order of the rows, see {@link ExportArrowFileStrategy#export}
+ *
+ * @param <T> the batches of the format, as the Arrow record batches of {@link ArrowBatchWriter}
+ */
+public interface BatchWriter<T> extends AutoCloseable {
+
+    /**
+     * @param rows already converted by {@link ExportArrowStrategy#convertRows(List)}
+     * @return the batch of the rows, to be written or discarded by the caller
+     */
+    T toBatch(Schema schema, List<Map<String, Object>> rows);
+
+    void write(T batch);
+
+    /**
+     * Releases a batch that is not written, once the export failed
+     */
+    void discard(T batch);
+
+    @Override
+    void close();
+}
@@ -76,7 +76,7 @@ public class ExportArrow {
     }
 
     @Procedure("apoc.export.arrow.all")
-    @Description("Exports the full database as an arrow file.")
+    @Description("Exports the full database as an arrow file. With `parallel: N` the database is read as N shards at the same time, each one in its own transaction, so the export is not a consistent snapshot of a database written to meanwhile.")
     public Stream<ProgressInfo> all(@Name("file") String fileName, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
         return new ExportArrowService(db, pools, terminationGuard, logger).file(fileName, new DatabaseSubGraph(tx), new ArrowConfig(config));
     }
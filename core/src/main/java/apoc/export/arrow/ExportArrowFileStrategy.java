@@ -1,6 +1,5 @@
 package apoc.export.arrow;
 
-import apoc.convert.Json;
 import apoc.export.util.ProgressReporter;
 import apoc.result.ProgressInfo;
 import apoc.util.FileUtils;
@@ -17,17 +16,15 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.TerminationGuard;
 
-import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.channels.Channels;
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -35,45 +32,29 @@ public interface ExportArrowFileStrategy<IN> extends ExportArrowStrategy<IN, Str
 
     Iterator<Map<String, Object>> toIterator(ProgressReporter reporter, IN data);
 
+    /**
+     * Reads the rows of the data and hands them over to the consumer in batches, on the reading threads
+     */
+    default void readBatches(ProgressReporter reporter, IN data, ArrowConfig config, Consumer<List<Map<String, Object>>> consumer) {
+        ArrowUtils.forEachBatch(toIterator(reporter, data), config.getBatchSize(), getTerminationGuard(), consumer);
+    }
+
     default Stream<ProgressInfo> export(IN data, ArrowConfig config) {
         final BlockingQueue<ProgressInfo> queue = new ArrayBlockingQueue<>(10);
         final OutputStream out = FileUtils.getOutputStream(getFileName());
-        ProgressInfo progressInfo = new ProgressInfo(getFileName(), getSource(data), "arrow");
+        ProgressInfo progressInfo = new ProgressInfo(getFileName(), getSource(data), getFormat());
         progressInfo.batchSize = config.getBatchSize();
         ProgressReporter reporter = new ProgressReporter(null, null, progressInfo);
         Util.inTxFuture(getExecutorService(), getGraphDatabaseApi(), txInThread -> {
-            int batchCount = 0;
-            List<Map<String, Object>> rows = new ArrayList<>(config.getBatchSize());
-            VectorSchemaRoot root = null;
-            ArrowWriter writer = null;
+            final BatchWriter<?> writer = newBatchWriter(out);
             try {
-                Iterator<Map<String, Object>> it = toIterator(reporter, data);
-                while (!Util.transactionIsTerminated(getTerminationGuard()) && it.hasNext()) {
-                    rows.add(it.next());
-                    if (batchCount > 0 && batchCount % config.getBatchSize() == 0) {
-                        if (root == null) {
-                            root = VectorSchemaRoot.create(schemaFor(rows), getBufferAllocator());
-                            writer = newArrowWriter(root, out);
-                        }
-                        writeBatch(root, writer, rows);
-                        rows.clear();
-                    }
-                    ++batchCount;
-                }
-                if (!rows.isEmpty()) {
-                    if (root == null) {
-                        root = VectorSchemaRoot.create(schemaFor(rows), getBufferAllocator());
-                        writer = newArrowWriter(root, out);
-                    }
-                    writeBatch(root, writer, rows);
-                }
+                writeBatches(reporter, data, config, writer);
                 QueueUtil.put(queue, progressInfo, 10);
             } catch (Exception e) {
-                getLogger().error("Exception while extracting Arrow data:", e);
+                getLogger().error("Exception while extracting " + getFormat() + " data:", e);
             } finally {
                 reporter.done();
-                Util.close(root);
-                Util.close(writer);
+                writer.close();
                 QueueUtil.put(queue, ProgressInfo.EMPTY, 10);
             }
             return true;
@@ -82,27 +63,38 @@ public interface ExportArrowFileStrategy<IN> extends ExportArrowStrategy<IN, Str
         return StreamSupport.stream(spliterator, false);
     }
 
+    /**
+     * Writes the rows of the data in batches, built by threads of their own unless the rows are read in parallel
+     */
+    default <T> void writeBatches(ProgressReporter reporter, IN data, ArrowConfig config, BatchWriter<T> writer) {
+        if (config.getParallel() == 1 || readsInParallel(data, config)) {
+            readBatches(reporter, data, config, rows -> writer.write(writer.toBatch(schemaFor(rows), convertRows(rows))));
+            return;
+        }
+        final ExecutorService workers = ArrowUtils.newWorkers(config.getParallel());
+        try (ArrowBatchPipeline<T> pipeline = new ArrowBatchPipeline<>(workers, config.getParallel(), writer::write, writer::discard)) {
+            readBatches(reporter, data, config, rows -> {
+                final Schema schema = schemaFor(rows);
+                final List<Map<String, Object>> converted = convertRows(rows);
+                pipeline.submit(() -> writer.toBatch(schema, converted));
+            });
+            pipeline.flush();
+        } finally {
+            workers.shutdown();
+        }
+    }
+
     String getSource(IN data);
 
+    /**
+     * @return the writer of the batches to the file, in the Arrow file format unless overridden
+     */
+    default BatchWriter<?> newBatchWriter(OutputStream out) {
+        return new ArrowBatchWriter(this, out);
+    }
 
-    default void writeBatch(VectorSchemaRoot root, ArrowWriter writer, List<Map<String, Object>> rows) {
-        AtomicInteger counter = new AtomicInteger();
-        root.allocateNew();
-        rows.forEach(row -> {
-            final int index = counter.getAndIncrement();
-            root.getFieldVectors()
-                    .forEach(fe -> {
-                        Object value = convertValue(row.get(fe.getName()));
-                        write(index, value, fe);
-                    });
-        });
-        root.setRowCount(counter.get());
-        try {
-            writer.writeBatch();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-        root.clear();
+    default String getFormat() {
+        return "arrow";
     }
 
     String getFileName();
@@ -118,7 +110,7 @@ public interface ExportArrowFileStrategy<IN> extends ExportArrowStrategy<IN, Str
     Log getLogger();
 
     default Object convertValue(Object data) {
-        return data == null ? null : Json.writeJsonResult(data);
+        return ArrowTypes.toArrowValue(data);
     }
 
     default ArrowWriter newArrowWriter(VectorSchemaRoot root, OutputStream out) {
@@ -1,11 +1,9 @@
 package apoc.export.arrow;
 
-import apoc.convert.Json;
 import apoc.result.ByteArrayResult;
 import apoc.util.QueueBasedSpliterator;
 import apoc.util.QueueUtil;
 import apoc.util.Util;
-import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.dictionary.DictionaryProvider;
 import org.apache.arrow.vector.ipc.ArrowStreamWriter;
@@ -16,13 +14,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.channels.Channels;
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -30,23 +28,22 @@ public interface ExportArrowStreamStrategy<IN> extends ExportArrowStrategy<IN, S
 
     Iterator<Map<String, Object>> toIterator(IN data);
 
-    default byte[] writeBatch(BufferAllocator bufferAllocator, List<Map<String, Object>> rows) {
-        try (final VectorSchemaRoot root = VectorSchemaRoot.create(schemaFor(rows), bufferAllocator);
+    /**
+     * Reads the rows of the data and hands them over to the consumer in batches, on the reading threads
+     */
+    default void readBatches(IN data, ArrowConfig config, Consumer<List<Map<String, Object>>> consumer) {
+        ArrowUtils.forEachBatch(toIterator(data), config.getBatchSize(), getTerminationGuard(), consumer);
+    }
+
+    /**
+     * @param rows already converted by {@link #convertRows(List)}
+     * @return the rows as an Arrow stream of their own
+     */
+    default byte[] writeBatch(Schema schema, List<Map<String, Object>> rows) {
+        try (final VectorSchemaRoot root = fill(schema, rows);
              final ByteArrayOutputStream out = new ByteArrayOutputStream();
              final ArrowWriter writer = newArrowWriter(root, out)) {
-            AtomicInteger counter = new AtomicInteger();
-            root.allocateNew();
-            rows.forEach(row -> {
-                final int index = counter.getAndIncrement();
-                root.getFieldVectors()
-                        .forEach(fe -> {
-                            Object value = convertValue(row.get(fe.getName()));
-                            write(index, value, fe);
-                        });
-            });
-            root.setRowCount(counter.get());
             writer.writeBatch();
-            root.clear();
             return out.toByteArray();
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -56,22 +53,22 @@ public interface ExportArrowStreamStrategy<IN> extends ExportArrowStrategy<IN, S
     default Stream<ByteArrayResult> export(IN data, ArrowConfig config) {
         final BlockingQueue<ByteArrayResult> queue = new ArrayBlockingQueue<>(100);
         Util.inTxFuture(getExecutorService(), getGraphDatabaseApi(), txInThread -> {
-            int batchCount = 0;
-            List<Map<String, Object>> rows = new ArrayList<>(config.getBatchSize());
+            final Consumer<byte[]> sink = bytes -> QueueUtil.put(queue, new ByteArrayResult(bytes), 10);
             try {
-                Iterator<Map<String, Object>> it = toIterator(data);
-                while (!Util.transactionIsTerminated(getTerminationGuard()) && it.hasNext()) {
-                    rows.add(it.next());
-                    if (batchCount > 0 && batchCount % config.getBatchSize() == 0) {
-                        final byte[] bytes = writeBatch(getBufferAllocator(), rows);
-                        QueueUtil.put(queue, new ByteArrayResult(bytes), 10);
-                        rows.clear();
+                if (config.getParallel() == 1 || readsInParallel(data, config)) {
+                    readBatches(data, config, rows -> sink.accept(writeBatch(schemaFor(rows), convertRows(rows))));
+                } else {
+                    final ExecutorService workers = ArrowUtils.newWorkers(config.getParallel());
+                    try (ArrowBatchPipeline<byte[]> pipeline = new ArrowBatchPipeline<>(workers, config.getParallel(), sink, bytes -> {})) {
+                        readBatches(data, config, rows -> {
+                            final Schema schema = schemaFor(rows);
+                            final List<Map<String, Object>> converted = convertRows(rows);
+                            pipeline.submit(() -> writeBatch(schema, converted));
+                        });
+                        pipeline.flush();
+                    } finally {
+                        workers.shutdown();
                     }
-                    ++batchCount;
-                }
-                if (!rows.isEmpty()) {
-                    final byte[] bytes = writeBatch(getBufferAllocator(), rows);
-                    QueueUtil.put(queue, new ByteArrayResult(bytes), 10);
                 }
             } catch (Exception e) {
                 getLogger().error("Exception while extracting Arrow data:", e);
@@ -85,7 +82,7 @@ public interface ExportArrowStreamStrategy<IN> extends ExportArrowStrategy<IN, S
     }
 
     default Object convertValue(Object data) {
-        return data == null ? null : Json.writeJsonResult(data);
+        return ArrowTypes.toArrowValue(data);
     }
 
     default ArrowWriter newArrowWriter(VectorSchemaRoot root, OutputStream out) {
@@ -1,11 +1,16 @@
 package apoc.export.arrow;
 
 import apoc.Pools;
+import apoc.export.util.PartitionedExport;
 import apoc.export.util.ProgressReporter;
 import apoc.result.ProgressInfo;
 import apoc.util.collection.Iterables;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.ArrowWriter;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -14,10 +19,13 @@ import org.neo4j.graphdb.Relationship;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.TerminationGuard;
 
+import java.io.OutputStream;
+import java.nio.channels.Channels;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 public class ExportGraphFileStrategy implements ExportArrowFileStrategy<SubGraph>, ExportGraphStrategy {
@@ -32,6 +40,8 @@ public class ExportGraphFileStrategy implements ExportArrowFileStrategy<SubGraph
 
     private Schema schema;
 
+    private GraphDictionaries dictionaries;
+
     public ExportGraphFileStrategy(String fileName, GraphDatabaseService db, Pools pools, TerminationGuard terminationGuard, Log logger) {
         this.fileName = fileName;
         this.db = db;
@@ -59,6 +69,7 @@ public class ExportGraphFileStrategy implements ExportArrowFileStrategy<SubGraph
 
     @Override
     public Stream<ProgressInfo> export(SubGraph data, ArrowConfig config) {
+        dictionaries = new GraphDictionaries(data);
         schemaFor(List.of(createConfigMap(data, config)));
         return ExportArrowFileStrategy.super.export(data, config);
     }
@@ -101,6 +112,47 @@ public class ExportGraphFileStrategy implements ExportArrowFileStrategy<SubGraph
         return schema;
     }
 
+    @Override
+    public boolean readsInParallel(SubGraph subGraph, ArrowConfig config) {
+        return isWholeDatabase(subGraph, config);
+    }
+
+    @Override
+    public void readBatches(ProgressReporter reporter, SubGraph subGraph, ArrowConfig config, Consumer<List<Map<String, Object>>> consumer) {
+        if (!readsInParallel(subGraph, config)) {
+            ExportArrowFileStrategy.super.readBatches(reporter, subGraph, config, consumer);
+            return;
+        }
+        final ExecutorService workers = ArrowUtils.newWorkers(config.getParallel());
+        try {
+            final List<ProgressInfo> totals = PartitionedExport.forEachShard(db, workers, config.getParallel(), (shard, tx, graph) -> {
+                final ProgressReporter shardReporter = new ProgressReporter(null, null, new ProgressInfo(fileName, null, getFormat()));
+                ArrowUtils.forEachBatch(toIterator(shardReporter, graph), config.getBatchSize(), terminationGuard, consumer);
+                return shardReporter.getTotal();
+            });
+            totals.forEach(total -> reporter.update(total.nodes, total.relationships, total.properties));
+        } finally {
+            workers.shutdown();
+        }
+    }
 
+    @Override
+    public GraphDictionaries getDictionaries() {
+        return dictionaries;
+    }
 
+    @Override
+    public ArrowWriter newArrowWriter(VectorSchemaRoot root, OutputStream out) {
+        final DictionaryProvider.MapDictionaryProvider provider = dictionaries.toProvider(getBufferAllocator());
+        return new ArrowFileWriter(root, provider, Channels.newChannel(out)) {
+            @Override
+            public void close() {
+                try {
+                    super.close();
+                } finally {
+                    GraphDictionaries.close(provider);
+                }
+            }
+        };
+    }
 }
\ No newline at end of file
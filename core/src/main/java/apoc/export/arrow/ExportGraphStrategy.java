@@ -1,9 +1,9 @@
 package apoc.export.arrow;
 
-import apoc.util.Util;
 import apoc.util.collection.Iterables;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
+import org.neo4j.cypher.export.DatabaseSubGraph;
 import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -13,56 +13,53 @@ import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.ResultTransformer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static apoc.export.arrow.ArrowUtils.FIELD_ID;
 import static apoc.export.arrow.ArrowUtils.FIELD_LABELS;
 import static apoc.export.arrow.ArrowUtils.FIELD_SOURCE_ID;
 import static apoc.export.arrow.ArrowUtils.FIELD_TARGET_ID;
 import static apoc.export.arrow.ArrowUtils.FIELD_TYPE;
-import static apoc.export.arrow.ExportArrowStrategy.toField;
 
 public interface ExportGraphStrategy {
 
+    GraphDictionaries getDictionaries();
+
     default Schema schemaFor(GraphDatabaseService db, List<Map<String, Object>> records) {
-        final Function<Map<String, Object>, Stream<? extends Field>> flatMapStream = m -> {
-            String propertyName = (String) m.get("propertyName");
-            List<String> propertyTypes = (List<String>) m.get("propertyTypes");
-            return propertyTypes.stream()
-                    .map(propertyType -> toField(propertyName, new HashSet<>(propertyTypes)));
+        // the properties of the nodes and of the relationships share their columns, typed from all their types
+        final Map<String, Set<String>> propertyTypes = new LinkedHashMap<>();
+        final ResultTransformer<Void> collectPropertyTypes = result -> {
+            result.stream()
+                    .filter(m -> m.get("propertyName") != null)
+                    .forEach(m -> propertyTypes.computeIfAbsent((String) m.get("propertyName"), k -> new HashSet<>())
+                            .addAll((List<String>) m.get("propertyTypes")));
+            return null;
         };
-        final Predicate<Map<String, Object>> filterStream = m -> m.get("propertyName") != null;
-        final ResultTransformer<Set<Field>> parsePropertiesResult = result -> result.stream()
-                .filter(filterStream)
-                .flatMap(flatMapStream)
-                .collect(Collectors.toSet());
 
         final Map<String, Object> cfg = records.get(0);
         final Map<String, Object> parameters = Map.of("config", cfg);
-        final Set<Field> allFields = new HashSet<>();
-        Set<Field> nodeFields = db.executeTransactionally("CALL apoc.meta.nodeTypeProperties($config)",
-                parameters, parsePropertiesResult);
+        final List<Field> allFields = new ArrayList<>();
+        db.executeTransactionally("CALL apoc.meta.nodeTypeProperties($config)", parameters, collectPropertyTypes);
 
         allFields.add(FIELD_ID);
         allFields.add(FIELD_LABELS);
-        allFields.addAll(nodeFields);
 
         if (cfg.containsKey("includeRels")) {
-            final Set<Field> relFields = db.executeTransactionally("CALL apoc.meta.relTypeProperties($config)",
-                    parameters, parsePropertiesResult);
+            db.executeTransactionally("CALL apoc.meta.relTypeProperties($config)", parameters, collectPropertyTypes);
             allFields.add(FIELD_SOURCE_ID);
             allFields.add(FIELD_TARGET_ID);
             allFields.add(FIELD_TYPE);
-            allFields.addAll(relFields);
         }
+        propertyTypes.forEach((propertyName, types) -> allFields.add(ArrowTypes.fieldForMetaTypes(propertyName, types)));
+        // the properties that don't fit the types sampled by apoc.meta
+        allFields.add(ArrowTypes.restField());
         return new Schema(allFields);
     }
 
@@ -70,10 +67,10 @@ public interface ExportGraphStrategy {
         Map<String, Object> flattened = new HashMap<>();
         flattened.put(FIELD_ID.getName(), entity.getId());
         if (entity instanceof Node) {
-            flattened.put(FIELD_LABELS.getName(), Util.labelStrings((Node) entity));
+            flattened.put(FIELD_LABELS.getName(), getDictionaries().labelIndexes((Node) entity));
         } else {
             Relationship rel = (Relationship) entity;
-            flattened.put(FIELD_TYPE.getName(), rel.getType().name());
+            flattened.put(FIELD_TYPE.getName(), getDictionaries().typeIndex(rel));
             flattened.put(FIELD_SOURCE_ID.getName(), rel.getStartNodeId());
             flattened.put(FIELD_TARGET_ID.getName(), rel.getEndNodeId());
         }
@@ -81,6 +78,13 @@ public interface ExportGraphStrategy {
         return flattened;
     }
 
+    /**
+     * @return true if the subgraph is the whole database, read on `parallel` threads in as many id ranges
+     */
+    default boolean isWholeDatabase(SubGraph subGraph, ArrowConfig config) {
+        return config.getParallel() > 1 && subGraph instanceof DatabaseSubGraph;
+    }
+
     default Map<String, Object> createConfigMap(SubGraph subGraph, ArrowConfig config) {
         final List<String> allLabelsInUse = Iterables.stream(subGraph.getAllLabelsInUse())
                 .map(Label::name)
@@ -1,6 +1,7 @@
 package apoc.export.arrow;
 
 import apoc.Pools;
+import apoc.export.util.PartitionedExport;
 import apoc.result.ByteArrayResult;
 import apoc.util.collection.Iterables;
 import org.apache.arrow.memory.BufferAllocator;
@@ -21,6 +22,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 public class ExportGraphStreamStrategy implements ExportArrowStreamStrategy<SubGraph>, ExportGraphStrategy {
@@ -34,6 +36,8 @@ public class ExportGraphStreamStrategy implements ExportArrowStreamStrategy<SubG
 
     private Schema schema;
 
+    private GraphDictionaries dictionaries;
+
 
     public ExportGraphStreamStrategy(GraphDatabaseService db, Pools pools, TerminationGuard terminationGuard, Log logger) {
         this.db = db;
@@ -52,6 +56,7 @@ public class ExportGraphStreamStrategy implements ExportArrowStreamStrategy<SubG
 
     @Override
     public Stream<ByteArrayResult> export(SubGraph subGraph, ArrowConfig config) {
+        dictionaries = new GraphDictionaries(subGraph);
         Map<String, Object> configMap = createConfigMap(subGraph, config);
         this.schemaFor(List.of(configMap));
         return ExportArrowStreamStrategy.super.export(subGraph, config);
@@ -84,7 +89,44 @@ public class ExportGraphStreamStrategy implements ExportArrowStreamStrategy<SubG
 
     @Override
     public ArrowWriter newArrowWriter(VectorSchemaRoot root, OutputStream out) {
-        return new ArrowStreamWriter(root, new DictionaryProvider.MapDictionaryProvider(), Channels.newChannel(out));
+        final DictionaryProvider.MapDictionaryProvider provider = dictionaries.toProvider(getBufferAllocator());
+        return new ArrowStreamWriter(root, provider, Channels.newChannel(out)) {
+            @Override
+            public void close() {
+                try {
+                    super.close();
+                } finally {
+                    GraphDictionaries.close(provider);
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean readsInParallel(SubGraph subGraph, ArrowConfig config) {
+        return isWholeDatabase(subGraph, config);
+    }
+
+    @Override
+    public void readBatches(SubGraph subGraph, ArrowConfig config, Consumer<List<Map<String, Object>>> consumer) {
+        if (!readsInParallel(subGraph, config)) {
+            ExportArrowStreamStrategy.super.readBatches(subGraph, config, consumer);
+            return;
+        }
+        final ExecutorService workers = ArrowUtils.newWorkers(config.getParallel());
+        try {
+            PartitionedExport.forEachShard(db, workers, config.getParallel(), (shard, tx, graph) -> {
+                ArrowUtils.forEachBatch(toIterator(graph), config.getBatchSize(), terminationGuard, consumer);
+                return null;
+            });
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    @Override
+    public GraphDictionaries getDictionaries() {
+        return dictionaries;
     }
 
     @Override
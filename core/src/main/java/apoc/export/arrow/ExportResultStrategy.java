@@ -1,28 +1,25 @@
 package apoc.export.arrow;
 
-import apoc.meta.Types;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.neo4j.graphdb.GraphDatabaseService;
-import java.util.AbstractMap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-
-import static apoc.export.arrow.ExportArrowStrategy.fromMetaType;
-import static apoc.export.arrow.ExportArrowStrategy.toField;
 
 public interface ExportResultStrategy {
 
     default Schema schemaFor(GraphDatabaseService db, List<Map<String, Object>> records) {
-        final List<Field> fields = records.stream()
-                .flatMap(m -> m.entrySet().stream())
-                .map(e -> new AbstractMap.SimpleEntry<>(e.getKey(), fromMetaType(Types.of(e.getValue()))))
-                .collect(Collectors.groupingBy(e -> e.getKey(), Collectors.mapping(e -> e.getValue(), Collectors.toSet())))
-                .entrySet()
-                .stream()
-                .map(e -> toField(e.getKey(), e.getValue()))
-                .collect(Collectors.toList());
+        // every column is typed from all its values in the records
+        final Map<String, List<Object>> valuesByColumn = new LinkedHashMap<>();
+        records.forEach(record -> record.forEach((column, value) ->
+                valuesByColumn.computeIfAbsent(column, k -> new ArrayList<>()).add(value)));
+        final List<Field> fields = new ArrayList<>(valuesByColumn.size());
+        valuesByColumn.forEach((column, values) -> fields.add(ArrowTypes.fieldForValues(column, values)));
+        // the values of the next batches that don't fit the types of their columns
+        fields.add(ArrowTypes.restField());
         return new Schema(fields);
     }
 }
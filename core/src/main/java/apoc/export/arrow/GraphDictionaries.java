@@ -0,0 +1,86 @@
+package apoc.export.arrow;
+
+import apoc.util.collection.Iterables;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.neo4j.cypher.export.SubGraph;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static apoc.export.arrow.ArrowUtils.LABELS_DICTIONARY_ID;
+import static apoc.export.arrow.ArrowUtils.TYPES_DICTIONARY_ID;
+
+/**
+ * The labels and the relationship types of a graph, written once as Arrow dictionaries
+ * and referenced by their indexes in the `labels` and `<type>` columns.
+ */
+public class GraphDictionaries {
+
+    private final Map<String, Integer> labels = new LinkedHashMap<>();
+    private final Map<String, Integer> types = new LinkedHashMap<>();
+
+    public GraphDictionaries(SubGraph subGraph) {
+        Iterables.stream(subGraph.getAllLabelsInUse()).map(Label::name).forEach(label -> labels.putIfAbsent(label, labels.size()));
+        Iterables.stream(subGraph.getAllRelationshipTypesInUse()).map(RelationshipType::name).forEach(type -> types.putIfAbsent(type, types.size()));
+    }
+
+    public List<Integer> labelIndexes(Node node) {
+        final List<Integer> indexes = new ArrayList<>();
+        for (Label label : node.getLabels()) {
+            final Integer index = labels.get(label.name());
+            if (index != null) {
+                indexes.add(index);
+            }
+        }
+        return indexes;
+    }
+
+    public Integer typeIndex(Relationship rel) {
+        return types.get(rel.getType().name());
+    }
+
+    /**
+     * @return the labels and the types by the id of their dictionary, at their indexes, for the writers without Arrow dictionaries
+     */
+    public Map<Long, List<String>> values() {
+        return Map.of(LABELS_DICTIONARY_ID, List.copyOf(labels.keySet()), TYPES_DICTIONARY_ID, List.copyOf(types.keySet()));
+    }
+
+    /**
+     * @return the dictionaries of a writer, whose vectors are released by {@link #close(DictionaryProvider.MapDictionaryProvider)}
+     *      once the writer is closed
+     */
+    public DictionaryProvider.MapDictionaryProvider toProvider(BufferAllocator allocator) {
+        return new DictionaryProvider.MapDictionaryProvider(
+                dictionary(allocator, "labels", LABELS_DICTIONARY_ID, labels.keySet()),
+                dictionary(allocator, "types", TYPES_DICTIONARY_ID, types.keySet()));
+    }
+
+    public static void close(DictionaryProvider.MapDictionaryProvider provider) {
+        provider.lookup(LABELS_DICTIONARY_ID).getVector().close();
+        provider.lookup(TYPES_DICTIONARY_ID).getVector().close();
+    }
+
+    private static Dictionary dictionary(BufferAllocator allocator, String name, long id, Collection<String> values) {
+        final VarCharVector vector = new VarCharVector(name, allocator);
+        vector.allocateNew();
+        int index = 0;
+        for (String value : values) {
+            vector.setSafe(index++, value.getBytes(StandardCharsets.UTF_8));
+        }
+        vector.setValueCount(index);
+        return new Dictionary(vector, new DictionaryEncoding(id, false, null));
+    }
+}
@@ -0,0 +1,47 @@
+package apoc.export.arrow;
+
+import apoc.Pools;
+import apoc.export.util.ProgressReporter;
+import apoc.result.ProgressInfo;
+import apoc.util.Util;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+import org.neo4j.procedure.TerminationGuard;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class ImportArrow {
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public Pools pools;
+
+    @Context
+    public TerminationGuard terminationGuard;
+
+    @Procedure(name = "apoc.import.arrow", mode = Mode.WRITE)
+    @Description("Imports a graph from the provided arrow file or byte array.")
+    public Stream<ProgressInfo> importFile(@Name("urlOrBinaryFile") Object urlOrBinaryFile, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        ProgressInfo result =
+                Util.inThread(pools, () -> {
+                    // the batchSize is the number of entities per transaction
+                    final ArrowConfig arrowConfig = new ArrowConfig(config);
+                    String file = null;
+                    String source = "binary";
+                    if (urlOrBinaryFile instanceof String) {
+                        file = (String) urlOrBinaryFile;
+                        source = "file";
+                    }
+                    final ProgressReporter reporter = new ProgressReporter(null, null, new ProgressInfo(file, source, "arrow"));
+                    new ArrowImporter(db, arrowConfig, reporter, terminationGuard).importAll(ArrowSource.of(urlOrBinaryFile));
+                    return reporter.getTotal();
+                });
+        return Stream.of(result);
+    }
+}
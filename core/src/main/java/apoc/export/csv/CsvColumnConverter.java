@@ -0,0 +1,78 @@
+package apoc.export.csv;
+
+import apoc.load.Mapping;
+import apoc.meta.Types;
+import apoc.util.Util;
+
+/**
+ * Decodes the field of a column, as parsed by {@link CsvRowParser}, into the value that the {@link Mapping}
+ * of its {@link CsvHeaderField} would return for the same string.
+ *
+ * The converter is chosen once per column: the ignored columns are not decoded at all,
+ * while strings, integers, floats and booleans are decoded without going through the mapping.
+ */
+@FunctionalInterface
+interface CsvColumnConverter {
+
+    Object convert(char[] chars, int start, int length);
+
+    static CsvColumnConverter of(CsvHeaderField field, Mapping mapping) {
+        if (field.isIgnore()) {
+            return (chars, start, length) -> null;
+        }
+        if (field.isArray()) {
+            return (chars, start, length) -> mapping.convert(new String(chars, start, length));
+        }
+        switch (Types.from(field.getType())) {
+            case STRING:
+                return String::new;
+            case INTEGER:
+                return CsvColumnConverter::toLong;
+            case FLOAT:
+                return (chars, start, length) -> isBlank(chars, start, length) ? null : Util.toDouble(new String(chars, start, length));
+            case BOOLEAN:
+                return CsvColumnConverter::toBoolean;
+            default:
+                return (chars, start, length) -> mapping.convert(new String(chars, start, length));
+        }
+    }
+
+    private static Long toLong(char[] chars, int start, int length) {
+        if (isBlank(chars, start, length)) return null;
+        int i = start;
+        final int end = start + length;
+        final boolean negative = chars[i] == '-';
+        if (negative || chars[i] == '+') i++;
+        // up to 18 digits cannot overflow, anything else is left to Util.toLong
+        if (i == end || end - i > 18) return Util.toLong(new String(chars, start, length));
+        long value = 0;
+        for (; i < end; i++) {
+            final int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) return Util.toLong(new String(chars, start, length));
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private static Boolean toBoolean(char[] chars, int start, int length) {
+        if (isBlank(chars, start, length)) return null;
+        return !(regionEquals(chars, start, length, "false")
+                || regionEquals(chars, start, length, "no")
+                || regionEquals(chars, start, length, "0"));
+    }
+
+    private static boolean regionEquals(char[] chars, int start, int length, String value) {
+        if (length != value.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (Character.toLowerCase(chars[start + i]) != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isBlank(char[] chars, int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            if (!Character.isWhitespace(chars[i])) return false;
+        }
+        return true;
+    }
+}
@@ -1,22 +1,19 @@
 package apoc.export.csv;
 
-import apoc.export.util.BatchTransaction;
 import apoc.export.util.CountingReader;
+import apoc.export.util.KernelImportWriter;
 import apoc.export.util.ProgressReporter;
-import apoc.load.CSVResult;
 import apoc.load.Mapping;
-import apoc.load.util.Results;
 import apoc.util.FileUtils;
-import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
 import org.neo4j.graphdb.*;
 import org.neo4j.logging.Log;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class CsvEntityLoader {
@@ -24,20 +21,33 @@ public class CsvEntityLoader {
     private final CsvLoaderConfig clc;
     private final ProgressReporter reporter;
     private final Log log;
+    private final ExecutorService executor;
+    // shared by the files of the import, which can be loaded concurrently
+    private final KernelImportWriter.Tokens tokens;
 
     /**
      * @param clc configuration object
      * @param reporter
      */
     public CsvEntityLoader(CsvLoaderConfig clc, ProgressReporter reporter, Log log) {
+        this(clc, reporter, log, null);
+    }
+
+    /**
+     * @param executor where the files are parsed and the relationships are written with the `parallel` config,
+     *                 it must not be the pool the caller itself runs in, as the caller waits on those tasks
+     */
+    public CsvEntityLoader(CsvLoaderConfig clc, ProgressReporter reporter, Log log, ExecutorService executor) {
         this.clc = clc;
         this.reporter = reporter;
         this.log = log;
+        this.executor = executor;
+        this.tokens = new KernelImportWriter.Tokens();
     }
 
     /**
      * Loads nodes from a CSV file with given labels to an online database, and fills the {@code idMapping},
-     * which will be used by the {@link #loadRelationships(Object, String, GraphDatabaseService, Map)}
+     * which will be used by the {@link #loadRelationships(Object, String, GraphDatabaseService, IdMapping)}
      * method.
      *
      * @param fileName URI/Binary of the CSV file representing the node
@@ -47,7 +57,7 @@ public class CsvEntityLoader {
      * @throws IOException
      */
     public void loadNodes(final Object fileName, final List<String> labels, final GraphDatabaseService db,
-                          final Map<String, Map<String, String>> idMapping) throws IOException {
+                          final IdMapping idMapping) throws IOException {
         
         try (final CountingReader reader = FileUtils.readerFor(fileName, clc.getCompressionAlgo())) {
             final String header = readFirstLine(reader);
@@ -61,67 +71,55 @@ public class CsvEntityLoader {
                 log.warn("Please note that if no ID is specified, the node will be imported but it will not be able to be connected by any relationships during the import");
             }
 
-            final Optional<String> idAttribute = idField.isPresent() ? Optional.of(idField.get().getName()) : Optional.empty();
             final String idSpace = idField.isPresent() ? idField.get().getIdSpace() : CsvLoaderConstants.DEFAULT_IDSPACE;
 
-            idMapping.putIfAbsent(idSpace, new HashMap<>());
-            final Map<String, String> idspaceIdMapping = idMapping.get(idSpace);
-
-            final Map<String, Mapping> mapping = getMapping(fields);
-
-            final CSVReader csv = new CSVReaderBuilder(reader)
-                    .withCSVParser(new CSVParserBuilder()
-                            .withSeparator(clc.getDelimiter())
-                            .withQuoteChar(clc.getQuotationCharacter())
-                            .build())
-                    .withSkipLines(clc.getSkipLines() - 1)
-                    .build();
+            final IdMapping.IdSpace idspaceIdMapping = idMapping.idSpace(idSpace);
 
-            final String[] loadCsvCompatibleHeader = fields.stream().map(f -> f.getName()).toArray(String[]::new);
-            AtomicInteger lineNo = new AtomicInteger();
-            try (BatchTransaction btx = new BatchTransaction(db, clc.getBatchSize(), reporter)) {
-                csv.forEach(line -> {
-                    lineNo.getAndIncrement();
+            final CsvColumnConverter[] converters = getConverters(fields);
 
-                    final EnumSet<Results> results = EnumSet.of(Results.map);
-                    final CSVResult result = new CSVResult(
-                            loadCsvCompatibleHeader, line, lineNo.get(), false, mapping, Collections.emptyList(), results
-                    );
+            final int idColumn = idField.map(fields::indexOf).orElse(-1);
+            try (CsvRowSource rows = openRows(fileName, reader, converters, clc.getSkipLines() - 1);
+                 KernelImportWriter writer = new KernelImportWriter(db, clc.getBatchSize(), reporter, tokens)) {
+                // the tokens are resolved with the first row, so that an empty file does not create any
+                int[] labelTokens = null;
+                int[] propertyKeys = null;
+                while (rows.next()) {
+                    final Object[] values = rows.values();
 
-                    final String nodeCsvId = (String) idAttribute.map(result.map::get).orElse(null);
+                    final String nodeCsvId = idColumn < 0 ? null : (String) values[idColumn];
 
                     // if 'ignore duplicate nodes' is false, there is an id field and the mapping already has the current id,
                     // we either fail the loading process or skip it depending on the 'ignore duplicate nodes' setting
-                    if (idField.isPresent() && idspaceIdMapping.containsKey(nodeCsvId)) {
-                        if (clc.getIgnoreDuplicateNodes()) {
-                            return;
-                        } else {
-                            throw new IllegalStateException("Duplicate node with id " + nodeCsvId + " found on line " + lineNo + "\n"
-                                    + Arrays.toString(line));
-                        }
+                    if (nodeCsvId != null && idspaceIdMapping.get(nodeCsvId) != IdMapping.NOT_FOUND) {
+                        if (skipDuplicate(nodeCsvId, rows)) continue;
                     }
 
-                    // create node and add its id to the mapping
-                    final Node node = btx.getTransaction().createNode();
-                    if (idField.isPresent()) {
-                        idspaceIdMapping.put(nodeCsvId, node.getElementId());
+                    if (labelTokens == null) {
+                        labelTokens = labels.stream().mapToInt(writer::labelToken).toArray();
+                        propertyKeys = fields.stream()
+                                .mapToInt(field -> field.isMeta() || field.isIgnore() ? -1 : writer.propertyKeyToken(field.getName()))
+                                .toArray();
                     }
 
-                    // add labels
-                    for (String label : labels) {
-                        node.addLabel(Label.label(label));
+                    // create node with its labels and add its id to the mapping
+                    final long node = writer.createNode(labelTokens);
+                    if (nodeCsvId != null && !idspaceIdMapping.putIfAbsent(nodeCsvId, node)) {
+                        // the same id has just been mapped by another node file loaded concurrently:
+                        // the node is deleted in the batch transaction that created it, so it is never committed
+                        writer.deleteNode(node);
+                        if (skipDuplicate(nodeCsvId, rows)) continue;
                     }
 
                     // add properties
                     int props = 0;
-                    for (CsvHeaderField field : fields) {
-                        final String name = field.getName();
-                        Object value = result.map.get(name);
+                    for (int i = 0; i < values.length; i++) {
+                        final CsvHeaderField field = fields.get(i);
+                        final Object value = values[i];
 
                         if (field.isMeta()) {
                             final List<String> customLabels = (List<String>) value;
                             for (String customLabel : customLabels) {
-                                node.addLabel(Label.label(customLabel));
+                                writer.addLabel(node, writer.labelToken(customLabel));
                             }
                         } else if (field.isId()) {
                             final Object idValue;
@@ -130,16 +128,19 @@ public class CsvEntityLoader {
                             } else {
                                 idValue = Long.valueOf((String) value);
                             }
-                            node.setProperty(field.getName(), idValue);
+                            writer.setNodeProperty(node, propertyKeys[i], idValue);
                             props++;
                         } else {
-                            boolean propertyAdded = CsvPropertyConverter.addPropertyToGraphEntity(node, field, value,clc);
-                            props += propertyAdded ? 1 : 0;
+                            final Object propertyValue = CsvPropertyConverter.toPropertyValue(field, value, clc);
+                            if (propertyValue != null) {
+                                writer.setNodeProperty(node, propertyKeys[i], propertyValue);
+                                props++;
+                            }
                         }
                     }
-                    btx.increment();
+                    writer.increment();
                     reporter.update(1, 0, props++);
-                });
+                }
             }
         }
     }
@@ -147,7 +148,7 @@ public class CsvEntityLoader {
     /**
      * Loads relationships from a CSV file with given relationship types to an online database,
      * using the {@code idMapping} created by the
-     * {@link #loadNodes(Object, List, GraphDatabaseService, Map)} method.
+     * {@link #loadNodes(Object, List, GraphDatabaseService, IdMapping)} method.
      *
      * @param data URI / Binary of the CSV file representing the relationship
      * @param type relationship type to be applied to each relationships
@@ -160,7 +161,7 @@ public class CsvEntityLoader {
             final Object data, 
             final String type,
             final GraphDatabaseService db,
-            final Map<String, Map<String, String>> idMapping) throws IOException {
+            final IdMapping idMapping) throws IOException {
         
         try (final CountingReader reader = FileUtils.readerFor(data, clc.getCompressionAlgo())) {
             final String header = readFirstLine(reader);
@@ -174,82 +175,133 @@ public class CsvEntityLoader {
                     .filter(f -> CsvLoaderConstants.END_ID_FIELD.equals(f.getType()))
                     .findFirst().get();
 
+            final IdMapping.IdSpace startIdSpace = idMapping.idSpace(startIdField.getIdSpace());
+            final IdMapping.IdSpace endIdSpace = idMapping.idSpace(endIdField.getIdSpace());
+
             final List<CsvHeaderField> edgePropertiesFields = fields.stream()
                     .filter(field -> !CsvLoaderConstants.START_ID_FIELD.equals(field.getType()))
                     .filter(field -> !CsvLoaderConstants.END_ID_FIELD.equals(field.getType()))
                     .collect(Collectors.toList());
 
-            final Map<String, Mapping> mapping = getMapping(fields);
-            final var parser = new CSVParserBuilder().withSeparator(clc.getDelimiter()).build();
-
-            try (final var csv = new CSVReaderBuilder(reader).withCSVParser(parser).build()) {
-                final String[] loadCsvCompatibleHeader = fields.stream().map(f -> f.getName()).toArray(String[]::new);
+            final CsvColumnConverter[] converters = getConverters(fields);
+
+            final int startIdColumn = fields.indexOf(startIdField);
+            final int endIdColumn = fields.indexOf(endIdField);
+            final int typeColumn = IntStream.range(0, fields.size())
+                    .filter(i -> CsvLoaderConstants.TYPE_ATTR.equals(fields.get(i).getName()))
+                    .findFirst().orElse(-1);
+            final int[] edgePropertiesColumns = edgePropertiesFields.stream().mapToInt(fields::indexOf).toArray();
+
+            if (clc.isParallel() && executor != null) {
+                // written by the lanes of the writer
+                try (CsvRowSource rows = openRows(data, reader, converters, 0);
+                     ParallelRelationshipWriter writer = new ParallelRelationshipWriter(db, executor, reporter, log,
+                        clc.getConcurrency(), clc.getBatchSize(), edgePropertiesFields, tokens)) {
+                    while (rows.next()) {
+                        final Object[] values = rows.values();
+
+                        final long startInternalId = resolveNodeId(startIdSpace, startIdField, values[startIdColumn]);
+                        final long endInternalId = resolveNodeId(endIdSpace, endIdField, values[endIdColumn]);
+
+                        final Object[] properties = new Object[edgePropertiesColumns.length];
+                        for (int i = 0; i < properties.length; i++) {
+                            properties[i] = CsvPropertyConverter.toPropertyValue(edgePropertiesFields.get(i), values[edgePropertiesColumns[i]], clc);
+                        }
+                        writer.add(new ParallelRelationshipWriter.PendingRelationship(
+                                startInternalId, endInternalId, relationshipType(values, typeColumn, type), properties));
+                    }
+                }
+                return;
+            }
 
-                AtomicInteger lineNo = new AtomicInteger();
-                try (BatchTransaction btx = new BatchTransaction(db, clc.getBatchSize(), reporter)) {
-                    csv.forEach(line -> {
-                        lineNo.getAndIncrement();
+            try (CsvRowSource rows = openRows(data, reader, converters, 0);
+                 KernelImportWriter writer = new KernelImportWriter(db, clc.getBatchSize(), reporter, tokens)) {
+                int[] propertyKeys = null;
+                while (rows.next()) {
+                    final Object[] values = rows.values();
 
-                        final EnumSet<Results> results = EnumSet.of(Results.map);
-                        final CSVResult result = new CSVResult(
-                                loadCsvCompatibleHeader, line, lineNo.get(), false, mapping, Collections.emptyList(), results
-                        );
+                    final long startInternalId = resolveNodeId(startIdSpace, startIdField, values[startIdColumn]);
+                    final long endInternalId = resolveNodeId(endIdSpace, endIdField, values[endIdColumn]);
 
-                        final Object startId = result.map.get(CsvLoaderConstants.START_ID_ATTR);
-                        final Object startInternalId = idMapping.get(startIdField.getIdSpace()).get(startId.toString());
-                        if (startInternalId == null) {
-                            throw new IllegalStateException("Node for id space " + endIdField.getIdSpace() + " and id " + startId + " not found");
-                        }
-                        final Node source = btx.getTransaction().getNodeByElementId(startInternalId.toString());
+                    if (propertyKeys == null) {
+                        propertyKeys = edgePropertiesFields.stream()
+                                .mapToInt(field -> field.isIgnore() ? -1 : writer.propertyKeyToken(field.getName()))
+                                .toArray();
+                    }
 
-                        final Object endId = result.map.get(CsvLoaderConstants.END_ID_ATTR);
-                        final Object endInternalId = idMapping.get(endIdField.getIdSpace()).get(endId.toString());
-                        if (endInternalId == null) {
-                            throw new IllegalStateException("Node for id space " + endIdField.getIdSpace() + " and id " + endId + " not found");
-                        }
-                        final Node target = btx.getTransaction().getNodeByElementId(endInternalId.toString());
+                    final long rel = writer.createRelationship(startInternalId,
+                            writer.relationshipTypeToken(relationshipType(values, typeColumn, type)), endInternalId);
 
-                        final String currentType;
-                        final Object overridingType = result.map.get(CsvLoaderConstants.TYPE_ATTR);
-                        if (overridingType != null && !((String) overridingType).isEmpty()) {
-                            currentType = (String) overridingType;
-                        } else {
-                            currentType = type;
-                        }
-                        final Relationship rel = source.createRelationshipTo(target, RelationshipType.withName(currentType));
-
-                        // add properties
-                        int props = 0;
-                        for (CsvHeaderField field : edgePropertiesFields) {
-                            final String name = field.getName();
-                            Object value = result.map.get(name);
-                            boolean propertyAdded = CsvPropertyConverter.addPropertyToGraphEntity(rel, field, value, clc);
-                            props += propertyAdded ? 1 : 0;
+                    // add properties
+                    int props = 0;
+                    for (int i = 0; i < edgePropertiesColumns.length; i++) {
+                        final Object propertyValue = CsvPropertyConverter.toPropertyValue(edgePropertiesFields.get(i), values[edgePropertiesColumns[i]], clc);
+                        if (propertyValue != null) {
+                            writer.setRelationshipProperty(rel, propertyKeys[i], propertyValue);
+                            props++;
                         }
-                        btx.increment();
-                        reporter.update(0, 1, props);
-                    });
+                    }
+                    writer.increment();
+                    reporter.update(0, 1, props);
                 }
             }
         }
     }
 
-    private Map<String, Mapping> getMapping(List<CsvHeaderField> fields) {
-        return fields.stream().collect(
-                Collectors.toMap(
-                        CsvHeaderField::getName,
-                        f -> {
-                            final Map<String, Object> mappingMap = Collections
-                                    .unmodifiableMap(Stream.of(
-                                            new AbstractMap.SimpleEntry<>("type", f.getType()),
-                                            new AbstractMap.SimpleEntry<>("array", f.isArray()),
-                                            new AbstractMap.SimpleEntry<>("optionalData", f.getOptionalData())
-                                    ).collect(Collectors.toMap(AbstractMap.SimpleEntry::getKey, AbstractMap.SimpleEntry::getValue)));
-
-                            return new Mapping(f.getName(), mappingMap, clc.getArrayDelimiter(), false);
-                        }
-                )
-        );
+    /**
+     * With the `parallel` config a local, uncompressed file is parsed in parallel chunks if its charset allows it,
+     * otherwise the rows are parsed from the reader, right after the header
+     */
+    private CsvRowSource openRows(Object data, CountingReader reader, CsvColumnConverter[] converters, int skipLines) throws IOException {
+        if (clc.isParallel() && executor != null && ParallelCsvReader.isSupported(clc.getCharset(), clc.getDelimiter(), clc.getQuotationCharacter())) {
+            final File file = FileUtils.localFileFor(data, clc.getCompressionAlgo());
+            if (file != null) {
+                return new ParallelCsvReader(file, clc.getCharset(), skipLines, clc.getDelimiter(), clc.getQuotationCharacter(), converters,
+                        executor, clc.getConcurrency(), ParallelCsvReader.DEFAULT_CHUNK_SIZE);
+            }
+        }
+        final CsvRowParser row = new CsvRowParser(reader, clc.getDelimiter(), clc.getQuotationCharacter());
+        row.skipLines(skipLines);
+        return CsvRowSource.sequential(row, converters);
+    }
+
+    private boolean skipDuplicate(String nodeCsvId, CsvRowSource rows) {
+        if (clc.getIgnoreDuplicateNodes()) {
+            return true;
+        }
+        throw new IllegalStateException("Duplicate node with id " + nodeCsvId + " found on line " + rows.rowNo() + "\n"
+                + rows.currentRow());
+    }
+
+    private static long resolveNodeId(IdMapping.IdSpace idSpace, CsvHeaderField idField, Object csvId) {
+        final long internalId = csvId == null ? IdMapping.NOT_FOUND : idSpace.get(csvId.toString());
+        if (internalId == IdMapping.NOT_FOUND) {
+            throw new IllegalStateException("Node for id space " + idField.getIdSpace() + " and id " + csvId + " not found");
+        }
+        return internalId;
+    }
+
+    private static String relationshipType(Object[] values, int typeColumn, String defaultType) {
+        final Object overridingType = typeColumn < 0 ? null : values[typeColumn];
+        if (overridingType != null && !((String) overridingType).isEmpty()) {
+            return (String) overridingType;
+        }
+        return defaultType;
+    }
+
+    private CsvColumnConverter[] getConverters(List<CsvHeaderField> fields) {
+        return fields.stream()
+                .map(f -> {
+                    final Map<String, Object> mappingMap = Collections
+                            .unmodifiableMap(Stream.of(
+                                    new AbstractMap.SimpleEntry<>("type", f.getType()),
+                                    new AbstractMap.SimpleEntry<>("array", f.isArray()),
+                                    new AbstractMap.SimpleEntry<>("optionalData", f.getOptionalData())
+                            ).collect(Collectors.toMap(AbstractMap.SimpleEntry::getKey, AbstractMap.SimpleEntry::getValue)));
+
+                    return CsvColumnConverter.of(f, new Mapping(f.getName(), mappingMap, clc.getArrayDelimiter(), false));
+                })
+                .toArray(CsvColumnConverter[]::new);
     }
 
     private static String readFirstLine(CountingReader reader) throws IOException {
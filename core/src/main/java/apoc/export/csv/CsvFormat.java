@@ -4,16 +4,16 @@ import apoc.export.cypher.ExportFileManager;
 import apoc.export.util.ExportConfig;
 import apoc.export.util.FormatUtils;
 import apoc.export.util.MetaInformation;
+import apoc.export.util.PartitionedExport;
 import apoc.export.util.Reporter;
 import apoc.result.ProgressInfo;
 import com.opencsv.CSVWriter;
 import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
-import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.kernel.impl.coreapi.InternalTransaction;
@@ -22,21 +22,26 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import static apoc.export.util.BulkImportUtil.formatHeader;
 import static apoc.export.util.MetaInformation.collectPropTypesForNodes;
 import static apoc.export.util.MetaInformation.collectPropTypesForRelationships;
 import static apoc.export.util.MetaInformation.getLabelsString;
+import static apoc.export.util.MetaInformation.mergeKeyTypes;
 import static apoc.export.util.MetaInformation.updateKeyTypes;
 import static apoc.util.Util.getNodeId;
 import static apoc.util.Util.getRelationshipId;
@@ -53,6 +58,7 @@ public class CsvFormat {
 
     private static final String[] NODE_HEADER_FIXED_COLUMNS = {"_id:id", "_labels:label"};
     private static final String[] REL_HEADER_FIXED_COLUMNS = {"_start:id", "_end:id", "_type:label"};
+    private static final String[] EXTRA_HEADER_COLUMNS = {"_id:id", "_start:id", "_end:id", "_type:label", "_key", "_value"};
 
     public CsvFormat(GraphDatabaseService db, InternalTransaction tx) {
         this.db = db;
@@ -66,7 +72,12 @@ public class CsvFormat {
             } else {
                 try (PrintWriter printWriter = writer.getPrintWriter("csv")) {
                     CSVWriter out = getCsvWriter(printWriter, config);
-                    writeAll(graph, reporter, config, out);
+                    Supplier<PrintWriter> extra = config.getHeaderSampleSize() == -1 ? null : writer.getSidecarPrintWriter("extra");
+                    if (extra == null) {
+                        writeAll(graph, reporter, config, out);
+                    } else {
+                        writeAllSampled(graph, reporter, config, out, extra);
+                    }
                 }
             }
             tx.commit();
@@ -74,6 +85,36 @@ public class CsvFormat {
         }
     }
 
+    /**
+     * Writes every shard of the export to its own file, with the same header, that the shards collect in parallel as well
+     */
+    public void dump(PartitionedExport export, Reporter reporter, ExportConfig config) {
+        Map<String, Class> nodePropTypes = new LinkedHashMap<>();
+        Map<String, Class> relPropTypes = new LinkedHashMap<>();
+        export.forEachShard((shard, shardTx, graph) -> {
+            Map<String, Class> nodes = new LinkedHashMap<>();
+            for (Node node : graph.getNodes()) {
+                updateKeyTypes(nodes, node);
+            }
+            Map<String, Class> rels = new LinkedHashMap<>();
+            for (Relationship rel : graph.getRelationships()) {
+                updateKeyTypes(rels, rel);
+            }
+            return List.of(nodes, rels);
+        }).forEach(types -> {
+            mergeKeyTypes(nodePropTypes, types.get(0));
+            mergeKeyTypes(relPropTypes, types.get(1));
+        });
+        export.export(reporter, (shardTx, graph, file, shardReporter) -> {
+            CsvFormat shardFormat = new CsvFormat(db, shardTx);
+            try (PrintWriter printWriter = file.getPrintWriter("csv")) {
+                CSVWriter out = shardFormat.getCsvWriter(printWriter, config);
+                shardFormat.writeAll(graph, shardReporter, config, out, nodePropTypes, relPropTypes, null);
+            }
+        });
+        reporter.done();
+    }
+
     private CSVWriter getCsvWriter(Writer writer, ExportConfig config)
     {
         CSVWriter out;
@@ -141,6 +182,36 @@ public class CsvFormat {
     public void writeAll(SubGraph graph, Reporter reporter, ExportConfig config, CSVWriter out) {
         Map<String, Class> nodePropTypes = collectPropTypesForNodes(graph, db, config);
         Map<String, Class> relPropTypes = collectPropTypesForRelationships(graph, db, config);
+        writeAll(graph, reporter, config, out, nodePropTypes, relPropTypes, null);
+    }
+
+    /**
+     * Writes the graph in a single pass, with the header collected from the first `headerSampleSize` nodes and relationships
+     * instead of from the whole graph. The properties missing from it are written to the `extra` file, one per row.
+     * The relationships have their `_id` then, which the extra rows of their properties are keyed on.
+     */
+    private void writeAllSampled(SubGraph graph, Reporter reporter, ExportConfig config, CSVWriter out, Supplier<PrintWriter> extra) {
+        Map<String, Class> nodePropTypes = collectPropTypes(graph.getNodes(), config.getHeaderSampleSize());
+        Map<String, Class> relPropTypes = collectPropTypes(graph.getRelationships(), config.getHeaderSampleSize());
+        try (ExtraProperties extraProperties = new ExtraProperties(extra, config)) {
+            writeAll(graph, reporter, config, out, nodePropTypes, relPropTypes, extraProperties);
+        }
+    }
+
+    private static Map<String, Class> collectPropTypes(Iterable<? extends Entity> entities, int sampleSize) {
+        Map<String, Class> propTypes = new LinkedHashMap<>();
+        Iterator<? extends Entity> it = entities.iterator();
+        for (int i = 0; i < sampleSize && it.hasNext(); i++) {
+            updateKeyTypes(propTypes, it.next());
+        }
+        if (it instanceof ResourceIterator) {
+            ((ResourceIterator<?>) it).close();
+        }
+        return propTypes;
+    }
+
+    private void writeAll(SubGraph graph, Reporter reporter, ExportConfig config, CSVWriter out,
+                          Map<String, Class> nodePropTypes, Map<String, Class> relPropTypes, ExtraProperties extra) {
         List<String> nodeHeader = generateHeader(nodePropTypes, config.useTypes(), NODE_HEADER_FIXED_COLUMNS);
         List<String> relHeader = generateHeader(relPropTypes, config.useTypes(), REL_HEADER_FIXED_COLUMNS);
         List<String> header = new ArrayList<>(nodeHeader);
@@ -148,67 +219,85 @@ public class CsvFormat {
         out.writeNext(header.toArray(new String[header.size()]), applyQuotesToAll);
         int cols = header.size();
 
-        writeNodes(graph, out, reporter, nodeHeader.subList(NODE_HEADER_FIXED_COLUMNS.length, nodeHeader.size()), cols, config.getBatchSize());
-        writeRels(graph, out, reporter, relHeader.subList(REL_HEADER_FIXED_COLUMNS.length, relHeader.size()), cols, nodeHeader.size(), config.getBatchSize());
+        writeNodes(graph, out, reporter, nodeHeader.subList(NODE_HEADER_FIXED_COLUMNS.length, nodeHeader.size()), cols, config.getBatchSize(), extra);
+        writeRels(graph, out, reporter, relHeader.subList(REL_HEADER_FIXED_COLUMNS.length, relHeader.size()), cols, nodeHeader.size(), config.getBatchSize(), extra);
     }
 
+    /**
+     * Writes a file per label combination and one per relationship type, each row as soon as it is read.
+     * The headers are collected by a first pass over the graph, that only keeps the property types of each file,
+     * so that the memory is bounded by the number of files instead of the size of the graph.
+     */
     private void writeAllBulkImport(SubGraph graph, Reporter reporter, ExportConfig config, ExportFileManager writer) {
-        Map<Iterable<Label>, List<Node>> objectNodes = StreamSupport.stream(graph.getNodes().spliterator(), false)
-                .collect(Collectors.groupingBy(Node::getLabels));
-        Map<RelationshipType, List<Relationship>> objectRels = StreamSupport.stream(graph.getRelationships().spliterator(), false)
-                .collect(Collectors.groupingBy(Relationship::getType));
-        writeNodesBulkImport(reporter, config, writer, objectNodes);
-        writeRelsBulkImport(reporter, config, writer, objectRels);
+        Map<String, Map<String, Class>> nodeKeyTypes = new LinkedHashMap<>();
+        for (Node node : graph.getNodes()) {
+            updateKeyTypes(nodeKeyTypes.computeIfAbsent(joinLabels(node.getLabels(), "."), type -> new LinkedHashMap<>()), node);
+        }
+        Map<String, Map<String, Class>> relKeyTypes = new LinkedHashMap<>();
+        for (Relationship rel : graph.getRelationships()) {
+            updateKeyTypes(relKeyTypes.computeIfAbsent(rel.getType().name(), type -> new LinkedHashMap<>()), rel);
+        }
+        writeNodesBulkImport(graph, reporter, config, writer, nodeKeyTypes);
+        writeRelsBulkImport(graph, reporter, config, writer, relKeyTypes);
     }
 
-    private void writeNodesBulkImport(Reporter reporter, ExportConfig config, ExportFileManager writer, Map<Iterable<Label>, List<Node>> objectNode) {
-        objectNode.entrySet().forEach(entrySet -> {
-            Set<String> headerNode = generateHeaderNodeBulkImport(entrySet);
-
-            List<List<String>> rows = entrySet.getValue()
-                    .stream()
-                    .map(n -> {
-                        reporter.update(1, 0, n.getAllProperties().size());
-                        return headerNode.stream().map(s -> {
-                            if (s.equals(":LABEL")) {
-                                return joinLabels(entrySet.getKey(), config.getArrayDelim());
-                            }
-                            String prop = s.split(":")[0];
-                            return "".equals(prop) ? String.valueOf(getNodeId(tx, n.getElementId())) : cleanPoint(FormatUtils.toString(n.getProperty(prop, "")));
-                        }).collect(Collectors.toList());
-                    })
-                    .collect(Collectors.toList());
-
-            String type = joinLabels(entrySet.getKey(), ".");
-            writeRow(config, writer, headerNode, rows, "nodes." + type);
-        });
+    private void writeNodesBulkImport(SubGraph graph, Reporter reporter, ExportConfig config, ExportFileManager writer, Map<String, Map<String, Class>> keyTypes) {
+        Map<String, BulkImportFile> files = new HashMap<>();
+        try {
+            for (Node node : graph.getNodes()) {
+                String type = joinLabels(node.getLabels(), ".");
+                BulkImportFile file = files.computeIfAbsent(type,
+                        t -> new BulkImportFile(config, writer, "nodes." + t, generateHeaderNodeBulkImport(keyTypes.get(t))));
+                Map<String, Object> properties = node.getAllProperties();
+                reporter.update(1, 0, properties.size());
+                String[] row = file.row;
+                for (int i = 0; i < row.length; i++) {
+                    String column = file.header.get(i);
+                    if (column.equals(":ID")) {
+                        row[i] = String.valueOf(getNodeId(tx, node.getElementId()));
+                    } else if (column.equals(":LABEL")) {
+                        row[i] = joinLabels(node.getLabels(), config.getArrayDelim());
+                    } else {
+                        row[i] = cleanPoint(FormatUtils.toString(properties.getOrDefault(file.keys.get(i), "")));
+                    }
+                }
+                file.write(row);
+            }
+        } finally {
+            files.values().forEach(BulkImportFile::close);
+        }
     }
 
-    private void writeRelsBulkImport(Reporter reporter, ExportConfig config, ExportFileManager writer, Map<RelationshipType, List<Relationship>> objectRel) {
-        objectRel.entrySet().forEach(entrySet -> {
-            Set<String> headerRel = generateHeaderRelationshipBulkImport(entrySet);
-
-            List<List<String>> rows = entrySet.getValue()
-                    .stream()
-                    .map(r -> {
-                        reporter.update(0, 1, r.getAllProperties().size());
-                        return headerRel.stream().map(s -> {
-                            switch (s) {
-                                case ":START_ID":
-                                    return String.valueOf(getNodeId(tx, r.getStartNode().getElementId()));
-                                case ":END_ID":
-                                    return String.valueOf(getNodeId(tx, r.getEndNode().getElementId()));
-                                case ":TYPE":
-                                    return entrySet.getKey().name();
-                                default:
-                                    String prop = s.split(":")[0];
-                                    return "".equals(prop) ? String.valueOf(getRelationshipId(tx, r.getElementId())) : cleanPoint(FormatUtils.toString(r.getProperty(prop, "")));
-                            }
-                        }).collect(Collectors.toList());
-                    })
-                    .collect(Collectors.toList());
-            writeRow(config, writer, headerRel, rows, "relationships." + entrySet.getKey().name());
-        });
+    private void writeRelsBulkImport(SubGraph graph, Reporter reporter, ExportConfig config, ExportFileManager writer, Map<String, Map<String, Class>> keyTypes) {
+        Map<String, BulkImportFile> files = new HashMap<>();
+        try {
+            for (Relationship rel : graph.getRelationships()) {
+                String type = rel.getType().name();
+                BulkImportFile file = files.computeIfAbsent(type,
+                        t -> new BulkImportFile(config, writer, "relationships." + t, generateHeaderRelationshipBulkImport(keyTypes.get(t))));
+                Map<String, Object> properties = rel.getAllProperties();
+                reporter.update(0, 1, properties.size());
+                String[] row = file.row;
+                for (int i = 0; i < row.length; i++) {
+                    switch (file.header.get(i)) {
+                        case ":START_ID":
+                            row[i] = String.valueOf(getNodeId(tx, rel.getStartNode().getElementId()));
+                            break;
+                        case ":END_ID":
+                            row[i] = String.valueOf(getNodeId(tx, rel.getEndNode().getElementId()));
+                            break;
+                        case ":TYPE":
+                            row[i] = type;
+                            break;
+                        default:
+                            row[i] = cleanPoint(FormatUtils.toString(properties.getOrDefault(file.keys.get(i), "")));
+                    }
+                }
+                file.write(row);
+            }
+        } finally {
+            files.values().forEach(BulkImportFile::close);
+        }
     }
 
     private String cleanPoint(String point) {
@@ -218,11 +307,9 @@ public class CsvFormat {
         return point;
     }
 
-    private Set<String> generateHeaderNodeBulkImport(Map.Entry<Iterable<Label>, List<Node>> entrySet) {
+    private Set<String> generateHeaderNodeBulkImport(Map<String, Class> keyTypes) {
         Set<String> headerNode = new LinkedHashSet<>();
         headerNode.add(":ID");
-        Map<String,Class> keyTypes = new LinkedHashMap<>();
-        entrySet.getValue().forEach(node -> updateKeyTypes(keyTypes, node));
         final LinkedHashSet<String> otherFields = keyTypes.entrySet().stream()
                 .map(stringClassEntry -> formatHeader(stringClassEntry))
                 .collect(Collectors.toCollection(LinkedHashSet::new));
@@ -231,10 +318,8 @@ public class CsvFormat {
         return headerNode;
     }
 
-    private Set<String> generateHeaderRelationshipBulkImport(Map.Entry<RelationshipType, List<Relationship>> entrySet) {
+    private Set<String> generateHeaderRelationshipBulkImport(Map<String, Class> keyTypes) {
         Set<String> headerNode = new LinkedHashSet<>();
-        Map<String,Class> keyTypes = new LinkedHashMap<>();
-        entrySet.getValue().forEach(relationship -> updateKeyTypes(keyTypes, relationship));
         headerNode.add(":START_ID");
         headerNode.add(":END_ID");
         headerNode.add(":TYPE");
@@ -242,20 +327,44 @@ public class CsvFormat {
         return headerNode;
     }
 
-    private void writeRow(ExportConfig config, ExportFileManager writer, Set<String> headerNode, List<List<String>> rows, String name) {
-        try (PrintWriter pw = writer.getPrintWriter(name);
-             CSVWriter csvWriter = getCsvWriter(pw, config)) {
+    /**
+     * A file of the bulk import, opened with its first row and kept open until the end of the export
+     */
+    private class BulkImportFile {
+        private final List<String> header;
+        // the property of each column of the header
+        private final List<String> keys;
+        private final String[] row;
+        private final PrintWriter printWriter;
+        private final CSVWriter csvWriter;
+
+        BulkImportFile(ExportConfig config, ExportFileManager writer, String name, Set<String> header) {
+            this.header = new ArrayList<>(header);
+            this.keys = this.header.stream().map(s -> s.split(":")[0]).collect(Collectors.toList());
+            this.row = new String[header.size()];
+            String[] headerRow = header.toArray(new String[header.size()]);
+            this.printWriter = writer.getPrintWriter(name);
+            this.csvWriter = getCsvWriter(printWriter, config);
             if (config.isSeparateHeader()) {
                 try (PrintWriter pwHeader = writer.getPrintWriter("header." + name)) {
                     CSVWriter csvWriterHeader = getCsvWriter(pwHeader, config);
-                    csvWriterHeader.writeNext(headerNode.toArray(new String[headerNode.size()]), false);
+                    csvWriterHeader.writeNext(headerRow, false);
                 }
             } else {
-                csvWriter.writeNext(headerNode.toArray(new String[headerNode.size()]), false);
+                csvWriter.writeNext(headerRow, false);
+            }
+        }
+
+        void write(String[] row) {
+            csvWriter.writeNext(row, false);
+        }
+
+        void close() {
+            try {
+                csvWriter.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
             }
-            rows.forEach(row -> csvWriter.writeNext(row.toArray(new String[row.size()]), false));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
     }
 
@@ -277,13 +386,14 @@ public class CsvFormat {
         return result;
     }
 
-    private void writeNodes(SubGraph graph, CSVWriter out, Reporter reporter, List<String> header, int cols, int batchSize) {
+    private void writeNodes(SubGraph graph, CSVWriter out, Reporter reporter, List<String> header, int cols, int batchSize, ExtraProperties extra) {
         String[] row=new String[cols];
+        Set<String> headerKeys = extra == null ? null : new HashSet<>(header);
         int nodes = 0;
         for (Node node : graph.getNodes()) {
             row[0] = String.valueOf(getNodeId(tx, node.getElementId()));
             row[1] = getLabelsString(node);
-            collectProps(header, node, reporter, row, 2);
+            collectProps(header, headerKeys, node, reporter, row, 2, extra);
             out.writeNext(row, applyQuotesToAll);
             nodes++;
             if (batchSize==-1 || nodes % batchSize == 0) {
@@ -296,7 +406,14 @@ public class CsvFormat {
         }
     }
 
-    private void collectProps(Collection<String> fields, Entity pc, Reporter reporter, String[] row, int offset) {
+    /**
+     * @param fieldSet the fields, to look up the properties missing from them with the `extra` file, null otherwise
+     */
+    private void collectProps(Collection<String> fields, Set<String> fieldSet, Entity pc, Reporter reporter, String[] row, int offset, ExtraProperties extra) {
+        if (extra != null) {
+            collectPropsAndExtra(fields, fieldSet, pc, reporter, row, offset, extra);
+            return;
+        }
         for (String field : fields) {
             if (pc.hasProperty(field)) {
                 row[offset] = FormatUtils.toString(pc.getProperty(field));
@@ -309,14 +426,45 @@ public class CsvFormat {
         }
     }
 
-    private void writeRels(SubGraph graph, CSVWriter out, Reporter reporter, List<String> relHeader, int cols, int offset, int batchSize) {
+    private void collectPropsAndExtra(Collection<String> fields, Set<String> fieldSet, Entity pc, Reporter reporter, String[] row, int offset, ExtraProperties extra) {
+        // read at once, as the properties missing from the header are looked for as well
+        Map<String, Object> properties = pc.getAllProperties();
+        int found = 0;
+        for (String field : fields) {
+            Object value = properties.get(field);
+            if (value != null) {
+                row[offset] = FormatUtils.toString(value);
+                reporter.update(0,0,1);
+                found++;
+            }
+            else {
+                row[offset] = "";
+            }
+            offset++;
+        }
+        if (found < properties.size()) {
+            properties.forEach((key, value) -> {
+                if (!fieldSet.contains(key)) {
+                    extra.write(pc, key, value);
+                    reporter.update(0,0,1);
+                }
+            });
+        }
+    }
+
+    private void writeRels(SubGraph graph, CSVWriter out, Reporter reporter, List<String> relHeader, int cols, int offset, int batchSize, ExtraProperties extra) {
         String[] row = new String[cols];
+        Set<String> headerKeys = extra == null ? null : new HashSet<>(relHeader);
         int rels = 0;
         for (Relationship rel : graph.getRelationships()) {
+            if (extra != null) {
+                // the key of the extra properties of the relationship, as the parallel ones share their start, end and type
+                row[0] = String.valueOf(getRelationshipId(tx, rel.getElementId()));
+            }
             row[offset] = String.valueOf(getNodeId(tx, rel.getStartNode().getElementId()));
             row[offset+1] = String.valueOf(getNodeId(tx, rel.getEndNode().getElementId()));
             row[offset+2] = rel.getType().name();
-            collectProps(relHeader, rel, reporter, row, 3 + offset);
+            collectProps(relHeader, headerKeys, rel, reporter, row, 3 + offset, extra);
             out.writeNext(row, applyQuotesToAll);
             rels++;
             if (batchSize == -1 || rels % batchSize == 0) {
@@ -328,4 +476,52 @@ public class CsvFormat {
             reporter.update(0, rels, 0);
         }
     }
+
+    /**
+     * The properties missing from a sampled header, as `_key` and `_value` of the node or relationship they belong to,
+     * written to a file created with the first of them.
+     * Both are keyed by the `_id` of their row in the export, the relationships having their `_start`, `_end` and `_type` as well.
+     * The `_value` is written as a string without its type, and no import reads this file: it has to be applied by hand.
+     */
+    private class ExtraProperties implements AutoCloseable {
+        private final Supplier<PrintWriter> file;
+        private final ExportConfig config;
+        private final String[] row = new String[EXTRA_HEADER_COLUMNS.length];
+        private PrintWriter printWriter;
+        private CSVWriter out;
+
+        ExtraProperties(Supplier<PrintWriter> file, ExportConfig config) {
+            this.file = file;
+            this.config = config;
+        }
+
+        void write(Entity entity, String key, Object value) {
+            if (out == null) {
+                printWriter = file.get();
+                out = getCsvWriter(printWriter, config);
+                List<String> header = generateHeader(Collections.emptyMap(), config.useTypes(), EXTRA_HEADER_COLUMNS);
+                out.writeNext(header.toArray(new String[header.size()]), applyQuotesToAll);
+            }
+            Arrays.fill(row, null);
+            if (entity instanceof Node) {
+                row[0] = String.valueOf(getNodeId(tx, entity.getElementId()));
+            } else {
+                Relationship rel = (Relationship) entity;
+                row[0] = String.valueOf(getRelationshipId(tx, rel.getElementId()));
+                row[1] = String.valueOf(getNodeId(tx, rel.getStartNode().getElementId()));
+                row[2] = String.valueOf(getNodeId(tx, rel.getEndNode().getElementId()));
+                row[3] = rel.getType().name();
+            }
+            row[4] = key;
+            row[5] = FormatUtils.toString(value);
+            out.writeNext(row, applyQuotesToAll);
+        }
+
+        @Override
+        public void close() {
+            if (printWriter != null) {
+                printWriter.close();
+            }
+        }
+    }
 }
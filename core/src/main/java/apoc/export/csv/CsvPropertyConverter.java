@@ -17,9 +17,21 @@ import java.util.Objects;
 public class CsvPropertyConverter {
 
     public static boolean addPropertyToGraphEntity(Entity entity, CsvHeaderField field, Object value, CsvLoaderConfig config) {
-        if (field.isIgnore() || value == null) {
+        final Object propertyValue = toPropertyValue(field, value, config);
+        if (propertyValue == null) {
             return false;
         }
+        entity.setProperty(field.getName(), propertyValue);
+        return true;
+    }
+
+    /**
+     * @return the value to be stored for the field, or null if it has to be skipped
+     */
+    public static Object toPropertyValue(CsvHeaderField field, Object value, CsvLoaderConfig config) {
+        if (field.isIgnore() || value == null) {
+            return null;
+        }
         if (field.isArray()) {
             final List list = (List) value;
             final boolean listContainingNull = list.stream().anyMatch(Objects::isNull);
@@ -28,18 +40,15 @@ public class CsvPropertyConverter {
             //  might be worth add another config to ignore blank item as well, and/or array elements, e.g "...,a;b;;;c,..."
             final boolean isEmptyCell = config.isIgnoreEmptyCellArray() && list.equals(Collections.singletonList(""));
             if (listContainingNull || isEmptyCell) {
-                return false;
+                return null;
             }
             final Object[] prototype = getPrototypeFor(field.getType().toUpperCase());
-            final Object[] array = list.toArray(prototype);
-            entity.setProperty(field.getName(), array);
-        } else {
-            if (config.isIgnoreBlankString() && value instanceof String && StringUtils.isBlank((String) value)) {
-                return false;
-            }
-            entity.setProperty(field.getName(), value);
+            return list.toArray(prototype);
         }
-        return true;
+        if (config.isIgnoreBlankString() && value instanceof String && StringUtils.isBlank((String) value)) {
+            return null;
+        }
+        return value;
     }
 
     static Object[] getPrototypeFor(String type) {
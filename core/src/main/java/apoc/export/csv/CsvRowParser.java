@@ -0,0 +1,207 @@
+package apoc.export.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming parser of the rows of the files imported by {@link CsvEntityLoader}.
+ *
+ * The fields of the current row are unquoted into a char array reused from row to row and exposed as
+ * `start`/`length` slices of {@link #chars()}, so that the {@link CsvColumnConverter}s can decode them
+ * without any intermediate `String[]` or map.
+ *
+ * The quoting follows the opencsv parser used before: a quote is escaped either by doubling it or by a backslash,
+ * a backslash not followed by a quote or another backslash is dropped and a line break within quotes becomes `\n`.
+ * Empty lines are skipped.
+ */
+class CsvRowParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final char ESCAPE = '\\';
+
+    private final Reader reader;
+    private final char delimiter;
+    private final char quote;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private char[] chars = new char[1024];
+    private int length;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int columns;
+    private long rowNo;
+
+    CsvRowParser(Reader reader, char delimiter, char quote) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.quote = quote;
+    }
+
+    /**
+     * Skips the given number of physical lines, regardless of the quotes
+     */
+    void skipLines(int lines) throws IOException {
+        for (int i = 0; i < lines; i++) {
+            int c;
+            while ((c = read()) != -1 && c != '\n') {
+                if (c == '\r') {
+                    if (peek() == '\n') read();
+                    break;
+                }
+            }
+            if (c == -1) return;
+        }
+    }
+
+    /**
+     * @return false at the end of the input, otherwise the fields of the next row are available
+     */
+    boolean next() throws IOException {
+        int c;
+        do {
+            c = read();
+            if (c == -1) return false;
+        } while (c == '\n' || c == '\r');
+
+        length = 0;
+        columns = 0;
+        int fieldStart = 0;
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == quote) {
+                    if (peek() == quote) {
+                        append((char) read());
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == ESCAPE) {
+                    escape();
+                } else if (c == '\r') {
+                    if (peek() == '\n') read();
+                    append('\n');
+                } else {
+                    append((char) c);
+                }
+            } else if (c == delimiter) {
+                endField(fieldStart);
+                fieldStart = length;
+            } else if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                if (peek() == '\n') read();
+                break;
+            } else if (c == quote && isBlank(fieldStart)) {
+                // the leading white space of a quoted field is not part of it
+                length = fieldStart;
+                quoted = true;
+            } else if (c == ESCAPE) {
+                escape();
+            } else {
+                append((char) c);
+            }
+            c = read();
+        }
+        if (quoted) {
+            throw new IOException("Un-terminated quoted field at the end of the row " + (rowNo + 1));
+        }
+        endField(fieldStart);
+        rowNo++;
+        return true;
+    }
+
+    /**
+     * @return the number of rows returned by {@link #next()} so far
+     */
+    long rowNo() {
+        return rowNo;
+    }
+
+    int columns() {
+        return columns;
+    }
+
+    char[] chars() {
+        return chars;
+    }
+
+    int start(int column) {
+        return starts[column];
+    }
+
+    int length(int column) {
+        return ends[column] - starts[column];
+    }
+
+    String value(int column) {
+        return new String(chars, starts[column], length(column));
+    }
+
+    /**
+     * The current row in the `[field, field, ...]` format of {@link Arrays#toString(Object[])}, for the error messages
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < columns; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(chars, starts[i], length(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    private void escape() throws IOException {
+        int next = peek();
+        if (next == quote || next == ESCAPE) {
+            append((char) read());
+        }
+    }
+
+    private boolean isBlank(int from) {
+        for (int i = from; i < length; i++) {
+            if (!Character.isWhitespace(chars[i])) return false;
+        }
+        return true;
+    }
+
+    private void append(char c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, length << 1);
+        }
+        chars[length++] = c;
+    }
+
+    private void endField(int fieldStart) {
+        if (columns == starts.length) {
+            starts = Arrays.copyOf(starts, columns << 1);
+            ends = Arrays.copyOf(ends, columns << 1);
+        }
+        starts[columns] = fieldStart;
+        ends[columns] = length;
+        columns++;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) return false;
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,75 @@
+package apoc.export.csv;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The rows of a file imported by {@link CsvEntityLoader}, converted to the values of the header fields,
+ * read either sequentially by a {@link CsvRowParser} or in parallel chunks by a {@link ParallelCsvReader}.
+ */
+interface CsvRowSource extends AutoCloseable {
+
+    /**
+     * @return false at the end of the file, otherwise the next row is available
+     */
+    boolean next() throws IOException;
+
+    /**
+     * @return the values of the current row, aligned with the header fields, only valid until the next row
+     */
+    Object[] values();
+
+    /**
+     * @return the number of the current row, from 1
+     */
+    long rowNo();
+
+    /**
+     * @return the current row, for the error messages
+     */
+    String currentRow();
+
+    @Override
+    void close();
+
+    static CsvRowSource sequential(CsvRowParser row, CsvColumnConverter[] converters) {
+        final Object[] values = new Object[converters.length];
+        return new CsvRowSource() {
+            @Override
+            public boolean next() throws IOException {
+                if (!row.next()) return false;
+                convert(row, converters, values);
+                return true;
+            }
+
+            @Override
+            public Object[] values() {
+                return values;
+            }
+
+            @Override
+            public long rowNo() {
+                return row.rowNo();
+            }
+
+            @Override
+            public String currentRow() {
+                return row.toString();
+            }
+
+            @Override
+            public void close() {
+                // the reader is closed by the loader
+            }
+        };
+    }
+
+    static void convert(CsvRowParser row, CsvColumnConverter[] converters, Object[] values) {
+        // the columns missing in the row are null, the extra ones are ignored
+        final int columns = Math.min(row.columns(), values.length);
+        for (int i = 0; i < columns; i++) {
+            values[i] = converters[i].convert(row.chars(), row.start(i), row.length(i));
+        }
+        Arrays.fill(values, columns, values.length, null);
+    }
+}
@@ -7,6 +7,7 @@ import apoc.export.cypher.FileManagerFactory;
 import apoc.export.util.ExportConfig;
 import apoc.export.util.ExportUtils;
 import apoc.export.util.NodesAndRelsSubGraph;
+import apoc.export.util.PartitionedExport;
 import apoc.export.util.ProgressReporter;
 import apoc.result.ProgressInfo;
 import apoc.util.Util;
@@ -54,10 +55,25 @@ public class ExportCSV {
     }
 
     @Procedure("apoc.export.csv.all")
-    @Description("Exports the full database to the provided CSV file.")
+    @Description("Exports the full database to the provided CSV file. With `parallel: N` the database is read as N shards at the same time, each one in its own transaction, so the export is not a consistent snapshot of a database written to meanwhile. With `headerSampleSize: N` the properties missing from the sampled header are written to a `<file>.extra.csv` file, with untyped values, that no import reads.")
     public Stream<ProgressInfo> all(@Name("file") String fileName, @Name("config") Map<String, Object> config) {
         String source = String.format("database: nodes(%d), rels(%d)", Util.nodeCount(tx), Util.relCount(tx));
-        return exportCsv(fileName, source, new DatabaseSubGraph(tx), new ExportConfig(config));
+        ExportConfig exportConfig = new ExportConfig(config);
+        if (exportConfig.getParallel() > 1) {
+            return exportCsvPartitioned(fileName, source, exportConfig);
+        }
+        return exportCsv(fileName, source, new DatabaseSubGraph(tx), exportConfig);
+    }
+
+    private Stream<ProgressInfo> exportCsvPartitioned(String fileName, String source, ExportConfig exportConfig) {
+        apocConfig.checkWriteAllowed(exportConfig, fileName);
+        final String format = "csv";
+        ProgressInfo progressInfo = new ProgressInfo(fileName, source, format);
+        progressInfo.batchSize = exportConfig.getBatchSize();
+        ProgressReporter reporter = new ProgressReporter(null, null, progressInfo);
+        PartitionedExport export = new PartitionedExport(db, pools.getDefaultExecutorService(db.databaseName()), fileName, format, exportConfig);
+        new CsvFormat(db, (InternalTransaction) tx).dump(export, reporter, exportConfig);
+        return reporter.stream();
     }
 
     @Procedure("apoc.export.csv.data")
@@ -0,0 +1,54 @@
+package apoc.export.csv;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maps the CSV ids of the imported nodes, per id space, to the ids of the nodes created for them,
+ * so that the relationship files can be connected to the nodes without looking them up by property.
+ *
+ * With `stringIds: false` the ids are kept in primitive long-to-long hash tables,
+ * otherwise the id strings are stored off-heap, up to `idMappingMaxMemory` bytes over all id spaces,
+ * and in a temporary memory-mapped file beyond that.
+ */
+public class IdMapping implements AutoCloseable {
+    public static final long NOT_FOUND = -1L;
+
+    public interface IdSpace {
+        /**
+         * @return false if the id is already mapped, in which case the mapping is left unchanged
+         */
+        boolean putIfAbsent(String id, long nodeId);
+
+        /**
+         * @return the id of the node created for the given CSV id, or {@link #NOT_FOUND}
+         */
+        long get(String id);
+
+        long size();
+    }
+
+    private final Map<String, IdSpace> idSpaces = new ConcurrentHashMap<>();
+    private final boolean stringIds;
+    private final AtomicLong offHeapBudget;
+
+    public IdMapping(CsvLoaderConfig clc) {
+        this.stringIds = clc.getStringIds();
+        this.offHeapBudget = new AtomicLong(clc.getIdMappingMaxMemory());
+    }
+
+    public IdSpace idSpace(String name) {
+        return idSpaces.computeIfAbsent(name, n -> stringIds ? new StringIdSpace(offHeapBudget) : new LongIdSpace());
+    }
+
+    @Override
+    public void close() {
+        idSpaces.values().forEach(idSpace -> {
+            if (idSpace instanceof StringIdSpace) {
+                ((StringIdSpace) idSpace).close();
+            }
+        });
+        idSpaces.clear();
+    }
+}
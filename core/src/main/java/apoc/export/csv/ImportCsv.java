@@ -8,9 +8,14 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.*;
 
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 public class ImportCsv {
@@ -41,19 +46,32 @@ public class ImportCsv {
                     }
                     final CsvLoaderConfig clc = CsvLoaderConfig.from(config);
                     final ProgressReporter reporter = new ProgressReporter(null, null, new ProgressInfo(file, source, "csv"));
-                    final CsvEntityLoader loader = new CsvEntityLoader(clc, reporter, log);
+                    // this task already holds a thread of the default pool, so the tasks it waits on run in a pool of the import
+                    final ExecutorService executor = clc.isParallel() ? newImportExecutor(clc.getConcurrency()) : null;
+                    final CsvEntityLoader loader = new CsvEntityLoader(clc, reporter, log, executor);
 
-                    final Map<String, Map<String, String>> idMapping = new HashMap<>();
-                    for (Map<String, Object> node : nodes) {
-                        final Object data = node.getOrDefault("fileName", node.get("data"));
-                        final List<String> labels = (List<String>) node.get("labels");
-                        loader.loadNodes(data, labels, db, idMapping);
-                    }
+                    try (final IdMapping idMapping = new IdMapping(clc)) {
+                        if (clc.isParallel() && nodes.size() > 1) {
+                            loadNodesConcurrently(nodes, clc, reporter, idMapping, executor);
+                        } else {
+                            for (Map<String, Object> node : nodes) {
+                                final Object data = node.getOrDefault("fileName", node.get("data"));
+                                final List<String> labels = (List<String>) node.get("labels");
+                                loader.loadNodes(data, labels, db, idMapping);
+                            }
+                        }
+
+                        // the relationships are loaded once all the nodes are mapped
 
-                    for (Map<String, Object> relationship : relationships) {
-                        final Object fileName = relationship.getOrDefault("fileName", relationship.get("data"));
-                        final String type = (String) relationship.get("type");
-                        loader.loadRelationships(fileName, type, db, idMapping);
+                        for (Map<String, Object> relationship : relationships) {
+                            final Object fileName = relationship.getOrDefault("fileName", relationship.get("data"));
+                            final String type = (String) relationship.get("type");
+                            loader.loadRelationships(fileName, type, db, idMapping);
+                        }
+                    } finally {
+                        if (executor != null) {
+                            executor.shutdownNow();
+                        }
                     }
 
                     return reporter.getTotal();
@@ -61,5 +79,61 @@ public class ImportCsv {
         return Stream.of(result);
     }
 
+    /**
+     * Loads up to `concurrency` node files at the same time, each one with its own batched transactions and reporter,
+     * while the id mapping is shared. The rows of every file are parsed by its own task then,
+     * as the files themselves are what is loaded in parallel.
+     */
+    private void loadNodesConcurrently(List<Map<String, Object>> nodes, CsvLoaderConfig clc, ProgressReporter reporter, IdMapping idMapping,
+                                       ExecutorService executor) {
+        final Deque<Future<ProgressInfo>> inFlight = new ArrayDeque<>();
+        RuntimeException failure = null;
+        for (Map<String, Object> node : nodes) {
+            if (inFlight.size() >= clc.getConcurrency()) {
+                failure = await(inFlight.poll(), reporter, failure);
+            }
+            if (failure != null) break;
+            final Object data = node.getOrDefault("fileName", node.get("data"));
+            final List<String> labels = (List<String>) node.get("labels");
+            inFlight.add(executor.submit(() -> {
+                final ProgressReporter fileReporter = new ProgressReporter(null, null, new ProgressInfo(null, null, "csv"));
+                new CsvEntityLoader(clc, fileReporter, log).loadNodes(data, labels, db, idMapping);
+                return fileReporter.getTotal();
+            }));
+        }
+        // all the files are awaited, so that none of them is still loading once the procedure fails
+        while (!inFlight.isEmpty()) {
+            failure = await(inFlight.poll(), reporter, failure);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * A pool of `concurrency` daemon threads, used only by the tasks of one import, none of which waits on another one.
+     * Submitting them to the default pool instead could deadlock, once all of its threads are taken by importing
+     * procedures waiting on the tasks queued behind them.
+     */
+    private static ExecutorService newImportExecutor(int concurrency) {
+        return Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = Executors.defaultThreadFactory().newThread(r);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static RuntimeException await(Future<ProgressInfo> future, ProgressReporter reporter, RuntimeException failure) {
+        try {
+            final ProgressInfo total = Pools.force(future);
+            reporter.update(total.nodes, total.relationships, total.properties);
+            return failure;
+        } catch (ExecutionException e) {
+            if (failure != null) return failure;
+            final Throwable cause = e.getCause();
+            return cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
 
 }
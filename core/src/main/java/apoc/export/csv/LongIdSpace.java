@@ -0,0 +1,159 @@
+package apoc.export.csv;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+import static apoc.export.csv.IdMapping.NOT_FOUND;
+
+/**
+ * Open-addressing hash table from numeric CSV or Arrow ids to node ids, 16 bytes per slot instead of the
+ * two strings and the entry of a {@code HashMap<String, String>}.
+ * A slot is free while its value is {@link IdMapping#NOT_FOUND}, as node ids are never negative.
+ *
+ * The ids that are not the canonical text of their number, as `007` or ` 7`, are kept by their string
+ * in a map of their own, so that they stay different from `7` as they always were.
+ *
+ * The writes are exclusive, while the reads are optimistic: they don't lock unless a write happened meanwhile,
+ * as once the nodes are loaded the relationship lanes only read the table.
+ */
+public class LongIdSpace implements IdMapping.IdSpace {
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final double LOAD_FACTOR = 0.7d;
+
+    /**
+     * The slots of a capacity, replaced as a whole when growing, so that a reader never sees them half allocated
+     */
+    private static class Table {
+        final long[] keys;
+        final long[] values;
+        final int mask;
+        final int resizeAt;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new long[capacity];
+            Arrays.fill(values, NOT_FOUND);
+            mask = capacity - 1;
+            resizeAt = (int) (capacity * LOAD_FACTOR);
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private final Map<String, Long> nonCanonicalIds = new ConcurrentHashMap<>();
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    private long size;
+
+    @Override
+    public boolean putIfAbsent(String id, long nodeId) {
+        final Long key = toKey(id);
+        if (key == null) {
+            return nonCanonicalIds.putIfAbsent(id, nodeId) == null;
+        }
+        return putIfAbsent(key, nodeId);
+    }
+
+    public boolean putIfAbsent(long key, long nodeId) {
+        final long stamp = lock.writeLock();
+        try {
+            final Table t = table;
+            int slot = slotOf(key, t.mask);
+            while (t.values[slot] != NOT_FOUND) {
+                if (t.keys[slot] == key) return false;
+                slot = (slot + 1) & t.mask;
+            }
+            t.keys[slot] = key;
+            t.values[slot] = nodeId;
+            if (++size >= t.resizeAt) {
+                grow(t);
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public long get(String id) {
+        final Long key = toKey(id);
+        if (key == null) {
+            return nonCanonicalIds.getOrDefault(id, NOT_FOUND);
+        }
+        return get(key.longValue());
+    }
+
+    /**
+     * @return the number of the id, or null if the id is not its canonical text
+     */
+    private static Long toKey(String id) {
+        final long key;
+        try {
+            key = Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return String.valueOf(key).equals(id) ? key : null;
+    }
+
+    public long get(long key) {
+        final long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            final long value = find(table, key);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+        }
+        final long readStamp = lock.readLock();
+        try {
+            return find(table, key);
+        } finally {
+            lock.unlockRead(readStamp);
+        }
+    }
+
+    /**
+     * Probes at most the whole table, as an optimistic read may see the slots while they are written
+     */
+    private static long find(Table t, long key) {
+        int slot = slotOf(key, t.mask);
+        for (int probes = 0; probes <= t.mask && t.values[slot] != NOT_FOUND; probes++) {
+            if (t.keys[slot] == key) return t.values[slot];
+            slot = (slot + 1) & t.mask;
+        }
+        return NOT_FOUND;
+    }
+
+    @Override
+    public long size() {
+        final long stamp = lock.readLock();
+        try {
+            return size + nonCanonicalIds.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static int slotOf(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow(Table old) {
+        if (old.keys.length == MAX_CAPACITY) {
+            throw new IllegalStateException("Too many ids in a single id space: " + size);
+        }
+        final Table t = new Table(old.keys.length << 1);
+        for (int i = 0; i < old.keys.length; i++) {
+            if (old.values[i] == NOT_FOUND) continue;
+            int slot = slotOf(old.keys[i], t.mask);
+            while (t.values[slot] != NOT_FOUND) {
+                slot = (slot + 1) & t.mask;
+            }
+            t.keys[slot] = old.keys[i];
+            t.values[slot] = old.values[i];
+        }
+        table = t;
+    }
+}
@@ -0,0 +1,315 @@
+package apoc.export.csv;
+
+import apoc.Pools;
+
+import java.io.CharArrayReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a local, uncompressed file in chunks parsed and converted in parallel,
+ * in a charset whose bytes below 0x80 are always the ASCII characters, i.e. UTF-8 or an ASCII-based single-byte one.
+ *
+ * The file is split at the record boundaries by a scan of its bytes with the quoting rules of {@link CsvRowParser},
+ * so that a line break within quotes never splits a chunk. The bytes are scanned from a buffer filled by bulk reads of the file,
+ * much cheaper than the parsing itself, while each chunk is memory-mapped and decoded by the task parsing it.
+ * Up to `concurrency` chunks are parsed at the same time by the executor, while the rows are returned in the
+ * order of the file, so that the loader writes them exactly as it would from a sequential reader.
+ */
+class ParallelCsvReader implements CsvRowSource {
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int SCAN_BUFFER_SIZE = 256 * 1024;
+    private static final int ESCAPE = '\\';
+
+    private static class Chunk {
+        final long firstRowNo;
+        final List<Object[]> rows;
+
+        Chunk(long firstRowNo, List<Object[]> rows) {
+            this.firstRowNo = firstRowNo;
+            this.rows = rows;
+        }
+    }
+
+    private final FileChannel channel;
+    private final long size;
+    private final Charset charset;
+    private final char delimiter;
+    private final char quote;
+    private final CsvColumnConverter[] converters;
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final int chunkSize;
+
+    private final Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+    private long scanned;
+    private long scannedRows;
+
+    private final ByteBuffer scanBuffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+    private final byte[] scanBytes = scanBuffer.array();
+    private long scanBufferStart;
+    private int scanBufferLength;
+
+    private Chunk current = new Chunk(0, Collections.emptyList());
+    private int index = -1;
+
+    /**
+     * @param skipLines the lines to skip after the header
+     */
+    ParallelCsvReader(File file, Charset charset, int skipLines, char delimiter, char quote, CsvColumnConverter[] converters,
+                      ExecutorService executor, int concurrency, int chunkSize) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.size = channel.size();
+        this.charset = charset;
+        this.delimiter = delimiter;
+        this.quote = quote;
+        this.converters = converters;
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.chunkSize = chunkSize;
+        try {
+            this.scanned = skipLines(skipLines);
+        } catch (RuntimeException | IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return true if the delimiter and the quote are ASCII characters encoded as single bytes by the charset,
+     * which never occur within the bytes of another character, so that the bytes can be scanned for them
+     */
+    static boolean isSupported(Charset charset, char delimiter, char quote) {
+        return delimiter < 0x80 && quote < 0x80 && (StandardCharsets.UTF_8.equals(charset) || isAsciiSingleByte(charset));
+    }
+
+    private static boolean isAsciiSingleByte(Charset charset) {
+        if (!charset.canEncode() || charset.newEncoder().maxBytesPerChar() != 1) {
+            return false;
+        }
+        final byte[] ascii = new byte[0x80];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) i;
+        }
+        try {
+            final CharBuffer chars = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(ascii));
+            for (int i = 0; i < ascii.length; i++) {
+                if (chars.get(i) != i) return false;
+            }
+            return chars.remaining() == ascii.length;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        while (++index >= current.rows.size()) {
+            submitChunks();
+            final Future<Chunk> next = inFlight.poll();
+            if (next == null) return false;
+            current = await(next);
+            index = -1;
+        }
+        return true;
+    }
+
+    @Override
+    public Object[] values() {
+        return current.rows.get(index);
+    }
+
+    @Override
+    public long rowNo() {
+        return current.firstRowNo + index;
+    }
+
+    @Override
+    public String currentRow() {
+        return Arrays.toString(values());
+    }
+
+    @Override
+    public void close() {
+        inFlight.forEach(future -> future.cancel(false));
+        inFlight.clear();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void submitChunks() throws IOException {
+        while (inFlight.size() < concurrency && scanned < size) {
+            final long start = scanned;
+            final long firstRowNo = scannedRows + 1;
+            scanned = nextBoundary(start, start + chunkSize);
+            final long end = scanned;
+            inFlight.add(executor.submit(() -> parse(start, end, firstRowNo)));
+        }
+    }
+
+    private Chunk parse(long start, long end, long firstRowNo) throws IOException {
+        final CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        final CharBuffer chars = decoder.decode(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+        final CsvRowParser row = new CsvRowParser(
+                new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()), delimiter, quote);
+        final List<Object[]> rows = new ArrayList<>();
+        while (row.next()) {
+            final Object[] values = new Object[converters.length];
+            CsvRowSource.convert(row, converters, values);
+            rows.add(values);
+        }
+        return new Chunk(firstRowNo, rows);
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return Pools.force(future);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Skips the header line, up to the first `\n` as the header is read by the loader, and the given lines after it
+     */
+    private long skipLines(int lines) throws IOException {
+        long position = 0;
+        int c;
+        while ((c = byteAt(position)) != -1) {
+            position++;
+            if (c == '\n') break;
+        }
+        for (int i = 0; i < lines && position < size; i++) {
+            while ((c = byteAt(position)) != -1) {
+                position++;
+                if (c == '\n') break;
+                if (c == '\r') {
+                    if (byteAt(position) == '\n') position++;
+                    break;
+                }
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Scans the records from `from`, that is the start of a record, up to the end of the first record ending
+     * at or after `target`, with the same state machine as {@link CsvRowParser#next()}, and counts the rows found.
+     *
+     * @return the position after the line break of that record, or the size of the file
+     */
+    private long nextBoundary(long from, long target) throws IOException {
+        long position = from;
+        boolean inRecord = false;
+        boolean quoted = false;
+        // whether the current field is still blank, as a quote only opens a quoted section at its start
+        boolean blank = true;
+        int c;
+        while ((c = byteAt(position++)) != -1) {
+            if (!inRecord) {
+                if (c == '\n' || c == '\r') continue;
+                inRecord = true;
+                quoted = false;
+                blank = true;
+                scannedRows++;
+            }
+            if (quoted) {
+                if (c == quote) {
+                    if (byteAt(position) == quote) {
+                        position++;
+                        blank = false;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == ESCAPE) {
+                    if (isEscapable(byteAt(position))) {
+                        position++;
+                        blank = false;
+                    }
+                } else if (!isWhitespace(c)) {
+                    blank = false;
+                }
+            } else if (c == delimiter) {
+                blank = true;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && byteAt(position) == '\n') position++;
+                inRecord = false;
+                if (position >= target) return position;
+            } else if (c == quote && blank) {
+                quoted = true;
+            } else if (c == ESCAPE) {
+                if (isEscapable(byteAt(position))) {
+                    position++;
+                    blank = false;
+                }
+            } else if (!isWhitespace(c)) {
+                blank = false;
+            }
+        }
+        return size;
+    }
+
+    private boolean isEscapable(int c) {
+        return c == quote || c == ESCAPE;
+    }
+
+    private static boolean isWhitespace(int c) {
+        // the bytes of the multi-byte characters are never white space
+        return c < 0x80 && Character.isWhitespace(c);
+    }
+
+    private int byteAt(long position) throws IOException {
+        final long offset = position - scanBufferStart;
+        if (offset >= 0 && offset < scanBufferLength) {
+            return scanBytes[(int) offset] & 0xFF;
+        }
+        if (position >= size) return -1;
+        fillScanBuffer(position);
+        return scanBytes[0] & 0xFF;
+    }
+
+    /**
+     * Reads the bytes from the given position in bulk, as many as fit in the scan buffer
+     */
+    private void fillScanBuffer(long position) throws IOException {
+        scanBuffer.clear();
+        scanBuffer.limit((int) Math.min(SCAN_BUFFER_SIZE, size - position));
+        while (scanBuffer.hasRemaining()) {
+            if (channel.read(scanBuffer, position + scanBuffer.position()) < 0) {
+                throw new IOException("Unexpected end of file at byte " + (position + scanBuffer.position()));
+            }
+        }
+        scanBufferStart = position;
+        scanBufferLength = scanBuffer.position();
+    }
+}
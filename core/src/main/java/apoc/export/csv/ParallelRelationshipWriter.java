@@ -0,0 +1,152 @@
+package apoc.export.csv;
+
+import apoc.Pools;
+import apoc.export.util.KernelImportWriter;
+import apoc.export.util.ProgressReporter;
+import apoc.util.Util;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.logging.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Writes the relationships parsed by {@link CsvEntityLoader} in parallel batched transactions.
+ *
+ * The relationships are routed to `concurrency` lanes by their start node, each lane commits its batches
+ * one after the other, so that two transactions never lock the same start node concurrently.
+ * The end nodes can still be shared between lanes, so a batch that failed, e.g. because of a deadlock, is retried.
+ */
+class ParallelRelationshipWriter implements AutoCloseable {
+    private static final long MAX_RETRIES = 5;
+
+    static class PendingRelationship {
+        final long start;
+        final long end;
+        final String type;
+        // aligned with the property fields, null when the value is skipped
+        final Object[] properties;
+
+        PendingRelationship(long start, long end, String type, Object[] properties) {
+            this.start = start;
+            this.end = end;
+            this.type = type;
+            this.properties = properties;
+        }
+    }
+
+    private final GraphDatabaseService db;
+    private final ExecutorService executor;
+    private final ProgressReporter reporter;
+    private final Log log;
+    private final int batchSize;
+    private final List<CsvHeaderField> propertyFields;
+    private final KernelImportWriter.Tokens tokens;
+
+    private final List<PendingRelationship>[] buffers;
+    private final Future<?>[] inFlight;
+
+    ParallelRelationshipWriter(GraphDatabaseService db, ExecutorService executor, ProgressReporter reporter, Log log,
+                               int concurrency, int batchSize, List<CsvHeaderField> propertyFields, KernelImportWriter.Tokens tokens) {
+        this.db = db;
+        this.executor = executor;
+        this.reporter = reporter;
+        this.log = log;
+        this.batchSize = batchSize;
+        this.propertyFields = propertyFields;
+        this.tokens = tokens;
+        this.buffers = new List[concurrency];
+        this.inFlight = new Future[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            buffers[i] = new ArrayList<>(batchSize);
+        }
+    }
+
+    static int laneOf(long startNodeId, int lanes) {
+        long hash = startNodeId * 0x9E3779B97F4A7C15L;
+        return Math.floorMod((int) (hash ^ (hash >>> 32)), lanes);
+    }
+
+    void add(PendingRelationship relationship) {
+        int lane = laneOf(relationship.start, buffers.length);
+        buffers[lane].add(relationship);
+        if (buffers[lane].size() >= batchSize) {
+            submit(lane);
+        }
+    }
+
+    private void submit(int lane) {
+        // the previous batch of the lane has to be committed first
+        awaitLane(lane);
+        List<PendingRelationship> batch = buffers[lane];
+        buffers[lane] = new ArrayList<>(batchSize);
+        inFlight[lane] = executor.submit(() -> {
+            int properties = Util.retryInTx(log, db, tx -> write(tx, batch), 0, MAX_RETRIES, retry -> {});
+            synchronized (reporter) {
+                reporter.update(0, batch.size(), properties);
+            }
+            return null;
+        });
+    }
+
+    private int write(Transaction tx, List<PendingRelationship> batch) {
+        final KernelImportWriter writer = KernelImportWriter.within(tx, tokens);
+        final int[] propertyKeys = new int[propertyFields.size()];
+        for (int i = 0; i < propertyKeys.length; i++) {
+            propertyKeys[i] = propertyFields.get(i).isIgnore() ? -1 : writer.propertyKeyToken(propertyFields.get(i).getName());
+        }
+        int properties = 0;
+        for (PendingRelationship pending : batch) {
+            final long rel = writer.createRelationship(pending.start, writer.relationshipTypeToken(pending.type), pending.end);
+            for (int i = 0; i < pending.properties.length; i++) {
+                if (pending.properties[i] != null) {
+                    writer.setRelationshipProperty(rel, propertyKeys[i], pending.properties[i]);
+                    properties++;
+                }
+            }
+        }
+        return properties;
+    }
+
+    private void awaitLane(int lane) {
+        Future<?> future = inFlight[lane];
+        if (future == null) return;
+        inFlight[lane] = null;
+        try {
+            Pools.force(future);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error while importing the relationships in parallel: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Writes the remaining relationships and waits for all lanes to be committed
+     */
+    @Override
+    public void close() {
+        RuntimeException failure = null;
+        for (int lane = 0; lane < buffers.length; lane++) {
+            try {
+                if (failure == null && !buffers[lane].isEmpty()) {
+                    submit(lane);
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        for (int lane = 0; lane < buffers.length; lane++) {
+            try {
+                awaitLane(lane);
+            } catch (RuntimeException e) {
+                if (failure == null) failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package apoc.export.csv;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+import static apoc.export.csv.IdMapping.NOT_FOUND;
+
+/**
+ * Hash table from string CSV ids to node ids, keeping the ids outside of the heap.
+ *
+ * Every entry is appended as a `node id | key length | UTF-8 key` record to pages growing from {@link #INITIAL_PAGE_SIZE}
+ * up to {@link #MAX_PAGE_SIZE} bytes, so that a small id space does not hold a large page,
+ * which are direct buffers as long as the shared off-heap budget allows it and regions of a temporary
+ * memory-mapped file afterwards, so that the operating system can page them out.
+ * The table on the heap only holds the address and the hash of every record, 12 bytes per slot.
+ *
+ * The writes are exclusive, while the reads are optimistic, as in {@link LongIdSpace}.
+ */
+class StringIdSpace implements IdMapping.IdSpace, AutoCloseable {
+    private static final int PAGE_BITS = 24;
+    static final int MAX_PAGE_SIZE = 1 << PAGE_BITS;
+    static final int INITIAL_PAGE_SIZE = 64 * 1024;
+    private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final double LOAD_FACTOR = 0.7d;
+
+    private final AtomicLong offHeapBudget;
+    private final List<ByteBuffer> pages = new ArrayList<>();
+    private ByteBuffer current;
+    private int nextPageSize = INITIAL_PAGE_SIZE;
+    // the bytes of the direct pages, taken from the budget
+    private long directBytes;
+    private FileChannel spillChannel;
+    private long spilledBytes;
+
+    /**
+     * The slots of a capacity, replaced as a whole when growing, so that a reader never sees them half allocated
+     */
+    private static class Table {
+        // address of the record + 1, so that 0 is a free slot
+        final long[] addresses;
+        final int[] hashes;
+        final int mask;
+        final int resizeAt;
+
+        Table(int capacity) {
+            addresses = new long[capacity];
+            hashes = new int[capacity];
+            mask = capacity - 1;
+            resizeAt = (int) (capacity * LOAD_FACTOR);
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    private long size;
+
+    StringIdSpace(AtomicLong offHeapBudget) {
+        this.offHeapBudget = offHeapBudget;
+    }
+
+    @Override
+    public boolean putIfAbsent(String id, long nodeId) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(id);
+        final long stamp = lock.writeLock();
+        try {
+            final Table t = table;
+            int slot = hash & t.mask;
+            while (t.addresses[slot] != 0) {
+                if (t.hashes[slot] == hash && keyEquals(t.addresses[slot] - 1, key)) return false;
+                slot = (slot + 1) & t.mask;
+            }
+            t.addresses[slot] = append(key, nodeId) + 1;
+            t.hashes[slot] = hash;
+            if (++size >= t.resizeAt) {
+                grow(t);
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public long get(String id) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(id);
+        final long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                final long nodeId = find(table, key, hash);
+                if (lock.validate(stamp)) {
+                    return nodeId;
+                }
+            } catch (RuntimeException e) {
+                // a record or a page read while it was written, read again below
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+        final long readStamp = lock.readLock();
+        try {
+            return find(table, key, hash);
+        } finally {
+            lock.unlockRead(readStamp);
+        }
+    }
+
+    /**
+     * Probes at most the whole table, as an optimistic read may see the slots while they are written
+     */
+    private long find(Table t, byte[] key, int hash) {
+        int slot = hash & t.mask;
+        for (int probes = 0; probes <= t.mask && t.addresses[slot] != 0; probes++) {
+            long address = t.addresses[slot] - 1;
+            if (t.hashes[slot] == hash && keyEquals(address, key)) {
+                return page(address).getLong(position(address));
+            }
+            slot = (slot + 1) & t.mask;
+        }
+        return NOT_FOUND;
+    }
+
+    @Override
+    public long size() {
+        final long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void close() {
+        final long stamp = lock.writeLock();
+        try {
+            // the direct buffers are freed once collected
+            offHeapBudget.addAndGet(directBytes);
+            directBytes = 0;
+            pages.clear();
+            current = null;
+            if (spillChannel != null) {
+                try {
+                    // the file is deleted on close
+                    spillChannel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private long append(byte[] key, long nodeId) {
+        int recordSize = HEADER_SIZE + key.length;
+        if (recordSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("The id " + new String(key, 0, 100, StandardCharsets.UTF_8) + "... is too long");
+        }
+        if (current == null || current.remaining() < recordSize) {
+            current = newPage(Math.max(nextPageSize, recordSize));
+            nextPageSize = Math.min(MAX_PAGE_SIZE, nextPageSize << 1);
+            pages.add(current);
+        }
+        long address = ((long) (pages.size() - 1) << PAGE_BITS) | current.position();
+        current.putLong(nodeId).putInt(key.length).put(key);
+        return address;
+    }
+
+    private ByteBuffer newPage(int pageSize) {
+        if (offHeapBudget.addAndGet(-pageSize) >= 0) {
+            directBytes += pageSize;
+            return ByteBuffer.allocateDirect(pageSize);
+        }
+        offHeapBudget.addAndGet(pageSize);
+        try {
+            if (spillChannel == null) {
+                Path file = Files.createTempFile("apoc-import-ids", ".bin");
+                spillChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            final ByteBuffer page = spillChannel.map(FileChannel.MapMode.READ_WRITE, spilledBytes, pageSize);
+            spilledBytes += pageSize;
+            return page;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to spill the id mapping to disk", e);
+        }
+    }
+
+    private boolean keyEquals(long address, byte[] key) {
+        ByteBuffer page = page(address);
+        int position = position(address);
+        if (page.getInt(position + Long.BYTES) != key.length) return false;
+        int start = position + HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (page.get(start + i) != key[i]) return false;
+        }
+        return true;
+    }
+
+    private ByteBuffer page(long address) {
+        return pages.get((int) (address >>> PAGE_BITS));
+    }
+
+    private static int position(long address) {
+        return (int) (address & (MAX_PAGE_SIZE - 1));
+    }
+
+    private static int hash(String id) {
+        int hash = id.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 13);
+    }
+
+    private void grow(Table old) {
+        if (old.addresses.length == MAX_CAPACITY) {
+            throw new IllegalStateException("Too many ids in a single id space: " + size);
+        }
+        final Table t = new Table(old.addresses.length << 1);
+        for (int i = 0; i < old.addresses.length; i++) {
+            if (old.addresses[i] == 0) continue;
+            int slot = old.hashes[i] & t.mask;
+            while (t.addresses[slot] != 0) {
+                slot = (slot + 1) & t.mask;
+            }
+            t.addresses[slot] = old.addresses[i];
+            t.hashes[slot] = old.hashes[i];
+        }
+        table = t;
+    }
+}
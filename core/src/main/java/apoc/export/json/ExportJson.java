@@ -7,6 +7,7 @@ import apoc.export.cypher.FileManagerFactory;
 import apoc.export.util.ExportConfig;
 import apoc.export.util.ExportUtils;
 import apoc.export.util.NodesAndRelsSubGraph;
+import apoc.export.util.PartitionedExport;
 import apoc.export.util.ProgressReporter;
 import apoc.result.ProgressInfo;
 import apoc.util.Util;
@@ -46,13 +47,28 @@ public class ExportJson {
     public TerminationGuard terminationGuard;
 
     @Procedure("apoc.export.json.all")
-    @Description("Exports the full database to the provided JSON file.")
+    @Description("Exports the full database to the provided JSON file. With `parallel: N` the database is read as N shards at the same time, each one in its own transaction, so the export is not a consistent snapshot of a database written to meanwhile.")
     public Stream<ProgressInfo> all(@Name("file") String fileName, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
 
         String source = String.format("database: nodes(%d), rels(%d)", Util.nodeCount(tx), Util.relCount(tx));
+        if (new ExportConfig(config).getParallel() > 1) {
+            return exportJsonPartitioned(fileName, source, config);
+        }
         return exportJson(fileName, source, new DatabaseSubGraph(tx), config);
     }
 
+    private Stream<ProgressInfo> exportJsonPartitioned(String fileName, String source, Map<String,Object> config) {
+        ExportConfig exportConfig = new ExportConfig(config);
+        apocConfig.checkWriteAllowed(exportConfig, fileName);
+        final String format = "json";
+        ProgressReporter reporter = new ProgressReporter(null, null, new ProgressInfo(fileName, source, format));
+        JsonFormat.Format jsonFormat = getJsonFormat(config);
+        PartitionedExport export = new PartitionedExport(db, pools.getDefaultExecutorService(db.databaseName()), fileName, format, exportConfig);
+        export.export(reporter, (shardTx, graph, file, shardReporter) -> new JsonFormat(db, jsonFormat).dump(graph, file, shardReporter, exportConfig));
+        reporter.done();
+        return reporter.stream();
+    }
+
     @Procedure("apoc.export.json.data")
     @Description("Exports the given nodes and relationships to the provided JSON file.")
     public Stream<ProgressInfo> data(@Name("nodes") List<Node> nodes, @Name("rels") List<Relationship> rels, @Name("file") String fileName, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
@@ -1,5 +1,6 @@
 package apoc.export.json;
 
+import apoc.export.util.KernelImportWriter;
 import apoc.export.util.Reporter;
 import apoc.util.Util;
 import com.google.common.collect.Iterables;
@@ -12,6 +13,7 @@ import org.neo4j.values.storable.DurationValue;
 import org.neo4j.values.storable.PointValue;
 
 import java.io.Closeable;
+import java.lang.reflect.Array;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -33,8 +35,6 @@ import static apoc.export.json.ImportJsonConfig.WILDCARD_PROPS;
 
 public class JsonImporter implements Closeable {
     private static final String UNWIND = "UNWIND $rows AS row ";
-    private static final String CREATE_NODE = UNWIND +
-            "CREATE (n%s {%s}) SET n += row.properties";
     private static final String CREATE_RELS = UNWIND +
             "MATCH (s%s {%s: row.start.id}) " +
             "MATCH (e%s {%2$s: row.end.id}) " +
@@ -47,6 +47,7 @@ public class JsonImporter implements Closeable {
     private final int txBatchSize;
     private final GraphDatabaseService db;
     private final Reporter reporter;
+    private final KernelImportWriter.Tokens tokens = new KernelImportWriter.Tokens();
 
     private String lastType;
     private List<String> lastLabels;
@@ -320,11 +321,8 @@ public class JsonImporter implements Closeable {
         String query;
         switch (type) {
             case "node":
-                final String importId = importJsonConfig.isCleanup() 
-                        ? StringUtils.EMPTY
-                        : importJsonConfig.getImportIdName() + ": row.id";
-                query = String.format(CREATE_NODE, getLabelString(lastLabels), importId);
-                break;
+                writeNodes(resultList);
+                return;
             case "relationship":
                 String rel = (String) lastRelTypes.get("label");
                 query = String.format(CREATE_RELS, getLabelString((List<String>) lastRelTypes.get("start")),
@@ -340,6 +338,54 @@ public class JsonImporter implements Closeable {
         }
     }
 
+    /**
+     * Creates the nodes of a chunk through the kernel, in a transaction like the one of the relationships' query,
+     * as they all share the same labels and need no lookup
+     */
+    private void writeNodes(List<Map<String, Object>> resultList) {
+        try (Transaction tx = db.beginTx()) {
+            final KernelImportWriter writer = KernelImportWriter.within(tx, tokens);
+            final int[] labels = lastLabels.stream().mapToInt(writer::labelToken).toArray();
+            final int importId = importJsonConfig.isCleanup() ? -1 : writer.propertyKeyToken(importJsonConfig.getImportIdName());
+            for (Map<String, Object> row : resultList) {
+                final long node = writer.createNode(labels);
+                final Object id = row.get("id");
+                if (importId != -1 && id != null) {
+                    writer.setNodeProperty(node, importId, id);
+                }
+                final Map<String, Object> properties = (Map<String, Object>) row.get("properties");
+                properties.forEach((key, value) -> writer.setNodeProperty(node, writer.propertyKeyToken(key), toStorable(value)));
+            }
+            tx.commit();
+        }
+    }
+
+    /**
+     * Converts the lists to arrays as `SET n += row.properties` does, the integral numbers to a `long[]`,
+     * the other numbers to a `double[]`, and the other values to an array of the class of the first element
+     */
+    private static Object toStorable(Object value) {
+        if (!(value instanceof Collection)) {
+            return value;
+        }
+        final Collection<Object> coll = (Collection<Object>) value;
+        final Object first = Iterables.getFirst(coll, null);
+        if (first == null) {
+            return new String[0];
+        }
+        if (coll.stream().allMatch(JsonImporter::isIntegral)) {
+            return coll.stream().mapToLong(i -> ((Number) i).longValue()).toArray();
+        }
+        if (coll.stream().allMatch(Number.class::isInstance)) {
+            return coll.stream().mapToDouble(i -> ((Number) i).doubleValue()).toArray();
+        }
+        return coll.toArray((Object[]) Array.newInstance(first.getClass(), coll.size()));
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
     private Collection<List<Map<String, Object>>> chunkData() {
         AtomicInteger chunkCounter = new AtomicInteger(0);
         return paramList.stream()
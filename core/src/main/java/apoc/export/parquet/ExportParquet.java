@@ -0,0 +1,85 @@
+package apoc.export.parquet;
+
+import apoc.Pools;
+import apoc.export.util.NodesAndRelsSubGraph;
+import apoc.result.ProgressInfo;
+import apoc.result.VirtualGraph;
+import org.neo4j.cypher.export.DatabaseSubGraph;
+import org.neo4j.cypher.export.SubGraph;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.logging.Log;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+import org.neo4j.procedure.TerminationGuard;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class ExportParquet {
+
+    @Context
+    public Transaction tx;
+
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public Pools pools;
+
+    @Context
+    public Log logger;
+
+    @Context
+    public TerminationGuard terminationGuard;
+
+    @Procedure("apoc.export.parquet.all")
+    @Description("Exports the full database as a parquet file. With `parallel: N` the database is read as N shards at the same time, each one in its own transaction, so the export is not a consistent snapshot of a database written to meanwhile.")
+    public Stream<ProgressInfo> all(@Name("file") String fileName, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        ParquetConfig.checkDependencies();
+        final ParquetConfig parquetConfig = new ParquetConfig(config);
+        return new ExportParquetGraphFileStrategy(fileName, db, pools, terminationGuard, logger, parquetConfig)
+                .export(new DatabaseSubGraph(tx), parquetConfig);
+    }
+
+    @Procedure("apoc.export.parquet.graph")
+    @Description("Exports the given graph as a parquet file.")
+    public Stream<ProgressInfo> graph(@Name("file") String fileName, @Name("graph") Object graph, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        ParquetConfig.checkDependencies();
+        final SubGraph subGraph;
+        if (graph instanceof Map) {
+            Map<String, Object> mGraph = (Map<String, Object>) graph;
+            if (!mGraph.containsKey("nodes")) {
+                throw new IllegalArgumentException("Graph Map must contains `nodes` field and `relationships` optionally");
+            }
+            subGraph = new NodesAndRelsSubGraph(tx, (Collection<Node>) mGraph.get("nodes"),
+                    (Collection<Relationship>) mGraph.get("relationships"));
+        } else if (graph instanceof VirtualGraph) {
+            VirtualGraph vGraph = (VirtualGraph) graph;
+            subGraph = new NodesAndRelsSubGraph(tx, vGraph.nodes(), vGraph.relationships());
+        } else {
+            throw new IllegalArgumentException("Supported inputs are VirtualGraph, Map");
+        }
+        final ParquetConfig parquetConfig = new ParquetConfig(config);
+        return new ExportParquetGraphFileStrategy(fileName, db, pools, terminationGuard, logger, parquetConfig)
+                .export(subGraph, parquetConfig);
+    }
+
+    @Procedure("apoc.export.parquet.query")
+    @Description("Exports the results from the given Cypher query as a parquet file.")
+    public Stream<ProgressInfo> query(@Name("file") String fileName, @Name("query") String query, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        ParquetConfig.checkDependencies();
+        Map<String, Object> params = config == null ? Collections.emptyMap() : (Map<String, Object>) config.getOrDefault("params", Collections.emptyMap());
+        final ParquetConfig parquetConfig = new ParquetConfig(config);
+        final ExportParquetResultFileStrategy strategy = new ExportParquetResultFileStrategy(fileName, db, pools, terminationGuard, logger, parquetConfig);
+        Result result = tx.execute(query, params);
+        return strategy.export(result, parquetConfig);
+    }
+}
@@ -0,0 +1,34 @@
+package apoc.export.parquet;
+
+import apoc.Pools;
+import apoc.export.arrow.BatchWriter;
+import apoc.export.arrow.ExportGraphFileStrategy;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.logging.Log;
+import org.neo4j.procedure.TerminationGuard;
+
+import java.io.OutputStream;
+
+/**
+ * The graph export of {@link ExportGraphFileStrategy}, with its rows written to a Parquet file
+ */
+public class ExportParquetGraphFileStrategy extends ExportGraphFileStrategy {
+
+    private final ParquetConfig config;
+
+    public ExportParquetGraphFileStrategy(String fileName, GraphDatabaseService db, Pools pools, TerminationGuard terminationGuard, Log logger, ParquetConfig config) {
+        super(fileName, db, pools, terminationGuard, logger);
+        this.config = config;
+        ParquetTypes.codec(config.getCompression());
+    }
+
+    @Override
+    public BatchWriter<?> newBatchWriter(OutputStream out) {
+        return new ParquetBatchWriter(out, config, getDictionaries().values());
+    }
+
+    @Override
+    public String getFormat() {
+        return "parquet";
+    }
+}
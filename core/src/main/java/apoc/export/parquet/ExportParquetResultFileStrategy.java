@@ -0,0 +1,35 @@
+package apoc.export.parquet;
+
+import apoc.Pools;
+import apoc.export.arrow.BatchWriter;
+import apoc.export.arrow.ExportResultFileStrategy;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.logging.Log;
+import org.neo4j.procedure.TerminationGuard;
+
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * The query export of {@link ExportResultFileStrategy}, with its rows written to a Parquet file
+ */
+public class ExportParquetResultFileStrategy extends ExportResultFileStrategy {
+
+    private final ParquetConfig config;
+
+    public ExportParquetResultFileStrategy(String fileName, GraphDatabaseService db, Pools pools, TerminationGuard terminationGuard, Log logger, ParquetConfig config) {
+        super(fileName, db, pools, terminationGuard, logger);
+        this.config = config;
+        ParquetTypes.codec(config.getCompression());
+    }
+
+    @Override
+    public BatchWriter<?> newBatchWriter(OutputStream out) {
+        return new ParquetBatchWriter(out, config, Map.of());
+    }
+
+    @Override
+    public String getFormat() {
+        return "parquet";
+    }
+}
@@ -0,0 +1,48 @@
+package apoc.export.parquet;
+
+import apoc.Pools;
+import apoc.export.util.ProgressReporter;
+import apoc.result.ProgressInfo;
+import apoc.util.Util;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+import org.neo4j.procedure.TerminationGuard;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class ImportParquet {
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public Pools pools;
+
+    @Context
+    public TerminationGuard terminationGuard;
+
+    @Procedure(name = "apoc.import.parquet", mode = Mode.WRITE)
+    @Description("Imports a graph from the provided parquet file or byte array.")
+    public Stream<ProgressInfo> importFile(@Name("urlOrBinaryFile") Object urlOrBinaryFile, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        ParquetConfig.checkDependencies();
+        ProgressInfo result =
+                Util.inThread(pools, () -> {
+                    // the batchSize is the number of entities per transaction
+                    final ParquetConfig parquetConfig = new ParquetConfig(config);
+                    String file = null;
+                    String source = "binary";
+                    if (urlOrBinaryFile instanceof String) {
+                        file = (String) urlOrBinaryFile;
+                        source = "file";
+                    }
+                    final ProgressReporter reporter = new ProgressReporter(null, null, new ProgressInfo(file, source, "parquet"));
+                    new ParquetImporter(db, parquetConfig, reporter, terminationGuard).importAll(ParquetSource.of(urlOrBinaryFile));
+                    return reporter.getTotal();
+                });
+        return Stream.of(result);
+    }
+}
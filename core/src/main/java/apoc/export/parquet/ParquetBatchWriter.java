@@ -0,0 +1,75 @@
+package apoc.export.parquet;
+
+import apoc.export.arrow.BatchWriter;
+import apoc.util.Util;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.parquet.hadoop.ParquetWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the rows of the Arrow export strategies to a Parquet file, one batch at a time,
+ * in row groups of `rowGroupSize` bytes with the statistics of their column chunks.
+ * The rows are written as they are, without filling any Arrow vector, see {@link ParquetTypes#newWriter}.
+ */
+public class ParquetBatchWriter implements BatchWriter<ParquetBatchWriter.Rows> {
+
+    private final OutputStream out;
+    private final ParquetConfig config;
+    // the labels and the types of a graph by the id of their dictionary, empty for a query
+    private final Map<Long, List<String>> dictionaries;
+
+    private ParquetWriter<Map<String, Object>> writer;
+
+    public ParquetBatchWriter(OutputStream out, ParquetConfig config, Map<Long, List<String>> dictionaries) {
+        this.out = out;
+        this.config = config;
+        this.dictionaries = dictionaries;
+    }
+
+    /**
+     * The rows of a batch, with the schema of their export
+     */
+    public static class Rows {
+        private final Schema schema;
+        private final List<Map<String, Object>> rows;
+
+        Rows(Schema schema, List<Map<String, Object>> rows) {
+            this.schema = schema;
+            this.rows = rows;
+        }
+    }
+
+    @Override
+    public Rows toBatch(Schema schema, List<Map<String, Object>> rows) {
+        return new Rows(schema, rows);
+    }
+
+    @Override
+    public synchronized void write(Rows batch) {
+        try {
+            if (writer == null) {
+                writer = ParquetTypes.newWriter(new ParquetOutputFile(out), batch.schema, config, dictionaries);
+            }
+            for (Map<String, Object> row : batch.rows) {
+                writer.write(row);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void discard(Rows batch) {
+        // nothing to release
+    }
+
+    @Override
+    public synchronized void close() {
+        // the footer, with the statistics of the row groups, is written on close
+        Util.close(writer == null ? out : writer);
+    }
+}
@@ -0,0 +1,87 @@
+package apoc.export.parquet;
+
+import apoc.export.arrow.ArrowConfig;
+import apoc.util.MissingDependencyException;
+import apoc.util.Util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The config of the Arrow exports, whose record batches are written as Parquet rows, and of the Parquet loads.
+ * It only holds plain values, so that the missing Parquet jars can be reported by {@link #checkDependencies()}.
+ */
+public class ParquetConfig extends ArrowConfig {
+
+    public static final int DEFAULT_ROW_GROUP_SIZE = 128 * 1024 * 1024;
+    public static final int DEFAULT_PAGE_SIZE = 1024 * 1024;
+
+    private final String compression;
+    private final int rowGroupSize;
+    private final int pageSize;
+    private final boolean dictionary;
+    private final Map<String, Object> filter;
+    private final List<String> columns;
+
+    public ParquetConfig(Map<String, Object> config) {
+        super(config);
+        final Map<String, Object> cfg = getConfig();
+        this.compression = cfg.getOrDefault("compression", "SNAPPY").toString().toUpperCase();
+        this.rowGroupSize = Util.toInteger(cfg.getOrDefault("rowGroupSize", DEFAULT_ROW_GROUP_SIZE));
+        if (this.rowGroupSize < 1) {
+            throw new RuntimeException("`rowGroupSize` must be >= 1, but got [rowGroupSize:" + rowGroupSize + "]");
+        }
+        this.pageSize = Util.toInteger(cfg.getOrDefault("pageSize", DEFAULT_PAGE_SIZE));
+        if (this.pageSize < 1) {
+            throw new RuntimeException("`pageSize` must be >= 1, but got [pageSize:" + pageSize + "]");
+        }
+        this.dictionary = Util.toBoolean(cfg.getOrDefault("dictionary", true));
+        this.filter = (Map<String, Object>) cfg.getOrDefault("filter", Collections.emptyMap());
+        this.columns = (List<String>) cfg.getOrDefault("columns", Collections.emptyList());
+    }
+
+    /**
+     * @return the name of the codec of the column chunks, e.g. `SNAPPY`, `GZIP`, `ZSTD` or `UNCOMPRESSED`
+     */
+    public String getCompression() {
+        return compression;
+    }
+
+    /**
+     * @return the size in bytes of the row groups buffered in memory, whose column chunks each have their own statistics
+     */
+    public int getRowGroupSize() {
+        return rowGroupSize;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return the conditions on the columns of a load, e.g. `{age: {gte: 18}, name: 'Jim'}`,
+     *      checked against the statistics of the row groups before reading them
+     */
+    public Map<String, Object> getFilter() {
+        return filter;
+    }
+
+    /**
+     * @return the columns read by a load, all of them if empty
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public static void checkDependencies() {
+        if (!Util.classExists("org.apache.parquet.hadoop.ParquetWriter") || !Util.classExists("org.apache.hadoop.conf.Configuration")) {
+            throw new MissingDependencyException("Cannot find the Parquet jars in the plugins folder. \n" +
+                    "Please put the parquet-hadoop jar and the HDFS/Hadoop jars, with their dependencies, into the plugins folder");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package apoc.export.parquet;
+
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The `filter` of a load as a Parquet predicate, so that the row groups whose statistics can't match it
+ * are skipped without being read, and the records of the others are filtered while they are assembled.
+ *
+ * Every entry is a condition on a top level column, either a value it is equal to, or a map of operators to values,
+ * e.g. `{name: 'Jim', age: {gte: 18, lt: 65}}`, the conditions all applying.
+ */
+public class ParquetFilters {
+
+    private static final List<String> OPERATORS = List.of("eq", "ne", "gt", "gte", "lt", "lte");
+
+    private ParquetFilters() {
+    }
+
+    public static FilterPredicate toPredicate(Map<String, Object> filter, MessageType schema) {
+        FilterPredicate predicate = null;
+        for (Map.Entry<String, Object> entry : filter.entrySet()) {
+            final PrimitiveType type = primitiveColumn(schema, entry.getKey());
+            final Map<String, Object> conditions = entry.getValue() instanceof Map
+                    ? (Map<String, Object>) entry.getValue()
+                    : Map.of("eq", entry.getValue());
+            for (Map.Entry<String, Object> condition : conditions.entrySet()) {
+                final FilterPredicate next = condition(type, entry.getKey(), condition.getKey(), condition.getValue());
+                predicate = predicate == null ? next : FilterApi.and(predicate, next);
+            }
+        }
+        return predicate;
+    }
+
+    private static PrimitiveType primitiveColumn(MessageType schema, String column) {
+        if (!schema.containsField(column) || !schema.getType(column).isPrimitive() || schema.getType(column).isRepetition(Type.Repetition.REPEATED)) {
+            throw new RuntimeException("`filter` must be on the primitive columns of the file, but got [column:" + column + "]");
+        }
+        return schema.getType(column).asPrimitiveType();
+    }
+
+    private static FilterPredicate condition(PrimitiveType type, String column, String operator, Object value) {
+        if (!OPERATORS.contains(operator)) {
+            throw new RuntimeException("`filter` operators must be one of " + OPERATORS + ", but got [" + column + ":" + operator + "]");
+        }
+        switch (type.getPrimitiveTypeName()) {
+            case BOOLEAN: {
+                final Operators.BooleanColumn booleanColumn = FilterApi.booleanColumn(column);
+                final Boolean booleanValue = (Boolean) value;
+                switch (operator) {
+                    case "eq":
+                        return FilterApi.eq(booleanColumn, booleanValue);
+                    case "ne":
+                        return FilterApi.notEq(booleanColumn, booleanValue);
+                    default:
+                        throw new RuntimeException("`filter` operators of a boolean column must be `eq` or `ne`, but got [" + column + ":" + operator + "]");
+                }
+            }
+            case INT32:
+                return compare(FilterApi.intColumn(column), operator,
+                        value == null ? null : value instanceof LocalDate ? (int) ((LocalDate) value).toEpochDay() : ((Number) value).intValue());
+            case INT64:
+                return compare(FilterApi.longColumn(column), operator, value == null ? null : toLong(value));
+            case FLOAT:
+                return compare(FilterApi.floatColumn(column), operator, value == null ? null : ((Number) value).floatValue());
+            case DOUBLE:
+                return compare(FilterApi.doubleColumn(column), operator, value == null ? null : ((Number) value).doubleValue());
+            default:
+                return compare(FilterApi.binaryColumn(column), operator, value == null ? null : Binary.fromString(value.toString()));
+        }
+    }
+
+    /**
+     * @return the long of a number, or the epoch millis of a date time, as the exports write them
+     */
+    private static long toLong(Object value) {
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        if (value instanceof TemporalAccessor) {
+            return Instant.from((TemporalAccessor) value).toEpochMilli();
+        }
+        return ((Number) value).longValue();
+    }
+
+    private static <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsLtGt> FilterPredicate compare(C column, String operator, T value) {
+        switch (operator) {
+            case "eq":
+                return FilterApi.eq(column, value);
+            case "ne":
+                return FilterApi.notEq(column, value);
+            case "gt":
+                return FilterApi.gt(column, value);
+            case "gte":
+                return FilterApi.gtEq(column, value);
+            case "lt":
+                return FilterApi.lt(column, value);
+            default:
+                return FilterApi.ltEq(column, value);
+        }
+    }
+}
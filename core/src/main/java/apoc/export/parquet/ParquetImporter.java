@@ -0,0 +1,132 @@
+package apoc.export.parquet;
+
+import apoc.export.arrow.ArrowImporter;
+import apoc.export.csv.LongIdSpace;
+import apoc.export.util.KernelImportWriter;
+import apoc.export.util.Reporter;
+import apoc.util.Util;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.procedure.TerminationGuard;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static apoc.export.arrow.ArrowUtils.FIELD_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_LABELS;
+import static apoc.export.arrow.ArrowUtils.FIELD_SOURCE_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_TARGET_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_TYPE;
+import static apoc.export.csv.IdMapping.NOT_FOUND;
+
+/**
+ * Imports a graph written by the `apoc.export.parquet.*` procedures, as {@link ArrowImporter} does with the Arrow files,
+ * in a pass over the nodes and then a pass over the relationships, each with a reader of its own.
+ */
+public class ParquetImporter {
+
+    private static final List<String> RESERVED = List.of(FIELD_ID.getName(), FIELD_LABELS.getName(),
+            FIELD_TYPE.getName(), FIELD_SOURCE_ID.getName(), FIELD_TARGET_ID.getName());
+
+    private final GraphDatabaseService db;
+    private final ParquetConfig config;
+    private final Reporter reporter;
+    private final TerminationGuard terminationGuard;
+    // the ids of the file to the ids of the nodes created
+    private final LongIdSpace idSpace = new LongIdSpace();
+
+    public ParquetImporter(GraphDatabaseService db, ParquetConfig config, Reporter reporter, TerminationGuard terminationGuard) {
+        this.db = db;
+        this.config = config;
+        this.reporter = reporter;
+        this.terminationGuard = terminationGuard;
+    }
+
+    public void importAll(ParquetSource source) throws IOException {
+        final KernelImportWriter.Tokens tokens = new KernelImportWriter.Tokens();
+        // every row is read, as the relationships need all their nodes
+        final ParquetConfig readAll = new ParquetConfig(Map.of());
+        try (Stream<Map<String, Object>> rows = source.rows(readAll);
+             KernelImportWriter writer = new KernelImportWriter(db, config.getBatchSize(), reporter, tokens)) {
+            final Iterator<Map<String, Object>> iterator = rows.iterator();
+            while (!Util.transactionIsTerminated(terminationGuard) && iterator.hasNext()) {
+                final Map<String, Object> row = iterator.next();
+                if (row.get(FIELD_TYPE.getName()) == null) {
+                    importNode(row, writer);
+                }
+            }
+        }
+        try (Stream<Map<String, Object>> rows = source.rows(readAll);
+             KernelImportWriter writer = new KernelImportWriter(db, config.getBatchSize(), reporter, tokens)) {
+            final Iterator<Map<String, Object>> iterator = rows.iterator();
+            while (!Util.transactionIsTerminated(terminationGuard) && iterator.hasNext()) {
+                final Map<String, Object> row = iterator.next();
+                if (row.get(FIELD_TYPE.getName()) != null) {
+                    importRelationship(row, writer);
+                }
+            }
+        }
+        reporter.done();
+    }
+
+    private void importNode(Map<String, Object> row, KernelImportWriter writer) {
+        if (!row.containsKey(FIELD_ID.getName())) {
+            throw new RuntimeException("Missing the `" + FIELD_ID.getName() + "` column, the file was not exported as a graph");
+        }
+        final Object id = row.get(FIELD_ID.getName());
+        if (id != null && idSpace.get(((Number) id).longValue()) != NOT_FOUND) {
+            if (config.isIgnoreDuplicateNodes()) return;
+            throw new IllegalStateException("Duplicate node with id " + id + " found");
+        }
+        final Collection<?> labels = (Collection<?>) row.get(FIELD_LABELS.getName());
+        final int[] labelTokens = labels == null ? new int[0] : labels.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(label -> writer.labelToken(label.toString()))
+                .toArray();
+        final long nodeId = writer.createNode(labelTokens);
+        if (id != null) {
+            idSpace.putIfAbsent(((Number) id).longValue(), nodeId);
+        }
+        final int props = setProperties(row, writer, (key, value) -> writer.setNodeProperty(nodeId, key, value));
+        reporter.update(1, 0, props);
+        writer.increment();
+    }
+
+    private void importRelationship(Map<String, Object> row, KernelImportWriter writer) {
+        final int type = writer.relationshipTypeToken(row.get(FIELD_TYPE.getName()).toString());
+        final long relId = writer.createRelationship(nodeId(row.get(FIELD_SOURCE_ID.getName())), type, nodeId(row.get(FIELD_TARGET_ID.getName())));
+        final int props = setProperties(row, writer, (key, value) -> writer.setRelationshipProperty(relId, key, value));
+        reporter.update(0, 1, props);
+        writer.increment();
+    }
+
+    private long nodeId(Object id) {
+        final long nodeId = id == null ? NOT_FOUND : idSpace.get(((Number) id).longValue());
+        if (nodeId == NOT_FOUND) {
+            throw new IllegalStateException("Node with id " + id + " not found in the imported nodes");
+        }
+        return nodeId;
+    }
+
+    private interface PropertySetter {
+        void set(int key, Object value);
+    }
+
+    /**
+     * @return the number of properties set, as the nodes and the relationships share the columns of their properties
+     */
+    private static int setProperties(Map<String, Object> row, KernelImportWriter writer, PropertySetter setter) {
+        int count = 0;
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (entry.getValue() != null && !RESERVED.contains(entry.getKey())) {
+                setter.set(writer.propertyKeyToken(entry.getKey()), ArrowImporter.toStorable(entry.getValue()));
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,161 @@
+package apoc.export.parquet;
+
+import apoc.export.util.CountingInputStream;
+import apoc.util.CompressionAlgo;
+import apoc.util.FileUtils;
+import apoc.util.Util;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.arrow.vector.util.ByteArrayReadableSeekableByteChannel;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.io.DelegatingSeekableInputStream;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A Parquet file, local or read in memory as the remote Arrow files are, which can be read as many times as needed,
+ * e.g. once per pass of an import.
+ */
+public class ParquetSource implements InputFile {
+
+    private final File file;
+    private final byte[] bytes;
+
+    private ParquetSource(File file, byte[] bytes) {
+        this.file = file;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return the file of the file name, or of the bytes of the `apoc.load.*` and `apoc.import.*` procedures
+     */
+    public static ParquetSource of(Object urlOrBinaryFile) throws IOException {
+        if (urlOrBinaryFile instanceof byte[]) {
+            return new ParquetSource(null, (byte[]) urlOrBinaryFile);
+        }
+        if (!(urlOrBinaryFile instanceof String)) {
+            throw new RuntimeException(Util.ERROR_BYTES_OR_STRING);
+        }
+        final String fileName = (String) urlOrBinaryFile;
+        final File file = FileUtils.localFileFor(fileName, CompressionAlgo.NONE.name());
+        if (file != null) {
+            return new ParquetSource(file, null);
+        }
+        try (CountingInputStream in = FileUtils.inputStreamFor(fileName, null, null, null)) {
+            return new ParquetSource(null, in.readAllBytes());
+        }
+    }
+
+    @Override
+    public long getLength() {
+        return file != null ? file.length() : bytes.length;
+    }
+
+    @Override
+    public SeekableInputStream newStream() throws IOException {
+        final SeekableByteChannel channel = file != null
+                ? FileChannel.open(file.toPath(), StandardOpenOption.READ)
+                : new ByteArrayReadableSeekableByteChannel(bytes);
+        return new DelegatingSeekableInputStream(Channels.newInputStream(channel)) {
+            @Override
+            public long getPos() throws IOException {
+                return channel.position();
+            }
+
+            @Override
+            public void seek(long newPos) throws IOException {
+                channel.position(newPos);
+            }
+        };
+    }
+
+    /**
+     * @return the rows of the record groups matching the filter of the config, with its columns only if any,
+     *      read one at a time until the stream is closed
+     */
+    public Stream<Map<String, Object>> rows(ParquetConfig config) throws IOException {
+        final FileMetaData metadata;
+        try (ParquetFileReader fileReader = ParquetFileReader.open(this)) {
+            metadata = fileReader.getFooter().getFileMetaData();
+        }
+        final String arrowSchemaJson = metadata.getKeyValueMetaData().get(ParquetTypes.ARROW_SCHEMA);
+        final Schema arrowSchema = arrowSchemaJson == null ? null : Schema.fromJSON(arrowSchemaJson);
+        final MessageType fileSchema = metadata.getSchema();
+
+        final Configuration conf = new Configuration();
+        if (!config.getColumns().isEmpty()) {
+            conf.set(ReadSupport.PARQUET_READ_SCHEMA, projection(fileSchema, config.getColumns()).toString());
+        }
+        final FilterCompat.Filter filter = config.getFilter().isEmpty()
+                ? FilterCompat.NOOP
+                : FilterCompat.get(ParquetFilters.toPredicate(config.getFilter(), fileSchema));
+        // the conf first, as it resets the other options of the builder
+        final ParquetReader<Group> reader = new GroupReaderBuilder(this)
+                .withConf(conf)
+                .withFilter(filter)
+                .build();
+        final Spliterator<Map<String, Object>> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Map<String, Object>> action) {
+                final Group record;
+                try {
+                    record = reader.read();
+                } catch (IOException e) {
+                    throw new RuntimeException("Error reading the Parquet record: " + e.getMessage(), e);
+                }
+                if (record == null) {
+                    return false;
+                }
+                action.accept(ParquetTypes.read(record, arrowSchema));
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> Util.close(reader));
+    }
+
+    private static MessageType projection(MessageType fileSchema, List<String> columns) {
+        final List<Type> fields = columns.stream()
+                .map(column -> {
+                    if (!fileSchema.containsField(column)) {
+                        throw new RuntimeException("`columns` must be columns of the file, but got [column:" + column + "]");
+                    }
+                    return fileSchema.getType(column);
+                })
+                .collect(Collectors.toList());
+        return new MessageType(fileSchema.getName(), fields);
+    }
+
+    private static class GroupReaderBuilder extends ParquetReader.Builder<Group> {
+        GroupReaderBuilder(InputFile file) {
+            super(file);
+        }
+
+        @Override
+        protected ReadSupport<Group> getReadSupport() {
+            return new GroupReadSupport();
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package apoc.export.parquet;
+
+import apoc.export.arrow.ArrowTypes;
+import apoc.util.JsonUtil;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.GroupType;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+import org.apache.parquet.schema.Types;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The Parquet types of the Arrow fields of an export, and the conversions of the rows to and from the Parquet records.
+ *
+ * The lists are the three-level Parquet lists and the structs are groups. The dictionary encoded labels and types
+ * are written as strings, which Parquet encodes with dictionaries of its own. The Arrow schema is kept as json
+ * in the metadata of the file, so that the points and the durations are read back as such.
+ */
+public class ParquetTypes {
+
+    public static final String ARROW_SCHEMA = "apoc.arrow.schema";
+    private static final String LIST = "list";
+    private static final String ELEMENT = "element";
+
+    private ParquetTypes() {
+    }
+
+    public static MessageType messageType(Schema schema) {
+        return new MessageType("neo4j", schema.getFields().stream()
+                .map(field -> parquetType(field, field.getName()))
+                .collect(Collectors.toList()));
+    }
+
+    private static Type parquetType(Field field, String name) {
+        if (field.getDictionary() != null) {
+            return Types.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(name);
+        }
+        final ArrowType type = field.getType();
+        switch (type.getTypeID()) {
+            case List:
+                return Types.optionalGroup()
+                        .as(LogicalTypeAnnotation.listType())
+                        .addField(Types.repeatedGroup().addField(parquetType(field.getChildren().get(0), ELEMENT)).named(LIST))
+                        .named(name);
+            case Struct: {
+                final Types.GroupBuilder<GroupType> group = Types.optionalGroup();
+                field.getChildren().forEach(child -> group.addField(parquetType(child, child.getName())));
+                return group.named(name);
+            }
+            case Int:
+                return Types.optional(PrimitiveTypeName.INT64).named(name);
+            case FloatingPoint:
+                return Types.optional(PrimitiveTypeName.DOUBLE).named(name);
+            case Bool:
+                return Types.optional(PrimitiveTypeName.BOOLEAN).named(name);
+            case Date:
+                return ((ArrowType.Date) type).getUnit() == DateUnit.DAY
+                        ? Types.optional(PrimitiveTypeName.INT32).as(LogicalTypeAnnotation.dateType()).named(name)
+                        : Types.optional(PrimitiveTypeName.INT64).as(LogicalTypeAnnotation.timestampType(true, LogicalTypeAnnotation.TimeUnit.MILLIS)).named(name);
+            case Time:
+                return Types.optional(PrimitiveTypeName.INT64).as(LogicalTypeAnnotation.timeType(false, LogicalTypeAnnotation.TimeUnit.NANOS)).named(name);
+            default:
+                return Types.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(name);
+        }
+    }
+
+    /**
+     * @param dictionaries the values of the dictionary encoded fields by the id of their dictionary, see {@link apoc.export.arrow.GraphDictionaries#values()}
+     * @return a writer of the rows of {@link apoc.export.arrow.ExportArrowStrategy#convertRows} with the fields of the Arrow schema,
+     *      the entries that don't fit their field, or without a field of their own, as json to the {@link ArrowTypes#REST} field
+     *      of their row or struct, as in {@link ArrowTypes#writeFields}
+     */
+    public static ParquetWriter<Map<String, Object>> newWriter(OutputFile file, Schema schema, ParquetConfig config,
+                                                               Map<Long, List<String>> dictionaries) throws IOException {
+        return new RowWriterBuilder(file, schema, dictionaries)
+                .withCompressionCodec(codec(config.getCompression()))
+                .withRowGroupSize(config.getRowGroupSize())
+                .withPageSize(config.getPageSize())
+                .withDictionaryEncoding(config.isDictionary())
+                .build();
+    }
+
+    /**
+     * @return the codec of the name, validated by the export strategies before the export starts
+     */
+    static CompressionCodecName codec(String compression) {
+        try {
+            return CompressionCodecName.valueOf(compression);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("`compression` must be one of " + Arrays.toString(CompressionCodecName.values())
+                    + ", but got [compression:" + compression + "]");
+        }
+    }
+
+    private static class RowWriterBuilder extends ParquetWriter.Builder<Map<String, Object>, RowWriterBuilder> {
+        private final Schema schema;
+        private final Map<Long, List<String>> dictionaries;
+
+        RowWriterBuilder(OutputFile file, Schema schema, Map<Long, List<String>> dictionaries) {
+            super(file);
+            this.schema = schema;
+            this.dictionaries = dictionaries;
+        }
+
+        @Override
+        protected RowWriterBuilder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<Map<String, Object>> getWriteSupport(Configuration conf) {
+            return new RowWriteSupport(schema, dictionaries);
+        }
+    }
+
+    private static class RowWriteSupport extends WriteSupport<Map<String, Object>> {
+        private final Schema arrowSchema;
+        private final MessageType schema;
+        private final Map<Long, List<String>> dictionaries;
+        private RecordConsumer consumer;
+
+        RowWriteSupport(Schema arrowSchema, Map<Long, List<String>> dictionaries) {
+            this.arrowSchema = arrowSchema;
+            this.schema = messageType(arrowSchema);
+            this.dictionaries = dictionaries;
+        }
+
+        @Override
+        public WriteContext init(Configuration configuration) {
+            return new WriteContext(schema, Map.of(ARROW_SCHEMA, arrowSchema.toJson()));
+        }
+
+        @Override
+        public void prepareForWrite(RecordConsumer recordConsumer) {
+            this.consumer = recordConsumer;
+        }
+
+        @Override
+        public void write(Map<String, Object> row) {
+            consumer.startMessage();
+            writeFields(schema, arrowSchema.getFields(), row);
+            consumer.endMessage();
+        }
+
+        /**
+         * Writes the entries of the map to the fields of the group, which are those of the Arrow fields in the same order
+         */
+        private void writeFields(GroupType type, List<Field> fields, Map<String, Object> map) {
+            final int restIndex = fields.isEmpty() || !ArrowTypes.REST.equals(fields.get(fields.size() - 1).getName())
+                    ? -1 : fields.size() - 1;
+            Map<String, Object> rest = null;
+            int written = 0;
+            for (int i = 0; i < fields.size(); i++) {
+                if (i == restIndex) {
+                    continue;
+                }
+                final Field field = fields.get(i);
+                final Object value = map.get(field.getName());
+                // an optional field is missing from the record if null
+                if (value == null) {
+                    continue;
+                }
+                written++;
+                if (ArrowTypes.fits(field, value)) {
+                    writeField(type.getType(i), i, field, value);
+                } else if (restIndex >= 0) {
+                    rest = putRest(rest, field.getName(), value);
+                } else {
+                    throw new IllegalArgumentException("The value " + value + " of `" + field.getName()
+                            + "` doesn't fit its Arrow type " + field.getType());
+                }
+            }
+            if (restIndex < 0) {
+                return;
+            }
+            if (written < map.size()) {
+                for (Map.Entry<String, Object> entry : map.entrySet()) {
+                    if (entry.getValue() != null && (ArrowTypes.REST.equals(entry.getKey()) || childField(fields, entry.getKey()) == null)) {
+                        rest = putRest(rest, entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            if (rest != null) {
+                writeField(type.getType(restIndex), restIndex, fields.get(restIndex), rest);
+            }
+        }
+
+        private void writeField(Type type, int index, Field field, Object value) {
+            consumer.startField(type.getName(), index);
+            writeValue(type, field, value);
+            consumer.endField(type.getName(), index);
+        }
+
+        private void writeValue(Type type, Field field, Object value) {
+            if (field.getDictionary() != null) {
+                // the index of a label or of a type
+                final List<String> values = dictionaries.get(field.getDictionary().getId());
+                consumer.addBinary(Binary.fromString(values.get(((Number) value).intValue())));
+                return;
+            }
+            if (type.isPrimitive()) {
+                writePrimitive(consumer, type.asPrimitiveType(), value);
+                return;
+            }
+            final GroupType group = type.asGroupType();
+            consumer.startGroup();
+            if (isList(group)) {
+                final GroupType repeated = group.getType(0).asGroupType();
+                final Type element = repeated.getType(0);
+                final Field elementField = field.getChildren().get(0);
+                final List<?> list = (List<?>) value;
+                if (!list.isEmpty()) {
+                    consumer.startField(repeated.getName(), 0);
+                    for (Object item : list) {
+                        consumer.startGroup();
+                        if (item != null) {
+                            writeField(element, 0, elementField, item);
+                        }
+                        consumer.endGroup();
+                    }
+                    consumer.endField(repeated.getName(), 0);
+                }
+            } else {
+                // the points and the durations are already structs, see ArrowTypes.toArrowValue
+                writeFields(group, field.getChildren(), (Map<String, Object>) value);
+            }
+            consumer.endGroup();
+        }
+    }
+
+    private static Map<String, Object> putRest(Map<String, Object> rest, String key, Object value) {
+        final Map<String, Object> map = rest == null ? new HashMap<>() : rest;
+        map.put(key, value);
+        return map;
+    }
+
+    /**
+     * Writes a value fitting the Arrow field of the type, see {@link ArrowTypes#fits}
+     */
+    private static void writePrimitive(RecordConsumer consumer, PrimitiveType type, Object value) {
+        switch (type.getPrimitiveTypeName()) {
+            case BOOLEAN:
+                consumer.addBoolean((Boolean) value);
+                break;
+            case INT32:
+                consumer.addInteger(value instanceof LocalDate ? (int) ((LocalDate) value).toEpochDay() : ((Number) value).intValue());
+                break;
+            case INT64:
+                if (value instanceof LocalTime) {
+                    consumer.addLong(((LocalTime) value).toNanoOfDay());
+                } else if (value instanceof Number) {
+                    consumer.addLong(((Number) value).longValue());
+                } else {
+                    consumer.addLong(ArrowTypes.toEpochMilli(value));
+                }
+                break;
+            case DOUBLE:
+                consumer.addDouble(((Number) value).doubleValue());
+                break;
+            default:
+                consumer.addBinary(Binary.fromString(value instanceof Map || value instanceof List || value instanceof byte[]
+                        ? JsonUtil.writeValueAsString(value)
+                        : value.toString()));
+        }
+    }
+
+    private static boolean isList(GroupType group) {
+        return group.getLogicalTypeAnnotation() instanceof LogicalTypeAnnotation.ListLogicalTypeAnnotation
+                && group.getFieldCount() == 1 && group.getType(0).isRepetition(Type.Repetition.REPEATED);
+    }
+
+    /**
+     * Reads a record of any Parquet file, with the fields of the Arrow schema of an export if any
+     *
+     * @param arrowSchema the schema kept in the metadata of the file by the export, or null
+     */
+    public static Map<String, Object> read(Group record, Schema arrowSchema) {
+        final GroupType type = record.getType();
+        final List<Field> arrowFields = arrowSchema == null ? List.of() : arrowSchema.getFields();
+        final Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < type.getFieldCount(); i++) {
+            final Type field = type.getType(i);
+            row.put(field.getName(), readField(record, i, field, childField(arrowFields, field.getName())));
+        }
+        // the json of the values of an export that don't fit the types of their columns
+        return arrowSchema == null ? row : ArrowTypes.withRest(row);
+    }
+
+    private static Field childField(List<Field> fields, String name) {
+        for (Field field : fields) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static Object readField(Group group, int index, Type type, Field arrowField) {
+        final int count = group.getFieldRepetitionCount(index);
+        if (count == 0) {
+            return null;
+        }
+        if (type.isRepetition(Type.Repetition.REPEATED)) {
+            // a repeated field out of a list, read as a list
+            final List<Object> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                list.add(readValue(group, index, i, type, arrowField));
+            }
+            return list;
+        }
+        return readValue(group, index, 0, type, arrowField);
+    }
+
+    private static Object readValue(Group group, int index, int repetition, Type type, Field arrowField) {
+        if (type.isPrimitive()) {
+            return readPrimitive(group, index, repetition, type.asPrimitiveType());
+        }
+        final Group child = group.getGroup(index, repetition);
+        final GroupType groupType = type.asGroupType();
+        if (isList(groupType)) {
+            final Type repeated = groupType.getType(0);
+            final Field elementField = arrowField == null || arrowField.getChildren().isEmpty() ? null : arrowField.getChildren().get(0);
+            final int count = child.getFieldRepetitionCount(0);
+            final List<Object> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (repeated.isPrimitive() || repeated.asGroupType().getFieldCount() != 1) {
+                    // the two-level lists of the legacy writers
+                    list.add(readValue(child, 0, i, repeated, elementField));
+                } else {
+                    final Group element = child.getGroup(0, i);
+                    list.add(readField(element, 0, repeated.asGroupType().getType(0), elementField));
+                }
+            }
+            return list;
+        }
+        final List<Field> arrowChildren = arrowField == null ? List.of() : arrowField.getChildren();
+        final Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < groupType.getFieldCount(); i++) {
+            final Type field = groupType.getType(i);
+            map.put(field.getName(), readField(child, i, field, childField(arrowChildren, field.getName())));
+        }
+        return arrowField == null ? map : ArrowTypes.fromStruct(arrowField, ArrowTypes.withRest(map));
+    }
+
+    private static Object readPrimitive(Group group, int index, int repetition, PrimitiveType type) {
+        final LogicalTypeAnnotation logicalType = type.getLogicalTypeAnnotation();
+        switch (type.getPrimitiveTypeName()) {
+            case BOOLEAN:
+                return group.getBoolean(index, repetition);
+            case INT32: {
+                final int value = group.getInteger(index, repetition);
+                if (logicalType instanceof LogicalTypeAnnotation.DateLogicalTypeAnnotation) {
+                    return LocalDate.ofEpochDay(value);
+                }
+                if (logicalType instanceof LogicalTypeAnnotation.TimeLogicalTypeAnnotation) {
+                    return LocalTime.ofNanoOfDay(value * 1_000_000L);
+                }
+                return (long) value;
+            }
+            case INT64: {
+                final long value = group.getLong(index, repetition);
+                if (logicalType instanceof LogicalTypeAnnotation.TimestampLogicalTypeAnnotation) {
+                    final Instant instant = Instant.EPOCH.plus(value, chronoUnit(((LogicalTypeAnnotation.TimestampLogicalTypeAnnotation) logicalType).getUnit()));
+                    return ((LogicalTypeAnnotation.TimestampLogicalTypeAnnotation) logicalType).isAdjustedToUTC()
+                            ? instant.atZone(ZoneOffset.UTC)
+                            : instant.atZone(ZoneOffset.UTC).toLocalDateTime();
+                }
+                if (logicalType instanceof LogicalTypeAnnotation.TimeLogicalTypeAnnotation) {
+                    return LocalTime.ofNanoOfDay(Duration.of(value, chronoUnit(((LogicalTypeAnnotation.TimeLogicalTypeAnnotation) logicalType).getUnit())).toNanos());
+                }
+                return value;
+            }
+            case FLOAT:
+                return (double) group.getFloat(index, repetition);
+            case DOUBLE:
+                return group.getDouble(index, repetition);
+            case INT96:
+                // the legacy timestamps, left as their bytes
+                return group.getInt96(index, repetition).getBytes();
+            default:
+                return logicalType instanceof LogicalTypeAnnotation.StringLogicalTypeAnnotation
+                        || logicalType instanceof LogicalTypeAnnotation.EnumLogicalTypeAnnotation
+                        || logicalType instanceof LogicalTypeAnnotation.JsonLogicalTypeAnnotation
+                        ? group.getString(index, repetition)
+                        : group.getBinary(index, repetition).getBytes();
+        }
+    }
+
+    private static ChronoUnit chronoUnit(LogicalTypeAnnotation.TimeUnit unit) {
+        switch (unit) {
+            case MILLIS:
+                return ChronoUnit.MILLIS;
+            case MICROS:
+                return ChronoUnit.MICROS;
+            default:
+                return ChronoUnit.NANOS;
+        }
+    }
+}
@@ -1,34 +1,37 @@
 package apoc.load;
 
+import apoc.export.arrow.ArrowSource;
+import apoc.export.arrow.ArrowTypes;
 import apoc.result.MapResult;
-import apoc.util.FileUtils;
 import apoc.util.JsonUtil;
 import apoc.util.Util;
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
-import org.apache.arrow.vector.BitVector;
-import org.apache.arrow.vector.DateMilliVector;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
 import org.apache.arrow.vector.ipc.ArrowFileReader;
 import org.apache.arrow.vector.ipc.ArrowReader;
-import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.message.ArrowBlock;
 import org.apache.arrow.vector.util.Text;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
+import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.Values;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.channels.SeekableByteChannel;
-import java.time.Instant;
-import java.time.ZoneOffset;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Spliterator;
-import java.util.Spliterators;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -36,40 +39,196 @@ import java.util.stream.StreamSupport;
 
 public class LoadArrow {
 
-    private static class ArrowSpliterator extends Spliterators.AbstractSpliterator<MapResult> {
+    /**
+     * The rows of the record batches, loaded one at a time in the root of the reader.
+     * The batches of a file are split by their blocks, read by a reader of their own.
+     */
+    private static class ArrowSpliterator implements Spliterator<MapResult> {
 
+        private final ArrowSource source;
+        private final BufferAllocator allocator;
+        // the readers of all the splits, closed with the stream
+        private final List<AutoCloseable> readers;
         private final ArrowReader reader;
-        private final VectorSchemaRoot schemaRoot;
-        private final AtomicInteger counter;
+        private final VectorSchemaRoot root;
+        private final List<FieldVector> vectors;
+        private final FieldVector restVector;
+        // the blocks of a file, null for a stream read batch after batch
+        private final List<ArrowBlock> blocks;
+        private int nextBlock;
+        private final int endBlock;
+        private int row;
 
-        public ArrowSpliterator(ArrowReader reader, VectorSchemaRoot schemaRoot) throws IOException {
-            super(Long.MAX_VALUE, Spliterator.ORDERED);
-            this.reader = reader;
-            this.schemaRoot = schemaRoot;
-            this.counter = new AtomicInteger();
-            this.reader.loadNextBatch();
+        public ArrowSpliterator(ArrowSource source, BufferAllocator allocator, List<AutoCloseable> readers) throws IOException {
+            this(source, allocator, readers, 0, -1);
+        }
+
+        private ArrowSpliterator(ArrowSource source, BufferAllocator allocator, List<AutoCloseable> readers, int fromBlock, int toBlock) throws IOException {
+            this.source = source;
+            this.allocator = allocator;
+            this.readers = readers;
+            this.reader = source.open(allocator);
+            readers.add(reader);
+            this.root = reader.getVectorSchemaRoot();
+            // the vectors of the root are the same for every batch loaded in it
+            this.restVector = root.getVector(ArrowTypes.REST);
+            this.vectors = new ArrayList<>(root.getFieldVectors());
+            vectors.remove(restVector);
+            this.blocks = source.isFile() ? ((ArrowFileReader) reader).getRecordBlocks() : null;
+            this.nextBlock = fromBlock;
+            this.endBlock = blocks == null ? 0 : toBlock < 0 ? blocks.size() : toBlock;
+        }
+
+        private boolean loadNextBatch() throws IOException {
+            if (blocks == null) {
+                return reader.loadNextBatch();
+            }
+            return nextBlock < endBlock && ((ArrowFileReader) reader).loadRecordBatch(blocks.get(nextBlock++));
         }
 
         @Override
-        public synchronized boolean tryAdvance(Consumer<? super MapResult> action) {
+        public boolean tryAdvance(Consumer<? super MapResult> action) {
             try {
-                if (counter.get() >= schemaRoot.getRowCount()) {
-                    if (reader.loadNextBatch()) {
-                        counter.set(0);
-                    } else {
+                while (row >= root.getRowCount()) {
+                    if (!loadNextBatch()) {
                         return false;
                     }
+                    row = 0;
                 }
-                final Map<String, Object> row = schemaRoot.getFieldVectors()
-                        .stream()
-                        .collect(HashMap::new, (map, fieldVector) -> map.put(fieldVector.getName(), read(fieldVector, counter.get())), HashMap::putAll); // please look at https://bugs.openjdk.java.net/browse/JDK-8148463
-                counter.incrementAndGet();
-                action.accept(new MapResult(row));
-                return true;
-            } catch (Exception e) {
-                return false;
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading the Arrow record batch: " + e.getMessage(), e);
+            }
+            action.accept(new MapResult(new ArrowRow(root, vectors, restVector, row++, reader)));
+            return true;
+        }
+
+        /**
+         * @return the first half of the blocks left, if none of them is partly read
+         */
+        @Override
+        public Spliterator<MapResult> trySplit() {
+            final int remaining = endBlock - nextBlock;
+            if (blocks == null || row < root.getRowCount() || remaining < 2) {
+                return null;
             }
+            final int middle = nextBlock + remaining / 2;
+            try {
+                final ArrowSpliterator prefix = new ArrowSpliterator(source, allocator, readers, nextBlock, middle);
+                nextBlock = middle;
+                return prefix;
+            } catch (IOException e) {
+                throw new RuntimeException("Error opening the Arrow file: " + e.getMessage(), e);
+            }
+        }
 
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * A row read from the vectors of the root on access, instead of copied to a map,
+     * which is valid until the next record batch is loaded in the root.
+     * The values of the json of the {@link ArrowTypes#REST} column, if any, are the ones of their columns.
+     */
+    private static class ArrowRow extends AbstractMap<String, Object> {
+
+        private final VectorSchemaRoot root;
+        private final int index;
+        private final DictionaryProvider dictionaries;
+        // the vectors of the root but the rest one
+        private final List<FieldVector> vectors;
+        // the values of the columns and of the json, copied as the rows with any are few
+        private final Map<String, Object> withRest;
+
+        ArrowRow(VectorSchemaRoot root, List<FieldVector> vectors, FieldVector restVector, int index, DictionaryProvider dictionaries) {
+            this.root = root;
+            this.index = index;
+            this.dictionaries = dictionaries;
+            this.vectors = vectors;
+            if (restVector == null || restVector.isNull(index)) {
+                this.withRest = null;
+            } else {
+                final Map<String, Object> map = new HashMap<>();
+                vectors.forEach(vector -> map.put(vector.getName(), read(vector, index, dictionaries)));
+                map.put(ArrowTypes.REST, ArrowTypes.read(restVector, index, dictionaries));
+                this.withRest = (Map<String, Object>) getObject(ArrowTypes.withRest(map));
+            }
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (withRest != null) {
+                return withRest.get(key);
+            }
+            final FieldVector vector = key instanceof String && !ArrowTypes.REST.equals(key) ? root.getVector((String) key) : null;
+            return vector == null ? null : read(vector, index, dictionaries);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (withRest != null) {
+                return withRest.containsKey(key);
+            }
+            return key instanceof String && !ArrowTypes.REST.equals(key) && root.getVector((String) key) != null;
+        }
+
+        @Override
+        public int size() {
+            return withRest != null ? withRest.size() : vectors.size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            if (withRest != null) {
+                return withRest.entrySet();
+            }
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    final Iterator<FieldVector> iterator = vectors.iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            final FieldVector vector = iterator.next();
+                            return new SimpleImmutableEntry<>(vector.getName(), read(vector, index, dictionaries));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return vectors.size();
+                }
+            };
+        }
+    }
+
+    private static Stream<MapResult> load(ArrowSource source) throws IOException {
+        final RootAllocator allocator = new RootAllocator();
+        final List<AutoCloseable> readers = Collections.synchronizedList(new ArrayList<>());
+        try {
+            return StreamSupport.stream(new ArrowSpliterator(source, allocator, readers), false)
+                    .onClose(() -> {
+                        // the roots are closed by their readers
+                        readers.forEach(Util::close);
+                        Util.close(allocator);
+                    });
+        } catch (IOException | RuntimeException e) {
+            readers.forEach(Util::close);
+            Util.close(allocator);
+            throw e;
         }
     }
 
@@ -78,17 +237,7 @@ public class LoadArrow {
     public Stream<MapResult> stream(
             @Name("source") byte[] source,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws IOException {
-        RootAllocator allocator = new RootAllocator();
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(source);
-        ArrowStreamReader streamReader = new ArrowStreamReader(inputStream, allocator);
-        VectorSchemaRoot schemaRoot = streamReader.getVectorSchemaRoot();
-        return StreamSupport.stream(new ArrowSpliterator(streamReader, schemaRoot), false)
-                .onClose(() -> {
-                    Util.close(allocator);
-                    Util.close(streamReader);
-                    Util.close(schemaRoot);
-                    Util.close(inputStream);
-                });
+        return load(ArrowSource.stream(source));
     }
 
     @Procedure(name = "apoc.load.arrow")
@@ -96,44 +245,28 @@ public class LoadArrow {
     public Stream<MapResult> file(
             @Name("file") String fileName,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws IOException {
-        final SeekableByteChannel channel = FileUtils.inputStreamFor(fileName, null, null, null)
-                .asChannel();
-        RootAllocator allocator = new RootAllocator();
-        ArrowFileReader streamReader = new ArrowFileReader(channel, allocator);
-        VectorSchemaRoot schemaRoot = streamReader.getVectorSchemaRoot();
-        return StreamSupport.stream(new ArrowSpliterator(streamReader, schemaRoot), false)
-                .onClose(() -> {
-                    Util.close(allocator);
-                    Util.close(streamReader);
-                    Util.close(schemaRoot);
-                    Util.close(channel);
-                });
+        return load(ArrowSource.file(fileName));
     }
 
-    private static Object read(FieldVector fieldVector, int index) {
-        if (fieldVector.isNull(index)) {
-            return null;
-        } else if (fieldVector instanceof DateMilliVector) {
-            DateMilliVector fe = (DateMilliVector) fieldVector;
-            return Instant.ofEpochMilli(fe.get(index)).atOffset(ZoneOffset.UTC);
-        } else if (fieldVector instanceof BitVector) {
-            BitVector fe = (BitVector) fieldVector;
-            return fe.get(index) == 1;
-        } else {
-            Object object = fieldVector.getObject(index);
-            return getObject(object);
-        }
+    private static Object read(FieldVector fieldVector, int index, DictionaryProvider dictionaries) {
+        return getObject(ArrowTypes.read(fieldVector, index, dictionaries));
     }
 
     private static Object getObject(Object object) {
+        // the scalars of the vectors are returned as they are read
+        if (object == null || object instanceof Value || object instanceof String || object instanceof Long
+                || object instanceof Double || object instanceof Boolean) {
+            return object;
+        }
         if (object instanceof Collection) {
             return ((Collection<?>) object).stream()
                     .map(LoadArrow::getObject)
                     .collect(Collectors.toList());
         }
         if (object instanceof Map) {
-            return ((Map<String, Object>) object).entrySet().stream()
-                    .collect(Collectors.toMap(Map.Entry::getKey, e -> getObject(e.getValue())));
+            final Map<String, Object> map = new HashMap<>();
+            ((Map<String, Object>) object).forEach((key, value) -> map.put(key, getObject(value)));
+            return map;
         }
         if (object instanceof Text) {
             return object.toString();
@@ -151,4 +284,4 @@ public class LoadArrow {
         return JsonUtil.writeValueAsString(value);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package apoc.load;
+
+import apoc.export.parquet.ParquetConfig;
+import apoc.export.parquet.ParquetSource;
+import apoc.result.MapResult;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class LoadParquet {
+
+    @Procedure(name = "apoc.load.parquet")
+    @Description("Loads the rows of the provided parquet file or byte array, with the `columns` and the `filter` of the config if any.")
+    public Stream<MapResult> load(
+            @Name("urlOrBinaryFile") Object urlOrBinaryFile,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws IOException {
+        ParquetConfig.checkDependencies();
+        return ParquetSource.of(urlOrBinaryFile)
+                .rows(new ParquetConfig(config))
+                .map(MapResult::new);
+    }
+}
@@ -0,0 +1,89 @@
+package apoc.periodic;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The fixed-rate tick of an `apoc.periodic.repeat` with the `overlap` config.
+ *
+ * The tick only hands the run over to the executor, the job pool, and returns, so that a run taking longer than the rate
+ * neither queues up the missed executions nor keeps the scheduler from ticking the other jobs.
+ * The coalesced run is handed over to the executor as well, by the run before it.
+ * A tick coming while the previous run is still going is dropped with `skip`,
+ * while with `coalesce` all of them together cause a single run as soon as the current one is over.
+ */
+class CoalescingTask implements Runnable {
+    enum Overlap { SKIP, COALESCE }
+
+    private final Runnable task;
+    private final Executor executor;
+    private final Overlap overlap;
+    private final JobStatistics statistics;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private volatile Future<?> future;
+
+    CoalescingTask(Runnable task, Executor executor, Overlap overlap, JobStatistics statistics) {
+        this.task = task;
+        this.executor = executor;
+        this.overlap = overlap;
+        this.statistics = statistics;
+    }
+
+    static Overlap overlapOf(Object value) {
+        if (value == null) return null;
+        try {
+            return Overlap.valueOf(value.toString().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("overlap parameter must be one of 'skip' or 'coalesce'");
+        }
+    }
+
+    /**
+     * The future of the scheduled ticks, cancelled if a run fails, as a failing periodic task is not executed anymore
+     */
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    @Override
+    public void run() {
+        if (!running.compareAndSet(false, true)) {
+            if (overlap == Overlap.COALESCE) {
+                pending.set(true);
+            }
+            statistics.onSkipped();
+            return;
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        try {
+            executor.execute(this::execute);
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    private void execute() {
+        boolean failed = true;
+        try {
+            task.run();
+            failed = false;
+        } finally {
+            running.set(false);
+            if (failed) {
+                Future<?> ticks = future;
+                if (ticks != null) ticks.cancel(false);
+            } else if (pending.getAndSet(false) && running.compareAndSet(false, true)) {
+                // the ticks that came in meanwhile, unless another tick has already started a new run
+                dispatch();
+            }
+        }
+    }
+}
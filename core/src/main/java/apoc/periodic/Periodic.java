@@ -4,6 +4,7 @@ import apoc.Pools;
 import apoc.util.collection.Iterables;
 import apoc.util.collection.Iterators;
 import apoc.util.Util;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
 import apoc.periodic.PeriodicUtils.JobInfo;
 import org.apache.commons.lang3.tuple.Pair;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -12,12 +13,15 @@ import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.schema.ConstraintDefinition;
 import org.neo4j.graphdb.schema.IndexDefinition;
 import org.neo4j.graphdb.schema.Schema;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.*;
 
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -27,6 +31,7 @@ import static apoc.periodic.PeriodicUtils.recordError;
 import static apoc.periodic.PeriodicUtils.submitJob;
 import static apoc.periodic.PeriodicUtils.submitProc;
 import static apoc.periodic.PeriodicUtils.wrapTask;
+import static apoc.ApocConfig.apocConfig;
 import static apoc.util.Util.merge;
 
 public class Periodic {
@@ -47,11 +52,39 @@ public class Periodic {
 
     @Admin
     @Procedure(name = "apoc.periodic.truncate", mode = Mode.SCHEMA)
-    @Description("Removes all entities (and optionally indexes and constraints) from the database using the `apoc.periodic.iterate` procedure.")
+    @Description("Removes all entities (and optionally indexes and constraints) from the database, deleting id ranges of the relationship and node stores in parallel batched transactions.")
     public void truncate(@Name(value = "config", defaultValue = "{}") Map<String,Object> config) {
+        int batchSize = Util.toInteger(config.getOrDefault("batchSize", 10000));
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize parameter must be > 0");
+        }
+        int concurrency = Util.toInteger(config.getOrDefault("concurrency", Runtime.getRuntime().availableProcessors()));
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency parameter must be > 0");
+        }
 
-        iterate("MATCH ()-[r]->() RETURN id(r) as id", "MATCH ()-[r]->() WHERE id(r) = id DELETE r", config);
-        iterate("MATCH (n) RETURN id(n) as id", "MATCH (n) WHERE id(n) = id DELETE n", config);
+        String truncateId = "truncate-" + UUID.randomUUID();
+        JobStatistics statistics = new JobStatistics(truncateId, JobStatistics.Type.TRUNCATE, -1);
+        MultiThreadedGlobalGraphOperations.BatchListener listener = (processed, elapsedNanos, failed) ->
+                statistics.onBatchCompleted(processed, elapsedNanos, 0, failed);
+        BooleanSupplier terminated = () -> Util.transactionIsTerminated(terminationGuard);
+        GraphDatabaseAPI api = (GraphDatabaseAPI) db;
+        ExecutorService executor = pools.getDefaultExecutorService(db.databaseName());
+
+        pools.getJobStatistics().put(truncateId, statistics);
+        try {
+            // relationships first, so that the nodes can be deleted without touching their neighbours
+            truncatePhase("relationships", concurrency, terminated, workers -> MultiThreadedGlobalGraphOperations.forAllRelationships(
+                    api, executor, batchSize, workers,
+                    (ktx, cursor) -> ktx.dataWrite().relationshipDelete(cursor.relationshipReference()),
+                    listener, terminated));
+            truncatePhase("nodes", concurrency, terminated, workers -> MultiThreadedGlobalGraphOperations.forAllNodes(
+                    api, executor, batchSize, workers,
+                    (ktx, cursor) -> ktx.dataWrite().nodeDetachDelete(cursor.nodeReference()),
+                    listener, terminated));
+        } finally {
+            pools.getJobStatistics().remove(truncateId);
+        }
 
         if (Util.toBoolean(config.get("dropSchema"))) {
             Schema schema = tx.schema();
@@ -60,12 +93,59 @@ public class Periodic {
         }
     }
 
+    /**
+     * Runs the parallel deletion with `concurrency` workers, each of them deleting one id range of `batchSize` entities per transaction.
+     * Concurrent deletions can deadlock on shared nodes, in that case the failed ranges are deleted again by a single worker.
+     *
+     * @throws RuntimeException with the number of entities left, if some of them still can't be deleted once a pass deletes none
+     */
+    private void truncatePhase(String entities, int concurrency, BooleanSupplier terminated,
+                               IntFunction<MultiThreadedGlobalGraphOperations.BatchJobResult> deleteAll) {
+        int workers = concurrency;
+        long deleted = 0;
+        MultiThreadedGlobalGraphOperations.BatchJobResult result;
+        do {
+            result = deleteAll.apply(workers);
+            deleted += result.getSucceeded();
+            log.info("apoc.periodic.truncate deleted %d %s so far", deleted, entities);
+            workers = 1;
+        } while (result.getFailures() > 0 && result.getSucceeded() > 0 && !terminated.getAsBoolean());
+        if (result.getFailures() > 0 && !terminated.getAsBoolean()) {
+            Throwable error = result.getFirstError();
+            log.error("apoc.periodic.truncate could not delete all the " + entities, error);
+            throw new RuntimeException(String.format("apoc.periodic.truncate could not delete all the %s, %d nodes and %d relationships are left, the first error was: %s",
+                    entities, Util.nodeCount(tx), Util.relCount(tx), error == null ? "unknown" : error.getMessage()));
+        }
+    }
+
     @Procedure("apoc.periodic.list")
     @Description("Returns a list of all background jobs.")
     public Stream<JobInfo> list() {
         return pools.getJobList().entrySet().stream().map( (e) -> e.getKey().update(e.getValue()));
     }
 
+    @Procedure("apoc.periodic.stats")
+    @Description("Returns live throughput and latency statistics of the running `apoc.periodic.iterate`, `apoc.periodic.commit` and `apoc.periodic.repeat` jobs.")
+    public Stream<JobStatistics.Result> stats() {
+        return pools.getJobStatistics().values().stream().map(JobStatistics::toResult);
+    }
+
+    @Procedure("apoc.periodic.pools.stats")
+    @Description("Returns the size, the queue and the utilisation of the thread pools running the background jobs.")
+    public Stream<Pools.PoolStatistics> poolsStats() {
+        return pools.getPoolStatistics().stream();
+    }
+
+    @Admin
+    @Procedure(name = "apoc.periodic.pools.resize", mode = Mode.DBMS)
+    @Description("Resizes the thread pools running the background jobs until the next restart, with the config keys `corePoolSize`, `maxPoolSize`, `queueSize`, `maxConcurrency`, `scheduledPoolSize` and `databaseQuota`.\n" +
+            "The `databaseQuota` bounds the tasks of a database running the batches of the parallel `apoc.periodic.iterate` and `apoc.periodic.truncate` and the shards of the parallel CSV and JSON exports, not the triggers, `apoc.periodic.submit`, `apoc.periodic.repeat`, nor the imports and the Arrow and Parquet exports.\n" +
+            "This procedure requires users to have an admin role.")
+    public Stream<Pools.PoolStatistics> poolsResize(@Name("config") Map<String,Object> config) {
+        pools.resize(config);
+        return pools.getPoolStatistics().stream();
+    }
+
     @Procedure(name = "apoc.periodic.commit", mode = Mode.WRITE)
     @Description("Runs the given statement in separate batched transactions.")
     public Stream<RundownResult> commit(@Name("statement") String statement, @Name(value = "params", defaultValue = "{}") Map<String,Object> parameters) {
@@ -87,24 +167,34 @@ public class Periodic {
         if (log.isDebugEnabled()) {
             log.debug("Starting periodic commit from `%s` in separate thread with id: `%s`", statement, periodicId);
         }
-        do {
-            Map<String, Object> window = Util.map("_count", updates, "_total", total);
-            updates = Util.getFuture(pools.getScheduledExecutorService().submit(() -> {
-                batches.incrementAndGet();
-                try {
-                    return executeNumericResultStatement(statement, merge(window, params));
-                } catch(Exception e) {
-                    failedBatches.incrementAndGet();
-                    recordError(batchErrors, e);
-                    return 0L;
+        JobStatistics statistics = new JobStatistics(periodicId, JobStatistics.Type.COMMIT, -1);
+        pools.getJobStatistics().put(periodicId, statistics);
+        try {
+            do {
+                Map<String, Object> window = Util.map("_count", updates, "_total", total);
+                updates = Util.getFuture(pools.getScheduledExecutorService().submit(() -> {
+                    batches.incrementAndGet();
+                    long batchStart = System.nanoTime();
+                    try {
+                        long batchUpdates = executeNumericResultStatement(statement, merge(window, params));
+                        statistics.onBatchCompleted(batchUpdates, System.nanoTime() - batchStart, 0, false);
+                        return batchUpdates;
+                    } catch(Exception e) {
+                        statistics.onBatchCompleted(0, System.nanoTime() - batchStart, 0, true);
+                        failedBatches.incrementAndGet();
+                        recordError(batchErrors, e);
+                        return 0L;
+                    }
+                }), commitErrors, failedCommits, 0L);
+                total += updates;
+                if (updates > 0) executions++;
+                if (log.isDebugEnabled()) {
+                    log.debug("Processed in periodic commit with id %s, no %d executions", periodicId, executions);
                 }
-            }), commitErrors, failedCommits, 0L);
-            total += updates;
-            if (updates > 0) executions++;
-            if (log.isDebugEnabled()) {
-                log.debug("Processed in periodic commit with id %s, no %d executions", periodicId, executions);
-            }
-        } while (updates > 0 && !Util.transactionIsTerminated(terminationGuard));
+            } while (updates > 0 && !Util.transactionIsTerminated(terminationGuard));
+        } finally {
+            pools.getJobStatistics().remove(periodicId);
+        }
         if (log.isDebugEnabled()) {
             log.debug("Terminated periodic commit with id %s with %d executions", periodicId, executions);
         }
@@ -149,6 +239,7 @@ public class Periodic {
     public Stream<JobInfo> cancel(@Name("name") String name) {
         JobInfo info = new JobInfo(name);
         Future future = pools.getJobList().remove(info);
+        pools.getJobStatistics().remove(name);
         if (future != null) {
             future.cancel(false);
             return Stream.of(info.update(future));
@@ -165,13 +256,24 @@ public class Periodic {
 
     @Procedure(name = "apoc.periodic.repeat", mode = Mode.WRITE)
     @Description("Runs a repeatedly called background job.\n" +
+            "With `overlap: 'skip'` or `'coalesce'` the job runs at a fixed rate, dropping or merging into one the runs due while it is still running; " +
+            "`jitter` delays the first run by a random number of seconds up to the given one.\n" +
             "To stop this procedure, use `apoc.periodic.cancel`.")
     public Stream<JobInfo> repeat(@Name("name") String name, @Name("statement") String statement, @Name("rate") long rate, @Name(value = "config", defaultValue = "{}") Map<String,Object> config ) {
         validateQuery(statement);
         Map<String,Object> params = (Map)config.getOrDefault("params", Collections.emptyMap());
+        CoalescingTask.Overlap overlap = CoalescingTask.overlapOf(config.get("overlap"));
+        long jitter = Util.toLong(config.getOrDefault("jitter", 0L));
+        if (jitter < 0) {
+            throw new IllegalArgumentException("jitter parameter must be >= 0");
+        }
+        // spreads the jobs with the same rate, so that they don't all run at the same time
+        long delayMillis = jitter == 0 ? 0 : ThreadLocalRandom.current().nextLong(TimeUnit.SECONDS.toMillis(jitter) + 1);
         JobInfo info = schedule(name, () -> {
             db.executeTransactionally(statement, params);
-        },0,rate);
+        }, delayMillis, TimeUnit.SECONDS.toMillis(rate), TimeUnit.MILLISECONDS, overlap);
+        info.delay = TimeUnit.MILLISECONDS.toSeconds(delayMillis);
+        info.rate = rate;
         return Stream.of(info);
     }
 
@@ -195,12 +297,43 @@ public class Periodic {
      * Call from a procedure that gets a <code>@Context GraphDatbaseAPI db;</code> injected and provide that db to the runnable.
      */
     public JobInfo schedule(String name, Runnable task, long delay, long repeat) {
+        return schedule(name, task, delay, repeat, TimeUnit.SECONDS, null);
+    }
+
+    /**
+     * @param overlap if null, the task runs with a fixed delay between the runs, otherwise see {@link CoalescingTask}
+     */
+    JobInfo schedule(String name, Runnable task, long delay, long repeat, TimeUnit unit, CoalescingTask.Overlap overlap) {
         JobInfo info = new JobInfo(name,delay,repeat);
         Future future = pools.getJobList().remove(info);
         if (future != null && !future.isDone()) future.cancel(false);
 
-        Runnable wrappingTask = wrapTask(name, task, log);
-        ScheduledFuture<?> newFuture = pools.getScheduledExecutorService().scheduleWithFixedDelay(wrappingTask, delay, repeat, TimeUnit.SECONDS);
+        JobStatistics statistics = new JobStatistics(name, JobStatistics.Type.REPEAT, -1);
+        Runnable wrappingTask = wrapTask(name, () -> {
+            long runStart = System.nanoTime();
+            boolean failed = true;
+            try {
+                task.run();
+                failed = false;
+            } finally {
+                statistics.onBatchCompleted(0, System.nanoTime() - runStart, 0, failed);
+                if (failed) {
+                    // a failing task is not run anymore, so it is gone from the statistics as with `apoc.periodic.cancel`
+                    pools.getJobStatistics().remove(name, statistics);
+                }
+            }
+        }, log);
+        pools.getJobStatistics().put(name, statistics);
+        ScheduledExecutorService scheduler = pools.getScheduledExecutorService();
+        ScheduledFuture<?> newFuture;
+        if (overlap == null) {
+            newFuture = scheduler.scheduleWithFixedDelay(wrappingTask, delay, repeat, unit);
+        } else {
+            // the runs go to the job pool, so that they don't hold the threads ticking the other jobs
+            CoalescingTask ticks = new CoalescingTask(wrappingTask, pools.getDefaultExecutorService(), overlap, statistics);
+            newFuture = scheduler.scheduleAtFixedRate(ticks, delay, repeat, unit);
+            ticks.setFuture(newFuture);
+        }
         pools.getJobList().put(info,newFuture);
         return info;
     }
@@ -231,10 +364,50 @@ public class Periodic {
         long retries = Util.toLong(config.getOrDefault("retries", 0)); // todo sleep/delay or push to end of batch to try again or immediate ?
         int failedParams = Util.toInteger(config.getOrDefault("failedParams", -1));
 
+        String partitionBy = (String) config.get("partitionBy");
+        AdaptiveBatchSize batchSizer = AdaptiveBatchSize.fromConfig(config, (int) batchSize);
+        long expectedTotal = Util.toLong(config.getOrDefault("expectedTotal", -1));
         BatchMode batchMode = BatchMode.fromConfig(config);
         Map<String,Object> params = (Map<String, Object>) config.getOrDefault("params", Collections.emptyMap());
 
-        try (Result result = tx.execute(slottedRuntime(cypherIterate),params)) {
+        String resumeFrom = (String) config.get("resumeFrom");
+        String checkpointName = (String) config.getOrDefault("checkpoint", resumeFrom);
+        if (checkpointName != null && partitionBy != null) {
+            throw new IllegalArgumentException("checkpoint parameter cannot be used together with partitionBy, as the rows are not committed in order");
+        }
+        Map<String, Object> resumed = Collections.emptyMap();
+        Map<String, Object> iterateParams = params;
+        if (resumeFrom != null) {
+            resumed = PeriodicCheckpoint.load(apocConfig().getSystemDb(), db.databaseName(), resumeFrom);
+            if (Util.toBoolean(resumed.get("failed"))) {
+                log.info("Resuming the periodic iteration from the checkpoint %s before its first failed batch", resumeFrom);
+            }
+            // the watermark of the last committed batch, to be used by the cypherIterate statement to skip the processed rows
+            iterateParams = merge(params, Util.map(PeriodicCheckpoint.CHECKPOINT_PARAM, resumed.get("watermark")));
+        } else if (checkpointName != null) {
+            // nothing to skip yet, so that the same statement can be used for the first run and to resume it
+            iterateParams = merge(params, Util.map(PeriodicCheckpoint.CHECKPOINT_PARAM, null));
+        }
+
+        try (Result result = tx.execute(slottedRuntime(cypherIterate),iterateParams)) {
+            if (partitionBy != null && !result.columns().contains(partitionBy)) {
+                throw new IllegalArgumentException("partitionBy parameter must be one of the columns returned by the cypherIterate statement: " + result.columns());
+            }
+            PeriodicCheckpoint checkpoint = null;
+            if (checkpointName != null) {
+                // the column to order the rows by can only be guessed if there is no other one
+                String checkpointColumn = (String) config.getOrDefault("checkpointColumn",
+                        result.columns().size() == 1 ? result.columns().get(0) : null);
+                if (checkpointColumn == null) {
+                    throw new IllegalArgumentException("checkpointColumn parameter is required when the cypherIterate statement returns more than one column: " + result.columns());
+                }
+                if (!result.columns().contains(checkpointColumn)) {
+                    throw new IllegalArgumentException("checkpointColumn parameter must be one of the columns returned by the cypherIterate statement: " + result.columns());
+                }
+                long checkpointInterval = Util.toLong(config.getOrDefault("checkpointInterval", PeriodicCheckpoint.DEFAULT_CHECKPOINT_INTERVAL));
+                checkpoint = new PeriodicCheckpoint(apocConfig().getSystemDb(), db.databaseName(), checkpointName, checkpointColumn,
+                        checkpointInterval, checkpointName.equals(resumeFrom) ? resumed : Collections.emptyMap(), log);
+            }
             Pair<String,Boolean> prepared = PeriodicUtils.prepareInnerStatement(cypherAction, batchMode, result.columns(), "_batch");
             String innerStatement = applyPlanner(prepared.getLeft(), Planner.valueOf((String) config.getOrDefault("planner", Planner.DEFAULT.name())));
             boolean iterateList = prepared.getRight();
@@ -244,13 +417,14 @@ public class Periodic {
             }
             return PeriodicUtils.iterateAndExecuteBatchedInSeparateThread(
                     db, terminationGuard, log, pools,
-                    (int)batchSize, parallel, iterateList, retries, result,
+                    batchSizer, parallel, iterateList, retries, result,
                     (tx, p) -> {
                         final Result r = tx.execute(innerStatement, merge(params, p));
                         Iterators.count(r); // XXX: consume all results
                         return r.getQueryStatistics();
                     },
-                    concurrency, failedParams, periodicId);
+                    concurrency, failedParams, periodicId, partitionBy,
+                    new JobStatistics(periodicId, JobStatistics.Type.ITERATE, expectedTotal), checkpoint);
         }
     }
 
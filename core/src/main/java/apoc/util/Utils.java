@@ -100,6 +100,6 @@ public class Utils {
     public byte[] compress(@Name("data") String data, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws Exception {
 
         CompressionConfig conf = new CompressionConfig(config, CompressionAlgo.GZIP.name());
-        return CompressionAlgo.valueOf(conf.getCompressionAlgo()).compress(data, conf.getCharset());
+        return CompressionAlgo.valueOf(conf.getCompressionAlgo()).compress(data, conf);
     }
 }
@@ -18,6 +18,9 @@ public class ApocSplitTest {
     public static final Set<String> CORE_PROCEDURES = Set.of(
         "apoc.periodic.truncate",
         "apoc.periodic.list",
+        "apoc.periodic.stats",
+        "apoc.periodic.pools.stats",
+        "apoc.periodic.pools.resize",
         "apoc.periodic.commit",
         "apoc.periodic.cancel",
         "apoc.periodic.submit",
@@ -129,6 +132,12 @@ public class ApocSplitTest {
         "apoc.export.arrow.all",
         "apoc.export.arrow.graph",
         "apoc.export.arrow.query",
+        "apoc.import.arrow",
+        "apoc.export.parquet.all",
+        "apoc.export.parquet.graph",
+        "apoc.export.parquet.query",
+        "apoc.load.parquet",
+        "apoc.import.parquet",
         "apoc.export.cypher.all",
         "apoc.export.cypher.data",
         "apoc.export.cypher.graph",
@@ -3,21 +3,32 @@ package apoc.export.arrow;
 import apoc.graph.Graphs;
 import apoc.load.LoadArrow;
 import apoc.meta.Meta;
-import apoc.util.JsonUtil;
 import apoc.util.TestUtil;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.graphdb.QueryExecutionException;
 import org.neo4j.graphdb.Result;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
+import org.neo4j.values.storable.CoordinateReferenceSystem;
+import org.neo4j.values.storable.DurationValue;
+import org.neo4j.values.storable.Values;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.ZoneOffset;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,7 +38,12 @@ import java.util.stream.LongStream;
 import static apoc.ApocConfig.APOC_EXPORT_FILE_ENABLED;
 import static apoc.ApocConfig.APOC_IMPORT_FILE_ENABLED;
 import static apoc.ApocConfig.apocConfig;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 public class ArrowTest {
 
@@ -51,10 +67,7 @@ public class ArrowTest {
                 put("male", true);
                 put("<type>", null);
                 put("kids", List.of("Sam", "Anna", "Grace"));
-                put("place", Map.of("crs", "wgs-84-3d",
-                        "longitude", 33.46789D,
-                        "latitude", 13.1D,
-                        "height", 100.0D));
+                put("place", Values.pointValue(CoordinateReferenceSystem.WGS_84_3D, 33.46789D, 13.1D, 100.0D));
                 put("<target.id>", null);
                 put("since", null);
                 put("born", LocalDateTime.parse("2015-05-18T19:32:24.000").atOffset(ZoneOffset.UTC).toZonedDateTime());
@@ -76,7 +89,7 @@ public class ArrowTest {
             }},
             new HashMap<>() {{
                 put("name", null);
-                put("bffSince", "P5M1DT12H");
+                put("bffSince", DurationValue.duration(5, 1, 43200, 0));
                 put("<source.id>", 0L);
                 put("<id>", 0L);
                 put("age", null);
@@ -94,7 +107,7 @@ public class ArrowTest {
     @BeforeClass
     public static void beforeClass() {
         db.executeTransactionally("CREATE (f:User {name:'Adam',age:42,male:true,kids:['Sam','Anna','Grace'], born:localdatetime('2015-05-18T19:32:24.000'), place:point({latitude: 13.1, longitude: 33.46789, height: 100.0})})-[:KNOWS {since: 1993, bffSince: duration('P5M1.5D')}]->(b:User {name:'Jim',age:42})");
-        TestUtil.registerProcedure(db, ExportArrow.class, LoadArrow.class, Graphs.class, Meta.class);
+        TestUtil.registerProcedure(db, ExportArrow.class, ImportArrow.class, LoadArrow.class, Graphs.class, Meta.class);
         apocConfig().setProperty(APOC_IMPORT_FILE_ENABLED, true);
         apocConfig().setProperty(APOC_EXPORT_FILE_ENABLED, true);
     }
@@ -107,12 +120,10 @@ public class ArrowTest {
         return result.<String>columnAs("file").next();
     }
 
-    private <T> T readValue(String json, Class<T> clazz) {
-        if (json == null) return null;
-        try {
-            return JsonUtil.OBJECT_MAPPER.readValue(json, clazz);
-        } catch (JsonProcessingException e) {
-            return null;
+    private Schema readSchema(byte[] byteArray) throws Exception {
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(byteArray), allocator)) {
+            return reader.getVectorSchemaRoot().getSchema();
         }
     }
 
@@ -145,11 +156,11 @@ public class ArrowTest {
             assertEquals(Arrays.asList(1.1D, 2.2D, 3.3), row.get("doubleArray"));
             assertEquals(Arrays.asList(true, false, true), row.get("boolArray"));
             assertEquals(Arrays.asList("1", "2", "true", null), row.get("mixedArray"));
-            assertEquals("{\"foo\":\"bar\"}", row.get("mapData"));
+            assertEquals(Map.of("foo", "bar"), row.get("mapData"));
             assertEquals(LocalDateTime.parse("2015-05-18T19:32:24.000")
                     .atOffset(ZoneOffset.UTC)
                     .toZonedDateTime(), row.get("dateData"));
-            assertEquals(Arrays.asList("[0]"), row.get("arrayArray"));
+            assertEquals(List.of(List.of(0L)), row.get("arrayArray"));
             assertEquals(1.1D, row.get("doubleData"));
             return true;
         });
@@ -186,16 +197,90 @@ public class ArrowTest {
                     assertEquals(Arrays.asList(1.1D, 2.2D, 3.3), row.get("doubleArray"));
                     assertEquals(Arrays.asList(true, false, true), row.get("boolArray"));
                     assertEquals(Arrays.asList("1", "2", "true", null), row.get("mixedArray"));
-                    assertEquals("{\"foo\":\"bar\"}", row.get("mapData"));
+                    assertEquals(Map.of("foo", "bar"), row.get("mapData"));
                     assertEquals(LocalDateTime.parse("2015-05-18T19:32:24.000")
                             .atOffset(ZoneOffset.UTC)
                             .toZonedDateTime(), row.get("dateData"));
-                    assertEquals(Arrays.asList("[0]"), row.get("arrayArray"));
+                    assertEquals(List.of(List.of(0L)), row.get("arrayArray"));
                     assertEquals(1.1D, row.get("doubleData"));
                     return true;
                 });
     }
 
+    @Test
+    public void testFileRoundtripArrowQueryWithTypesChangingAfterFirstBatch() {
+        // given - when
+        final String returnQuery = "UNWIND [{id: 1, map: {a: 1}, list: [1, 2]}, {id: 'two', map: {a: 'x', b: true}, list: ['a']}] AS row " +
+                "RETURN row.id AS id, row.map AS map, row.list AS list";
+        String file = db.executeTransactionally("CALL apoc.export.arrow.query('query_changing_test.arrow', $query, {batchSize: 1}) YIELD file",
+                Map.of("query", returnQuery),
+                this::extractFileName);
+
+        // then
+        final String query = "CALL apoc.load.arrow($file) YIELD value " +
+                "RETURN value";
+        db.executeTransactionally(query,
+                Map.of("file", file),
+                result -> {
+                    final List<Map<String, Object>> actual = getActual(result);
+                    assertEquals(2, actual.size());
+                    assertEquals(Map.of("id", 1L, "map", Map.of("a", 1L), "list", List.of(1L, 2L)), actual.get(0));
+                    // typed from the first batch, the values that don't fit are kept as json
+                    assertEquals(Map.of("id", "two", "map", Map.of("a", "x", "b", true), "list", List.of("a")), actual.get(1));
+                    return true;
+                });
+    }
+
+    @Test
+    public void testStreamRoundtripArrowTypedQuery() throws Exception {
+        // given - when
+        final String returnQuery = "MATCH (u:User {name: 'Jim'}) " +
+                "RETURN u AS node," +
+                "[1, 2.5] AS numberArray," +
+                "[{name: 'a', values: [1, 2]}] AS mapArray," +
+                "date('2020-01-02') AS dateData," +
+                "localtime('12:30') AS timeData," +
+                "point({x: 1.0, y: 2.0}) AS pointData," +
+                "duration('P1DT2H') AS durationData";
+        final byte[] byteArray = db.executeTransactionally("CALL apoc.export.arrow.stream.query($query) YIELD value AS byteArray",
+                Map.of("query", returnQuery),
+                this::extractByteArray);
+
+        // then
+        final Schema schema = readSchema(byteArray);
+        assertEquals(Types.MinorType.STRUCT.getType(), schema.findField("node").getType());
+        assertEquals(Types.MinorType.LIST.getType(), schema.findField("mapArray").getType());
+        assertEquals(Types.MinorType.DATEDAY.getType(), schema.findField("dateData").getType());
+        assertEquals(ArrowTypes.POINT, schema.findField("pointData").getMetadata().get(ArrowTypes.NEO4J_TYPE));
+
+        final String query = "CALL apoc.load.arrow.stream($byteArray) YIELD value " +
+                "RETURN value";
+        db.executeTransactionally(query, Map.of("byteArray", byteArray), result -> {
+            final Map<String, Object> row = (Map<String, Object>) result.next().get("value");
+            assertEquals(Map.of("<id>", 1L, "labels", List.of("User"), "properties", Map.of("name", "Jim", "age", 42L)), row.get("node"));
+            assertEquals(List.of(1.0D, 2.5D), row.get("numberArray"));
+            assertEquals(List.of(Map.of("name", "a", "values", List.of(1L, 2L))), row.get("mapArray"));
+            assertEquals(LocalDate.of(2020, 1, 2), row.get("dateData"));
+            assertEquals(LocalTime.of(12, 30), row.get("timeData"));
+            assertEquals(Values.pointValue(CoordinateReferenceSystem.CARTESIAN, 1.0D, 2.0D), row.get("pointData"));
+            assertEquals(DurationValue.duration(0, 1, 7200, 0), row.get("durationData"));
+            return true;
+        });
+    }
+
+    @Test
+    public void testStreamArrowGraphDictionaries() throws Exception {
+        final byte[] byteArray = db.executeTransactionally("CALL apoc.graph.fromDB('neo4j',{}) yield graph " +
+                        "CALL apoc.export.arrow.stream.graph(graph) YIELD value AS byteArray " +
+                        "RETURN byteArray",
+                Map.of(),
+                this::extractByteArray);
+
+        final Schema schema = readSchema(byteArray);
+        assertNotNull(schema.findField("<type>").getDictionary());
+        assertNotNull(schema.findField("labels").getChildren().get(0).getDictionary());
+    }
+
     @Test
     public void testStreamRoundtripArrowGraph() {
         // given - when
@@ -218,11 +303,6 @@ public class ArrowTest {
     private List<Map<String, Object>> getActual(Result result) {
         return result.stream()
                 .map(m -> (Map<String, Object>) m.get("value"))
-                .map(m -> {
-                    final Map<String, Object> newMap = new HashMap(m);
-                    newMap.put("place", readValue((String) m.get("place"), Map.class));
-                    return newMap;
-                })
                 .collect(Collectors.toList());
     }
 
@@ -336,6 +416,140 @@ public class ArrowTest {
         db.executeTransactionally("MATCH (n:ArrowNode) DELETE n");
     }
 
+    @Test
+    public void testFileVolumeArrowQueryParallel() {
+        // given - when
+        db.executeTransactionally("UNWIND range(0, 10000 - 1) AS id CREATE (:ArrowNode{id:id})");
+
+        String file = db.executeTransactionally("CALL apoc.export.arrow.query('volume_parallel_test.arrow', 'MATCH (n:ArrowNode) RETURN n.id AS id ORDER BY id', {parallel: 4, batchSize: 500}) YIELD file ",
+                Map.of(),
+                this::extractFileName);
+
+        final List<Long> expected = LongStream.range(0, 10000)
+                .mapToObj(l -> l)
+                .collect(Collectors.toList());
+
+        // then the batches are written in the order of the rows
+        final String query = "CALL apoc.load.arrow($file) YIELD value " +
+                "RETURN value.id AS id";
+        db.executeTransactionally(query, Map.of("file", file), result -> {
+            final List<Long> actual = result.stream()
+                    .map(m -> (Long) m.get("id"))
+                    .collect(Collectors.toList());
+            assertEquals(expected, actual);
+            return null;
+        });
+
+        db.executeTransactionally("MATCH (n:ArrowNode) DELETE n");
+    }
+
+    @Test
+    public void testFileRoundtripArrowAllParallel() {
+        // given - when
+        String file = db.executeTransactionally("CALL apoc.export.arrow.all('all_parallel_test.arrow', {parallel: 2}) YIELD file",
+                Map.of(),
+                this::extractFileName);
+
+        // then the id ranges are written as they are read, so the rows are sorted back
+        final String query = "CALL apoc.load.arrow($file) YIELD value " +
+                "RETURN value";
+        db.executeTransactionally(query, Map.of("file", file), result -> {
+            final List<Map<String, Object>> actual = getActual(result);
+            actual.sort(Comparator.comparing((Map<String, Object> row) -> row.get("<type>") != null)
+                    .thenComparing(row -> (Long) row.get("<id>")));
+            assertEquals(EXPECTED, actual);
+            return null;
+        });
+    }
+
+    @Test
+    public void testStreamRoundtripArrowAllParallel() {
+        // given - when
+        final List<byte[]> list = db.executeTransactionally("CALL apoc.export.arrow.stream.all({parallel: 2}) YIELD value AS byteArray",
+                Map.of(),
+                result -> result.<byte[]>columnAs("byteArray").stream().collect(Collectors.toList()));
+
+        // then
+        final String query = "UNWIND $list AS byteArray " +
+                "CALL apoc.load.arrow.stream(byteArray) YIELD value " +
+                "RETURN value";
+        db.executeTransactionally(query, Map.of("list", list), result -> {
+            final List<Map<String, Object>> actual = getActual(result);
+            actual.sort(Comparator.comparing((Map<String, Object> row) -> row.get("<type>") != null)
+                    .thenComparing(row -> (Long) row.get("<id>")));
+            assertEquals(EXPECTED, actual);
+            return null;
+        });
+    }
+
+    @Test
+    public void testFileImportArrowAll() {
+        // given
+        final List<Long> ids = db.executeTransactionally("MATCH (n:User) RETURN collect(id(n)) AS ids", Map.of(),
+                result -> result.<List<Long>>columnAs("ids").next());
+        String file = db.executeTransactionally("CALL apoc.export.arrow.all('import_test.arrow', {batchSize: 1}) YIELD file",
+                Map.of(),
+                this::extractFileName);
+
+        try {
+            // when
+            db.executeTransactionally("CALL apoc.import.arrow($file, {batchSize: 1})", Map.of("file", file), result -> {
+                final Map<String, Object> row = result.next();
+                assertEquals(2L, row.get("nodes"));
+                assertEquals(1L, row.get("relationships"));
+                return null;
+            });
+
+            // then
+            final String query = "MATCH (a:User)-[r:KNOWS]->(b:User) WHERE NOT id(a) IN $ids " +
+                    "RETURN a.name AS source, a.kids AS kids, a.place AS place, a.born AS born, r.since AS since, r.bffSince AS bffSince, b.name AS target";
+            db.executeTransactionally(query, Map.of("ids", ids), result -> {
+                final Map<String, Object> row = result.next();
+                assertEquals("Adam", row.get("source"));
+                assertEquals("Jim", row.get("target"));
+                assertArrayEquals(new String[] { "Sam", "Anna", "Grace" }, (String[]) row.get("kids"));
+                assertEquals(EXPECTED.get(0).get("place"), Values.of(row.get("place")));
+                assertEquals(EXPECTED.get(0).get("born"), row.get("born"));
+                assertEquals(1993L, row.get("since"));
+                assertEquals(EXPECTED.get(2).get("bffSince"), row.get("bffSince"));
+                assertFalse(result.hasNext());
+                return null;
+            });
+        } finally {
+            db.executeTransactionally("MATCH (n:User) WHERE NOT id(n) IN $ids DETACH DELETE n", Map.of("ids", ids));
+        }
+    }
+
+    @Test
+    public void testFileImportArrowDuplicateNodes() {
+        String file = db.executeTransactionally("CALL apoc.export.arrow.query('import_duplicates.arrow', $query) YIELD file",
+                Map.of("query", "UNWIND ['first', 'second'] AS name RETURN 1 AS _id, name"),
+                this::extractFileName);
+        try {
+            QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                    () -> db.executeTransactionally("CALL apoc.import.arrow($file)", Map.of("file", file)));
+            assertTrue(e.getMessage(), e.getMessage().contains("Duplicate node with id 1 found"));
+
+            db.executeTransactionally("CALL apoc.import.arrow($file, {ignoreDuplicateNodes: true})", Map.of("file", file),
+                    result -> assertEquals(1L, result.next().get("nodes")));
+            // the duplicate is skipped
+            assertEquals(0L, db.executeTransactionally("MATCH (n {name: 'second'}) RETURN count(n) AS count",
+                    Map.of(), result -> result.columnAs("count").next()));
+        } finally {
+            db.executeTransactionally("MATCH (n) WHERE n.name IN ['first', 'second'] DELETE n");
+        }
+    }
+
+    @Test
+    public void testToStorableMixedLists() {
+        assertArrayEquals(new long[] { 1L, 2L }, (long[]) ArrowImporter.toStorable(List.of(1L, 2L)));
+        assertArrayEquals(new double[] { 1d, 2.5d }, (double[]) ArrowImporter.toStorable(List.of(1L, 2.5d)), 0d);
+        assertArrayEquals(new Boolean[] { true, false }, (Boolean[]) ArrowImporter.toStorable(List.of(true, false)));
+        // the elements of different types, and the nested lists, as json
+        assertArrayEquals(new String[] { "a", "1", "true" }, (String[]) ArrowImporter.toStorable(List.of("a", 1L, true)));
+        assertArrayEquals(new String[] { "[1,2]", "[3]" }, (String[]) ArrowImporter.toStorable(List.of(List.of(1L, 2L), List.of(3L))));
+    }
+
     @Test
     public void testValidNonStorableQuery() {
         final List<byte[]> list = db.executeTransactionally("CALL apoc.export.arrow.stream.query($query) YIELD value AS byteArray ",
@@ -0,0 +1,96 @@
+package apoc.export.csv;
+
+import apoc.load.Mapping;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class CsvRowParserTest {
+
+    @Test
+    public void testUnquotedAndQuotedFields() throws IOException {
+        List<List<String>> rows = parse("1,John,\"en,fr\"\r\n" +
+                "2,\"Jane \"\"JD\"\" Doe\",  \"de\"\n" +
+                "\n" +
+                "3,,\"multi\r\nline\"", ',', '"');
+        assertEquals(asList(
+                asList("1", "John", "en,fr"),
+                asList("2", "Jane \"JD\" Doe", "de"),
+                asList("3", "", "multi\nline")
+        ), rows);
+    }
+
+    @Test
+    public void testEscapeAndCustomQuote() throws IOException {
+        assertEquals(asList(asList("'1'", "Student:Employee", "a'b", "C:path")),
+                parse("\\'1\\'|'Student:Employee'|'a\\'b'|C:\\path", '|', '\''));
+    }
+
+    @Test
+    public void testSkipLinesAndRowNo() throws IOException {
+        CsvRowParser row = new CsvRowParser(new StringReader("skipped\r\nskipped too\nA|B\nC|D|E\n"), '|', '"');
+        row.skipLines(2);
+        assertTrue(row.next());
+        assertEquals(1, row.rowNo());
+        assertEquals("[A, B]", row.toString());
+        assertTrue(row.next());
+        assertEquals(3, row.columns());
+        assertEquals("E", row.value(2));
+        assertFalse(row.next());
+        assertEquals(2, row.rowNo());
+    }
+
+    @Test
+    public void testUnterminatedQuote() {
+        CsvRowParser row = new CsvRowParser(new StringReader("1,\"John\n"), ',', '"');
+        IOException e = assertThrows(IOException.class, row::next);
+        assertEquals("Un-terminated quoted field at the end of the row 1", e.getMessage());
+    }
+
+    @Test
+    public void testConverters() {
+        assertEquals(42L, convert("answer:int", "42"));
+        assertEquals(-7L, convert("answer:int", "-7"));
+        assertEquals(3L, convert("answer:int", "3.9"));
+        assertEquals(Long.MAX_VALUE, convert("answer:int", String.valueOf(Long.MAX_VALUE)));
+        assertNull(convert("answer:int", "abc"));
+        assertNull(convert("answer:int", " "));
+        assertEquals(2.5d, convert("ratio:float", "2.5"));
+        assertEquals(false, convert("active:boolean", "No"));
+        assertEquals(true, convert("active:boolean", "yes"));
+        assertNull(convert("active:boolean", ""));
+        assertEquals(" ", convert("name:string", " "));
+        assertNull(convert("name:IGNORE", "Doe"));
+        assertEquals(asList(1L, 2L), convert("ids:int[]", "1;2"));
+    }
+
+    private static Object convert(String header, String value) {
+        CsvHeaderField field = CsvHeaderField.parse(header, '"');
+        Mapping mapping = new Mapping(field.getName(), Map.of("type", field.getType(), "array", field.isArray(), "optionalData", field.getOptionalData()), ';', false);
+        return CsvColumnConverter.of(field, mapping).convert(value.toCharArray(), 0, value.length());
+    }
+
+    private static List<List<String>> parse(String csv, char delimiter, char quote) throws IOException {
+        CsvRowParser row = new CsvRowParser(new StringReader(csv), delimiter, quote);
+        List<List<String>> rows = new ArrayList<>();
+        while (row.next()) {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < row.columns(); i++) {
+                fields.add(row.value(i));
+            }
+            rows.add(fields);
+        }
+        return rows;
+    }
+}
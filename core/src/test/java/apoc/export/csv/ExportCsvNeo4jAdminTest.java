@@ -163,6 +163,34 @@ public class ExportCsvNeo4jAdminTest {
         assertFileEquals(file,EXPECTED_NEO4J_ADMIN_IMPORT_HEADER_RELATIONSHIP_NEXT_DELIVERY + EXPECTED_NEO4J_ADMIN_IMPORT_RELATIONSHIP_NEXT_DELIVERY, "graph.relationships.NEXT_DELIVERY.csv", separator);
     }
 
+    @Test
+    public void testExportNeo4jAdminCsvWithInterleavedLabels() {
+        db.executeTransactionally("UNWIND range(0, 99) AS i CREATE (n:Interleaved {i: i}) " +
+                "FOREACH (ignored IN CASE WHEN i % 2 = 0 THEN [1] ELSE [] END | SET n:Even) " +
+                "FOREACH (ignored IN CASE WHEN i % 2 = 1 THEN [1] ELSE [] END | SET n:Odd)");
+        String fileName = "interleaved.csv";
+        TestUtil.testCall(db, "MATCH (n:Interleaved) WITH n ORDER BY id(n) WITH collect(n) AS nodes " +
+                        "CALL apoc.export.csv.graph({nodes: nodes, relationships: []}, $fileName, {bulkImport: true}) YIELD nodes AS exported " +
+                        "RETURN exported",
+                map("fileName", fileName),
+                (r) -> assertEquals(100L, r.get("exported")));
+
+        String file = new File(directory, fileName).getParent() + File.separator;
+        StringBuilder even = new StringBuilder(String.format(":ID,i:long,:LABEL%n"));
+        StringBuilder odd = new StringBuilder(String.format(":ID,i:long,:LABEL%n"));
+        db.executeTransactionally("MATCH (n:Interleaved) RETURN id(n) AS id, n.i AS i ORDER BY id(n)", Collections.emptyMap(), result -> {
+            result.forEachRemaining(row -> {
+                long i = (long) row.get("i");
+                (i % 2 == 0 ? even : odd).append(String.format("%s,%d,%s%n", row.get("id"), i, i % 2 == 0 ? "Interleaved;Even" : "Interleaved;Odd"));
+            });
+            return null;
+        });
+        assertFileEquals(file, even.toString(), "interleaved.nodes.Interleaved.Even.csv");
+        assertFileEquals(file, odd.toString(), "interleaved.nodes.Interleaved.Odd.csv");
+
+        db.executeTransactionally("MATCH (n:Interleaved) DELETE n");
+    }
+
     private void assertFileEquals(String base, String expected, String file) {
         assertFileEquals(base, expected, file, ",",  CompressionAlgo.NONE);
     }
@@ -5,6 +5,7 @@ import apoc.util.BinaryTestUtil;
 import apoc.util.CompressionAlgo;
 import apoc.meta.Meta;
 import apoc.util.CompressionConfig;
+import apoc.util.JsonUtil;
 import apoc.util.TestUtil;
 import apoc.util.Util;
 import apoc.util.collection.Iterators;
@@ -20,11 +21,13 @@ import java.io.File;
 import java.nio.charset.Charset;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Arrays;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static apoc.ApocConfig.APOC_EXPORT_FILE_ENABLED;
 import static apoc.ApocConfig.APOC_IMPORT_FILE_ENABLED;
@@ -221,6 +224,81 @@ public class ExportCsvTest {
         db.executeTransactionally("MATCH (n:Sample) DETACH DELETE n");
     }
 
+    @Test
+    public void testExportAllCsvWithHeaderSample() throws IOException {
+        String fileName = "headerSample.csv";
+        TestUtil.testCall(db, "CALL apoc.export.csv.all($file, {headerSampleSize: 3, quotes: 'none'})", map("file", fileName),
+                (r) -> assertResults(fileName, r, "database"));
+
+        // the header is collected from the first 3 nodes only, i.e. the users
+        final String expected = String.format("_id,_labels,age,kids,male,name,_start,_end,_type%n" +
+                "0,:User:User1,42,[\"a\",\"b\",\"c\"],true,foo,,,%n" +
+                "1,:User,42,,,bar,,,%n" +
+                "2,:User,12,,,,,,%n" +
+                "3,:Address:Address1,,,,Andrea,,,%n" +
+                "4,:Address,,,,Bar Sport,,,%n" +
+                "5,:Address,,,,,,,%n" +
+                "0,,,,,,0,1,KNOWS%n" +
+                "1,,,,,,3,4,NEXT_DELIVERY%n");
+        assertEquals(expected, readFile(fileName));
+
+        // while the properties of the addresses missing from it are in the extra file
+        final List<String> extra = Files.readAllLines(new File(directory, "headerSample.extra.csv").toPath());
+        assertEquals("_id,_start,_end,_type,_key,_value", extra.get(0));
+        assertEquals(Set.of("3,,,,city,Milano", "3,,,,street,Via Garibaldi, 7", "5,,,,street,via Benni"),
+                Set.copyOf(extra.subList(1, extra.size())));
+    }
+
+    @Test
+    public void testExportCsvWithHeaderSampleAndParallelRelationships() throws IOException {
+        final List<Long> ids = db.executeTransactionally("CREATE (a:Parallel)-[r1:LINK]->(b:Parallel), (a)-[r2:LINK {weight: 2}]->(b) " +
+                        "RETURN [id(r1), id(r2)] AS ids", Map.of(),
+                result -> result.<List<Long>>columnAs("ids").next());
+        try {
+            String fileName = "headerSampleParallel.csv";
+            TestUtil.testCall(db, "MATCH (n:Parallel) WITH collect(n) AS nodes MATCH (:Parallel)-[r:LINK]->() WITH nodes, r ORDER BY id(r) WITH nodes, collect(r) AS rels " +
+                            "CALL apoc.export.csv.data(nodes, rels, $file, {headerSampleSize: 1, quotes: 'none'}) YIELD file RETURN file",
+                    map("file", fileName), (r) -> {});
+
+            // the relationships have the same start, end and type, so the extra property is keyed by the id of its relationship
+            final String relationshipId = String.valueOf(ids.get(1));
+            assertTrue(Files.readAllLines(new File(directory, fileName).toPath()).stream()
+                    .anyMatch(line -> line.startsWith(relationshipId + ",,") && line.endsWith(",LINK")));
+            final List<String> extra = Files.readAllLines(new File(directory, "headerSampleParallel.extra.csv").toPath());
+            assertEquals(List.of("_id,_start,_end,_type,_key,_value"), extra.subList(0, 1));
+            assertEquals(1, extra.size() - 1);
+            assertTrue(extra.get(1), extra.get(1).startsWith(relationshipId + ","));
+            assertTrue(extra.get(1), extra.get(1).endsWith(",LINK,weight,2"));
+        } finally {
+            db.executeTransactionally("MATCH (n:Parallel) DETACH DELETE n");
+        }
+    }
+
+    @Test
+    public void testExportAllCsvInParallel() throws IOException {
+        String fileName = "parallel.csv";
+        TestUtil.testCall(db, "CALL apoc.export.csv.all($file, {parallel: 3})", map("file", fileName),
+                (r) -> assertResults(fileName, r, "database"));
+
+        final Map<String, Object> manifest = JsonUtil.OBJECT_MAPPER.readValue(new File(directory, "parallel.manifest.json"), Map.class);
+        assertEquals("csv", manifest.get("format"));
+        final List<Map<String, Object>> shards = (List<Map<String, Object>>) manifest.get("shards");
+        assertEquals(List.of("parallel.part-00000.csv", "parallel.part-00001.csv", "parallel.part-00002.csv"),
+                shards.stream().map(shard -> shard.get("file")).collect(Collectors.toList()));
+
+        // every shard has the header of the whole database, and all together the rows of the single file export
+        final List<String> expected = List.of(EXPECTED.split(System.lineSeparator()));
+        final List<String> rows = new ArrayList<>();
+        for (Map<String, Object> shard : shards) {
+            final List<String> lines = Files.readAllLines(new File(directory, (String) shard.get("file")).toPath());
+            assertEquals(expected.get(0), lines.get(0));
+            assertEquals(((Number) shard.get("nodes")).longValue() + ((Number) shard.get("relationships")).longValue(), lines.size() - 1);
+            rows.addAll(lines.subList(1, lines.size()));
+        }
+        assertEquals(Set.copyOf(expected.subList(1, expected.size())), Set.copyOf(rows));
+        assertEquals(expected.size() - 1, rows.size());
+    }
+
     @Test
     public void testExportAllCsvWithQuotes() {
         String fileName = "all.csv";
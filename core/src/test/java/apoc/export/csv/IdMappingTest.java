@@ -0,0 +1,142 @@
+package apoc.export.csv;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static apoc.export.csv.IdMapping.NOT_FOUND;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IdMappingTest {
+
+    @Test
+    public void longIdSpaceGrowsAndKeepsTheMapping() {
+        LongIdSpace idSpace = new LongIdSpace();
+        for (long i = 0; i < 200_000; i++) {
+            assertTrue(idSpace.putIfAbsent(String.valueOf(i * 7), i));
+        }
+        assertFalse(idSpace.putIfAbsent("14", 42L));
+
+        assertEquals(200_000L, idSpace.size());
+        assertEquals(2L, idSpace.get("14"));
+        assertEquals(199_999L, idSpace.get(String.valueOf(199_999L * 7)));
+        assertEquals(NOT_FOUND, idSpace.get("15"));
+        assertEquals(NOT_FOUND, idSpace.get("not a number"));
+    }
+
+    @Test
+    public void longIdSpaceKeepsNonCanonicalIdsByTheirString() {
+        LongIdSpace idSpace = new LongIdSpace();
+        assertTrue(idSpace.putIfAbsent("7", 1L));
+        assertTrue(idSpace.putIfAbsent("-1", 2L));
+        long nodeId = 3L;
+        for (String id : List.of("007", " 7", "+7", "-0", "7.0")) {
+            assertTrue(id, idSpace.putIfAbsent(id, nodeId));
+            assertFalse(id, idSpace.putIfAbsent(id, 42L));
+            assertEquals(nodeId++, idSpace.get(id));
+        }
+        assertEquals(1L, idSpace.get("7"));
+        assertEquals(2L, idSpace.get("-1"));
+        assertEquals(NOT_FOUND, idSpace.get("0"));
+        assertEquals(7L, idSpace.size());
+    }
+
+    @Test
+    public void longIdSpaceIsReadWhileItGrows() throws Exception {
+        LongIdSpace idSpace = new LongIdSpace();
+        int ids = 500_000;
+        AtomicLong written = new AtomicLong(-1);
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int r = 0; r < 4; r++) {
+                futures.add(readers.submit(() -> {
+                    long last;
+                    do {
+                        last = written.get();
+                        // every id written so far is found, whatever the table it is in
+                        for (long id = Math.max(0, last - 1000); id <= last; id++) {
+                            assertEquals(id, idSpace.get(id));
+                        }
+                    } while (last < ids - 1);
+                    return null;
+                }));
+            }
+            for (long id = 0; id < ids; id++) {
+                assertTrue(idSpace.putIfAbsent(id, id));
+                written.set(id);
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+        assertEquals(ids, idSpace.size());
+    }
+
+    @Test
+    public void stringIdSpacePagesGrowFromASmallOne() {
+        AtomicLong budget = new AtomicLong(Long.MAX_VALUE);
+        try (StringIdSpace idSpace = new StringIdSpace(budget)) {
+            idSpace.putIfAbsent("person-1", 1L);
+            assertEquals(StringIdSpace.INITIAL_PAGE_SIZE, Long.MAX_VALUE - budget.get());
+        }
+        assertEquals(Long.MAX_VALUE, budget.get());
+    }
+
+    @Test
+    public void stringIdSpaceGrowsAndKeepsTheMapping() {
+        assertStringIdSpace(new AtomicLong(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void stringIdSpaceSpillsToDiskWithoutBudget() {
+        AtomicLong budget = new AtomicLong(0);
+        assertStringIdSpace(budget);
+        assertEquals(0L, budget.get());
+    }
+
+    private void assertStringIdSpace(AtomicLong budget) {
+        try (StringIdSpace idSpace = new StringIdSpace(budget)) {
+            for (int i = 0; i < 200_000; i++) {
+                assertTrue(idSpace.putIfAbsent("person-" + i, i));
+            }
+            assertTrue(idSpace.putIfAbsent("Ünïcødé", 1_000_000L));
+            assertFalse(idSpace.putIfAbsent("person-5", 42L));
+
+            assertEquals(200_001L, idSpace.size());
+            assertEquals(5L, idSpace.get("person-5"));
+            assertEquals(199_999L, idSpace.get("person-199999"));
+            assertEquals(1_000_000L, idSpace.get("Ünïcødé"));
+            assertEquals(NOT_FOUND, idSpace.get("person-200000"));
+        }
+    }
+
+    @Test
+    public void idSpacesBySpaceName() {
+        try (IdMapping idMapping = new IdMapping(CsvLoaderConfig.from(Map.of()))) {
+            IdMapping.IdSpace persons = idMapping.idSpace("Person");
+            assertSame(persons, idMapping.idSpace("Person"));
+            assertNotSame(persons, idMapping.idSpace("Organisation"));
+            assertTrue(persons instanceof StringIdSpace);
+
+            persons.putIfAbsent("1", 10L);
+            assertEquals(NOT_FOUND, idMapping.idSpace("Organisation").get("1"));
+        }
+        try (IdMapping idMapping = new IdMapping(CsvLoaderConfig.from(Map.of("stringIds", false)))) {
+            assertTrue(idMapping.idSpace("Person") instanceof LongIdSpace);
+        }
+    }
+}
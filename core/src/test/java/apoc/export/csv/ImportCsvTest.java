@@ -662,6 +662,143 @@ public class ImportCsvTest {
         assertThat(pairs, Matchers.contains("Jane Neo4j", "John TU Munich"));
     }
 
+    @Test
+    public void testRelationshipWithIdMappingSpilledToDiskAndNumericIds() {
+        for (Map<String, Object> config : List.of(map("idMappingMaxMemory", 0), map("stringIds", false))) {
+            db.executeTransactionally("MATCH (n) DETACH DELETE n");
+            TestUtil.testCall(
+                    db,
+                    "CALL apoc.import.csv(" +
+                            "[" +
+                            "  {fileName: $personFile, labels: ['Person']}," +
+                            "  {fileName: $companyFile, labels: ['Company']}," +
+                            "  {fileName: $universityFile, labels: ['University']}" +
+                            "]," +
+                            "[" +
+                            "  {fileName: $relFile, type: 'AFFILIATED_WITH'}" +
+                            "]," +
+                            " $config)",
+                    map(
+                            "personFile", "file:/custom-ids-idspaces-persons.csv",
+                            "companyFile", "file:/custom-ids-idspaces-companies.csv",
+                            "universityFile", "file:/custom-ids-idspaces-unis.csv",
+                            "relFile", "file:/custom-ids-idspaces-affiliated-with.csv",
+                            "config", config
+                    ),
+                    (r) -> {
+                        assertEquals(4L, r.get("nodes"));
+                        assertEquals(2L, r.get("relationships"));
+                    }
+            );
+
+            List<String> pairs = TestUtil.firstColumn(db, "MATCH (p:Person)-[:AFFILIATED_WITH]->(org) RETURN p.name + ' ' + org.name AS pair ORDER BY pair");
+            assertThat(pairs, Matchers.contains("Jane Neo4j", "John TU Munich"));
+        }
+    }
+
+    @Test
+    public void testRelationshipsInParallel() {
+        TestUtil.testCall(db,
+                "CALL apoc.import.csv([{fileName: $nodeFile, labels: ['Person']}], [{fileName: $relFile, type: 'KNOWS'}], $config)",
+                map("nodeFile", "file:/nodesMultiTypes.csv",
+                        "relFile", "file:/relMultiTypes.csv",
+                        "config", map("delimiter", '|', "parallel", true, "concurrency", 4, "batchSize", 1)),
+                (r) -> {
+                    assertEquals(2L, r.get("nodes"));
+                    assertEquals(2L, r.get("relationships"));
+                }
+        );
+        TestUtil.testCall(db, "MATCH (start:Person)-[rel {foo: 1}]->(end:Person)-[relSecond {foo: 2}]->(start) RETURN rel, relSecond", r -> {
+            final RelationshipEntity rel = (RelationshipEntity) r.get("rel");
+            assertEquals(asList(LocalTime.of(11, 0, 0)), asList((LocalTime[]) rel.getProperty("bar")));
+            final RelationshipEntity relSecond = (RelationshipEntity) r.get("relSecond");
+            assertEquals(asList(LocalTime.of(12, 0, 0)), asList((LocalTime[]) relSecond.getProperty("bar")));
+        });
+    }
+
+    @Test
+    public void testRelationshipsInParallelWithMissingEndpoint() {
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () ->  db.executeTransactionally("CALL apoc.import.csv([{fileName: $nodeFile, labels: ['Person']}], [{fileName: $relFile, type: 'KNOWS'}], $config)",
+                        map("nodeFile", "file:/persons.csv",
+                                "relFile", "file:/knows.csv",
+                                "config", map("stringIds", false, "parallel", true)))
+        );
+        assertTrue(e.getMessage().contains("Node for id space __CSV_DEFAULT_IDSPACE and id 10 not found"));
+    }
+
+    @Test
+    public void testNodeFilesLoadedConcurrently() {
+        TestUtil.testCall(
+                db,
+                "CALL apoc.import.csv(" +
+                        "[" +
+                        "  {fileName: $personFile, labels: ['Person']}," +
+                        "  {fileName: $companyFile, labels: ['Company']}," +
+                        "  {fileName: $universityFile, labels: ['University']}" +
+                        "]," +
+                        "[" +
+                        "  {fileName: $relFile, type: 'AFFILIATED_WITH'}" +
+                        "]," +
+                        " {parallel: true, concurrency: 2})",
+                map(
+                        "personFile", "file:/custom-ids-idspaces-persons.csv",
+                        "companyFile", "file:/custom-ids-idspaces-companies.csv",
+                        "universityFile", "file:/custom-ids-idspaces-unis.csv",
+                        "relFile", "file:/custom-ids-idspaces-affiliated-with.csv"
+                ),
+                (r) -> {
+                    assertEquals(4L, r.get("nodes"));
+                    assertEquals(2L, r.get("relationships"));
+                }
+        );
+
+        List<String> pairs = TestUtil.firstColumn(db, "MATCH (p:Person)-[:AFFILIATED_WITH]->(org) RETURN p.name + ' ' + org.name AS pair ORDER BY pair");
+        assertThat(pairs, Matchers.contains("Jane Neo4j", "John TU Munich"));
+    }
+
+    @Test
+    public void testDuplicateNodesInFilesLoadedConcurrently() {
+        TestUtil.testCall(
+                db,
+                "CALL apoc.import.csv([{fileName: $file, labels: ['Person']}, {fileName: $file, labels: ['Person']}], [], $config)",
+                map(
+                        "file", "file:/persons.csv",
+                        "config", map("parallel", true, "ignoreDuplicateNodes", true)
+                ),
+                (r) -> assertEquals(2L, r.get("nodes"))
+        );
+        TestUtil.testCallCount(db, "MATCH (n:Person) RETURN n", 2);
+    }
+
+    @Test
+    public void testDuplicateNodesInTheSameBatchLoadedConcurrently() {
+        // the duplicates within a file and the ones across the files are in the same batch
+        TestUtil.testCall(
+                db,
+                "CALL apoc.import.csv([{fileName: $file, labels: ['Person']}, {fileName: $file, labels: ['Person']}], [], $config)",
+                map(
+                        "file", "file:/id-with-duplicates.csv",
+                        "config", map("delimiter", '|', "stringIds", false, "parallel", true, "ignoreDuplicateNodes", true)
+                ),
+                (r) -> assertEquals(1L, r.get("nodes"))
+        );
+        TestUtil.testCall(db, "MATCH (n:Person) RETURN n.id AS id, n.name AS name", row -> {
+            assertEquals(1L, row.get("id"));
+            assertEquals("John", row.get("name"));
+        });
+
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () -> db.executeTransactionally(
+                        "CALL apoc.import.csv([{fileName: $file, labels: ['Person']}], [], $config)",
+                        map(
+                                "file", "file:/id-with-duplicates.csv",
+                                "config", map("delimiter", '|', "stringIds", false, "parallel", true, "ignoreDuplicateNodes", false)
+                        ))
+        );
+        assertTrue(e.getMessage().contains("Duplicate node with id 1 found on line 2"));
+    }
+
     @Test
     public void ignoreFieldType() {
         final String query = "CALL apoc.import.csv([{fileName: $nodeFile, labels: ['Person']}], [{fileName: $relFile, type: 'KNOWS'}], $config)";
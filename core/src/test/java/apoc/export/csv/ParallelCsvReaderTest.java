@@ -0,0 +1,121 @@
+package apoc.export.csv;
+
+import org.junit.AfterClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelCsvReaderTest {
+    private static final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @AfterClass
+    public static void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testChunksAreSplitOutsideOfQuotes() throws IOException {
+        StringBuilder csv = new StringBuilder(":ID,name,bio\n");
+        for (int i = 0; i < 500; i++) {
+            csv.append(i).append(",\"Name, ").append(i).append("\",\"first line\r\nsecond \"\"line\"\" ").append(i).append("\"\n");
+            if (i % 50 == 0) csv.append("\n");
+        }
+        String data = csv.toString();
+        String rows = data.substring(data.indexOf('\n') + 1);
+
+        // chunks of a few bytes, so that most of them end within the quotes
+        assertEquals(readSequentially(rows, 0), readInParallel(data, 0, 7));
+        assertEquals(readSequentially(rows, 0), readInParallel(data, 0, 1024));
+    }
+
+    @Test
+    public void testSkipLinesAndRowNo() throws IOException {
+        File file = write("a|b\nskipped\r\n1|x\n2|y\n3|z", StandardCharsets.UTF_8);
+        try (ParallelCsvReader reader = new ParallelCsvReader(file, StandardCharsets.UTF_8, 1, '|', '"', converters(2), executor, 2, 2)) {
+            for (int i = 1; i <= 3; i++) {
+                assertTrue(reader.next());
+                assertEquals(i, reader.rowNo());
+                assertEquals(String.valueOf(i), reader.values()[0]);
+            }
+            assertEquals("[3, z]", reader.currentRow());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testChunksAreDecodedWithTheCharset() throws IOException {
+        Charset latin1 = StandardCharsets.ISO_8859_1;
+        File file = write("a,b\n1,caf\u00e9\n2,na\u00efve\n", latin1);
+        try (ParallelCsvReader reader = new ParallelCsvReader(file, latin1, 0, ',', '"', converters(2), executor, 2, 2)) {
+            assertTrue(reader.next());
+            assertEquals("caf\u00e9", reader.values()[1]);
+            assertTrue(reader.next());
+            assertEquals("na\u00efve", reader.values()[1]);
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testIsSupported() {
+        assertTrue(ParallelCsvReader.isSupported(StandardCharsets.UTF_8, ',', '"'));
+        assertTrue(ParallelCsvReader.isSupported(StandardCharsets.ISO_8859_1, ',', '"'));
+        assertTrue(ParallelCsvReader.isSupported(Charset.forName("windows-1252"), ';', '\''));
+        // the delimiter is not a single byte, or the bytes of a character can be the ones of the delimiter
+        assertFalse(ParallelCsvReader.isSupported(StandardCharsets.UTF_8, '\u00a7', '"'));
+        assertFalse(ParallelCsvReader.isSupported(StandardCharsets.UTF_16, ',', '"'));
+        assertFalse(ParallelCsvReader.isSupported(Charset.forName("Shift_JIS"), ',', '"'));
+    }
+
+    private List<List<Object>> readInParallel(String data, int skipLines, int chunkSize) throws IOException {
+        List<List<Object>> rows = new ArrayList<>();
+        try (ParallelCsvReader reader = new ParallelCsvReader(write(data, StandardCharsets.UTF_8), StandardCharsets.UTF_8, skipLines, ',', '"', converters(3), executor, 4, chunkSize)) {
+            while (reader.next()) {
+                rows.add(Arrays.asList(reader.values()));
+            }
+        }
+        return rows;
+    }
+
+    private static List<List<Object>> readSequentially(String data, int skipLines) throws IOException {
+        List<List<Object>> rows = new ArrayList<>();
+        CsvRowParser parser = new CsvRowParser(new StringReader(data), ',', '"');
+        parser.skipLines(skipLines);
+        try (CsvRowSource source = CsvRowSource.sequential(parser, converters(3))) {
+            while (source.next()) {
+                rows.add(Arrays.asList(source.values().clone()));
+            }
+        }
+        return rows;
+    }
+
+    private static CsvColumnConverter[] converters(int columns) {
+        CsvColumnConverter[] converters = new CsvColumnConverter[columns];
+        Arrays.fill(converters, (CsvColumnConverter) String::new);
+        return converters;
+    }
+
+    private File write(String data, Charset charset) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), data.getBytes(charset));
+        return file;
+    }
+}
@@ -4,8 +4,10 @@ import apoc.graph.Graphs;
 import apoc.util.BinaryTestUtil;
 import apoc.util.CompressionAlgo;
 import apoc.util.FileTestUtil;
+import apoc.util.JsonUtil;
 import apoc.util.TestUtil;
 import apoc.util.Util;
+import apoc.util.collection.Iterators;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -17,18 +19,24 @@ import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static apoc.ApocConfig.APOC_EXPORT_FILE_ENABLED;
 import static apoc.ApocConfig.APOC_IMPORT_FILE_ENABLED;
 import static apoc.ApocConfig.apocConfig;
 import static apoc.util.BinaryTestUtil.getDecompressedData;
 import static apoc.util.CompressionAlgo.DEFLATE;
+import static apoc.util.CompressionAlgo.FRAMED_LZ4;
 import static apoc.util.CompressionAlgo.FRAMED_SNAPPY;
 import static apoc.util.CompressionAlgo.NONE;
+import static apoc.util.CompressionAlgo.ZSTD;
 import static apoc.util.CompressionConfig.COMPRESSION;
 import static apoc.util.MapUtil.map;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -87,6 +95,42 @@ public class ExportJsonTest {
         assertFileEquals(filename);
     }
 
+    @Test
+    public void testExportAllJsonInParallel() throws IOException {
+        String filename = "parallel.json";
+        TestUtil.testCall(db, "CALL apoc.export.json.all($file, {parallel: 3})",
+                map("file", filename),
+                (r) -> assertResults(filename, r, "database")
+        );
+
+        final Map<String, Object> manifest = JsonUtil.OBJECT_MAPPER.readValue(new File(directory, "parallel.manifest.json"), Map.class);
+        assertEquals("json", manifest.get("format"));
+        final List<Map<String, Object>> shards = (List<Map<String, Object>>) manifest.get("shards");
+        assertEquals(List.of("parallel.part-00000.json", "parallel.part-00001.json", "parallel.part-00002.json"),
+                shards.stream().map(shard -> shard.get("file")).collect(Collectors.toList()));
+
+        // all the shards together have the lines of the single file export
+        final List<Map<String, Object>> expected = readJsonLines(new File(directoryExpected, "all.json"));
+        final List<Map<String, Object>> actual = new ArrayList<>();
+        for (Map<String, Object> shard : shards) {
+            final List<Map<String, Object>> lines = readJsonLines(new File(directory, (String) shard.get("file")));
+            assertEquals(((Number) shard.get("nodes")).longValue() + ((Number) shard.get("relationships")).longValue(), lines.size());
+            actual.addAll(lines);
+        }
+        assertEquals(Set.copyOf(expected), Set.copyOf(actual));
+        assertEquals(expected.size(), actual.size());
+    }
+
+    private List<Map<String, Object>> readJsonLines(File file) throws IOException {
+        final List<Map<String, Object>> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath(), UTF_8)) {
+            if (!line.isBlank()) {
+                lines.add(JsonUtil.OBJECT_MAPPER.readValue(line, Map.class));
+            }
+        }
+        return lines;
+    }
+
     @Test
     public void testJsonRoundtrip() {
         db.executeTransactionally("CREATE CONSTRAINT FOR (n:User) REQUIRE n.neo4jImportId IS UNIQUE;");
@@ -123,6 +167,29 @@ public class ExportJsonTest {
 
     }
 
+    @Test
+    public void testJsonRoundtripZstdAndFramedLz4() {
+        db.executeTransactionally("CREATE CONSTRAINT FOR (n:User) REQUIRE n.neo4jImportId IS UNIQUE;");
+        for (Map.Entry<CompressionAlgo, String> entry : Map.of(ZSTD, "all.json.zst", FRAMED_LZ4, "all.json.lz4").entrySet()) {
+            String filename = entry.getValue();
+            TestUtil.testCall(db, "CALL apoc.export.json.all($file, $config)",
+                    map("file", filename, "config", map(COMPRESSION, entry.getKey().name())),
+                    (r) -> assertResults(filename, r, "database"));
+            final Set<String> expected = Set.of("Adam", "Jim", "");
+
+            // with the compression of the config, then detected from the extension of the file
+            for (Map<String, Object> config : List.of(map(COMPRESSION, entry.getKey().name()), Map.<String, Object>of())) {
+                db.executeTransactionally("MATCH (n) DETACH DELETE n");
+                TestUtil.testCall(db, "CALL apoc.import.json($file, $config)", map("file", filename, "config", config), r -> {
+                    assertEquals(filename, 3L, r.get("nodes"));
+                    assertEquals(filename, 1L, r.get("relationships"));
+                });
+                TestUtil.testResult(db, "MATCH (n:User) RETURN coalesce(n.name, '') AS name",
+                        r -> assertEquals(filename, expected, Iterators.asSet(r.columnAs("name"))));
+            }
+        }
+    }
+
     @Test
     public void testExportAllJsonArray() {
         String filename = "all_array.json";
@@ -0,0 +1,220 @@
+package apoc.export.parquet;
+
+import apoc.graph.Graphs;
+import apoc.load.LoadParquet;
+import apoc.meta.Meta;
+import apoc.util.TestUtil;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.graphdb.Result;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static apoc.ApocConfig.APOC_EXPORT_FILE_ENABLED;
+import static apoc.ApocConfig.APOC_IMPORT_FILE_ENABLED;
+import static apoc.ApocConfig.apocConfig;
+import static apoc.export.arrow.ArrowTest.EXPECTED;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParquetTest {
+
+    private static File directory = new File("target/parquet import");
+    static { //noinspection ResultOfMethodCallIgnored
+        directory.mkdirs();
+    }
+
+    @ClassRule
+    public static DbmsRule db = new ImpermanentDbmsRule()
+            .withSetting(GraphDatabaseSettings.load_csv_file_url_root, directory.toPath().toAbsolutePath());
+
+    @BeforeClass
+    public static void beforeClass() {
+        db.executeTransactionally("CREATE (f:User {name:'Adam',age:42,male:true,kids:['Sam','Anna','Grace'], born:localdatetime('2015-05-18T19:32:24.000'), place:point({latitude: 13.1, longitude: 33.46789, height: 100.0})})-[:KNOWS {since: 1993, bffSince: duration('P5M1.5D')}]->(b:User {name:'Jim',age:42})");
+        TestUtil.registerProcedure(db, ExportParquet.class, ImportParquet.class, LoadParquet.class, Graphs.class, Meta.class);
+        apocConfig().setProperty(APOC_IMPORT_FILE_ENABLED, true);
+        apocConfig().setProperty(APOC_EXPORT_FILE_ENABLED, true);
+    }
+
+    private String extractFileName(Result result) {
+        return result.<String>columnAs("file").next();
+    }
+
+    private List<Map<String, Object>> getActual(Result result) {
+        return result.stream()
+                .map(m -> (Map<String, Object>) m.get("value"))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testFileRoundtripParquetAll() {
+        // given - when
+        String file = db.executeTransactionally("CALL apoc.export.parquet.all('all_test.parquet') YIELD file",
+                Map.of(),
+                this::extractFileName);
+
+        // then
+        final String query = "CALL apoc.load.parquet($file) YIELD value " +
+                "RETURN value";
+        db.executeTransactionally(query, Map.of("file", file), result -> {
+            final List<Map<String, Object>> actual = getActual(result);
+            assertEquals(EXPECTED, actual);
+            return null;
+        });
+    }
+
+    @Test
+    public void testFileRoundtripParquetGraph() {
+        // given - when
+        String file = db.executeTransactionally("CALL apoc.graph.fromDB('neo4j',{}) yield graph " +
+                        "CALL apoc.export.parquet.graph('graph_test.parquet', graph, {compression: 'GZIP'}) YIELD file " +
+                        "RETURN file",
+                Map.of(),
+                this::extractFileName);
+
+        // then
+        final String query = "CALL apoc.load.parquet($file) YIELD value " +
+                "RETURN value";
+        db.executeTransactionally(query, Map.of("file", file), result -> {
+            final List<Map<String, Object>> actual = getActual(result);
+            assertEquals(EXPECTED, actual);
+            return null;
+        });
+    }
+
+    @Test
+    public void testFileRoundtripParquetQueryWithTypesChangingAfterFirstBatch() {
+        // given - when
+        final String returnQuery = "UNWIND [{id: 1, map: {a: 1}, list: [1, 2]}, {id: 'two', map: {a: 'x', b: true}, list: ['a']}] AS row " +
+                "RETURN row.id AS id, row.map AS map, row.list AS list";
+        String file = db.executeTransactionally("CALL apoc.export.parquet.query('query_changing_test.parquet', $query, {batchSize: 1}) YIELD file",
+                Map.of("query", returnQuery),
+                this::extractFileName);
+
+        // then
+        final String query = "CALL apoc.load.parquet($file) YIELD value " +
+                "RETURN value";
+        db.executeTransactionally(query, Map.of("file", file), result -> {
+            final List<Map<String, Object>> actual = getActual(result);
+            assertEquals(2, actual.size());
+            assertEquals(Map.of("id", 1L, "map", Map.of("a", 1L), "list", List.of(1L, 2L)), actual.get(0));
+            // typed from the first batch, the values that don't fit are kept as json
+            assertEquals(Map.of("id", "two", "map", Map.of("a", "x", "b", true), "list", List.of("a")), actual.get(1));
+            return null;
+        });
+    }
+
+    @Test
+    public void testFileVolumeParquetQueryWithFilter() {
+        // given - when
+        db.executeTransactionally("UNWIND range(0, 10000 - 1) AS id CREATE (:ParquetNode{id:id, name:'name' + id})");
+
+        // small row groups, most of them skipped by their statistics
+        String file = db.executeTransactionally("CALL apoc.export.parquet.query('volume_test.parquet', 'MATCH (n:ParquetNode) RETURN n.id AS id, n.name AS name ORDER BY id', {batchSize: 500, rowGroupSize: 4096, compression: 'UNCOMPRESSED'}) YIELD file ",
+                Map.of(),
+                this::extractFileName);
+
+        try {
+            // then
+            final List<Long> expected = LongStream.range(9000, 9500)
+                    .mapToObj(l -> l)
+                    .collect(Collectors.toList());
+            final String query = "CALL apoc.load.parquet($file, {filter: {id: {gte: 9000, lt: 9500}}, columns: ['id']}) YIELD value " +
+                    "RETURN value";
+            db.executeTransactionally(query, Map.of("file", file), result -> {
+                final List<Map<String, Object>> actual = getActual(result);
+                assertEquals(expected, actual.stream().map(row -> (Long) row.get("id")).collect(Collectors.toList()));
+                assertTrue(actual.stream().noneMatch(row -> row.containsKey("name")));
+                return null;
+            });
+
+            final long count = db.executeTransactionally("CALL apoc.load.parquet($file, {filter: {name: 'name42'}}) YIELD value RETURN count(*) AS count",
+                    Map.of("file", file),
+                    result -> result.<Long>columnAs("count").next());
+            assertEquals(1L, count);
+        } finally {
+            db.executeTransactionally("MATCH (n:ParquetNode) DELETE n");
+        }
+    }
+
+    @Test
+    public void testFileParquetInvalidCompression() {
+        try {
+            db.executeTransactionally("CALL apoc.export.parquet.all('invalid_test.parquet', {compression: 'foo'})");
+            fail("Should fail because of the invalid compression");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("`compression` must be one of"));
+        }
+    }
+
+    @Test
+    public void testFileImportParquetAll() {
+        // given
+        final List<Long> ids = db.executeTransactionally("MATCH (n:User) RETURN collect(id(n)) AS ids", Map.of(),
+                result -> result.<List<Long>>columnAs("ids").next());
+        String file = db.executeTransactionally("CALL apoc.export.parquet.all('import_test.parquet', {compression: 'ZSTD'}) YIELD file",
+                Map.of(),
+                this::extractFileName);
+
+        try {
+            // when
+            db.executeTransactionally("CALL apoc.import.parquet($file, {batchSize: 1})", Map.of("file", file), result -> {
+                final Map<String, Object> row = result.next();
+                assertEquals(2L, row.get("nodes"));
+                assertEquals(1L, row.get("relationships"));
+                return null;
+            });
+
+            // then
+            final String query = "MATCH (a:User)-[r:KNOWS]->(b:User) WHERE NOT id(a) IN $ids " +
+                    "RETURN a.name AS source, a.kids AS kids, a.place AS place, a.born AS born, r.since AS since, r.bffSince AS bffSince, b.name AS target";
+            db.executeTransactionally(query, Map.of("ids", ids), result -> {
+                final Map<String, Object> row = result.next();
+                assertEquals("Adam", row.get("source"));
+                assertEquals("Jim", row.get("target"));
+                assertArrayEquals(new String[] { "Sam", "Anna", "Grace" }, (String[]) row.get("kids"));
+                assertEquals(EXPECTED.get(0).get("place"), row.get("place"));
+                assertEquals(EXPECTED.get(0).get("born"), row.get("born"));
+                assertEquals(1993L, row.get("since"));
+                assertEquals(EXPECTED.get(2).get("bffSince"), row.get("bffSince"));
+                assertFalse(result.hasNext());
+                return null;
+            });
+        } finally {
+            db.executeTransactionally("MATCH (n:User) WHERE NOT id(n) IN $ids DETACH DELETE n", Map.of("ids", ids));
+        }
+    }
+
+    @Test
+    public void testFileImportParquetDuplicateNodes() {
+        String file = db.executeTransactionally("CALL apoc.export.parquet.query('import_duplicates.parquet', $query) YIELD file",
+                Map.of("query", "UNWIND ['first', 'second'] AS name RETURN 1 AS _id, name"),
+                this::extractFileName);
+        try {
+            QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                    () -> db.executeTransactionally("CALL apoc.import.parquet($file)", Map.of("file", file)));
+            assertTrue(e.getMessage(), e.getMessage().contains("Duplicate node with id 1 found"));
+
+            db.executeTransactionally("CALL apoc.import.parquet($file, {ignoreDuplicateNodes: true})", Map.of("file", file),
+                    result -> assertEquals(1L, result.next().get("nodes")));
+            // the duplicate is skipped
+            assertEquals(0L, db.executeTransactionally("MATCH (n {name: 'second'}) RETURN count(n) AS count",
+                    Map.of(), result -> result.columnAs("count").next()));
+        } finally {
+            db.executeTransactionally("MATCH (n) WHERE n.name IN ['first', 'second'] DELETE n");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package apoc.periodic;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveBatchSizeTest {
+
+    @Test
+    public void fixedBatchSizeNeverChanges() {
+        AdaptiveBatchSize sizer = AdaptiveBatchSize.fromConfig(Map.of(), 100);
+        assertFalse(sizer.isAdaptive());
+        sizer.onBatchCompleted(100, TimeUnit.SECONDS.toNanos(10), 3, true);
+        assertEquals(100, sizer.next());
+    }
+
+    @Test
+    public void shrinkOnFailuresAndRetries() {
+        AdaptiveBatchSize sizer = new AdaptiveBatchSize(1000, 10, 10000, 1000);
+        sizer.onBatchCompleted(1000, TimeUnit.MILLISECONDS.toNanos(10), 0, true);
+        assertEquals(500, sizer.next());
+        sizer.onBatchCompleted(500, TimeUnit.MILLISECONDS.toNanos(10), 2, false);
+        assertEquals(250, sizer.next());
+    }
+
+    @Test
+    public void growWhenCommitsAreFast() {
+        AdaptiveBatchSize sizer = new AdaptiveBatchSize(1000, 10, 10000, 1000);
+        // 1000 rows in 100ms -> 10000 rows would fit the target, but we grow at most twofold per batch
+        sizer.onBatchCompleted(1000, TimeUnit.MILLISECONDS.toNanos(100), 0, false);
+        assertEquals(2000, sizer.next());
+        sizer.onBatchCompleted(2000, TimeUnit.MILLISECONDS.toNanos(200), 0, false);
+        assertEquals(4000, sizer.next());
+    }
+
+    @Test
+    public void shrinkWhenCommitsAreSlowWithinBounds() {
+        AdaptiveBatchSize sizer = new AdaptiveBatchSize(1000, 400, 10000, 1000);
+        sizer.onBatchCompleted(1000, TimeUnit.SECONDS.toNanos(10), 0, false);
+        assertEquals(500, sizer.next());
+        sizer.onBatchCompleted(500, TimeUnit.SECONDS.toNanos(5), 0, false);
+        assertEquals(400, sizer.next());
+    }
+
+    @Test
+    public void adaptiveConfig() {
+        AdaptiveBatchSize sizer = AdaptiveBatchSize.fromConfig(Map.of("adaptiveBatchSize", true, "minBatchSize", 5, "maxBatchSize", 50), 100);
+        assertTrue(sizer.isAdaptive());
+        assertEquals(50, sizer.next());
+    }
+
+    @Test
+    public void invalidConfig() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> AdaptiveBatchSize.fromConfig(Map.of("adaptiveBatchSize", true, "minBatchSize", 50, "maxBatchSize", 5), 100));
+        assertEquals("maxBatchSize parameter must be >= minBatchSize", e.getMessage());
+    }
+}
@@ -0,0 +1,75 @@
+package apoc.periodic;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CoalescingTaskTest {
+
+    @Test
+    public void skipDropsTheTicksWhileRunning() throws Exception {
+        assertRuns(CoalescingTask.Overlap.SKIP, 1);
+    }
+
+    @Test
+    public void coalesceMergesTheTicksWhileRunningIntoOneRun() throws Exception {
+        assertRuns(CoalescingTask.Overlap.COALESCE, 2);
+    }
+
+    private void assertRuns(CoalescingTask.Overlap overlap, int expectedRuns) throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        JobStatistics statistics = new JobStatistics("test", JobStatistics.Type.REPEAT, -1);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CoalescingTask task = new CoalescingTask(() -> {
+            if (runs.incrementAndGet() == 1) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, executor, overlap, statistics);
+
+        task.run();
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        // ticks due while the first run is still going
+        task.run();
+        task.run();
+        task.run();
+        release.countDown();
+
+        for (int i = 0; i < 100 && runs.get() < expectedRuns; i++) {
+            Thread.sleep(50);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(expectedRuns, runs.get());
+        assertEquals(3L, statistics.toResult().skipped);
+    }
+
+    @Test
+    public void failingRunCancelsTheTicks() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CoalescingTask task = new CoalescingTask(() -> {
+            throw new RuntimeException("boom");
+        }, executor, CoalescingTask.Overlap.SKIP, new JobStatistics("test", JobStatistics.Type.REPEAT, -1));
+        CompletableFuture<Void> ticks = new CompletableFuture<>();
+        task.setFuture(ticks);
+
+        task.run();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(ticks.isCancelled());
+    }
+}
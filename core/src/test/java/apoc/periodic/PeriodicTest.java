@@ -4,12 +4,16 @@ import apoc.cypher.Cypher;
 import apoc.schema.Schemas;
 import apoc.util.MapUtil;
 import apoc.util.TestUtil;
+import apoc.util.Util;
 import apoc.util.collection.Iterators;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.neo4j.common.DependencyResolver;
+import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.QueryExecutionException;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
@@ -23,11 +27,14 @@ import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
@@ -448,6 +455,110 @@ public class PeriodicTest {
         );
     }
 
+    @Test
+    public void testIterateWithAdaptiveBatchSize() {
+        testResult(db, "CALL apoc.periodic.iterate('UNWIND range(1, 1000) AS x RETURN x', 'CREATE (:Adaptive {x: x})', " +
+                "{batchSize:10, adaptiveBatchSize:true, minBatchSize:5, maxBatchSize:200, parallel:true})", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(1000L, row.get("total"));
+            assertEquals(0L, row.get("failedBatches"));
+        });
+
+        testCall(db,
+                "MATCH (n:Adaptive) RETURN count(n) AS count",
+                row -> assertEquals(1000L, row.get("count"))
+        );
+    }
+
+    @Test
+    public void testIteratePartitionBy() {
+        db.executeTransactionally("UNWIND range(1, 5) AS x CREATE (:Hub {id: x})");
+
+        testResult(db, "CALL apoc.periodic.iterate('UNWIND range(1, 1000) AS x MATCH (h:Hub {id: x % 5 + 1}) RETURN h, x', " +
+                "'CREATE (h)-[:HAS]->(:Leaf {x: x})', " +
+                "{batchSize:10, parallel:true, concurrency:4, partitionBy:'h'})", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(1000L, row.get("total"));
+            assertEquals(0L, row.get("failedBatches"));
+            assertEquals(0L, row.get("retries"));
+        });
+
+        testCall(db,
+                "MATCH (:Hub)-[:HAS]->(l:Leaf) RETURN count(l) AS count",
+                row -> assertEquals(1000L, row.get("count"))
+        );
+    }
+
+    @Test
+    public void testIteratePartitionByNotExistingColumn() {
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () -> testCall(db, "CALL apoc.periodic.iterate('UNWIND range(1, 10) AS x RETURN x', 'RETURN x', {parallel:true, partitionBy:'y'})",
+                        row -> fail("The test should fail but it didn't"))
+        );
+        assertTrue(e.getMessage().contains("partitionBy parameter must be one of the columns returned by the cypherIterate statement"));
+    }
+
+    @Test
+    public void testIterateCheckpointAndResume() {
+        // the same statement for the first run and the resumed one, with no checkpoint to skip to on the first run
+        String resumable = "UNWIND range(1, 100) AS x WITH x WHERE $_checkpoint IS NULL OR x > $_checkpoint RETURN x";
+        // the batch of the rows 21 to 30 fails as long as there is a :FailOnce node
+        String action = "MERGE (:Resumed {x: x}) WITH x WHERE x = 27 AND EXISTS { MATCH (:FailOnce) } RETURN x / 0 AS boom";
+        db.executeTransactionally("CREATE (:FailOnce)");
+
+        testResult(db, "CALL apoc.periodic.iterate($iterate, $action, {batchSize:10, checkpoint:'resume-test'})",
+                map("iterate", resumable, "action", action), result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(100L, row.get("total"));
+            assertEquals(1L, row.get("failedBatches"));
+        });
+        testCall(db, "MATCH (n:Resumed) WHERE 21 <= n.x <= 30 RETURN count(n) AS count",
+                row -> assertEquals(0L, row.get("count")));
+
+        // the watermark stopped before the failed batch, so the resumed run starts over from the row 21
+        db.executeTransactionally("MATCH (n:FailOnce) DELETE n");
+        testResult(db, "CALL apoc.periodic.iterate($iterate, $action, {batchSize:10, resumeFrom:'resume-test'})",
+                map("iterate", resumable, "action", action), result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(80L, row.get("total"));
+            assertEquals(8L, row.get("batches"));
+            assertEquals(0L, row.get("failedBatches"));
+        });
+
+        // everything has been processed, nothing left to resume
+        testResult(db, "CALL apoc.periodic.iterate($iterate, $action, {batchSize:10, resumeFrom:'resume-test'})",
+                map("iterate", resumable, "action", action), result -> assertEquals(0L, Iterators.single(result).get("total")));
+
+        testCall(db,
+                "MATCH (n:Resumed) RETURN count(n) AS count, count(DISTINCT n.x) AS distinct",
+                row -> {
+                    assertEquals(100L, row.get("count"));
+                    assertEquals(100L, row.get("distinct"));
+                }
+        );
+    }
+
+    @Test
+    public void testIterateCheckpointErrors() {
+        // the checkpoint would silently start over
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () -> testCall(db, "CALL apoc.periodic.iterate('UNWIND range(1, 10) AS x RETURN x', 'RETURN x', {resumeFrom:'not-existing'})",
+                        row -> fail("The test should fail but it didn't")));
+        assertTrue(e.getMessage().contains("There is no checkpoint not-existing to resume from"));
+
+        // the column to compare to the checkpoint cannot be guessed
+        e = assertThrows(QueryExecutionException.class,
+                () -> testCall(db, "CALL apoc.periodic.iterate('UNWIND range(1, 10) AS x RETURN x, x * 2 AS y', 'RETURN x', {checkpoint:'two-columns'})",
+                        row -> fail("The test should fail but it didn't")));
+        assertTrue(e.getMessage().contains("checkpointColumn parameter is required when the cypherIterate statement returns more than one column"));
+
+        // nor can a map be compared to it
+        e = assertThrows(QueryExecutionException.class,
+                () -> testCall(db, "CALL apoc.periodic.iterate('UNWIND range(1, 10) AS x RETURN {x: x} AS m', 'RETURN m', {checkpoint:'map-column'})",
+                        row -> fail("The test should fail but it didn't")));
+        assertTrue(e.getMessage().contains("checkpointColumn parameter must be a column of numbers or strings"));
+    }
+
     @Test
     public void testIterateWithReportingFailed() {
         testResult(db, "CALL apoc.periodic.iterate('UNWIND range(-5, 5) AS x RETURN x', 'return sum(1000/x)', {batchSize:3, failedParams:9999})", result -> {
@@ -535,6 +646,150 @@ public class PeriodicTest {
         );
     }
 
+    @Test
+    public void testIterateStatsWhileItRuns() throws Exception {
+        db.executeTransactionally("CREATE (:Blocker)");
+        final String query = "CALL apoc.periodic.iterate('UNWIND range(1, 100) AS x RETURN x', " +
+                "'CREATE (:Iterated {x: x}) WITH x WHERE x > 50 MATCH (b:Blocker) SET b.last = x', " +
+                "{batchSize: 10, parallel: false, expectedTotal: 100})";
+        final String stats = "CALL apoc.periodic.stats() YIELD type, rows, batches, failedBatches, rowsPerSecond, estimatedRemaining, batchLatency " +
+                "WHERE type = 'iterate' RETURN *";
+
+        // the sixth batch waits on the lock of the blocker, while the first five are done
+        try (Transaction locking = db.beginTx()) {
+            locking.findNodes(Label.label("Blocker")).next().setProperty("locked", true);
+            CompletableFuture<Map<String, Object>> iterate = CompletableFuture.supplyAsync(
+                    () -> db.executeTransactionally(query, Collections.emptyMap(), result -> Iterators.single(result)));
+
+            Map<String, Object> row = null;
+            for (int i = 0; i < 100 && (row == null || (long) row.get("batches") < 5); i++) {
+                Thread.sleep(100);
+                row = db.executeTransactionally(stats, Collections.emptyMap(), result -> result.hasNext() ? result.next() : null);
+            }
+            assertNotNull(row);
+            assertEquals(50L, row.get("rows"));
+            assertEquals(5L, row.get("batches"));
+            assertEquals(0L, row.get("failedBatches"));
+            final double rate = (double) row.get("rowsPerSecond");
+            assertTrue(String.valueOf(rate), rate > 0);
+            // the 50 rows left of the expected total, at the current rate
+            final long remaining = (long) row.get("estimatedRemaining");
+            assertEquals((long) (50 / rate), remaining, 1);
+            final Map<String, Object> latency = (Map<String, Object>) row.get("batchLatency");
+            for (String key : List.of("min", "p50", "p90", "p99", "max")) {
+                assertTrue(key, (double) latency.get(key) >= 0);
+            }
+            assertTrue((double) latency.get("p50") <= (double) latency.get("max"));
+            assertFalse(iterate.isDone());
+
+            locking.rollback();
+            Map<String, Object> result = iterate.get(1, TimeUnit.MINUTES);
+            assertEquals(100L, result.get("total"));
+            assertEquals(0L, result.get("failedBatches"));
+        }
+        testResult(db, "CALL apoc.periodic.stats() YIELD type WHERE type = 'iterate' RETURN type",
+                result -> assertFalse(result.hasNext()));
+    }
+
+    @Test
+    public void testRepeatStats() throws Exception {
+        db.executeTransactionally("CALL apoc.periodic.repeat('repeat-stats', 'CREATE (:RepeatStats)', 1)");
+
+        long count = tryReadCount(50, "MATCH (n:RepeatStats) RETURN count(n) AS count", 1L);
+        assertEquals(1L, count);
+
+        testCall(db, "CALL apoc.periodic.stats() YIELD name, type, batches, failedBatches, batchLatency WHERE name = 'repeat-stats' RETURN *", row -> {
+            assertEquals("repeat", row.get("type"));
+            assertTrue((long) row.get("batches") >= 1L);
+            assertEquals(0L, row.get("failedBatches"));
+            Map<String, Object> latency = (Map<String, Object>) row.get("batchLatency");
+            assertTrue(latency.containsKey("p99"));
+        });
+
+        db.executeTransactionally("CALL apoc.periodic.cancel('repeat-stats')");
+        testResult(db, "CALL apoc.periodic.stats() YIELD name WHERE name = 'repeat-stats' RETURN name",
+                result -> assertFalse(result.hasNext()));
+    }
+
+    @Test
+    public void testRepeatWithOverlapAndJitter() throws Exception {
+        testCall(db, "CALL apoc.periodic.repeat('repeat-overlap', 'CREATE (:RepeatOverlap)', 1, {overlap: 'coalesce', jitter: 1})", row -> {
+            assertEquals(1L, row.get("rate"));
+            assertTrue((long) row.get("delay") <= 1L);
+        });
+
+        long count = tryReadCount(50, "MATCH (n:RepeatOverlap) RETURN count(n) AS count", 1L);
+        assertEquals(1L, count);
+
+        testCall(db, "CALL apoc.periodic.stats() YIELD name, type, skipped WHERE name = 'repeat-overlap' RETURN *",
+                row -> assertEquals("repeat", row.get("type")));
+        db.executeTransactionally("CALL apoc.periodic.cancel('repeat-overlap')");
+    }
+
+    @Test
+    public void testFailingRepeatIsRemovedFromStats() throws Exception {
+        db.executeTransactionally("CALL apoc.periodic.repeat('repeat-failing', 'RETURN 1 / 0', 1)");
+        db.executeTransactionally("CALL apoc.periodic.repeat('repeat-failing-overlap', 'RETURN 1 / 0', 1, {overlap: 'coalesce'})");
+
+        boolean removed = false;
+        for (int i = 0; i < 50 && !removed; i++) {
+            Thread.sleep(100);
+            removed = db.executeTransactionally("CALL apoc.periodic.stats() YIELD name WHERE name STARTS WITH 'repeat-failing' RETURN name",
+                    Map.of(), result -> !result.hasNext());
+        }
+        assertTrue(removed);
+    }
+
+    @Test
+    public void testRepeatWithWrongOverlap() {
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () -> db.executeTransactionally("CALL apoc.periodic.repeat('repeat-wrong', 'RETURN 1', 1, {overlap: 'queue'})"));
+        assertTrue(e.getMessage().contains("overlap parameter must be one of 'skip' or 'coalesce'"));
+    }
+
+    @Test
+    public void testPoolsResizeAndDatabaseQuota() {
+        Map<String, Object> before = TestUtil.singleResultFirstColumn(db,
+                "CALL apoc.periodic.pools.stats() YIELD name, corePoolSize, maxPoolSize, queueCapacity WHERE name = 'default' " +
+                "RETURN {corePoolSize: corePoolSize, maxPoolSize: maxPoolSize, queueSize: queueCapacity}");
+
+        try {
+            testCall(db, "CALL apoc.periodic.pools.resize({corePoolSize: 1, maxPoolSize: 3, queueSize: 7, databaseQuota: 2}) YIELD name, corePoolSize, maxPoolSize, queueCapacity " +
+                    "WHERE name = 'default' RETURN *", row -> {
+                assertEquals(1L, row.get("corePoolSize"));
+                assertEquals(3L, row.get("maxPoolSize"));
+                assertEquals(7L, row.get("queueCapacity"));
+            });
+
+            testResult(db, "CALL apoc.periodic.iterate('UNWIND range(1, 100) AS x RETURN x', 'CREATE (:Quota {x: x})', {batchSize: 5, parallel: true})",
+                    result -> assertEquals(100L, Iterators.single(result).get("total")));
+            assertEquals(100L, (long) TestUtil.singleResultFirstColumn(db, "MATCH (n:Quota) RETURN count(n)"));
+
+            testCall(db, "CALL apoc.periodic.pools.stats() YIELD name, type, maxPoolSize, completedTasks " +
+                    "WHERE name = 'default@neo4j' RETURN *", row -> {
+                assertEquals("quota", row.get("type"));
+                assertEquals(2L, row.get("maxPoolSize"));
+                assertTrue((long) row.get("completedTasks") > 0L);
+            });
+        } finally {
+            db.executeTransactionally("CALL apoc.periodic.pools.resize($config)",
+                    Map.of("config", Util.merge(before, Map.of("databaseQuota", 0))));
+        }
+
+        testResult(db, "CALL apoc.periodic.pools.stats() YIELD name WHERE name STARTS WITH 'default@' RETURN name",
+                result -> assertFalse(result.hasNext()));
+    }
+
+    @Test(expected = QueryExecutionException.class)
+    public void testPoolsResizeWithWrongSizes() {
+        try {
+            db.executeTransactionally("CALL apoc.periodic.pools.resize({corePoolSize: 10, maxPoolSize: 5})");
+        } catch (QueryExecutionException e) {
+            assertTrue(e.getMessage().contains("maxPoolSize parameter must be > 0 and >= corePoolSize"));
+            throw e;
+        }
+    }
+
     private long tryReadCount(int maxAttempts, String statement, long expected) throws InterruptedException {
         int attempts = 0;
         long count;
@@ -617,6 +872,36 @@ public class PeriodicTest {
         assertCountEntitiesAndIndexes(0, 0, 0,0);
     }
 
+    @Test
+    public void testTruncateInParallelBatches() {
+        createDatasetForTruncate();
+
+        TestUtil.testCallEmpty(db, "CALL apoc.periodic.truncate({batchSize: 50, concurrency: 4})", Collections.emptyMap());
+        assertCountEntitiesAndIndexes(0, 0, 4,2);
+    }
+
+    @Test
+    public void testTruncateFailsWhenARangeCannotBeDeleted() {
+        db.executeTransactionally("UNWIND range(1, 100) AS id CREATE (:Truncated {id: id})");
+        db.getDependencyResolver().resolveDependency(Config.class)
+                .setDynamic(GraphDatabaseSettings.lock_acquisition_timeout, Duration.ofSeconds(1), "PeriodicTest");
+
+        // the node is locked by another transaction during the whole truncate
+        try (Transaction locking = db.beginTx()) {
+            locking.findNode(Label.label("Truncated"), "id", 42L).setProperty("locked", true);
+            QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                    () -> TestUtil.testCallEmpty(db, "CALL apoc.periodic.truncate({batchSize: 10, concurrency: 4})", Collections.emptyMap()));
+            assertTrue(e.getMessage(), e.getMessage().contains("apoc.periodic.truncate could not delete all the nodes"));
+            assertTrue(e.getMessage(), e.getMessage().contains("relationships are left"));
+            locking.rollback();
+        }
+
+        testCall(db, "MATCH (n:Truncated) RETURN count(n) AS count, sum(CASE n.id WHEN 42 THEN 1 ELSE 0 END) AS locked", row -> {
+            assertTrue(((Number) row.get("count")).longValue() >= 1);
+            assertEquals(1L, row.get("locked"));
+        });
+    }
+
     @Test
     public void testTruncateWithDropSchema() {
         createDatasetForTruncate();
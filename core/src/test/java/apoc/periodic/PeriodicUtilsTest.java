@@ -3,11 +3,15 @@ package apoc.periodic;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import static apoc.periodic.PeriodicUtils.prepareInnerStatement;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PeriodicUtilsTest {
@@ -67,4 +71,40 @@ public class PeriodicUtilsTest {
         assertEquals("UNWIND $_batch AS batch WITH batch.x AS x SET x:Actor", prepared.getLeft());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void sameKeyAlwaysSameLane() {
+        for (int i = 0; i < 100; i++) {
+            int lane = PeriodicUtils.laneOf("key" + i, 8);
+            assertTrue(lane >= 0 && lane < 8);
+            assertEquals(lane, PeriodicUtils.laneOf("key" + i, 8));
+        }
+        assertEquals(PeriodicUtils.laneOf(null, 8), PeriodicUtils.laneOf(null, 8));
+    }
+
+    @Test
+    public void batchParametersOverlayCountAndBatchOnTheRow() {
+        List<Map<String, Object>> batch = List.of(Map.of("id", 1, "_count", "ignored"), Map.of("id", 2));
+        BatchParameters params = new BatchParameters(batch);
+
+        assertEquals(Map.of("id", 1, "_count", 10L, "_batch", batch), new HashMap<>(params.reset(batch.get(0), 10L)));
+        assertEquals(Map.of("id", 2, "_count", 11L, "_batch", batch), new HashMap<>(params.reset(batch.get(1), 11L)));
+        assertEquals(3, params.size());
+        assertEquals(Map.of("_count", 12L, "_batch", batch), new HashMap<>(params.reset(null, 12L)));
+    }
+
+    @Test
+    public void batchBuffersAreRecycled() {
+        BatchBuffers buffers = new BatchBuffers(1);
+        Iterator<Map<String, Object>> rows = List.<Map<String, Object>>of(Map.of("id", 1), Map.of("id", 2), Map.of("id", 3)).iterator();
+
+        List<Map<String, Object>> first = buffers.take(rows, 2);
+        assertEquals(List.of(Map.of("id", 1), Map.of("id", 2)), first);
+        buffers.release(first);
+        assertTrue(first.isEmpty());
+
+        List<Map<String, Object>> second = buffers.take(rows, 2);
+        assertSame(first, second);
+        assertEquals(List.of(Map.of("id", 3)), second);
+    }
+
+}
@@ -242,6 +242,25 @@ public class UtilsTest {
                 r -> assertEquals(COMPLEX_STRING, r.get("value"))
         );
 
+        TestUtil.testCall(db,
+                "WITH apoc.util.compress($text, {compression: 'FRAMED_LZ4'}) AS compressed RETURN apoc.util.decompress(compressed, {compression: 'FRAMED_LZ4'}) AS value",
+                map("text", COMPLEX_STRING),
+                r -> assertEquals(COMPLEX_STRING, r.get("value"))
+        );
+
+        TestUtil.testCall(db,
+                "WITH apoc.util.compress($text, {compression: 'ZSTD'}) AS compressed RETURN apoc.util.decompress(compressed, {compression: 'ZSTD'}) AS value",
+                map("text", COMPLEX_STRING),
+                r -> assertEquals(COMPLEX_STRING, r.get("value"))
+        );
+
+        TestUtil.testCall(db,
+                "WITH apoc.util.compress($text, {compression: 'ZSTD', compressionLevel: 19, compressionLongWindow: true, compressionThreads: 2}) AS compressed " +
+                "RETURN apoc.util.decompress(compressed, {compression: 'ZSTD'}) AS value",
+                map("text", COMPLEX_STRING),
+                r -> assertEquals(COMPLEX_STRING, r.get("value"))
+        );
+
         TestUtil.testCall(db,
                 "WITH apoc.util.compress($text, {compression: 'NONE'}) AS compressed RETURN apoc.util.decompress(compressed, {compression: 'NONE'}) AS value",
                 map("text", COMPLEX_STRING),